@@ -0,0 +1,104 @@
+/*
+[004][熔斷器]EndpointCircuitBreaker
+功能說明: 單一端點的lock-free熔斷器狀態 (CLOSED/OPEN/HALF_OPEN)，由EndpointLatencyRecorder持有
+Input: LibraryCircuitBreaker的跳脫、探測與放行判斷
+Output: 目前狀態、狀態起始時間、跳脫次數、拒絕次數
+*/
+package com.jamestann.test.library.actuator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 端點熔斷器
+ * <p>
+ * 狀態以不可變的Phase物件表示，只在狀態轉換時建立並以CAS替換；
+ * 請求路徑先做一次volatile讀取，CLOSED時直接放行，只有OPEN/HALF_OPEN才需要進一步判斷
+ */
+public final class EndpointCircuitBreaker {
+
+    /**
+     * 熔斷器狀態
+     */
+    public enum State {
+        /**
+         * 正常放行
+         */
+        CLOSED,
+        /**
+         * 拒絕所有請求，直到重試時間
+         */
+        OPEN,
+        /**
+         * 放行有限數量的探測請求，全部成功則關閉，任一失敗則重新打開
+         */
+        HALF_OPEN
+    }
+
+    private static final AtomicReferenceFieldUpdater<EndpointCircuitBreaker, Phase> PHASE =
+            AtomicReferenceFieldUpdater.newUpdater(EndpointCircuitBreaker.class, Phase.class, "phase");
+
+    private volatile Phase phase = new Phase(State.CLOSED, 0L, 0L, 0);
+    private final LongAdder rejectedCount = new LongAdder();
+    private final AtomicInteger tripCount = new AtomicInteger();
+
+    EndpointCircuitBreaker() {
+    }
+
+    public State getState() {
+        return phase.state;
+    }
+
+    /**
+     * @return 進入目前狀態的時間 (epoch毫秒)，從未轉換過時為0
+     */
+    public long getStateSinceMillis() {
+        return phase.sinceMillis;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public int getTripCount() {
+        return tripCount.get();
+    }
+
+    Phase phase() {
+        return phase;
+    }
+
+    boolean transition(Phase expected, Phase next) {
+        return PHASE.compareAndSet(this, expected, next);
+    }
+
+    void onTrip() {
+        tripCount.incrementAndGet();
+    }
+
+    void onRejected() {
+        rejectedCount.increment();
+    }
+
+    /**
+     * 不可變的狀態階段
+     * OPEN時deadlineNanos為開始探測的時間；HALF_OPEN時為探測逾時、重新發出探測許可的時間；
+     * CLOSED時為忽略跳脫的寬限結束時間 (剛關閉時視窗仍含故障期間的資料)
+     */
+    static final class Phase {
+        final State state;
+        final long sinceMillis;
+        final long deadlineNanos;
+        final AtomicInteger probePermits;
+        final AtomicInteger probesPassed;
+
+        Phase(State state, long sinceMillis, long deadlineNanos, int probes) {
+            this.state = state;
+            this.sinceMillis = sinceMillis;
+            this.deadlineNanos = deadlineNanos;
+            this.probePermits = state == State.HALF_OPEN ? new AtomicInteger(probes) : null;
+            this.probesPassed = state == State.HALF_OPEN ? new AtomicInteger() : null;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+[004][併發限制]EndpointConcurrencyLimiter
+功能說明: 單一端點的lock-free自適應併發限制 (AIMD)，以端點latency-p95 SLO目標調整上限
+Input: 請求開始時的acquire()、結束時的release(耗時)
+Output: 放行/排隊/拒絕判斷，目前上限、進行中請求數、排隊數、拒絕次數
+*/
+/*
+Update History:
+[004][併發限制] - 新增不等待的acquireNow()，供不能park的Reactive事件迴圈執行緒使用
+*/
+package com.jamestann.test.library.actuator;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 端點併發限制器
+ * <p>
+ * acquire()以CAS增加進行中請求數，release()遞減並累加樣本，兩者都不使用鎖。
+ * 每個調整間隔由第一個以CAS搶到間隔起點的release()執行一次AIMD：
+ * 間隔內超過P95目標的請求多於5% (即P95超過目標) 時上限乘上backoffRatio，
+ * 否則當進行中請求數曾達上限的一半以上時上限加1；未設定P95目標時只做加法增長。
+ * <p>
+ * 超過上限的請求在maxQueue內可等待queueTimeout：等待者放入lock-free佇列並park，
+ * release()只喚醒佇列頭，被喚醒的請求仍須以CAS重新取得名額
+ */
+@Slf4j
+public final class EndpointConcurrencyLimiter {
+
+    /**
+     * 超過目標的請求比例高於此值時視為P95超過目標
+     */
+    private static final long SLOW_PERCENT_THRESHOLD = 5;
+
+    private static final AtomicIntegerFieldUpdater<EndpointConcurrencyLimiter> IN_FLIGHT =
+            AtomicIntegerFieldUpdater.newUpdater(EndpointConcurrencyLimiter.class, "inFlight");
+    private static final AtomicLongFieldUpdater<EndpointConcurrencyLimiter> WINDOW_START =
+            AtomicLongFieldUpdater.newUpdater(EndpointConcurrencyLimiter.class, "windowStartNanos");
+
+    private final EndpointLatencyRecorder recorder;
+    private final LibrarySLOPolicyIndex policyIndex;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+    private final long adjustIntervalNanos;
+    private final int minSamples;
+    private final double backoffRatio;
+
+    private volatile int limit;
+    private volatile int inFlight;
+    private volatile int peakInFlight;
+    private volatile long windowStartNanos;
+    private volatile long targetNanos;
+    private final LongAdder sampleCount = new LongAdder();
+    private final LongAdder slowCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param recorder    端點記錄器
+     * @param policyIndex SLO策略索引 (提供latency-p95目標)，null表示只做加法增長
+     * @param settings    合併後的限制參數
+     */
+    EndpointConcurrencyLimiter(EndpointLatencyRecorder recorder, LibrarySLOPolicyIndex policyIndex,
+            LibraryConcurrencyLimiter.Settings settings) {
+        this.recorder = recorder;
+        this.policyIndex = policyIndex;
+        this.minLimit = Math.max(1, settings.minLimit);
+        this.maxLimit = Math.max(minLimit, settings.maxLimit);
+        this.maxQueue = Math.max(0, settings.maxQueue);
+        this.queueTimeoutNanos = settings.queueTimeoutNanos;
+        this.adjustIntervalNanos = settings.adjustIntervalNanos;
+        this.minSamples = Math.max(1, settings.minSamples);
+        this.backoffRatio = settings.backoffRatio;
+        this.limit = Math.min(maxLimit, Math.max(minLimit, settings.initialLimit));
+        this.windowStartNanos = System.nanoTime();
+        this.targetNanos = currentTargetNanos();
+    }
+
+    /**
+     * 取得執行名額 (超過上限時依maxQueue/queueTimeout等待或立即拒絕)
+     *
+     * @return 是否取得名額；取得後必須呼叫release()
+     */
+    public boolean acquire() {
+        if (tryAcquire()) {
+            return true;
+        }
+        if (maxQueue > 0 && queueTimeoutNanos > 0L && await()) {
+            return true;
+        }
+        rejectedCount.increment();
+        return false;
+    }
+
+    /**
+     * 取得執行名額，超過上限時立即拒絕 (不使用maxQueue/queueTimeout；Reactive事件迴圈執行緒不能park等待)
+     *
+     * @return 是否取得名額；取得後必須呼叫release()
+     */
+    public boolean acquireNow() {
+        if (tryAcquire()) {
+            return true;
+        }
+        rejectedCount.increment();
+        return false;
+    }
+
+    /**
+     * 歸還執行名額並回報請求耗時
+     *
+     * @param durationNanos 請求耗時
+     */
+    public void release(long durationNanos) {
+        IN_FLIGHT.decrementAndGet(this);
+        sampleCount.increment();
+        long target = targetNanos;
+        if (target > 0L && durationNanos > target) {
+            slowCount.increment();
+        }
+        long now = System.nanoTime();
+        long start = windowStartNanos;
+        if (now - start >= adjustIntervalNanos && sampleCount.sum() >= minSamples
+                && WINDOW_START.compareAndSet(this, start, now)) {
+            adjust();
+        }
+        if (queued.get() > 0) {
+            signal();
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight;
+            if (current >= limit) {
+                return false;
+            }
+            if (IN_FLIGHT.compareAndSet(this, current, current + 1)) {
+                if (current + 1 > peakInFlight) {
+                    peakInFlight = current + 1;
+                }
+                return true;
+            }
+        }
+    }
+
+    private boolean await() {
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            return false;
+        }
+        Thread current = Thread.currentThread();
+        waiters.add(current);
+        boolean acquired = false;
+        try {
+            long deadline = System.nanoTime() + queueTimeoutNanos;
+            while (!(acquired = tryAcquire())) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L) {
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+            return acquired;
+        } finally {
+            waiters.remove(current);
+            queued.decrementAndGet();
+            if (!acquired && inFlight < limit) {
+                // 逾時前可能已收到喚醒，轉交給下一個等待者
+                signal();
+            }
+        }
+    }
+
+    private void signal() {
+        Thread waiter = waiters.peek();
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * AIMD調整 (每個間隔只由一個執行緒執行)
+     */
+    private void adjust() {
+        long samples = sampleCount.sumThenReset();
+        long slow = slowCount.sumThenReset();
+        int peak = peakInFlight;
+        peakInFlight = inFlight;
+        int current = limit;
+        int next = current;
+        if (slow * 100L > samples * SLOW_PERCENT_THRESHOLD) {
+            next = Math.max(minLimit, Math.min(current - 1, (int) (current * backoffRatio)));
+        } else if (peak * 2 >= current) {
+            next = Math.min(maxLimit, current + 1);
+        }
+        targetNanos = currentTargetNanos();
+        if (next != current) {
+            limit = next;
+            log.debug("Concurrency limit for {} changed {} -> {} ({} of {} requests over target)",
+                    recorder.getEndpoint(), current, next, slow, samples);
+            if (next > current && queued.get() > 0) {
+                signal();
+            }
+        }
+    }
+
+    private long currentTargetNanos() {
+        return policyIndex == null ? 0L : policyIndex.policyFor(recorder).getLatencyP95Micros() * 1_000L;
+    }
+}
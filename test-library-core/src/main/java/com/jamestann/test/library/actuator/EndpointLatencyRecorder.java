@@ -0,0 +1,344 @@
+/*
+[003][M1][SLI收集]EndpointLatencyRecorder
+功能說明: 單一端點的延遲與錯誤記錄器，熱路徑上只做分段計數器累加，不配置任何物件
+Input: 每次請求的執行時間(奈秒)與是否發生錯誤
+Output: 請求數、錯誤數、P50/P90/P95/P99 延遲快照
+*/
+/*
+Update History:
+[004][取樣監控] - 新增端點取樣間隔，未取樣請求只累加計數，取樣請求以間隔為權重寫入直方圖
+[004][SLO策略索引] - 新增收集器指派的連續索引與handler method，供LibrarySLOPolicyIndex以陣列查詢策略
+[004][動態配置] - 取樣間隔改為可於執行期更新
+[004][Off-Heap儲存] - 分段直方圖改由收集器提供的直方圖工廠建立 (heap或off-heap)
+[004][虛擬執行緒] - 說明分段選擇不依賴以執行緒為單位的狀態，虛擬執行緒同樣適用
+[004][熔斷器] - 每個端點持有自己的EndpointCircuitBreaker狀態
+[004][CPU與配置量] - 新增每次請求的CPU時間與配置量分段直方圖 (與延遲相同桶配置，第一次記錄時才建立)
+[004][SLI持久化] - 以端點名稱建立的記錄器 (還原的SLI視窗) 可於第一次請求時補上handler method
+[004][Off-Heap儲存] - 延遲、CPU時間與配置量改用StripedHistogram，從一個分段開始，只在寫入競爭時加倍到CPU數
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.metrics.LogLinearHistogram;
+import com.jamestann.test.library.metrics.StripedHistogram;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 端點延遲記錄器
+ * 請求數與錯誤數使用LongAdder分段累加；延遲分佈使用依寫入競爭加倍分段(stripe)的StripedHistogram，
+ * 低流量端點只佔一個直方圖，同時被多個執行緒寫入的端點才增加到CPU數個分段
+ */
+public final class EndpointLatencyRecorder {
+
+    /**
+     * 延遲直方圖的子桶位元數 (32以上每個2的次方區間16個線性子桶，相對誤差上限 1/2^4 = 6.25%)
+     */
+    public static final int LATENCY_SUB_BUCKET_BITS = 5;
+
+    /**
+     * 可追蹤的最大延遲(微秒)，約67秒，超過的值歸入最後一個桶
+     */
+    public static final long MAX_TRACKABLE_MICROS = (1L << 26) - 1;
+
+    private static final double[] SNAPSHOT_PERCENTILES = {50.0, 90.0, 95.0, 99.0};
+
+    private static final int MAX_STRIPES = 32;
+
+    /**
+     * 配置量直方圖的單位 (2^10位元組 = 1KiB)，以延遲桶配置可追蹤到約64GiB
+     */
+    static final int ALLOCATION_UNIT_SHIFT = 10;
+
+    private final int index;
+    private final String endpoint;
+    private volatile Method handlerMethod;
+    private volatile int samplingInterval;
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final StripedHistogram latency;
+    private final int maxStripes;
+    private final Supplier<LogLinearHistogram> histogramFactory;
+    private volatile ResourceStripes resources;
+    private final EndpointCircuitBreaker circuitBreaker = new EndpointCircuitBreaker();
+
+    public EndpointLatencyRecorder(String endpoint) {
+        this(endpoint, 1);
+    }
+
+    /**
+     * @param endpoint         端點名稱
+     * @param samplingInterval 延遲取樣間隔 (每N個請求記錄1次)，1表示不取樣
+     */
+    public EndpointLatencyRecorder(String endpoint, int samplingInterval) {
+        this(-1, endpoint, null, samplingInterval, Runtime.getRuntime().availableProcessors(),
+                EndpointLatencyRecorder::newLatencyHistogram);
+    }
+
+    EndpointLatencyRecorder(String endpoint, int samplingInterval, int concurrencyHint) {
+        this(-1, endpoint, null, samplingInterval, concurrencyHint, EndpointLatencyRecorder::newLatencyHistogram);
+    }
+
+    /**
+     * @param index            收集器指派的連續索引，-1表示未由收集器建立
+     * @param endpoint         端點名稱
+     * @param handlerMethod    對應的handler method，可能為null
+     * @param samplingInterval 延遲取樣間隔
+     * @param concurrencyHint  預期同時記錄的執行緒數 (分段數上限)
+     * @param histogramFactory 延遲直方圖工廠 (桶配置須與newLatencyHistogram()相同)
+     */
+    EndpointLatencyRecorder(int index, String endpoint, Method handlerMethod, int samplingInterval, int concurrencyHint,
+            Supplier<LogLinearHistogram> histogramFactory) {
+        this.index = index;
+        this.endpoint = endpoint;
+        this.handlerMethod = handlerMethod;
+        this.samplingInterval = Math.max(1, samplingInterval);
+        this.maxStripes = Math.min(concurrencyHint, MAX_STRIPES);
+        this.latency = new StripedHistogram(histogramFactory, maxStripes);
+        this.histogramFactory = histogramFactory;
+    }
+
+    /**
+     * 建立延遲專用(微秒)的直方圖，所有延遲SLI共用同一桶配置以便合併與相減
+     *
+     * @return 空的延遲直方圖
+     */
+    public static LogLinearHistogram newLatencyHistogram() {
+        return new LogLinearHistogram(LATENCY_SUB_BUCKET_BITS, MAX_TRACKABLE_MICROS);
+    }
+
+    /**
+     * 記錄一次請求 (熱路徑，不配置物件)
+     *
+     * @param durationNanos 請求執行時間(奈秒)
+     * @param error         請求是否以例外結束
+     */
+    public void record(long durationNanos, boolean error) {
+        record(durationNanos, error, 1);
+    }
+
+    /**
+     * 記錄一次被取樣的請求 (熱路徑，不配置物件)
+     * 延遲以取樣間隔為權重寫入，使直方圖總數與百分位數代表全體請求
+     *
+     * @param durationNanos 請求執行時間(奈秒)
+     * @param error         請求是否以例外結束
+     * @param weight        取樣權重 (當下的有效取樣間隔)
+     */
+    public void record(long durationNanos, boolean error, int weight) {
+        recordUnsampled(error);
+        latency.recordCount(durationNanos / 1_000L, weight);
+    }
+
+    /**
+     * 記錄一次未被取樣的請求，只累加請求數與錯誤數
+     *
+     * @param error 請求是否以例外結束
+     */
+    public void recordUnsampled(boolean error) {
+        requestCount.increment();
+        if (error) {
+            errorCount.increment();
+        }
+    }
+
+    /**
+     * 記錄一次請求的CPU時間與配置量 (熱路徑，除第一次建立分段外不配置物件)
+     * CPU時間以微秒、配置量以KiB寫入與延遲相同桶配置的直方圖，負值表示該項無法量測而略過
+     *
+     * @param cpuNanos       請求使用的執行緒CPU時間(奈秒)
+     * @param allocatedBytes 請求配置的位元組數
+     * @param weight         取樣權重 (當下的有效取樣間隔)
+     */
+    public void recordResources(long cpuNanos, long allocatedBytes, int weight) {
+        ResourceStripes current = resources;
+        if (current == null) {
+            current = createResources();
+        }
+        if (cpuNanos >= 0L) {
+            current.cpuSamples.add(weight);
+            current.cpuNanos.add(cpuNanos * weight);
+            current.cpuTime.recordCount(cpuNanos / 1_000L, weight);
+        }
+        if (allocatedBytes >= 0L) {
+            current.allocationSamples.add(weight);
+            current.allocatedBytes.add(allocatedBytes * weight);
+            current.allocation.recordCount(allocatedBytes >>> ALLOCATION_UNIT_SHIFT, weight);
+        }
+    }
+
+    /**
+     * @return 是否曾記錄過CPU時間或配置量
+     */
+    public boolean hasResourceSamples() {
+        return resources != null;
+    }
+
+    /**
+     * @return 累計CPU時間樣本數 (以取樣權重計)
+     */
+    public long getCpuSampleCount() {
+        ResourceStripes current = resources;
+        return current == null ? 0L : current.cpuSamples.sum();
+    }
+
+    /**
+     * @return 累計CPU時間(奈秒，以取樣權重推估)
+     */
+    public long getCpuTimeNanos() {
+        ResourceStripes current = resources;
+        return current == null ? 0L : current.cpuNanos.sum();
+    }
+
+    /**
+     * @return 累計配置量樣本數 (以取樣權重計)
+     */
+    public long getAllocationSampleCount() {
+        ResourceStripes current = resources;
+        return current == null ? 0L : current.allocationSamples.sum();
+    }
+
+    /**
+     * @return 累計配置位元組數 (以取樣權重推估)
+     */
+    public long getAllocatedBytes() {
+        ResourceStripes current = resources;
+        return current == null ? 0L : current.allocatedBytes.sum();
+    }
+
+    /**
+     * 將所有分段的累計CPU時間分佈(微秒)合併到目標直方圖
+     *
+     * @param target 延遲桶配置的直方圖，會先被清除
+     */
+    public void copyCpuTimeInto(LogLinearHistogram target) {
+        ResourceStripes current = resources;
+        if (current != null) {
+            current.cpuTime.copyInto(target);
+        } else {
+            target.reset();
+        }
+    }
+
+    /**
+     * 將所有分段的累計配置量分佈(KiB)合併到目標直方圖
+     *
+     * @param target 延遲桶配置的直方圖，會先被清除
+     */
+    public void copyAllocationInto(LogLinearHistogram target) {
+        ResourceStripes current = resources;
+        if (current != null) {
+            current.allocation.copyInto(target);
+        } else {
+            target.reset();
+        }
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    void setSamplingInterval(int samplingInterval) {
+        this.samplingInterval = Math.max(1, samplingInterval);
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    Method getHandlerMethod() {
+        return handlerMethod;
+    }
+
+    /**
+     * 為以端點名稱建立的記錄器補上handler method，已有handler method時不變更
+     *
+     * @param method Controller handler method
+     * @return 是否補上
+     */
+    synchronized boolean bindHandlerMethod(Method method) {
+        if (handlerMethod != null) {
+            return false;
+        }
+        handlerMethod = method;
+        return true;
+    }
+
+    public EndpointCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    /**
+     * 將所有分段的累計延遲分佈合併到目標直方圖
+     *
+     * @param target 延遲直方圖，會先被清除
+     */
+    public void copyLatencyInto(LogLinearHistogram target) {
+        latency.copyInto(target);
+    }
+
+    /**
+     * 延遲直方圖目前的分段數 (依寫入競爭增加)
+     */
+    int getLatencyStripeCount() {
+        return latency.getStripeCount();
+    }
+
+    /**
+     * 合併所有分段並計算延遲百分位數
+     *
+     * @return 端點延遲快照
+     */
+    public EndpointLatencySnapshot snapshot() {
+        LogLinearHistogram merged = newLatencyHistogram();
+        copyLatencyInto(merged);
+        long[] percentiles = new long[SNAPSHOT_PERCENTILES.length];
+        merged.getValuesAtPercentiles(SNAPSHOT_PERCENTILES, percentiles);
+        return new EndpointLatencySnapshot(
+                endpoint,
+                requestCount.sum(),
+                errorCount.sum(),
+                percentiles[0],
+                percentiles[1],
+                percentiles[2],
+                percentiles[3]
+        );
+    }
+
+    private synchronized ResourceStripes createResources() {
+        if (resources == null) {
+            resources = new ResourceStripes(maxStripes, histogramFactory);
+        }
+        return resources;
+    }
+
+    /**
+     * CPU時間與配置量的分段直方圖，分段數上限與延遲相同
+     */
+    private static final class ResourceStripes {
+        private final StripedHistogram cpuTime;
+        private final StripedHistogram allocation;
+        private final LongAdder cpuSamples = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAdder allocationSamples = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        private ResourceStripes(int maxStripes, Supplier<LogLinearHistogram> histogramFactory) {
+            this.cpuTime = new StripedHistogram(histogramFactory, maxStripes);
+            this.allocation = new StripedHistogram(histogramFactory, maxStripes);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+[003][M1][SLI收集]EndpointLatencySnapshot
+功能說明: 端點延遲SLI的不可變快照 (Golden Signals中的延遲、流量、錯誤)
+Input: EndpointLatencyRecorder合併後的計數
+Output: 請求數、錯誤數、P50/P90/P95/P99(微秒)
+*/
+package com.jamestann.test.library.actuator;
+
+/**
+ * 端點延遲快照類別
+ */
+public class EndpointLatencySnapshot {
+    private final String endpoint;
+    private final long requestCount;
+    private final long errorCount;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p95Micros;
+    private final long p99Micros;
+
+    public EndpointLatencySnapshot(String endpoint, long requestCount, long errorCount,
+            long p50Micros, long p90Micros, long p95Micros, long p99Micros) {
+        this.endpoint = endpoint;
+        this.requestCount = requestCount;
+        this.errorCount = errorCount;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p95Micros = p95Micros;
+        this.p99Micros = p99Micros;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP95Micros() {
+        return p95Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EndpointLatencySnapshot{endpoint='%s', requests=%d, errors=%d, p50=%dus, p90=%dus, p95=%dus, p99=%dus}",
+                endpoint, requestCount, errorCount, p50Micros, p90Micros, p95Micros, p99Micros);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+[003][M1][SLI收集]EndpointNameResolver
+功能說明: 由Controller方法的RequestMapping解析端點名稱 (例如 "GET /api/demo/health")
+Input: Controller handler method
+Output: 端點名稱字串
+*/
+package com.jamestann.test.library.actuator;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.lang.reflect.Method;
+
+/**
+ * 端點名稱解析工具
+ * 只在每個handler method第一次被呼叫時執行，結果由LibrarySLICollector快取
+ */
+final class EndpointNameResolver {
+
+    private EndpointNameResolver() {
+    }
+
+    /**
+     * 解析端點名稱
+     *
+     * @param method Controller handler method
+     * @return "HTTP方法 路徑"，無RequestMapping時回傳 "類別名稱#方法名稱"
+     */
+    static String resolve(Method method) {
+        RequestMapping methodMapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+        if (methodMapping == null) {
+            return method.getDeclaringClass().getSimpleName() + "#" + method.getName();
+        }
+        RequestMapping typeMapping = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), RequestMapping.class);
+        String path = joinPaths(firstPath(typeMapping), firstPath(methodMapping));
+        if (methodMapping.method().length == 0) {
+            return path;
+        }
+        return methodMapping.method()[0].name() + " " + path;
+    }
+
+    private static String firstPath(RequestMapping mapping) {
+        if (mapping == null || mapping.path().length == 0) {
+            return "";
+        }
+        return mapping.path()[0];
+    }
+
+    private static String joinPaths(String prefix, String path) {
+        StringBuilder joined = new StringBuilder();
+        appendSegment(joined, prefix);
+        appendSegment(joined, path);
+        return joined.length() == 0 ? "/" : joined.toString();
+    }
+
+    private static void appendSegment(StringBuilder joined, String segment) {
+        if (segment.isEmpty() || "/".equals(segment)) {
+            return;
+        }
+        if (segment.charAt(0) != '/') {
+            joined.append('/');
+        }
+        joined.append(segment.endsWith("/") ? segment.substring(0, segment.length() - 1) : segment);
+    }
+}
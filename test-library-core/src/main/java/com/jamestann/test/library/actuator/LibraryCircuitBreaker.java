@@ -0,0 +1,188 @@
+/*
+[004][熔斷器]LibraryCircuitBreaker
+功能說明: 以端點滑動視窗的SLO違反驅動的熔斷器，決定每個請求放行、探測或拒絕
+Input: circuit-breaker違反處理器的跳脫要求、LibraryMetricsAspect的放行判斷與探測結果
+Output: 各端點EndpointCircuitBreaker的狀態轉換
+*/
+/*
+Update History:
+[004][熔斷器] - 記錄未關閉的熔斷器數量，供LibraryWebFilter判斷是否需要在handler執行前查詢路由
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.config.TestLibraryProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Library熔斷器
+ * <p>
+ * 跳脫不在請求路徑上判斷：彙總執行緒以1m/5m/1h視窗評估SLO (error-rate、latency-p95、availability)，
+ * 違反事件經SLAViolationProcessor送到circuit-breaker處理器後才呼叫trip()。
+ * 請求路徑的acquire()在CLOSED時只有一次volatile讀取；OPEN到期後第一個請求以CAS轉為HALF_OPEN，
+ * 之後只放行halfOpenProbes個探測請求，全部成功 (無例外且未超過端點P95目標) 則關閉，任一失敗則重新打開。
+ * 剛關閉時評估視窗仍包含故障期間的資料，因此一個評估視窗長度內忽略新的跳脫要求
+ */
+@Slf4j
+public class LibraryCircuitBreaker {
+
+    /**
+     * 放行 (一般請求)
+     */
+    public static final int PERMITTED = 0;
+
+    /**
+     * 放行，且此請求為HALF_OPEN探測，完成後須呼叫onProbeResult()
+     */
+    public static final int PROBE = 1;
+
+    /**
+     * 拒絕
+     */
+    public static final int REJECTED = 2;
+
+    private final LibrarySLOPolicyIndex policyIndex;
+    private final long openNanos;
+    private final long closeGraceNanos;
+    private final int halfOpenProbes;
+    private final AtomicInteger openCircuits = new AtomicInteger();
+
+    /**
+     * @param config           熔斷器配置
+     * @param policyIndex      端點SLO策略索引 (探測請求以端點P95目標判斷是否成功)，null表示只看例外
+     * @param evaluationWindow SLO評估視窗長度 (關閉後的跳脫寬限時間)
+     */
+    public LibraryCircuitBreaker(TestLibraryProperties.CircuitBreakerConfig config, LibrarySLOPolicyIndex policyIndex,
+            Duration evaluationWindow) {
+        this.policyIndex = policyIndex;
+        this.openNanos = config.getOpenDuration().toNanos();
+        this.closeGraceNanos = evaluationWindow.toNanos();
+        this.halfOpenProbes = Math.max(1, config.getHalfOpenProbes());
+    }
+
+    /**
+     * 判斷請求是否放行 (熱路徑)
+     *
+     * @param recorder 端點記錄器
+     * @return PERMITTED、PROBE或REJECTED
+     */
+    public int acquire(EndpointLatencyRecorder recorder) {
+        EndpointCircuitBreaker breaker = recorder.getCircuitBreaker();
+        EndpointCircuitBreaker.Phase phase = breaker.phase();
+        if (phase.state == EndpointCircuitBreaker.State.CLOSED) {
+            return PERMITTED;
+        }
+        return acquireSlow(recorder, breaker, phase);
+    }
+
+    /**
+     * 是否有任何端點的熔斷器未關閉 (OPEN或HALF_OPEN)，只有一次volatile讀取
+     *
+     * @return 有未關閉的熔斷器時為true
+     */
+    public boolean hasOpenCircuits() {
+        return openCircuits.get() > 0;
+    }
+
+    /**
+     * 回報探測請求的結果
+     *
+     * @param recorder      端點記錄器
+     * @param durationNanos 請求耗時
+     * @param error         是否以例外結束
+     */
+    public void onProbeResult(EndpointLatencyRecorder recorder, long durationNanos, boolean error) {
+        EndpointCircuitBreaker breaker = recorder.getCircuitBreaker();
+        EndpointCircuitBreaker.Phase phase = breaker.phase();
+        if (phase.state != EndpointCircuitBreaker.State.HALF_OPEN) {
+            return;
+        }
+        long targetMicros = policyIndex == null ? 0L : policyIndex.policyFor(recorder).getLatencyP95Micros();
+        boolean passed = !error && (targetMicros <= 0L || durationNanos / 1_000L <= targetMicros);
+        if (!passed) {
+            if (breaker.transition(phase, open())) {
+                breaker.onTrip();
+                log.warn("Circuit breaker for {} re-opened after a failed probe ({}ms, error={})",
+                        recorder.getEndpoint(), TimeUnit.NANOSECONDS.toMillis(durationNanos), error);
+            }
+        } else if (phase.probesPassed.incrementAndGet() == halfOpenProbes
+                && breaker.transition(phase, new EndpointCircuitBreaker.Phase(EndpointCircuitBreaker.State.CLOSED,
+                        System.currentTimeMillis(), System.nanoTime() + closeGraceNanos, 0))) {
+            openCircuits.decrementAndGet();
+            log.info("Circuit breaker for {} closed after {} successful probes", recorder.getEndpoint(), halfOpenProbes);
+        }
+    }
+
+    /**
+     * 歸還未執行的探測許可 (探測請求在執行前被併發限制等其他機制拒絕時呼叫)，讓下一個請求接手探測；
+     * 未歸還時該許可要等探測逾時 (openDuration) 後才會重新發出
+     *
+     * @param recorder 端點記錄器
+     */
+    public void releaseProbe(EndpointLatencyRecorder recorder) {
+        EndpointCircuitBreaker.Phase phase = recorder.getCircuitBreaker().phase();
+        if (phase.state != EndpointCircuitBreaker.State.HALF_OPEN) {
+            return;
+        }
+        // 許可用完後acquire的getAndDecrement會讓計數變成負值，歸還時從0起算
+        while (true) {
+            int permits = phase.probePermits.get();
+            if (phase.probePermits.compareAndSet(permits, Math.max(permits, 0) + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 打開端點熔斷器 (已打開、探測中或剛關閉的寬限期間內不動作)
+     *
+     * @param recorder 端點記錄器
+     * @return 是否由此次呼叫打開
+     */
+    public boolean trip(EndpointLatencyRecorder recorder) {
+        EndpointCircuitBreaker breaker = recorder.getCircuitBreaker();
+        EndpointCircuitBreaker.Phase phase = breaker.phase();
+        if (phase.state != EndpointCircuitBreaker.State.CLOSED
+                || (phase.sinceMillis != 0L && System.nanoTime() - phase.deadlineNanos < 0L)) {
+            return false;
+        }
+        if (!breaker.transition(phase, open())) {
+            return false;
+        }
+        openCircuits.incrementAndGet();
+        breaker.onTrip();
+        return true;
+    }
+
+    private int acquireSlow(EndpointLatencyRecorder recorder, EndpointCircuitBreaker breaker,
+            EndpointCircuitBreaker.Phase phase) {
+        while (true) {
+            if (phase.state == EndpointCircuitBreaker.State.CLOSED) {
+                return PERMITTED;
+            }
+            if (phase.state == EndpointCircuitBreaker.State.HALF_OPEN && phase.probePermits.getAndDecrement() > 0) {
+                return PROBE;
+            }
+            // OPEN到期，或HALF_OPEN的探測在openDuration內未全部完成 (例如探測請求卡住) 時重新發出探測許可
+            if (System.nanoTime() - phase.deadlineNanos < 0L) {
+                breaker.onRejected();
+                return REJECTED;
+            }
+            EndpointCircuitBreaker.Phase halfOpen = new EndpointCircuitBreaker.Phase(EndpointCircuitBreaker.State.HALF_OPEN,
+                    System.currentTimeMillis(), System.nanoTime() + openNanos, halfOpenProbes - 1);
+            if (breaker.transition(phase, halfOpen)) {
+                log.info("Circuit breaker for {} half-open, probing with {} requests", recorder.getEndpoint(), halfOpenProbes);
+                return PROBE;
+            }
+            phase = breaker.phase();
+        }
+    }
+
+    private EndpointCircuitBreaker.Phase open() {
+        return new EndpointCircuitBreaker.Phase(EndpointCircuitBreaker.State.OPEN, System.currentTimeMillis(),
+                System.nanoTime() + openNanos, 0);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+[004][熔斷器]LibraryCircuitOpenException
+功能說明: 端點熔斷器打開時拒絕請求的例外
+Input: 被拒絕的端點名稱
+Output: HTTP 503 (Service Unavailable)
+*/
+package com.jamestann.test.library.actuator;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 熔斷器拒絕例外
+ * 熔斷器打開時每個被拒絕的請求都會拋出，因此不填入堆疊追蹤，拒絕路徑只配置例外物件本身
+ */
+public class LibraryCircuitOpenException extends ResponseStatusException {
+
+    private final String endpoint;
+
+    public LibraryCircuitOpenException(String endpoint) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Circuit breaker open for " + endpoint);
+        this.endpoint = endpoint;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+[004][併發限制]LibraryConcurrencyLimitException
+功能說明: 端點進行中請求數超過自適應併發上限時拒絕請求的例外
+Input: 被拒絕的端點名稱、當下的併發上限
+Output: HTTP 503 (Service Unavailable)
+*/
+package com.jamestann.test.library.actuator;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 併發限制拒絕例外
+ * 過載時每個被拒絕的請求都會拋出，因此與LibraryCircuitOpenException相同不填入堆疊追蹤
+ */
+public class LibraryConcurrencyLimitException extends ResponseStatusException {
+
+    private final String endpoint;
+    private final int limit;
+
+    public LibraryConcurrencyLimitException(String endpoint, int limit) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Concurrency limit " + limit + " reached for " + endpoint);
+        this.endpoint = endpoint;
+        this.limit = limit;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
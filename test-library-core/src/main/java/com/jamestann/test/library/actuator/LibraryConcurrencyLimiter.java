@@ -0,0 +1,176 @@
+/*
+[004][併發限制]LibraryConcurrencyLimiter
+功能說明: 決定哪些端點受自適應併發限制，並以端點記錄器索引保存各端點的EndpointConcurrencyLimiter
+Input: TestLibraryProperties.ConcurrencyLimitConfig、@LibraryConcurrencyLimit註解、LibrarySLOPolicyIndex
+Output: 端點的EndpointConcurrencyLimiter (未受限制的端點為null)
+*/
+/*
+Update History:
+[004][併發限制] - 新增isLimited()，不建立記錄器即可判斷handler method是否受限制 (LibraryWebFilter啟動時掃描路由用)
+[004][SLI持久化] - 新增invalidate()，記錄器補上handler method後重新解析其@LibraryConcurrencyLimit
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.annotation.LibraryConcurrencyLimit;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Library併發限制器
+ * <p>
+ * 端點第一次查詢時解析一次 (方法/類別上的@LibraryConcurrencyLimit，或配置的endpoints列表)，
+ * 結果寫入以記錄器索引定位的陣列槽位；之後的查詢只有一次陣列讀取。
+ * 未受限制的端點存放NONE哨兵，同樣不再解析
+ */
+@Slf4j
+public class LibraryConcurrencyLimiter {
+
+    private static final EndpointConcurrencyLimiter[] EMPTY_TABLE = new EndpointConcurrencyLimiter[0];
+
+    private static final int INITIAL_TABLE_SIZE = 64;
+
+    private final TestLibraryProperties.ConcurrencyLimitConfig config;
+    private final LibrarySLOPolicyIndex policyIndex;
+    private final EndpointConcurrencyLimiter none;
+
+    private volatile EndpointConcurrencyLimiter[] byRecorder = EMPTY_TABLE;
+    private final Map<String, EndpointConcurrencyLimiter> unindexed = new ConcurrentHashMap<>();
+
+    /**
+     * @param config      併發限制配置
+     * @param policyIndex 端點SLO策略索引 (提供latency-p95目標)，null表示上限只做加法增長
+     */
+    public LibraryConcurrencyLimiter(TestLibraryProperties.ConcurrencyLimitConfig config,
+            LibrarySLOPolicyIndex policyIndex) {
+        this.config = config;
+        this.policyIndex = policyIndex;
+        this.none = new EndpointConcurrencyLimiter(null, null, settingsFor(null));
+    }
+
+    /**
+     * 取得端點的併發限制器 (熱路徑：一次陣列讀取)
+     *
+     * @param recorder 端點記錄器
+     * @return 併發限制器；端點未受限制時為null
+     */
+    public EndpointConcurrencyLimiter limiterFor(EndpointLatencyRecorder recorder) {
+        int index = recorder.getIndex();
+        EndpointConcurrencyLimiter[] table = byRecorder;
+        EndpointConcurrencyLimiter limiter = index >= 0 && index < table.length ? table[index] : null;
+        if (limiter == null) {
+            limiter = index >= 0 ? cacheLimiter(recorder)
+                    : unindexed.computeIfAbsent(recorder.getEndpoint(), endpoint -> create(recorder));
+        }
+        return limiter == none ? null : limiter;
+    }
+
+    /**
+     * 判斷handler method是否受併發限制 (不建立記錄器與限制器，供啟動時掃描路由)
+     *
+     * @param handlerMethod Controller handler method
+     * @return 方法/類別上有@LibraryConcurrencyLimit，或端點列在endpoints配置中
+     */
+    public boolean isLimited(Method handlerMethod) {
+        return annotationOf(handlerMethod) != null || isConfigured(EndpointNameResolver.resolve(handlerMethod));
+    }
+
+    /**
+     * 丟棄記錄器已快取的限制器，下次查詢重新解析 (記錄器補上handler method時呼叫)；
+     * 已取得名額的請求仍向原限制器歸還
+     *
+     * @param recorder 端點記錄器
+     */
+    public synchronized void invalidate(EndpointLatencyRecorder recorder) {
+        int index = recorder.getIndex();
+        if (index < 0) {
+            unindexed.remove(recorder.getEndpoint());
+            return;
+        }
+        EndpointConcurrencyLimiter[] table = byRecorder;
+        if (index < table.length) {
+            table[index] = null;
+            byRecorder = table;
+        }
+    }
+
+    private synchronized EndpointConcurrencyLimiter cacheLimiter(EndpointLatencyRecorder recorder) {
+        int index = recorder.getIndex();
+        EndpointConcurrencyLimiter[] table = byRecorder;
+        if (index < table.length && table[index] != null) {
+            return table[index];
+        }
+        EndpointConcurrencyLimiter limiter = create(recorder);
+        if (index >= table.length) {
+            table = Arrays.copyOf(table, Math.max(index + 1, Math.max(INITIAL_TABLE_SIZE, table.length * 2)));
+        }
+        table[index] = limiter;
+        byRecorder = table;
+        return limiter;
+    }
+
+    private EndpointConcurrencyLimiter create(EndpointLatencyRecorder recorder) {
+        Method handlerMethod = recorder.getHandlerMethod();
+        LibraryConcurrencyLimit annotation = handlerMethod == null ? null : annotationOf(handlerMethod);
+        if (annotation == null && !isConfigured(recorder.getEndpoint())) {
+            return none;
+        }
+        Settings settings = settingsFor(annotation);
+        log.info("Adaptive concurrency limit enabled for {} (initial {}, max {}, queue {})",
+                recorder.getEndpoint(), settings.initialLimit, settings.maxLimit, settings.maxQueue);
+        return new EndpointConcurrencyLimiter(recorder, policyIndex, settings);
+    }
+
+    private static LibraryConcurrencyLimit annotationOf(Method handlerMethod) {
+        LibraryConcurrencyLimit annotation = AnnotatedElementUtils.findMergedAnnotation(handlerMethod,
+                LibraryConcurrencyLimit.class);
+        return annotation != null ? annotation
+                : AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getDeclaringClass(), LibraryConcurrencyLimit.class);
+    }
+
+    private boolean isConfigured(String endpoint) {
+        if (config.getEndpoints().contains(endpoint)) {
+            return true;
+        }
+        int space = endpoint.indexOf(' ');
+        return space > 0 && config.getEndpoints().contains(endpoint.substring(space + 1));
+    }
+
+    /**
+     * 合併限制參數: concurrency-limit配置 → @LibraryConcurrencyLimit
+     */
+    private Settings settingsFor(LibraryConcurrencyLimit annotation) {
+        Settings settings = new Settings();
+        settings.initialLimit = annotation != null && annotation.initialLimit() > 0
+                ? annotation.initialLimit() : config.getInitialLimit();
+        settings.minLimit = config.getMinLimit();
+        settings.maxLimit = annotation != null && annotation.maxLimit() > 0 ? annotation.maxLimit() : config.getMaxLimit();
+        settings.maxQueue = annotation != null && annotation.maxQueue() >= 0 ? annotation.maxQueue() : config.getMaxQueue();
+        settings.queueTimeoutNanos = (annotation != null && !annotation.queueTimeout().isEmpty()
+                ? DurationStyle.detectAndParse(annotation.queueTimeout()) : config.getQueueTimeout()).toNanos();
+        settings.adjustIntervalNanos = config.getAdjustInterval().toNanos();
+        settings.minSamples = config.getMinSamples();
+        settings.backoffRatio = config.getBackoffRatio();
+        return settings;
+    }
+
+    /**
+     * 單一端點合併後的限制參數
+     */
+    static final class Settings {
+        int initialLimit;
+        int minLimit;
+        int maxLimit;
+        int maxQueue;
+        long queueTimeoutNanos;
+        long adjustIntervalNanos;
+        int minSamples;
+        double backoffRatio;
+    }
+}
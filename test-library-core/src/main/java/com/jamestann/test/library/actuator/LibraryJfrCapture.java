@@ -0,0 +1,297 @@
+/*
+[004][JFR擷取]LibraryJfrCapture
+功能說明: SLA違反時以jdk.jfr API開始有時間上限的JFR錄製，標記觸發端點，並限制錄製頻率與磁碟用量
+Input: TestLibraryProperties.JfrCaptureConfig、SLAViolationEvent
+Output: 錄製目錄下的.jfr檔案、JfrRecordingInfo列表
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.model.JfrRecordingInfo;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Library JFR錄製
+ * <p>
+ * 只在違反發生時付出錄製成本：同一時間最多一個錄製，兩次錄製開始至少相隔minInterval；
+ * 錄製以setDuration()自動停止並寫出到目的檔，不需要額外的排程執行緒。
+ * 每次錄製的資料量上限為maxDiskUsage的四分之一，開始前刪除目錄內最舊的.jfr檔案，讓總用量不超過maxDiskUsage。
+ * <p>
+ * 錄製名稱與檔名含觸發端點，錄製開始後再提交一筆LibraryViolationJfrEvent記錄違反內容。
+ * 由SLA違反分派執行緒與Actuator端點呼叫，以此物件同步
+ */
+@Slf4j
+public class LibraryJfrCapture implements DisposableBean {
+
+    /**
+     * 錄製名稱前綴
+     */
+    public static final String RECORDING_PREFIX = "test-library:";
+
+    private static final String FILE_SUFFIX = ".jfr";
+    private static final int MAX_FILE_ENDPOINT_LENGTH = 80;
+    private static final int MAX_TRACKED_CAPTURES = 100;
+    private static final long MIN_RECORDING_BYTES = 1024L * 1024L;
+    private static final DateTimeFormatter FILE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
+
+    private final Path directory;
+    private final Duration duration;
+    private final long minIntervalNanos;
+    private final long maxDiskBytes;
+    private final String settings;
+    private final Deque<Capture> captures = new ArrayDeque<>();
+
+    private Capture active;
+    private long lastStartNanos;
+    private boolean started;
+    private boolean unavailableLogged;
+
+    public LibraryJfrCapture(TestLibraryProperties.JfrCaptureConfig config) {
+        String configured = config.getDirectory();
+        this.directory = configured == null || configured.trim().isEmpty()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "test-library-jfr") : Paths.get(configured);
+        this.duration = config.getDuration();
+        this.minIntervalNanos = config.getMinInterval().toNanos();
+        this.maxDiskBytes = config.getMaxDiskUsage().toBytes();
+        this.settings = config.getSettings();
+    }
+
+    /**
+     * 為違反事件開始錄製 (錄製中、間隔未到或JFR不可用時略過)
+     *
+     * @param violation 觸發錄製的違反事件
+     * @return 新錄製的資訊，略過時為null
+     */
+    public synchronized JfrRecordingInfo capture(SLAViolationEvent violation) {
+        closeFinished();
+        long now = System.nanoTime();
+        if (active != null && active.isRecording()) {
+            log.debug("JFR recording {} still running, skipping capture for {}", active.name, violation.getEndpoint());
+            return null;
+        }
+        if (started && now - lastStartNanos < minIntervalNanos) {
+            log.debug("JFR capture for {} skipped, last capture started {}s ago", violation.getEndpoint(),
+                    TimeUnit.NANOSECONDS.toSeconds(now - lastStartNanos));
+            return null;
+        }
+        if (!FlightRecorder.isAvailable()) {
+            if (!unavailableLogged) {
+                unavailableLogged = true;
+                log.warn("JDK Flight Recorder is not available in this JVM, jfr-capture is disabled");
+            }
+            return null;
+        }
+        long recordingBytes = Math.max(MIN_RECORDING_BYTES, maxDiskBytes / 4);
+        Path file = directory.resolve(FILE_TIMESTAMP.format(Instant.now()) + '-'
+                + fileSafe(violation.getEndpoint()) + FILE_SUFFIX);
+        Recording recording = null;
+        try {
+            Files.createDirectories(directory);
+            enforceDiskUsage(maxDiskBytes - recordingBytes);
+            recording = new Recording(Configuration.getConfiguration(settings));
+            recording.setName(RECORDING_PREFIX + violation.getEndpoint());
+            recording.setToDisk(true);
+            recording.setMaxSize(recordingBytes);
+            recording.setDuration(duration);
+            recording.setDestination(file);
+            recording.start();
+        } catch (IOException | ParseException | RuntimeException e) {
+            if (recording != null) {
+                recording.close();
+            }
+            log.warn("Failed to start JFR recording for {}: {}", violation.getEndpoint(), e.toString());
+            return null;
+        }
+        tag(violation);
+        started = true;
+        lastStartNanos = now;
+        active = new Capture(recording, violation, file, System.currentTimeMillis(), duration.getSeconds());
+        captures.addLast(active);
+        while (captures.size() > MAX_TRACKED_CAPTURES) {
+            captures.removeFirst();
+        }
+        log.warn("Started {}s JFR recording for {} ({}) -> {}", duration.getSeconds(), violation.getEndpoint(),
+                violation.getViolationType(), file);
+        return active.info();
+    }
+
+    /**
+     * 列出此行程開始過的錄製 (新的在前)
+     *
+     * @return 錄製資訊
+     */
+    public synchronized List<JfrRecordingInfo> list() {
+        closeFinished();
+        List<JfrRecordingInfo> infos = new ArrayList<>(captures.size());
+        Iterator<Capture> newestFirst = captures.descendingIterator();
+        while (newestFirst.hasNext()) {
+            infos.add(newestFirst.next().info());
+        }
+        return infos;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 關閉時停止進行中的錄製 (停止時會寫出已錄製的部分) 並釋放所有錄製
+     */
+    @Override
+    public synchronized void destroy() {
+        for (Capture capture : captures) {
+            if (capture.isRecording()) {
+                try {
+                    capture.recording.stop();
+                } catch (IllegalStateException e) {
+                    // 已自動停止
+                }
+            }
+            capture.recording.close();
+        }
+    }
+
+    /**
+     * 釋放已停止錄製的記憶體與暫存檔 (目的檔已在停止時寫出)
+     */
+    private void closeFinished() {
+        for (Capture capture : captures) {
+            if (capture.recording.getState() == RecordingState.STOPPED) {
+                capture.recording.close();
+            }
+        }
+    }
+
+    /**
+     * 由舊到新刪除目錄內的.jfr檔案，直到總大小不超過limitBytes
+     */
+    private void enforceDiskUsage(long limitBytes) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        long total = 0L;
+        List<FileEntry> entries = new ArrayList<>(files.size());
+        for (Path file : files) {
+            FileEntry entry = new FileEntry(file, Files.size(file), Files.getLastModifiedTime(file).toMillis());
+            entries.add(entry);
+            total += entry.size;
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.lastModified));
+        for (FileEntry entry : entries) {
+            if (total <= limitBytes) {
+                break;
+            }
+            Files.deleteIfExists(entry.file);
+            total -= entry.size;
+            for (Capture capture : captures) {
+                if (capture.file.equals(entry.file)) {
+                    capture.deleted = true;
+                }
+            }
+            log.info("Deleted JFR recording {} ({} bytes) to stay within {} bytes", entry.file, entry.size, maxDiskBytes);
+        }
+    }
+
+    private static void tag(SLAViolationEvent violation) {
+        LibraryViolationJfrEvent event = new LibraryViolationJfrEvent();
+        event.endpoint = violation.getEndpoint();
+        event.violationType = violation.getViolationType().name();
+        event.currentValue = violation.getCurrentValue();
+        event.threshold = violation.getThreshold();
+        event.window = violation.getWindow().getLabel();
+        event.commit();
+    }
+
+    private static String fileSafe(String endpoint) {
+        String safe = endpoint.replaceAll("[^A-Za-z0-9._-]+", "_");
+        return safe.length() > MAX_FILE_ENDPOINT_LENGTH ? safe.substring(0, MAX_FILE_ENDPOINT_LENGTH) : safe;
+    }
+
+    private static final class Capture {
+        private final Recording recording;
+        private final String name;
+        private final String endpoint;
+        private final String violationType;
+        private final Path file;
+        private final long startedAt;
+        private final long durationSeconds;
+        private boolean deleted;
+
+        private Capture(Recording recording, SLAViolationEvent violation, Path file, long startedAt,
+                long durationSeconds) {
+            this.recording = recording;
+            this.name = recording.getName();
+            this.endpoint = violation.getEndpoint();
+            this.violationType = violation.getViolationType().name();
+            this.file = file;
+            this.startedAt = startedAt;
+            this.durationSeconds = durationSeconds;
+        }
+
+        private boolean isRecording() {
+            RecordingState state = recording.getState();
+            return state == RecordingState.NEW || state == RecordingState.DELAYED || state == RecordingState.RUNNING;
+        }
+
+        private JfrRecordingInfo info() {
+            String state;
+            long size = 0L;
+            if (deleted) {
+                state = "DELETED";
+            } else if (isRecording()) {
+                state = "RECORDING";
+            } else {
+                try {
+                    size = Files.size(file);
+                    state = "COMPLETED";
+                } catch (IOException e) {
+                    state = "FAILED";
+                }
+            }
+            return new JfrRecordingInfo(name, endpoint, violationType, file.toString(), startedAt, durationSeconds,
+                    size, state);
+        }
+    }
+
+    private static final class FileEntry {
+        private final Path file;
+        private final long size;
+        private final long lastModified;
+
+        private FileEntry(Path file, long size, long lastModified) {
+            this.file = file;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+[003][M1][SLI收集]LibraryMetricsAspect
+功能說明: 攔截Controller方法，記錄每次請求的延遲與錯誤
+Input: @RestController / @Controller 的方法呼叫
+Output: 寫入LibrarySLICollector的端點記錄器
+*/
+/*
+Update History:
+[004][Log標準化] - 啟用Log標準化時同時輸出結構化存取日誌
+[004][取樣監控] - 依LibrarySamplingPolicy取樣，未取樣請求不計時也不輸出存取日誌，只累加請求數與錯誤數
+[004][虛擬執行緒] - 可選擇在LibraryRequestContext範圍內執行Controller方法 (ScopedValue或ThreadLocal)
+[004][熔斷器] - 執行前詢問LibraryCircuitBreaker，熔斷器打開時以LibraryCircuitOpenException拒絕，半開探測請求一律計時
+[004][併發限制] - 受限制端點執行前向EndpointConcurrencyLimiter取得名額，超過上限時以LibraryConcurrencyLimitException拒絕，請求一律計時 (權重1)；探測請求被併發限制拒絕時歸還探測許可
+[004][CPU與配置量] - 啟用LibraryResourceAccounting時，取樣請求前後讀取執行緒CPU時間與配置量，差值寫入端點記錄器
+[004][取樣監控] - 改以builder建構，取代逐次增加參數的多載建構子
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.context.LibraryRequestContext;
+import com.jamestann.test.library.logging.LibraryStructuredLogger;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Metrics AOP切面
+ * 使用System.nanoTime()計時，記錄路徑只有一次Map查詢與分段計數器累加；
+ * 存取日誌只寫入LibraryStructuredLogger預先配置的槽位，同樣不配置物件；
+ * 取樣間隔N大於1時，以ThreadLocalRandom決定是否取樣，未取樣的請求連nanoTime都不呼叫；
+ * 記錄器分段與取樣都不保存以執行緒為單位的狀態，在虛擬執行緒上同樣適用；
+ * 熔斷器關閉時放行判斷只多一次volatile讀取，未受併發限制的端點只多一次陣列讀取；
+ * 資源計量每次取樣請求多兩次ThreadMXBean讀取 (執行緒CPU時計讀取明顯比nanoTime昂貴)，因此預設關閉，並與延遲共用取樣
+ */
+@Aspect
+public class LibraryMetricsAspect {
+
+    private final LibrarySLICollector collector;
+    private final LibraryStructuredLogger accessLogger;
+    private final boolean propagateContext;
+    private final LibraryCircuitBreaker circuitBreaker;
+    private final LibraryConcurrencyLimiter concurrencyLimiter;
+    private final LibraryResourceAccounting resourceAccounting;
+
+    private LibraryMetricsAspect(Builder builder) {
+        this.collector = builder.collector;
+        this.accessLogger = builder.accessLogger;
+        this.propagateContext = builder.propagateContext;
+        this.circuitBreaker = builder.circuitBreaker;
+        this.concurrencyLimiter = builder.concurrencyLimiter;
+        this.resourceAccounting = builder.resourceAccounting;
+    }
+
+    /**
+     * @param collector SLI數據收集器
+     * @return 只記錄SLI、其餘功能皆未啟用的建構器
+     */
+    public static Builder builder(LibrarySLICollector collector) {
+        return new Builder(collector);
+    }
+
+    @Around("@within(org.springframework.web.bind.annotation.RestController) "
+            + "|| @within(org.springframework.stereotype.Controller)")
+    public Object monitorRequest(ProceedingJoinPoint joinPoint) throws Throwable {
+        EndpointLatencyRecorder recorder = collector.recorderFor(((MethodSignature) joinPoint.getSignature()).getMethod());
+        int permit = circuitBreaker == null ? LibraryCircuitBreaker.PERMITTED : circuitBreaker.acquire(recorder);
+        if (permit == LibraryCircuitBreaker.REJECTED) {
+            throw new LibraryCircuitOpenException(recorder.getEndpoint());
+        }
+        EndpointConcurrencyLimiter limiter = concurrencyLimiter == null ? null : concurrencyLimiter.limiterFor(recorder);
+        if (limiter != null && !limiter.acquire()) {
+            if (permit == LibraryCircuitBreaker.PROBE) {
+                circuitBreaker.releaseProbe(recorder);
+            }
+            throw new LibraryConcurrencyLimitException(recorder.getEndpoint(), limiter.getLimit());
+        }
+        // 探測與受併發限制的請求一律計時，沒有經過取樣，以權重1記錄
+        int weight = 1;
+        if (permit == LibraryCircuitBreaker.PERMITTED && limiter == null) {
+            int interval = collector.getSamplingPolicy().effectiveInterval(recorder);
+            if (interval > 1 && ThreadLocalRandom.current().nextInt(interval) != 0) {
+                return proceedUnsampled(joinPoint, recorder);
+            }
+            weight = interval;
+        }
+        long startCpu = resourceAccounting == null ? -1L : resourceAccounting.currentThreadCpuTime();
+        long startAllocated = resourceAccounting == null ? -1L : resourceAccounting.currentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        boolean error = true;
+        try {
+            Object result = proceed(joinPoint, recorder);
+            error = false;
+            return result;
+        } finally {
+            long duration = System.nanoTime() - start;
+            if (limiter != null) {
+                limiter.release(duration);
+            }
+            recorder.record(duration, error, weight);
+            if (resourceAccounting != null) {
+                recordResources(recorder, startCpu, startAllocated, weight);
+            }
+            if (accessLogger != null) {
+                accessLogger.logAccess(recorder.getEndpoint(), duration, error);
+            }
+            if (permit == LibraryCircuitBreaker.PROBE) {
+                circuitBreaker.onProbeResult(recorder, duration, error);
+            }
+        }
+    }
+
+    /**
+     * 開始或結束任一讀數為負值 (不支援、虛擬執行緒) 時該項不記錄
+     */
+    private void recordResources(EndpointLatencyRecorder recorder, long startCpu, long startAllocated, int weight) {
+        long endCpu = startCpu < 0L ? -1L : resourceAccounting.currentThreadCpuTime();
+        long endAllocated = startAllocated < 0L ? -1L : resourceAccounting.currentThreadAllocatedBytes();
+        recorder.recordResources(endCpu < 0L ? -1L : endCpu - startCpu,
+                endAllocated < 0L ? -1L : endAllocated - startAllocated, weight);
+    }
+
+    private Object proceedUnsampled(ProceedingJoinPoint joinPoint, EndpointLatencyRecorder recorder) throws Throwable {
+        boolean error = true;
+        try {
+            Object result = proceed(joinPoint, recorder);
+            error = false;
+            return result;
+        } finally {
+            recorder.recordUnsampled(error);
+        }
+    }
+
+    private Object proceed(ProceedingJoinPoint joinPoint, EndpointLatencyRecorder recorder) throws Throwable {
+        return propagateContext ? LibraryRequestContext.call(recorder.getEndpoint(), joinPoint::proceed) : joinPoint.proceed();
+    }
+
+    /**
+     * LibraryMetricsAspect建構器，未設定的選用功能一律不啟用
+     */
+    public static final class Builder {
+        private final LibrarySLICollector collector;
+        private LibraryStructuredLogger accessLogger;
+        private boolean propagateContext;
+        private LibraryCircuitBreaker circuitBreaker;
+        private LibraryConcurrencyLimiter concurrencyLimiter;
+        private LibraryResourceAccounting resourceAccounting;
+
+        private Builder(LibrarySLICollector collector) {
+            this.collector = collector;
+        }
+
+        /**
+         * @param accessLogger 結構化存取日誌，null表示不輸出
+         */
+        public Builder accessLogger(LibraryStructuredLogger accessLogger) {
+            this.accessLogger = accessLogger;
+            return this;
+        }
+
+        /**
+         * @param propagateContext 是否在LibraryRequestContext範圍內執行Controller方法
+         */
+        public Builder propagateContext(boolean propagateContext) {
+            this.propagateContext = propagateContext;
+            return this;
+        }
+
+        /**
+         * @param circuitBreaker 端點熔斷器，null表示不啟用
+         */
+        public Builder circuitBreaker(LibraryCircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        /**
+         * @param concurrencyLimiter 自適應併發限制，null表示不啟用
+         */
+        public Builder concurrencyLimiter(LibraryConcurrencyLimiter concurrencyLimiter) {
+            this.concurrencyLimiter = concurrencyLimiter;
+            return this;
+        }
+
+        /**
+         * @param resourceAccounting 每次請求CPU時間與配置量計量，null表示不啟用
+         */
+        public Builder resourceAccounting(LibraryResourceAccounting resourceAccounting) {
+            this.resourceAccounting = resourceAccounting;
+            return this;
+        }
+
+        public LibraryMetricsAspect build() {
+            return new LibraryMetricsAspect(this);
+        }
+    }
+}
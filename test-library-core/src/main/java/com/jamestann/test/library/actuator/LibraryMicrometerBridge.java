@@ -0,0 +1,198 @@
+/*
+[004][Micrometer橋接]LibraryMicrometerBridge
+功能說明: 將Library的端點SLI以預先註冊的Micrometer量表發佈，數值由SLI彙總執行緒定期批次推送
+Input: LibrarySLIAggregator每個匯出週期的端點記錄器與滑動視窗、LibrarySLOPolicyIndex的端點SLO
+Output: 每個端點一組FunctionCounter/Gauge (請求數、錯誤數、視窗延遲分位數、錯誤率、SLO目標)
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.model.SLOConfig;
+import com.jamestann.test.library.metrics.RollingSLIWindow;
+import com.jamestann.test.library.metrics.SLISlice;
+import com.jamestann.test.library.metrics.SLIWindow;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Library Micrometer橋接器
+ * <p>
+ * 請求路徑完全不接觸Micrometer：每個端點第一次匯出時註冊一次量表 (以收集器指派的連續索引存放，
+ * 與LibrarySLOPolicyIndex的策略表相同)，之後彙總執行緒每個匯出週期把記錄器與滑動視窗的數值寫入
+ * 量表讀取的欄位。量表讀取只是欄位讀取，scrape成本只與端點數有關，與請求量無關。
+ * <p>
+ * 同一端點的各量表數值來自同一次匯出，但scrape可能剛好落在一次匯出的中途 (個別欄位仍是完整的值)；
+ * 未設定的SLO目標發佈為NaN
+ */
+@Slf4j
+public class LibraryMicrometerBridge implements MeterBinder, LibrarySLIExporter {
+
+    private static final double[] PERCENTILES = {50.0, 90.0, 95.0, 99.0};
+
+    private static final String[] QUANTILE_TAGS = {"0.5", "0.9", "0.95", "0.99"};
+
+    private final String libraryName;
+    private final SLIWindow window;
+    private final long stepMillis;
+    private final LibrarySLOPolicyIndex policyIndex;
+    private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+    private final long[] percentiles = new long[PERCENTILES.length];
+
+    private EndpointMeters[] meters = new EndpointMeters[64];
+    private long lastBatchMillis;
+
+    /**
+     * @param libraryName Library名稱 (library標籤)
+     * @param window      延遲分位數與錯誤率所用的滑動視窗
+     * @param step        推送間隔 (不小於彙總tick間隔)
+     * @param policyIndex 端點SLO策略索引，null表示不發佈SLO目標
+     */
+    public LibraryMicrometerBridge(String libraryName, SLIWindow window, Duration step, LibrarySLOPolicyIndex policyIndex) {
+        this.libraryName = libraryName;
+        this.window = window;
+        this.stepMillis = step.toMillis();
+        this.policyIndex = policyIndex;
+    }
+
+    /**
+     * 綁定Registry，並為已知端點補註冊量表 (可綁定多個Registry)
+     */
+    @Override
+    public synchronized void bindTo(MeterRegistry registry) {
+        registries.add(registry);
+        for (EndpointMeters endpoint : meters) {
+            if (endpoint != null) {
+                endpoint.registerTo(registry);
+            }
+        }
+    }
+
+    @Override
+    public boolean beginBatch(long nowMillis) {
+        if (registries.isEmpty() || nowMillis - lastBatchMillis < stepMillis) {
+            return false;
+        }
+        lastBatchMillis = nowMillis;
+        return true;
+    }
+
+    @Override
+    public void export(EndpointLatencyRecorder recorder, RollingSLIWindow rolling) {
+        int index = recorder.getIndex();
+        if (index < 0) {
+            return;
+        }
+        EndpointMeters endpoint = index < meters.length ? meters[index] : null;
+        if (endpoint == null) {
+            endpoint = register(index, recorder.getEndpoint());
+        }
+        SLISlice slice = rolling.get(window);
+        slice.getLatency().getValuesAtPercentiles(PERCENTILES, percentiles);
+        for (int i = 0; i < percentiles.length; i++) {
+            endpoint.latencyMicros.set(i, percentiles[i]);
+        }
+        endpoint.errorRatio = slice.getErrorRatePercent() / 100.0;
+        endpoint.requests = recorder.getRequestCount();
+        endpoint.errors = recorder.getErrorCount();
+        if (policyIndex != null) {
+            SLOConfig slo = policyIndex.policyFor(recorder);
+            endpoint.latencyTargetMicros = slo.getLatencyP95Micros() > 0 ? slo.getLatencyP95Micros() : Double.NaN;
+            endpoint.availabilityTarget = slo.getAvailability() / 100.0;
+        }
+    }
+
+    /**
+     * 已註冊量表的端點數
+     */
+    public synchronized int getEndpointCount() {
+        int count = 0;
+        for (EndpointMeters endpoint : meters) {
+            if (endpoint != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 端點第一次匯出時註冊量表 (由彙總執行緒呼叫，與bindTo()互斥)
+     */
+    private synchronized EndpointMeters register(int index, String endpointName) {
+        if (index >= meters.length) {
+            meters = Arrays.copyOf(meters, Math.max(index + 1, meters.length * 2));
+        }
+        EndpointMeters endpoint = new EndpointMeters(Tags.of("library", libraryName, "endpoint", endpointName));
+        for (MeterRegistry registry : registries) {
+            endpoint.registerTo(registry);
+        }
+        meters[index] = endpoint;
+        log.debug("Registered Micrometer meters for endpoint {}", endpointName);
+        return endpoint;
+    }
+
+    /**
+     * 單一端點的量表數值 (彙總執行緒寫入，scrape執行緒讀取)
+     */
+    private final class EndpointMeters {
+        private final Tags tags;
+        private final AtomicLongArray latencyMicros = new AtomicLongArray(PERCENTILES.length);
+        private volatile long requests;
+        private volatile long errors;
+        private volatile double errorRatio;
+        private volatile double latencyTargetMicros = Double.NaN;
+        private volatile double availabilityTarget = Double.NaN;
+
+        private EndpointMeters(Tags tags) {
+            this.tags = tags;
+        }
+
+        private void registerTo(MeterRegistry registry) {
+            String windowLabel = window.getLabel();
+            FunctionCounter.builder("library.sli.requests", this, state -> state.requests)
+                    .description("Requests handled by the endpoint")
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("library.sli.errors", this, state -> state.errors)
+                    .description("Requests that completed with an error")
+                    .tags(tags)
+                    .register(registry);
+            for (int i = 0; i < QUANTILE_TAGS.length; i++) {
+                int quantile = i;
+                TimeGauge.builder("library.sli.latency", this, TimeUnit.MICROSECONDS,
+                                state -> state.latencyMicros.get(quantile))
+                        .description("Endpoint latency quantile over the sliding window")
+                        .tags(tags)
+                        .tag("window", windowLabel)
+                        .tag("quantile", QUANTILE_TAGS[i])
+                        .register(registry);
+            }
+            Gauge.builder("library.sli.error.ratio", this, state -> state.errorRatio)
+                    .description("Error ratio over the sliding window")
+                    .tags(tags)
+                    .tag("window", windowLabel)
+                    .register(registry);
+            if (policyIndex != null) {
+                TimeGauge.builder("library.slo.latency.target", this, TimeUnit.MICROSECONDS,
+                                state -> state.latencyTargetMicros)
+                        .description("P95 latency objective of the endpoint")
+                        .tags(tags)
+                        .register(registry);
+                Gauge.builder("library.slo.availability.target", this, state -> state.availabilityTarget)
+                        .description("Availability objective of the endpoint")
+                        .tags(tags)
+                        .register(registry);
+            }
+        }
+    }
+}
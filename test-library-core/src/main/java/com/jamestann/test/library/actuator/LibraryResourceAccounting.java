@@ -0,0 +1,107 @@
+/*
+[004][CPU與配置量]LibraryResourceAccounting
+功能說明: 讀取目前執行緒的CPU時間與累計配置位元組，供LibraryMetricsAspect在請求前後相減
+Input: JVM的ThreadMXBean (com.sun.management擴充介面提供配置量)
+Output: 目前執行緒CPU時間(奈秒)、累計配置位元組，不支援時為-1
+*/
+package com.jamestann.test.library.actuator;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * 請求資源計量
+ * <p>
+ * 建立時確認並開啟JVM的執行緒CPU時間與配置量量測，JVM不支援的項目固定回傳-1，
+ * 呼叫端以任一讀數為負值判斷該次請求不記錄。
+ * 兩個讀數都只對目前平台執行緒有意義：虛擬執行緒不支援執行緒CPU時間，
+ * Reactive請求會在不同執行緒間切換，因此只由Servlet的LibraryMetricsAspect使用
+ */
+@Slf4j
+public class LibraryResourceAccounting {
+
+    private final ThreadMXBean threadMXBean;
+    private final com.sun.management.ThreadMXBean allocationMXBean;
+    private final boolean cpuTimeSupported;
+
+    public LibraryResourceAccounting() {
+        this(ManagementFactory.getThreadMXBean());
+    }
+
+    LibraryResourceAccounting(ThreadMXBean threadMXBean) {
+        this.threadMXBean = threadMXBean;
+        this.cpuTimeSupported = enableCpuTime(threadMXBean);
+        this.allocationMXBean = enableAllocatedMemory(threadMXBean);
+        log.info("Per-request resource accounting enabled (cpu time: {}, allocated bytes: {})",
+                cpuTimeSupported ? "supported" : "unsupported", allocationMXBean != null ? "supported" : "unsupported");
+    }
+
+    /**
+     * @return 目前執行緒已使用的CPU時間(奈秒)，不支援時為-1
+     */
+    public long currentThreadCpuTime() {
+        if (!cpuTimeSupported) {
+            return -1L;
+        }
+        try {
+            return threadMXBean.getCurrentThreadCpuTime();
+        } catch (UnsupportedOperationException e) {
+            // 虛擬執行緒
+            return -1L;
+        }
+    }
+
+    /**
+     * @return 目前執行緒累計配置的位元組數，不支援時為-1
+     */
+    public long currentThreadAllocatedBytes() {
+        if (allocationMXBean == null) {
+            return -1L;
+        }
+        return allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    public boolean isCpuTimeSupported() {
+        return cpuTimeSupported;
+    }
+
+    public boolean isAllocatedBytesSupported() {
+        return allocationMXBean != null;
+    }
+
+    private static boolean enableCpuTime(ThreadMXBean threadMXBean) {
+        if (!threadMXBean.isCurrentThreadCpuTimeSupported()) {
+            return false;
+        }
+        try {
+            if (!threadMXBean.isThreadCpuTimeEnabled()) {
+                threadMXBean.setThreadCpuTimeEnabled(true);
+            }
+            return true;
+        } catch (UnsupportedOperationException | SecurityException e) {
+            log.warn("Unable to enable thread CPU time measurement: {}", e.toString());
+            return false;
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean enableAllocatedMemory(ThreadMXBean threadMXBean) {
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if (!allocationMXBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        try {
+            if (!allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+                allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return allocationMXBean;
+        } catch (UnsupportedOperationException | SecurityException e) {
+            log.warn("Unable to enable thread allocated memory measurement: {}", e.toString());
+            return null;
+        }
+    }
+}
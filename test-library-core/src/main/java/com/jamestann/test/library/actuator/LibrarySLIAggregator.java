@@ -0,0 +1,364 @@
+/*
+[003][M2][SLI滑動視窗]LibrarySLIAggregator
+功能說明: 每秒一次的SLI彙總tick，推進各端點的滑動視窗並執行SLO評估
+Input: LibrarySLICollector中各端點的累計SLI、LibrarySLOChecker
+Output: 各端點1m/5m/1h滑動視窗、SLA違反事件
+*/
+/*
+Update History:
+[003][M4][SLO端點] - 每次tick結束後產生不可變SLI快照並發佈給LibrarySLISnapshotPublisher
+[004][取樣監控] - 每次tick量測自身排程延遲，交給LibrarySamplingPolicy做自適應取樣調整
+[004][SLO策略索引] - 每次tick由LibrarySLOPolicyIndex以陣列查詢端點SLO，配置重新編譯後立即生效
+[004][Off-Heap儲存] - 滑動視窗時間片使用收集器的直方圖工廠 (heap或off-heap)
+[004][SLI持久化] - 啟動時由SLI視窗檔案還原各端點視窗，並於彙總執行緒定期/關閉時寫出
+[004][SLI歷史] - 每完成一分鐘將端點分鐘時間片寫入SLIHistoryStore
+[004][Micrometer橋接] - 每次tick可將端點視窗交給LibrarySLIExporter批次匯出 (例如Micrometer量表)
+[004][熔斷器] - SLI快照附帶端點熔斷器狀態
+[004][CPU與配置量] - 端點有CPU時間或配置量樣本時，SLI快照附帶自啟動以來的資源使用百分位數
+[004][取樣監控] - 改以builder建構，取代逐次增加參數的多載建構子
+[003][M2][SLI滑動視窗] - 分鐘時間片改為稀疏儲存，寫入SLIHistoryStore前先填入共用的暫存時間片
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.model.EndpointResourceSnapshot;
+import com.jamestann.test.library.actuator.model.EndpointSLISnapshot;
+import com.jamestann.test.library.actuator.model.LibrarySLISnapshot;
+import com.jamestann.test.library.actuator.model.SLIWindowSnapshot;
+import com.jamestann.test.library.actuator.model.SLOConfig;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.history.SLIHistoryStore;
+import com.jamestann.test.library.metrics.LogLinearHistogram;
+import com.jamestann.test.library.metrics.RollingSLIWindow;
+import com.jamestann.test.library.metrics.SLISlice;
+import com.jamestann.test.library.metrics.SLIWindow;
+import com.jamestann.test.library.metrics.SLIWindowFile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * SLI彙總器
+ * 所有滑動視窗只在單一的彙總執行緒上修改，請求執行緒只寫入LibrarySLICollector的記錄器，
+ * 因此視窗推進與SLO評估不會與請求路徑競爭
+ */
+@Slf4j
+public class LibrarySLIAggregator implements InitializingBean, DisposableBean {
+
+    private static final long TICK_INTERVAL_MILLIS = 1_000L;
+
+    private static final double[] SNAPSHOT_PERCENTILES = {50.0, 90.0, 95.0, 99.0};
+
+    private static final SLIWindow[] SNAPSHOT_WINDOWS = SLIWindow.values();
+
+    private static final double[] RESOURCE_PERCENTILES = {50.0, 95.0, 99.0};
+
+    private final LibrarySLICollector collector;
+    private final LibrarySLOChecker sloChecker;
+    private final Consumer<SLAViolationEvent> violationSink;
+    private final LibrarySLISnapshotPublisher snapshotPublisher;
+    private final Map<EndpointLatencyRecorder, EndpointWindow> windows = new IdentityHashMap<>();
+    private final LogLinearHistogram cumulativeLatency = EndpointLatencyRecorder.newLatencyHistogram();
+    private final long[] percentiles = new long[SNAPSHOT_PERCENTILES.length];
+    private final LogLinearHistogram cumulativeResource = EndpointLatencyRecorder.newLatencyHistogram();
+    private final long[] cpuPercentiles = new long[RESOURCE_PERCENTILES.length];
+    private final long[] allocationPercentiles = new long[RESOURCE_PERCENTILES.length];
+    private final SLISlice lastMinute = new SLISlice(EndpointLatencyRecorder.newLatencyHistogram());
+
+    private final SLIHistoryStore historyStore;
+    private final LibrarySLIExporter exporter;
+    private final Path persistenceFile;
+    private final long flushIntervalMillis;
+    private final long maxRestoreAgeMillis;
+
+    private ScheduledExecutorService scheduler;
+    private long lastTickNanos;
+    private long lastFlushMillis;
+
+    private LibrarySLIAggregator(Builder builder) {
+        TestLibraryProperties.PersistenceConfig persistence = builder.persistence;
+        this.collector = builder.collector;
+        this.historyStore = builder.historyStore;
+        this.exporter = builder.exporter;
+        this.sloChecker = builder.sloChecker;
+        this.violationSink = builder.violationSink;
+        this.snapshotPublisher = builder.snapshotPublisher;
+        boolean persistent = persistence != null && persistence.getFile() != null && !persistence.getFile().trim().isEmpty();
+        this.persistenceFile = persistent ? Paths.get(persistence.getFile()) : null;
+        this.flushIntervalMillis = persistent ? Math.max(TICK_INTERVAL_MILLIS, persistence.getFlushInterval().toMillis()) : 0L;
+        this.maxRestoreAgeMillis = persistent ? persistence.getMaxAge().toMillis() : 0L;
+    }
+
+    /**
+     * @param collector SLI數據收集器
+     * @return 只推進滑動視窗、其餘功能皆未啟用的建構器
+     */
+    public static Builder builder(LibrarySLICollector collector) {
+        return new Builder(collector);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (persistenceFile != null) {
+            lastFlushMillis = System.currentTimeMillis();
+            restore(lastFlushMillis);
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "test-library-sli-aggregator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::safeTick, TICK_INTERVAL_MILLIS, TICK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        log.debug("SLI aggregator started with {}ms tick", TICK_INTERVAL_MILLIS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            if (persistenceFile != null && scheduler.awaitTermination(TICK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                flush(System.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * 推進所有端點的視窗一秒並評估SLO，有發佈器時再產生SLI快照、匯出器要求時再匯出 (僅能由彙總執行緒或測試呼叫)
+     */
+    public void tick() {
+        long now = System.currentTimeMillis();
+        adjustSampling();
+        boolean exporting = exporter != null && exporter.beginBatch(now);
+        List<EndpointSLISnapshot> snapshots = snapshotPublisher == null ? null : new ArrayList<>(windows.size() + 1);
+        for (EndpointLatencyRecorder recorder : collector.getRecorders()) {
+            EndpointWindow window = windows.get(recorder);
+            if (window == null) {
+                window = new EndpointWindow(collector.getHistogramFactory());
+                windows.put(recorder, window);
+            }
+            recorder.copyLatencyInto(cumulativeLatency);
+            boolean minuteRolled = window.rolling.advance(recorder.getRequestCount(), recorder.getErrorCount(), cumulativeLatency);
+            if (minuteRolled && historyStore != null) {
+                historyStore.append(recorder.getEndpoint(), now / 1_000L - 60L, window.rolling.getLastMinute(lastMinute));
+            }
+            if (sloChecker != null) {
+                SLOConfig slo = sloChecker.getPolicyIndex().policyFor(recorder);
+                sloChecker.evaluate(slo, window.rolling.get(sloChecker.getEvaluationWindow()), now, violationSink);
+            }
+            if (snapshots != null) {
+                snapshots.add(snapshotOf(recorder, window.rolling));
+            }
+            if (exporting) {
+                exporter.export(recorder, window.rolling);
+            }
+        }
+        if (snapshots != null) {
+            snapshotPublisher.publish(new LibrarySLISnapshot(now, snapshots));
+        }
+        if (persistenceFile != null && now - lastFlushMillis >= flushIntervalMillis) {
+            flush(now);
+        }
+    }
+
+    /**
+     * 將所有端點視窗寫入持久化檔案 (僅能由彙總執行緒、關閉流程或測試呼叫)
+     */
+    void flush(long now) {
+        lastFlushMillis = now;
+        Map<String, RollingSLIWindow> byEndpoint = new LinkedHashMap<>();
+        for (Map.Entry<EndpointLatencyRecorder, EndpointWindow> entry : windows.entrySet()) {
+            byEndpoint.put(entry.getKey().getEndpoint(), entry.getValue().rolling);
+        }
+        try {
+            long bytes = SLIWindowFile.write(persistenceFile, now, byEndpoint);
+            log.debug("Persisted SLI windows of {} endpoints to {} ({} bytes)", byEndpoint.size(), persistenceFile, bytes);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to persist SLI windows to {}: {}", persistenceFile, e.getMessage());
+        }
+    }
+
+    /**
+     * 由持久化檔案還原端點視窗，並依停機時間讓視窗老化；檔案過舊、損毀或格式不符時從空視窗開始
+     * (僅能在彙總執行緒啟動前呼叫)
+     */
+    void restore(long now) {
+        long started = System.nanoTime();
+        SLIWindowFile.Contents contents;
+        try {
+            contents = SLIWindowFile.read(persistenceFile, collector.getHistogramFactory());
+        } catch (IOException e) {
+            log.warn("Ignoring SLI window file {}: {}", persistenceFile, e.getMessage());
+            return;
+        }
+        if (contents == null) {
+            return;
+        }
+        long ageMillis = Math.max(0L, now - contents.getSavedAtMillis());
+        if (ageMillis > maxRestoreAgeMillis) {
+            log.info("SLI window file {} is {}s old, starting with empty windows", persistenceFile, ageMillis / 1_000L);
+            return;
+        }
+        for (Map.Entry<String, RollingSLIWindow> entry : contents.getWindows().entrySet()) {
+            EndpointLatencyRecorder recorder = collector.recorderFor(entry.getKey());
+            if (!windows.containsKey(recorder)) {
+                entry.getValue().skip(ageMillis / 1_000L);
+                windows.put(recorder, new EndpointWindow(entry.getValue()));
+            }
+        }
+        log.info("Restored SLI windows of {} endpoints from {} in {}ms", windows.size(), persistenceFile,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * 取得端點的滑動視窗 (僅能在彙總執行緒上讀取)
+     */
+    RollingSLIWindow windowFor(String endpoint) {
+        EndpointLatencyRecorder recorder = collector.recorderFor(endpoint);
+        EndpointWindow window = windows.get(recorder);
+        return window == null ? null : window.rolling;
+    }
+
+    /**
+     * 以tick間隔超出預定值的部分作為JVM飽和訊號 (GC停頓、CPU排隊都會讓彙總執行緒延後執行)
+     */
+    private void adjustSampling() {
+        long tickNanos = System.nanoTime();
+        long lagMillis = lastTickNanos == 0L ? 0L
+                : Math.max(0L, TimeUnit.NANOSECONDS.toMillis(tickNanos - lastTickNanos) - TICK_INTERVAL_MILLIS);
+        lastTickNanos = tickNanos;
+        collector.getSamplingPolicy().adjust(lagMillis);
+    }
+
+    private EndpointSLISnapshot snapshotOf(EndpointLatencyRecorder recorder, RollingSLIWindow rolling) {
+        List<SLIWindowSnapshot> windowSnapshots = new ArrayList<>(SNAPSHOT_WINDOWS.length);
+        for (SLIWindow sliWindow : SNAPSHOT_WINDOWS) {
+            SLISlice slice = rolling.get(sliWindow);
+            slice.getLatency().getValuesAtPercentiles(SNAPSHOT_PERCENTILES, percentiles);
+            windowSnapshots.add(new SLIWindowSnapshot(sliWindow, slice.getRequestCount(), slice.getErrorCount(),
+                    slice.getErrorRatePercent(), percentiles[0], percentiles[1], percentiles[2], percentiles[3]));
+        }
+        EndpointCircuitBreaker.State circuitState = recorder.getCircuitBreaker().getState();
+        return new EndpointSLISnapshot(recorder.getEndpoint(), windowSnapshots,
+                circuitState == EndpointCircuitBreaker.State.CLOSED ? null : circuitState.name(),
+                recorder.hasResourceSamples() ? resourcesOf(recorder) : null);
+    }
+
+    /**
+     * 資源使用取自啟動以來的累計直方圖，不另外維護滑動視窗；配置量直方圖以KiB記錄，輸出時換算為位元組
+     */
+    private EndpointResourceSnapshot resourcesOf(EndpointLatencyRecorder recorder) {
+        recorder.copyCpuTimeInto(cumulativeResource);
+        cumulativeResource.getValuesAtPercentiles(RESOURCE_PERCENTILES, cpuPercentiles);
+        recorder.copyAllocationInto(cumulativeResource);
+        cumulativeResource.getValuesAtPercentiles(RESOURCE_PERCENTILES, allocationPercentiles);
+        int unitShift = EndpointLatencyRecorder.ALLOCATION_UNIT_SHIFT;
+        return new EndpointResourceSnapshot(recorder.getCpuSampleCount(), recorder.getCpuTimeNanos() / 1_000L,
+                cpuPercentiles[0], cpuPercentiles[1], cpuPercentiles[2],
+                recorder.getAllocationSampleCount(), recorder.getAllocatedBytes(),
+                allocationPercentiles[0] << unitShift, allocationPercentiles[1] << unitShift,
+                allocationPercentiles[2] << unitShift);
+    }
+
+    private void safeTick() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            log.error("SLI aggregation tick failed", e);
+        }
+    }
+
+    private static final class EndpointWindow {
+        private final RollingSLIWindow rolling;
+
+        private EndpointWindow(Supplier<LogLinearHistogram> histogramFactory) {
+            this(new RollingSLIWindow(histogramFactory));
+        }
+
+        private EndpointWindow(RollingSLIWindow rolling) {
+            this.rolling = rolling;
+        }
+    }
+
+    /**
+     * LibrarySLIAggregator建構器，未設定的選用功能一律不啟用
+     */
+    public static final class Builder {
+        private final LibrarySLICollector collector;
+        private LibrarySLOChecker sloChecker;
+        private Consumer<SLAViolationEvent> violationSink = event -> { };
+        private LibrarySLISnapshotPublisher snapshotPublisher;
+        private TestLibraryProperties.PersistenceConfig persistence;
+        private SLIHistoryStore historyStore;
+        private LibrarySLIExporter exporter;
+
+        private Builder(LibrarySLICollector collector) {
+            this.collector = collector;
+        }
+
+        /**
+         * @param sloChecker SLO檢查器，null表示不評估SLO
+         */
+        public Builder sloChecker(LibrarySLOChecker sloChecker) {
+            this.sloChecker = sloChecker;
+            return this;
+        }
+
+        /**
+         * @param violationSink 違反事件接收者，預設丟棄
+         */
+        public Builder violationSink(Consumer<SLAViolationEvent> violationSink) {
+            this.violationSink = violationSink;
+            return this;
+        }
+
+        /**
+         * @param snapshotPublisher SLI快照發佈器，null表示不產生快照
+         */
+        public Builder snapshotPublisher(LibrarySLISnapshotPublisher snapshotPublisher) {
+            this.snapshotPublisher = snapshotPublisher;
+            return this;
+        }
+
+        /**
+         * @param persistence SLI視窗持久化配置，null或未設定檔案表示不持久化
+         */
+        public Builder persistence(TestLibraryProperties.PersistenceConfig persistence) {
+            this.persistence = persistence;
+            return this;
+        }
+
+        /**
+         * @param historyStore SLI歷史儲存，null表示不保存歷史
+         */
+        public Builder historyStore(SLIHistoryStore historyStore) {
+            this.historyStore = historyStore;
+            return this;
+        }
+
+        /**
+         * @param exporter SLI批次匯出器，null表示不匯出
+         */
+        public Builder exporter(LibrarySLIExporter exporter) {
+            this.exporter = exporter;
+            return this;
+        }
+
+        public LibrarySLIAggregator build() {
+            return new LibrarySLIAggregator(this);
+        }
+    }
+}
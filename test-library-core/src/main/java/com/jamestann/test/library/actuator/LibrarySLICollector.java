@@ -0,0 +1,200 @@
+/*
+[003][M1][SLI收集]LibrarySLICollector
+功能說明: Golden Signals SLI數據收集器，管理每個端點的延遲記錄器
+Input: LibraryMetricsAspect傳入的handler method與執行結果
+Output: 每個端點的延遲百分位數、請求數與錯誤數
+*/
+/*
+Update History:
+[004][取樣監控] - 持有LibrarySamplingPolicy，建立端點記錄器時套用端點取樣間隔
+[004][SLO策略索引] - 建立記錄器時指派連續索引並保留handler method
+[004][動態配置] - 新增reconfigure，執行期替換取樣策略並更新既有記錄器的取樣間隔
+[004][Off-Heap儲存] - 新增直方圖工廠 (heap/off-heap) 與端點數上限，超過上限的端點歸入OVERFLOW記錄器
+[004][SLI持久化] - 以名稱建立的記錄器 (還原的SLI視窗) 第一次經由handler method取得時補上handler method，並通知監聽者使快取失效
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.metrics.LogLinearHistogram;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * SLI數據收集器
+ * 每個handler method只在第一次呼叫時解析端點名稱，之後只有一次Map查詢即可取得記錄器。
+ * 端點數達到上限後，新出現的端點一律記錄到同一個OVERFLOW記錄器，記憶體用量不隨路由基數無限成長。
+ * 重新啟動後由SLI視窗檔案還原的端點先以名稱建立記錄器，第一次經由handler method取得時才補上handler method，
+ * 此時通知監聽者 (SLO策略索引、併發限制器) 丟棄在沒有註解資訊時建立的快取
+ */
+@Slf4j
+public class LibrarySLICollector {
+
+    /**
+     * 超過端點數上限後共用的記錄器名稱
+     */
+    public static final String OVERFLOW_ENDPOINT = "OVERFLOW";
+
+    private final ConcurrentMap<String, EndpointLatencyRecorder> recorders = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Method, EndpointLatencyRecorder> methodRecorders = new ConcurrentHashMap<>();
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final AtomicBoolean overflowReported = new AtomicBoolean();
+    private final List<Consumer<EndpointLatencyRecorder>> bindingListeners = new CopyOnWriteArrayList<>();
+    private final Supplier<LogLinearHistogram> histogramFactory;
+    private final int maxEndpoints;
+    private volatile LibrarySamplingPolicy samplingPolicy;
+
+    public LibrarySLICollector() {
+        this(LibrarySamplingPolicy.disabled());
+    }
+
+    /**
+     * @param samplingPolicy 效能監控取樣策略
+     */
+    public LibrarySLICollector(LibrarySamplingPolicy samplingPolicy) {
+        this(samplingPolicy, EndpointLatencyRecorder::newLatencyHistogram, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param samplingPolicy   效能監控取樣策略
+     * @param histogramFactory 延遲直方圖工廠 (記錄器分段與滑動視窗共用)
+     * @param maxEndpoints     端點數上限 (不含OVERFLOW)
+     */
+    public LibrarySLICollector(LibrarySamplingPolicy samplingPolicy, Supplier<LogLinearHistogram> histogramFactory,
+            int maxEndpoints) {
+        this.samplingPolicy = samplingPolicy;
+        this.histogramFactory = histogramFactory;
+        this.maxEndpoints = maxEndpoints;
+    }
+
+    /**
+     * 取得handler method對應的記錄器
+     *
+     * @param handlerMethod Controller handler method
+     * @return 端點延遲記錄器
+     */
+    public EndpointLatencyRecorder recorderFor(Method handlerMethod) {
+        EndpointLatencyRecorder recorder = methodRecorders.get(handlerMethod);
+        if (recorder == null) {
+            recorder = methodRecorders.computeIfAbsent(handlerMethod,
+                    method -> recorderFor(EndpointNameResolver.resolve(method), method));
+        }
+        return recorder;
+    }
+
+    /**
+     * 取得端點名稱對應的記錄器，不存在時建立
+     *
+     * @param endpoint 端點名稱
+     * @return 端點延遲記錄器
+     */
+    public EndpointLatencyRecorder recorderFor(String endpoint) {
+        return recorderFor(endpoint, null);
+    }
+
+    private EndpointLatencyRecorder recorderFor(String endpoint, Method handlerMethod) {
+        EndpointLatencyRecorder recorder = recorders.get(endpoint);
+        if (recorder == null) {
+            if (recorders.size() >= maxEndpoints && !OVERFLOW_ENDPOINT.equals(endpoint)) {
+                // 上限為近似值: 同時出現的新端點可能讓數量略微超過
+                if (overflowReported.compareAndSet(false, true)) {
+                    log.warn("Endpoint cardinality limit {} reached, further endpoints are recorded as {}",
+                            maxEndpoints, OVERFLOW_ENDPOINT);
+                }
+                return recorderFor(OVERFLOW_ENDPOINT, null);
+            }
+            LibrarySamplingPolicy policy = samplingPolicy;
+            recorder = recorders.computeIfAbsent(endpoint, name -> new EndpointLatencyRecorder(nextIndex.getAndIncrement(),
+                    name, handlerMethod, policy.baseIntervalFor(name), Runtime.getRuntime().availableProcessors(),
+                    histogramFactory));
+            // 建立期間若剛好替換了策略，reconfigure的走訪不一定看得到此記錄器，由建立端補上
+            LibrarySamplingPolicy latest = samplingPolicy;
+            if (latest != policy) {
+                recorder.setSamplingInterval(latest.baseIntervalFor(endpoint));
+            }
+        }
+        if (handlerMethod != null && recorder.getHandlerMethod() == null && recorder.bindHandlerMethod(handlerMethod)) {
+            for (Consumer<EndpointLatencyRecorder> listener : bindingListeners) {
+                listener.accept(recorder);
+            }
+        }
+        return recorder;
+    }
+
+    /**
+     * 登錄handler method補上事件的監聽者，用於丟棄依端點記錄器快取、但建立時還沒有handler method的結果
+     *
+     * @param listener 接收剛補上handler method的記錄器
+     */
+    public void addHandlerBindingListener(Consumer<EndpointLatencyRecorder> listener) {
+        bindingListeners.add(listener);
+    }
+
+    /**
+     * 替換取樣策略並更新所有既有記錄器的基礎取樣間隔 (記錄器與其累計資料保留)
+     *
+     * @param samplingPolicy 新的取樣策略
+     */
+    public void reconfigure(LibrarySamplingPolicy samplingPolicy) {
+        this.samplingPolicy = samplingPolicy;
+        for (EndpointLatencyRecorder recorder : recorders.values()) {
+            recorder.setSamplingInterval(samplingPolicy.baseIntervalFor(recorder.getEndpoint()));
+        }
+    }
+
+    /**
+     * 取得延遲直方圖工廠，滑動視窗須使用相同工廠以共用儲存方式
+     *
+     * @return 直方圖工廠
+     */
+    public Supplier<LogLinearHistogram> getHistogramFactory() {
+        return histogramFactory;
+    }
+
+    public LibrarySamplingPolicy getSamplingPolicy() {
+        return samplingPolicy;
+    }
+
+    /**
+     * 取得所有端點記錄器 (唯讀視圖)
+     *
+     * @return 端點記錄器集合
+     */
+    public Collection<EndpointLatencyRecorder> getRecorders() {
+        return Collections.unmodifiableCollection(recorders.values());
+    }
+
+    /**
+     * 取得單一端點的延遲快照
+     *
+     * @param endpoint 端點名稱
+     * @return 延遲快照，端點尚無記錄時回傳null
+     */
+    public EndpointLatencySnapshot getEndpointSnapshot(String endpoint) {
+        EndpointLatencyRecorder recorder = recorders.get(endpoint);
+        return recorder == null ? null : recorder.snapshot();
+    }
+
+    /**
+     * 取得所有端點的延遲快照
+     *
+     * @return 延遲快照清單
+     */
+    public List<EndpointLatencySnapshot> getEndpointSnapshots() {
+        List<EndpointLatencySnapshot> snapshots = new ArrayList<>(recorders.size());
+        for (EndpointLatencyRecorder recorder : recorders.values()) {
+            snapshots.add(recorder.snapshot());
+        }
+        return Collections.unmodifiableList(snapshots);
+    }
+}
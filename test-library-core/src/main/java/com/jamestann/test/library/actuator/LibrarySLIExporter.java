@@ -0,0 +1,33 @@
+/*
+[004][Micrometer橋接]LibrarySLIExporter
+功能說明: 由SLI彙總執行緒批次匯出端點滑動視窗的擴充點
+Input: 每次彙總tick的時間、各端點記錄器與滑動視窗
+Output: 由實作決定 (例如更新Micrometer量表的數值)
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.metrics.RollingSLIWindow;
+
+/**
+ * SLI批次匯出器
+ * 只在彙總執行緒上被呼叫：每次tick先呼叫beginBatch()，回傳true時再對每個端點呼叫export()；
+ * 實作不可阻塞，也不可保留視窗參照 (視窗只能在彙總執行緒上讀取)
+ */
+public interface LibrarySLIExporter {
+
+    /**
+     * 開始一次tick的匯出
+     *
+     * @param nowMillis tick時間 (epoch毫秒)
+     * @return 本次tick是否要匯出端點視窗
+     */
+    boolean beginBatch(long nowMillis);
+
+    /**
+     * 匯出單一端點
+     *
+     * @param recorder 端點延遲記錄器 (累計請求數與錯誤數)
+     * @param window   端點滑動視窗
+     */
+    void export(EndpointLatencyRecorder recorder, RollingSLIWindow window);
+}
@@ -0,0 +1,61 @@
+/*
+[003][M4][SLO端點]LibrarySLISnapshotPublisher
+功能說明: 保存最新一次彙總的SLI快照，並通知串流訂閱者
+Input: LibrarySLIAggregator每次tick產生的LibrarySLISnapshot
+Output: 最新快照 (任何執行緒無鎖讀取)、快照更新通知
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.model.LibrarySLISnapshot;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * SLI快照發佈器
+ * 彙總執行緒在背景建立下一份快照 (back buffer)，完成後以一次volatile寫入替換目前快照 (front buffer)；
+ * 讀取端只做一次volatile讀取，永遠不會看到建立到一半的快照，也不會接觸即時的記錄器或鎖
+ */
+@Slf4j
+public class LibrarySLISnapshotPublisher {
+
+    private final List<Consumer<LibrarySLISnapshot>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile LibrarySLISnapshot current = LibrarySLISnapshot.EMPTY;
+
+    /**
+     * 取得最新快照
+     *
+     * @return 最新快照，尚未彙總時為LibrarySLISnapshot.EMPTY
+     */
+    public LibrarySLISnapshot getCurrent() {
+        return current;
+    }
+
+    /**
+     * 替換目前快照並通知訂閱者 (由彙總執行緒呼叫)
+     * 訂閱者在彙總執行緒上被呼叫，不可阻塞
+     *
+     * @param snapshot 新快照
+     */
+    public void publish(LibrarySLISnapshot snapshot) {
+        current = snapshot;
+        for (Consumer<LibrarySLISnapshot> listener : listeners) {
+            try {
+                listener.accept(snapshot);
+            } catch (RuntimeException e) {
+                log.warn("SLI snapshot listener failed", e);
+            }
+        }
+    }
+
+    public void addListener(Consumer<LibrarySLISnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<LibrarySLISnapshot> listener) {
+        listeners.remove(listener);
+    }
+}
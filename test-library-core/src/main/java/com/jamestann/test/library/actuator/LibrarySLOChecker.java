@@ -0,0 +1,105 @@
+/*
+[003][M2][SLI滑動視窗]LibrarySLOChecker
+功能說明: 於滑動視窗上檢查端點的SLO合規性 (latency-p95、availability、error-rate)
+Input: TestLibraryProperties.SloConfig、端點的視窗彙總SLI
+Output: SLAViolationEvent
+*/
+/*
+Update History:
+[004][SLO策略索引] - 端點SLO改由LibrarySLOPolicyIndex預先編譯，新增@LibrarySLO註解層級
+[004][動態配置] - 新增reconfigure，執行期替換SLO配置並重新編譯策略索引
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.event.SLAViolationType;
+import com.jamestann.test.library.actuator.model.SLOConfig;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.metrics.SLISlice;
+import com.jamestann.test.library.metrics.SLIWindow;
+
+import java.util.function.Consumer;
+
+/**
+ * SLO合規性檢查器
+ * 端點SLO由LibrarySLOPolicyIndex預先編譯為扁平的SLOConfig；每次評估只讀取視窗彙總值，
+ * 成本與請求量及配置的端點數量無關
+ */
+public class LibrarySLOChecker {
+
+    private volatile TestLibraryProperties.SloConfig sloProperties;
+    private volatile SLIWindow evaluationWindow;
+    private final LibrarySLOPolicyIndex policyIndex;
+
+    public LibrarySLOChecker(TestLibraryProperties.SloConfig sloProperties) {
+        this.sloProperties = sloProperties;
+        this.policyIndex = new LibrarySLOPolicyIndex(sloProperties);
+        this.evaluationWindow = SLIWindow.covering(sloProperties.getEvaluationWindow());
+    }
+
+    public SLIWindow getEvaluationWindow() {
+        return evaluationWindow;
+    }
+
+    /**
+     * 替換SLO配置 (門檻、評估視窗、最少請求數)，滑動視窗資料不受影響
+     *
+     * @param sloProperties 新的SLO配置
+     */
+    public void reconfigure(TestLibraryProperties.SloConfig sloProperties) {
+        policyIndex.compile(sloProperties);
+        this.evaluationWindow = SLIWindow.covering(sloProperties.getEvaluationWindow());
+        this.sloProperties = sloProperties;
+    }
+
+    /**
+     * 取得SLO策略索引
+     *
+     * @return 端點SLO策略索引
+     */
+    public LibrarySLOPolicyIndex getPolicyIndex() {
+        return policyIndex;
+    }
+
+    /**
+     * 解析端點的SLO配置 (配置覆寫 > @LibrarySLO > 全域預設，未設定的欄位沿用下一層)
+     *
+     * @param endpoint 端點名稱，例如 "GET /api/users"
+     * @return 合併後的SLO配置
+     */
+    public SLOConfig resolve(String endpoint) {
+        return policyIndex.resolve(endpoint);
+    }
+
+    /**
+     * 評估端點在視窗上的SLO，違反時交給sink處理
+     *
+     * @param slo       端點SLO配置
+     * @param window    評估視窗的彙總SLI
+     * @param nowMillis 評估時間
+     * @param sink      違反事件接收者
+     */
+    public void evaluate(SLOConfig slo, SLISlice window, long nowMillis, Consumer<SLAViolationEvent> sink) {
+        if (window.getRequestCount() < sloProperties.getMinimumRequests()) {
+            return;
+        }
+        SLIWindow evaluationWindow = this.evaluationWindow;
+        if (slo.getLatencyP95Micros() > 0) {
+            long p95 = window.getLatency().getValueAtPercentile(95.0);
+            if (p95 > slo.getLatencyP95Micros()) {
+                sink.accept(new SLAViolationEvent(slo.getEndpoint(), SLAViolationType.LATENCY_BREACH,
+                        p95 / 1_000.0, slo.getLatencyP95Micros() / 1_000.0, evaluationWindow, nowMillis, slo));
+            }
+        }
+        double errorRate = window.getErrorRatePercent();
+        if (!Double.isNaN(slo.getErrorRate()) && errorRate > slo.getErrorRate()) {
+            sink.accept(new SLAViolationEvent(slo.getEndpoint(), SLAViolationType.ERROR_RATE_BREACH,
+                    errorRate, slo.getErrorRate(), evaluationWindow, nowMillis, slo));
+        }
+        double availability = window.getAvailabilityPercent();
+        if (!Double.isNaN(slo.getAvailability()) && availability < slo.getAvailability()) {
+            sink.accept(new SLAViolationEvent(slo.getEndpoint(), SLAViolationType.AVAILABILITY_BREACH,
+                    availability, slo.getAvailability(), evaluationWindow, nowMillis, slo));
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+[004][SLO策略索引]LibrarySLOPolicyIndex
+功能說明: 將多層級SLO配置 (defaults、endpoints覆寫、@LibrarySLO註解) 預先編譯為端點的扁平SLOConfig
+Input: TestLibraryProperties.SloConfig、啟動時掃描到的handler method
+Output: 以端點記錄器索引查詢的不可變SLOConfig
+*/
+/*
+Update History:
+[004][SLI持久化] - 新增invalidate()，記錄器補上handler method後重新解析其@LibrarySLO
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.model.SLOConfig;
+import com.jamestann.test.library.annotation.LibrarySLO;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SLO策略索引
+ * <p>
+ * 啟動時 (registerHandlers) 與配置變更時 (compile) 將所有已知路由的SLO層級一次合併為不可變的SLOConfig；
+ * 查詢端以端點記錄器的索引直接讀取陣列槽位，不做字串比對也不讀取註解。
+ * 尚未編譯的端點 (動態註冊的handler、未經Spring MVC掃描的Controller) 在第一次查詢時解析並寫入槽位
+ */
+@Slf4j
+public class LibrarySLOPolicyIndex {
+
+    private static final SLOConfig[] EMPTY_TABLE = new SLOConfig[0];
+
+    private static final int INITIAL_TABLE_SIZE = 64;
+
+    private volatile TestLibraryProperties.SloConfig sloProperties;
+    private final Map<String, Method> handlers = new LinkedHashMap<>();
+
+    private volatile Map<String, SLOConfig> routes = Collections.emptyMap();
+    private volatile SLOConfig[] byRecorder = EMPTY_TABLE;
+
+    public LibrarySLOPolicyIndex(TestLibraryProperties.SloConfig sloProperties) {
+        this.sloProperties = sloProperties;
+    }
+
+    /**
+     * 取得端點記錄器的SLO策略 (熱路徑：一次陣列讀取)
+     *
+     * @param recorder 端點延遲記錄器
+     * @return 扁平的SLO配置
+     */
+    public SLOConfig policyFor(EndpointLatencyRecorder recorder) {
+        int index = recorder.getIndex();
+        SLOConfig[] table = byRecorder;
+        if (index >= 0 && index < table.length) {
+            SLOConfig policy = table[index];
+            if (policy != null) {
+                return policy;
+            }
+        }
+        return cachePolicy(recorder);
+    }
+
+    /**
+     * 解析端點的SLO策略 (已編譯的路由直接回傳，否則即時合併各層級)
+     *
+     * @param endpoint 端點名稱，例如 "GET /api/users"
+     * @return 扁平的SLO配置
+     */
+    public SLOConfig resolve(String endpoint) {
+        SLOConfig policy = routes.get(endpoint);
+        return policy != null ? policy : build(endpoint, null);
+    }
+
+    /**
+     * 登錄handler method並預先編譯其路由的SLO策略 (應用程式啟動時呼叫)
+     *
+     * @param handlerMethods Controller handler methods
+     */
+    public synchronized void registerHandlers(Collection<Method> handlerMethods) {
+        for (Method method : handlerMethods) {
+            handlers.putIfAbsent(EndpointNameResolver.resolve(method), method);
+        }
+        recompile();
+    }
+
+    /**
+     * 以新的SLO配置重新編譯所有路由，已快取的記錄器策略一併失效
+     *
+     * @param sloProperties SLO配置
+     */
+    public synchronized void compile(TestLibraryProperties.SloConfig sloProperties) {
+        this.sloProperties = sloProperties;
+        recompile();
+    }
+
+    /**
+     * 丟棄記錄器已快取的策略，下次查詢重新解析 (記錄器補上handler method時呼叫)
+     *
+     * @param recorder 端點延遲記錄器
+     */
+    public synchronized void invalidate(EndpointLatencyRecorder recorder) {
+        int index = recorder.getIndex();
+        SLOConfig[] table = byRecorder;
+        if (index >= 0 && index < table.length) {
+            table[index] = null;
+            byRecorder = table;
+        }
+    }
+
+    /**
+     * 已預先編譯的路由數
+     */
+    public int getCompiledRouteCount() {
+        return routes.size();
+    }
+
+    private void recompile() {
+        Map<String, SLOConfig> compiled = new HashMap<>(handlers.size() * 2);
+        for (Map.Entry<String, Method> handler : handlers.entrySet()) {
+            compiled.put(handler.getKey(), build(handler.getKey(), handler.getValue()));
+        }
+        routes = Collections.unmodifiableMap(compiled);
+        byRecorder = new SLOConfig[Math.max(byRecorder.length, INITIAL_TABLE_SIZE)];
+        log.debug("Compiled SLO policies for {} routes", compiled.size());
+    }
+
+    private synchronized SLOConfig cachePolicy(EndpointLatencyRecorder recorder) {
+        SLOConfig policy = routes.get(recorder.getEndpoint());
+        if (policy == null) {
+            policy = build(recorder.getEndpoint(), recorder.getHandlerMethod());
+        }
+        int index = recorder.getIndex();
+        if (index >= 0) {
+            SLOConfig[] table = byRecorder;
+            if (index >= table.length) {
+                table = Arrays.copyOf(table, Math.max(index + 1, table.length * 2));
+            }
+            table[index] = policy;
+            byRecorder = table;
+        }
+        return policy;
+    }
+
+    /**
+     * 合併SLO層級: defaults → 類別註解 → 方法註解 → endpoints配置覆寫
+     */
+    private SLOConfig build(String endpoint, Method handlerMethod) {
+        TestLibraryProperties.SloThresholds defaults = sloProperties.getDefaults();
+        TestLibraryProperties.SloThresholds override = findOverride(endpoint);
+        LibrarySLO methodSlo = handlerMethod == null ? null
+                : AnnotatedElementUtils.findMergedAnnotation(handlerMethod, LibrarySLO.class);
+        LibrarySLO typeSlo = handlerMethod == null ? null
+                : AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getDeclaringClass(), LibrarySLO.class);
+
+        Duration latencyP95 = override != null && override.getLatencyP95() != null ? override.getLatencyP95()
+                : pick(latencyOf(methodSlo), latencyOf(typeSlo), defaults.getLatencyP95());
+        Double availability = override != null && override.getAvailability() != null ? override.getAvailability()
+                : pick(percentOf(methodSlo, true), percentOf(typeSlo, true), defaults.getAvailability());
+        Double errorRate = override != null && override.getErrorRate() != null ? override.getErrorRate()
+                : pick(percentOf(methodSlo, false), percentOf(typeSlo, false), defaults.getErrorRate());
+        List<String> actions = override != null && override.getViolationActions() != null ? override.getViolationActions()
+                : pick(actionsOf(methodSlo), actionsOf(typeSlo), defaults.getViolationActions());
+
+        return new SLOConfig(
+                endpoint,
+                latencyP95 == null ? 0L : latencyP95.toNanos() / 1_000L,
+                availability == null ? Double.NaN : availability,
+                errorRate == null ? Double.NaN : errorRate,
+                actions == null ? sloProperties.getGlobalViolationActions() : actions
+        );
+    }
+
+    private TestLibraryProperties.SloThresholds findOverride(String endpoint) {
+        TestLibraryProperties.SloThresholds override = sloProperties.getEndpoints().get(endpoint);
+        if (override == null) {
+            int space = endpoint.indexOf(' ');
+            if (space > 0) {
+                override = sloProperties.getEndpoints().get(endpoint.substring(space + 1));
+            }
+        }
+        return override;
+    }
+
+    private static Duration latencyOf(LibrarySLO slo) {
+        return slo == null || slo.latencyP95().isEmpty() ? null : DurationStyle.detectAndParse(slo.latencyP95());
+    }
+
+    private static Double percentOf(LibrarySLO slo, boolean availability) {
+        if (slo == null) {
+            return null;
+        }
+        double value = availability ? slo.availability() : slo.errorRate();
+        return value < 0 ? null : value;
+    }
+
+    private static List<String> actionsOf(LibrarySLO slo) {
+        return slo == null || slo.violationActions().length == 0 ? null : Arrays.asList(slo.violationActions());
+    }
+
+    private static <T> T pick(T method, T type, T fallback) {
+        return method != null ? method : type != null ? type : fallback;
+    }
+}
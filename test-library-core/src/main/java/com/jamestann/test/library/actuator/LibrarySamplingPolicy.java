@@ -0,0 +1,178 @@
+/*
+[004][取樣監控]LibrarySamplingPolicy
+功能說明: 效能監控取樣策略，決定每個端點「每N個請求記錄1次延遲」的N，並在JVM飽和時自動加大N
+Input: TestLibraryProperties.SamplingConfig、每次tick的行程CPU使用率與排程延遲
+Output: 端點基礎取樣間隔、自適應倍數
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.config.TestLibraryProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 效能監控取樣策略
+ * <p>
+ * 取樣比率一律以整數間隔N套用 (每N個請求記錄1次延遲)，被取樣的延遲以權重N寫入直方圖，
+ * 因此直方圖總數與各百分位數仍是全體請求的不偏估計；請求數與錯誤數永遠逐筆精確累加，不受取樣影響。
+ * <p>
+ * ADAPTIVE模式下，彙總執行緒每次tick呼叫{@link #adjust(long)}：CPU使用率或tick排程延遲超過門檻時
+ * 自適應倍數立即加倍 (最高到1 / minRate)，連續recoveryTicks次未飽和後才減半，避免在門檻附近來回震盪
+ */
+@Slf4j
+public class LibrarySamplingPolicy {
+
+    /**
+     * 有效取樣間隔上限，避免端點間隔與自適應倍數相乘後溢位
+     */
+    static final int MAX_INTERVAL = 1 << 20;
+
+    private static final double CPU_RECOVERY_MARGIN = 0.1;
+
+    private final TestLibraryProperties.SamplingMode mode;
+    private final int defaultInterval;
+    private final Map<String, Integer> endpointIntervals;
+    private final double cpuThreshold;
+    private final long tickLagThresholdMillis;
+    private final int maxAdaptiveFactor;
+    private final int recoveryTicks;
+    private final OperatingSystemMXBean operatingSystem;
+
+    private volatile int adaptiveFactor = 1;
+    private int calmTicks;
+    private double lastCpuLoad = Double.NaN;
+
+    public LibrarySamplingPolicy(TestLibraryProperties.SamplingConfig config) {
+        this.mode = config.getMode();
+        this.defaultInterval = intervalOf(config.getRate());
+        Map<String, Integer> intervals = new HashMap<>();
+        for (Map.Entry<String, Double> entry : config.getEndpoints().entrySet()) {
+            intervals.put(entry.getKey(), intervalOf(entry.getValue()));
+        }
+        this.endpointIntervals = intervals;
+        TestLibraryProperties.AdaptiveSamplingConfig adaptive = config.getAdaptive();
+        this.cpuThreshold = adaptive.getCpuThreshold();
+        this.tickLagThresholdMillis = adaptive.getTickLagThreshold().toMillis();
+        this.maxAdaptiveFactor = Integer.highestOneBit(Math.max(1, intervalOf(adaptive.getMinRate())));
+        this.recoveryTicks = Math.max(1, adaptive.getRecoveryTicks());
+        this.operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+    }
+
+    /**
+     * 不取樣的策略 (每個請求都記錄)
+     *
+     * @return 模式為NONE的取樣策略
+     */
+    public static LibrarySamplingPolicy disabled() {
+        return new LibrarySamplingPolicy(new TestLibraryProperties.SamplingConfig());
+    }
+
+    /**
+     * 將取樣比率換算為取樣間隔 N = round(1 / rate)
+     *
+     * @param rate 取樣比率 (0, 1]
+     * @return 取樣間隔，至少為1
+     */
+    static int intervalOf(Double rate) {
+        if (rate == null) {
+            return 1;
+        }
+        if (!(rate > 0.0) || rate > 1.0) {
+            throw new IllegalArgumentException("Sampling rate must be in (0, 1]: " + rate);
+        }
+        return (int) Math.min(MAX_INTERVAL, Math.round(1.0 / rate));
+    }
+
+    /**
+     * 取得端點的基礎取樣間隔 (建立端點記錄器時呼叫一次)
+     *
+     * @param endpoint 端點名稱 ("GET /api/orders")
+     * @return 取樣間隔，NONE模式固定為1
+     */
+    public int baseIntervalFor(String endpoint) {
+        if (mode == TestLibraryProperties.SamplingMode.NONE) {
+            return 1;
+        }
+        Integer interval = endpointIntervals.get(endpoint);
+        if (interval == null) {
+            int space = endpoint.indexOf(' ');
+            if (space > 0) {
+                interval = endpointIntervals.get(endpoint.substring(space + 1));
+            }
+        }
+        return interval != null ? interval : defaultInterval;
+    }
+
+    /**
+     * 取得記錄器目前的有效取樣間隔 (熱路徑，只讀取一個volatile欄位)
+     *
+     * @param recorder 端點延遲記錄器
+     * @return 基礎間隔 × 自適應倍數
+     */
+    public int effectiveInterval(EndpointLatencyRecorder recorder) {
+        int base = recorder.getSamplingInterval();
+        int factor = adaptiveFactor;
+        return factor == 1 ? base : (int) Math.min(MAX_INTERVAL, (long) base * factor);
+    }
+
+    /**
+     * 依當下行程CPU使用率與tick排程延遲調整自適應倍數 (僅能由彙總執行緒呼叫)
+     *
+     * @param tickLagMillis 本次tick相對預定時間的延遲(毫秒)
+     */
+    public void adjust(long tickLagMillis) {
+        if (mode == TestLibraryProperties.SamplingMode.ADAPTIVE) {
+            adjust(readProcessCpuLoad(), tickLagMillis);
+        }
+    }
+
+    void adjust(double cpuLoad, long tickLagMillis) {
+        lastCpuLoad = cpuLoad;
+        boolean cpuKnown = !Double.isNaN(cpuLoad);
+        int factor = adaptiveFactor;
+        if ((cpuKnown && cpuLoad >= cpuThreshold) || tickLagMillis >= tickLagThresholdMillis) {
+            calmTicks = 0;
+            if (factor < maxAdaptiveFactor) {
+                adaptiveFactor = factor * 2;
+                log.info("Monitoring saturated (cpu={}, tickLag={}ms), sampling factor raised to 1/{}",
+                        cpuLoad, tickLagMillis, factor * 2);
+            }
+        } else if ((!cpuKnown || cpuLoad < cpuThreshold - CPU_RECOVERY_MARGIN) && tickLagMillis < tickLagThresholdMillis / 2) {
+            if (factor > 1 && ++calmTicks >= recoveryTicks) {
+                calmTicks = 0;
+                adaptiveFactor = factor / 2;
+                log.info("Monitoring load recovered (cpu={}), sampling factor lowered to 1/{}", cpuLoad, factor / 2);
+            }
+        } else {
+            calmTicks = 0;
+        }
+    }
+
+    private double readProcessCpuLoad() {
+        if (operatingSystem instanceof com.sun.management.OperatingSystemMXBean) {
+            double load = ((com.sun.management.OperatingSystemMXBean) operatingSystem).getProcessCpuLoad();
+            return load < 0 ? Double.NaN : load;
+        }
+        double loadAverage = operatingSystem.getSystemLoadAverage();
+        return loadAverage < 0 ? Double.NaN : loadAverage / operatingSystem.getAvailableProcessors();
+    }
+
+    public TestLibraryProperties.SamplingMode getMode() {
+        return mode;
+    }
+
+    public int getAdaptiveFactor() {
+        return adaptiveFactor;
+    }
+
+    /**
+     * 最近一次調整時讀到的行程CPU使用率 (僅供彙總執行緒與測試讀取)
+     */
+    double getLastCpuLoad() {
+        return lastCpuLoad;
+    }
+}
@@ -0,0 +1,457 @@
+/*
+[004][飽和度]LibrarySaturationMonitor
+功能說明: 以單一排程執行緒每秒取樣飽和度訊號 (Web伺服器執行緒池佇列、HikariCP等待執行緒、GC停頓、heap佔用率)，
+         存入滑動視窗並評估是否飽和
+Input: TestLibraryProperties.SaturationConfig、WebServerInitializedEvent、DataSource、GarbageCollectorMXBean通知
+Output: 各訊號的滑動視窗與SaturationSignalSnapshot、整體飽和狀態、SATURATION_BREACH違反事件
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.event.SLAViolationType;
+import com.jamestann.test.library.actuator.model.SLOConfig;
+import com.jamestann.test.library.actuator.model.SaturationSignalSnapshot;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.metrics.LogLinearHistogram;
+import com.jamestann.test.library.metrics.RollingSLIWindow;
+import com.jamestann.test.library.metrics.SLISlice;
+import com.jamestann.test.library.metrics.SLIWindow;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import javax.sql.DataSource;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Library飽和度監控器
+ * <p>
+ * 每個訊號每秒取樣一次，取樣值記錄在累計直方圖，取樣數與達到門檻的取樣數分別當作請求數與錯誤數，
+ * 以與端點相同的RollingSLIWindow推進1m/5m/1h視窗。評估視窗內超過5%的取樣達到門檻 (即P95達到門檻) 時視為飽和，
+ * 發出SATURATION_BREACH違反事件，並反映在isSaturated()與TestLibraryManager的健康狀態。
+ * <p>
+ * Tomcat/Jetty與HikariCP不是編譯期依賴：執行緒池與連線池的讀取方法在註冊時以反射解析一次，取樣時只做方法呼叫。
+ * GC停頓由GarbageCollectorMXBean通知累加 (並行GC週期不計入)，heap佔用率取最近一次GC後的heap使用量。
+ * 所有視窗只在飽和度執行緒上修改，其他執行緒只讀取每次tick發佈的不可變快照
+ */
+@Slf4j
+public class LibrarySaturationMonitor implements InitializingBean, DisposableBean,
+        ApplicationListener<WebServerInitializedEvent> {
+
+    /**
+     * 違反事件endpoint的前綴，與端點名稱區隔
+     */
+    public static final String SIGNAL_PREFIX = "saturation:";
+
+    private static final long TICK_INTERVAL_MILLIS = 1_000L;
+
+    /**
+     * 達到門檻的取樣比例高於此值時視為飽和
+     */
+    private static final long SATURATED_PERCENT_THRESHOLD = 5;
+
+    private static final int SAMPLE_SUB_BUCKET_BITS = 4;
+    private static final long MAX_TRACKABLE_SAMPLE = (1L << 20) - 1;
+
+    private static final String HIKARI_DATA_SOURCE = "com.zaxxer.hikari.HikariDataSource";
+    private static final String HIKARI_POOL_MXBEAN = "com.zaxxer.hikari.HikariPoolMXBean";
+
+    private static final Signal[] NO_SIGNALS = new Signal[0];
+
+    private final TestLibraryProperties.SaturationConfig config;
+    private final Consumer<SLAViolationEvent> violationSink;
+    private final SLIWindow window;
+    private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+    private final Set<String> heapPoolNames = new HashSet<>();
+    private final LongAdder gcPauseMicros = new LongAdder();
+    private final NotificationListener gcListener = this::onGcNotification;
+    private final List<NotificationEmitter> gcEmitters = new ArrayList<>();
+
+    private volatile long heapAfterGcBasisPoints = -1L;
+    private volatile Signal[] signals = NO_SIGNALS;
+    private volatile List<SaturationSignalSnapshot> snapshots = Collections.emptyList();
+    private volatile boolean saturated;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param config        飽和度監控配置
+     * @param violationSink 違反事件接收者，null表示只記錄不發出違反
+     */
+    public LibrarySaturationMonitor(TestLibraryProperties.SaturationConfig config,
+            Consumer<SLAViolationEvent> violationSink) {
+        this.config = config;
+        this.violationSink = violationSink;
+        this.window = config.getWindow();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPoolNames.add(pool.getName());
+            }
+        }
+        register("gc-pause", SaturationSignalType.GC_PAUSE, config.getGcPauseThreshold().toNanos() / 1_000L,
+                gcPauseMicros::sumThenReset);
+        register("heap", SaturationSignalType.HEAP_OCCUPANCY, Math.round(config.getHeapOccupancyThreshold() * 100.0),
+                this::sampleHeapOccupancy);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        startGcNotifications();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "test-library-saturation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::safeTick, TICK_INTERVAL_MILLIS, TICK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        log.debug("Saturation monitor started with {}ms tick", TICK_INTERVAL_MILLIS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        synchronized (gcEmitters) {
+            for (NotificationEmitter emitter : gcEmitters) {
+                try {
+                    emitter.removeNotificationListener(gcListener);
+                } catch (ListenerNotFoundException e) {
+                    // 已移除
+                }
+            }
+            gcEmitters.clear();
+        }
+    }
+
+    /**
+     * Web伺服器啟動後註冊其請求執行緒池 (Tomcat: Connector的Executor；Jetty: Server的ThreadPool)
+     */
+    @Override
+    public void onApplicationEvent(WebServerInitializedEvent event) {
+        Object webServer = event.getWebServer();
+        Object executor = invokeChain(webServer, "getTomcat", "getConnector", "getProtocolHandler", "getExecutor");
+        if (executor == null) {
+            executor = invokeChain(webServer, "getServer", "getThreadPool");
+        }
+        String name = webServer.getClass().getSimpleName().replace("WebServer", "").toLowerCase(Locale.ROOT);
+        String namespace = event.getApplicationContext().getServerNamespace();
+        if (namespace != null) {
+            name = name + '-' + namespace;
+        }
+        if (executor == null || !monitorExecutor(name, executor)) {
+            log.debug("No queue depth available for {} request executor, skipping", name);
+        }
+    }
+
+    /**
+     * 監控執行緒池的佇列深度 (getQueueSize()或getQueue().size())
+     *
+     * @param name     執行緒池名稱
+     * @param executor 執行緒池，例如ThreadPoolExecutor、Tomcat ThreadPoolExecutor、Jetty QueuedThreadPool
+     * @return 是否能讀取佇列深度
+     */
+    public boolean monitorExecutor(String name, Object executor) {
+        LongSupplier sampler = null;
+        Method queueSize = findMethod(executor.getClass(), "getQueueSize");
+        if (queueSize != null && isNumeric(queueSize.getReturnType())) {
+            sampler = () -> ((Number) ReflectionUtils.invokeMethod(queueSize, executor)).longValue();
+        } else {
+            Method queue = findMethod(executor.getClass(), "getQueue");
+            if (queue != null && Collection.class.isAssignableFrom(queue.getReturnType())) {
+                sampler = () -> ((Collection<?>) ReflectionUtils.invokeMethod(queue, executor)).size();
+            }
+        }
+        if (sampler == null) {
+            return false;
+        }
+        register("executor:" + name, SaturationSignalType.EXECUTOR_QUEUE, config.getExecutorQueueThreshold(), sampler);
+        return true;
+    }
+
+    /**
+     * 監控連線池等待連線的執行緒數 (目前支援HikariCP，包裝過的DataSource以unwrap()取得)
+     *
+     * @param dataSource 資料來源
+     * @return 是否為可監控的連線池
+     */
+    public boolean monitorDataSource(DataSource dataSource) {
+        ClassLoader classLoader = dataSource.getClass().getClassLoader();
+        if (!ClassUtils.isPresent(HIKARI_DATA_SOURCE, classLoader)) {
+            return false;
+        }
+        Class<?> hikariType = ClassUtils.resolveClassName(HIKARI_DATA_SOURCE, classLoader);
+        Object hikari;
+        try {
+            hikari = hikariType.isInstance(dataSource) ? dataSource
+                    : dataSource.isWrapperFor(hikariType) ? dataSource.unwrap(hikariType) : null;
+        } catch (SQLException e) {
+            log.debug("Cannot unwrap {} as HikariDataSource: {}", dataSource, e.getMessage());
+            return false;
+        }
+        if (hikari == null) {
+            return false;
+        }
+        Method poolBean = findMethod(hikariType, "getHikariPoolMXBean");
+        Method awaiting = findMethod(ClassUtils.resolveClassName(HIKARI_POOL_MXBEAN, classLoader),
+                "getThreadsAwaitingConnection");
+        Object poolName = invokeChain(hikari, "getPoolName");
+        if (poolBean == null || awaiting == null) {
+            return false;
+        }
+        LongSupplier sampler = () -> {
+            // 連線池在第一次取得連線時才建立
+            Object pool = ReflectionUtils.invokeMethod(poolBean, hikari);
+            return pool == null ? 0L : ((Number) ReflectionUtils.invokeMethod(awaiting, pool)).longValue();
+        };
+        register("connection-pool:" + (poolName == null ? "hikari" : poolName), SaturationSignalType.CONNECTION_PENDING,
+                config.getConnectionPendingThreshold(), sampler);
+        return true;
+    }
+
+    /**
+     * 取樣所有訊號並推進視窗一秒、評估是否飽和、發佈快照 (僅能由飽和度執行緒或測試呼叫)
+     */
+    public void tick() {
+        long now = System.currentTimeMillis();
+        Signal[] current = signals;
+        List<SaturationSignalSnapshot> next = new ArrayList<>(current.length);
+        boolean anySaturated = false;
+        for (Signal signal : current) {
+            if (signal.failed) {
+                continue;
+            }
+            long sample;
+            try {
+                sample = Math.max(0L, signal.sampler.getAsLong());
+            } catch (RuntimeException e) {
+                signal.failed = true;
+                log.warn("Saturation signal {} can no longer be sampled, disabling it: {}", signal.name, e.toString());
+                continue;
+            }
+            next.add(signal.advance(sample, now));
+            anySaturated |= signal.saturated;
+        }
+        snapshots = Collections.unmodifiableList(next);
+        saturated = anySaturated;
+    }
+
+    /**
+     * @return 是否有任一訊號在評估視窗內飽和
+     */
+    public boolean isSaturated() {
+        return saturated;
+    }
+
+    /**
+     * @return 最近一次tick的各訊號快照
+     */
+    public List<SaturationSignalSnapshot> getSignals() {
+        return snapshots;
+    }
+
+    /**
+     * 訂閱所有GarbageCollectorMXBean的GC完成通知
+     */
+    void startGcNotifications() {
+        synchronized (gcEmitters) {
+            for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (gcBean instanceof NotificationEmitter) {
+                    NotificationEmitter emitter = (NotificationEmitter) gcBean;
+                    emitter.addNotificationListener(gcListener, notification -> GarbageCollectionNotificationInfo
+                            .GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType()), null);
+                    gcEmitters.add(emitter);
+                }
+            }
+        }
+    }
+
+    /**
+     * GC通知執行緒上的回呼：只累加停頓時間與更新GC後heap佔用率
+     */
+    private void onGcNotification(Notification notification, Object handback) {
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        String collector = info.getGcName();
+        // ZGC/Shenandoah的 "Cycles" 與G1的 "Concurrent GC" 是與應用並行的週期，不是停頓
+        if (!collector.contains("Cycles") && !collector.contains("Concurrent")) {
+            gcPauseMicros.add(info.getGcInfo().getDuration() * 1_000L);
+        }
+        long used = 0L;
+        for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+            if (heapPoolNames.contains(pool.getKey())) {
+                used += pool.getValue().getUsed();
+            }
+        }
+        long capacity = heapCapacity(memoryBean.getHeapMemoryUsage());
+        if (capacity > 0L) {
+            heapAfterGcBasisPoints = used * 10_000L / capacity;
+        }
+    }
+
+    /**
+     * 最近一次GC後的heap佔用率 (萬分比)；尚未發生GC時以目前使用量代替
+     */
+    private long sampleHeapOccupancy() {
+        long afterGc = heapAfterGcBasisPoints;
+        if (afterGc >= 0L) {
+            return afterGc;
+        }
+        MemoryUsage usage = memoryBean.getHeapMemoryUsage();
+        long capacity = heapCapacity(usage);
+        return capacity > 0L ? usage.getUsed() * 10_000L / capacity : 0L;
+    }
+
+    private synchronized void register(String name, SaturationSignalType type, long threshold, LongSupplier sampler) {
+        for (Signal existing : signals) {
+            if (existing.name.equals(name)) {
+                log.debug("Saturation signal {} is already monitored", name);
+                return;
+            }
+        }
+        Signal[] next = Arrays.copyOf(signals, signals.length + 1);
+        next[signals.length] = new Signal(name, type, Math.max(0L, threshold), sampler, newSloConfig(name));
+        signals = next;
+        log.info("Saturation monitoring enabled for {} (threshold {} {})", name,
+                type.reportValue(Math.max(0L, threshold)), type.getUnit());
+    }
+
+    private SLOConfig newSloConfig(String name) {
+        return new SLOConfig(SIGNAL_PREFIX + name, 0L, Double.NaN, Double.NaN, config.getViolationActions());
+    }
+
+    private void safeTick() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            log.error("Saturation sampling tick failed", e);
+        }
+    }
+
+    private static long heapCapacity(MemoryUsage usage) {
+        return usage.getMax() > 0L ? usage.getMax() : usage.getCommitted();
+    }
+
+    private static boolean isNumeric(Class<?> type) {
+        return type == int.class || type == long.class || Number.class.isAssignableFrom(type);
+    }
+
+    private static Method findMethod(Class<?> type, String name) {
+        Method method = ReflectionUtils.findMethod(type, name);
+        if (method != null) {
+            ReflectionUtils.makeAccessible(method);
+        }
+        return method;
+    }
+
+    /**
+     * 依序呼叫無參數方法，任一步找不到方法或回傳null時回傳null
+     */
+    private static Object invokeChain(Object target, String... methodNames) {
+        Object current = target;
+        for (String methodName : methodNames) {
+            Method method = findMethod(current.getClass(), methodName);
+            if (method == null) {
+                return null;
+            }
+            current = ReflectionUtils.invokeMethod(method, current);
+            if (current == null) {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 單一飽和度訊號 (視窗與計數只由飽和度執行緒修改)
+     */
+    private final class Signal {
+        private final String name;
+        private final SaturationSignalType type;
+        private final long threshold;
+        private final LongSupplier sampler;
+        private final SLOConfig slo;
+        private final LogLinearHistogram cumulative = newSampleHistogram();
+        private final RollingSLIWindow rolling = new RollingSLIWindow(LibrarySaturationMonitor::newSampleHistogram);
+
+        private long sampleCount;
+        private long saturatedCount;
+        private boolean saturated;
+        private boolean failed;
+
+        private Signal(String name, SaturationSignalType type, long threshold, LongSupplier sampler, SLOConfig slo) {
+            this.name = name;
+            this.type = type;
+            this.threshold = threshold;
+            this.sampler = sampler;
+            this.slo = slo;
+        }
+
+        private SaturationSignalSnapshot advance(long sample, long nowMillis) {
+            cumulative.record(sample);
+            sampleCount++;
+            if (threshold > 0L && sample >= threshold) {
+                saturatedCount++;
+            }
+            rolling.advance(sampleCount, saturatedCount, cumulative);
+
+            SLISlice slice = rolling.get(window);
+            long samples = slice.getRequestCount();
+            long p95 = slice.getLatency().getValueAtPercentile(95.0);
+            boolean nowSaturated = threshold > 0L && samples >= config.getMinimumSamples()
+                    && slice.getErrorCount() * 100L > samples * SATURATED_PERCENT_THRESHOLD;
+            if (nowSaturated != saturated) {
+                saturated = nowSaturated;
+                if (nowSaturated) {
+                    log.warn("Saturation detected on {}: P95 {} {} over {} (threshold {} {})", name,
+                            type.reportValue(p95), type.getUnit(), window.getLabel(),
+                            type.reportValue(threshold), type.getUnit());
+                } else {
+                    log.info("Saturation cleared on {}", name);
+                }
+            }
+            if (nowSaturated && violationSink != null) {
+                violationSink.accept(new SLAViolationEvent(slo.getEndpoint(), SLAViolationType.SATURATION_BREACH,
+                        type.reportValue(p95), type.reportValue(threshold), window, nowMillis, slo));
+            }
+            return new SaturationSignalSnapshot(name, type.name(), type.getUnit(), type.reportValue(sample),
+                    type.reportValue(p95), type.reportValue(threshold),
+                    samples == 0L ? 0.0 : slice.getErrorCount() * 100.0 / samples, nowSaturated);
+        }
+    }
+
+    private static LogLinearHistogram newSampleHistogram() {
+        return new LogLinearHistogram(SAMPLE_SUB_BUCKET_BITS, MAX_TRACKABLE_SAMPLE);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+[004][JFR擷取]LibraryViolationJfrEvent
+功能說明: 寫入JFR錄製的SLA違反事件，標記觸發錄製的端點
+Input: LibraryJfrCapture開始錄製時的SLAViolationEvent
+Output: JFR事件 com.jamestann.test.library.SLAViolation
+*/
+package com.jamestann.test.library.actuator;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * SLA違反JFR事件
+ * 在錄製開始後立即提交一次，以JMC或 "jfr print --events com.jamestann.test.library.SLAViolation" 找出觸發的端點
+ */
+@Name("com.jamestann.test.library.SLAViolation")
+@Label("SLA Violation")
+@Category("Test Library")
+@Description("SLA violation that triggered this recording")
+@StackTrace(false)
+public class LibraryViolationJfrEvent extends Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Violation Type")
+    String violationType;
+
+    @Label("Current Value")
+    double currentValue;
+
+    @Label("Threshold")
+    double threshold;
+
+    @Label("Window")
+    String window;
+}
@@ -0,0 +1,260 @@
+/*
+[003][M3][SLA違反處理]SLAViolationProcessor
+功能說明: SLA違反事件處理協調器，以有界MPSC佇列與專用分派執行緒非同步、批次地呼叫違反處理器
+Input: LibrarySLIAggregator發佈的SLAViolationEvent、已註冊的SLAViolationHandler
+Output: 合併、抑制重複後分批送達各處理器的違反事件，以及發佈/丟棄/合併/抑制計數
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.handler.SLAViolationHandler;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.util.MpscRingBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * SLA違反事件處理協調器
+ * <p>
+ * publish()只做一次lock-free的佇列放入，佇列滿時依OverflowPolicy丟棄並計數，發佈端的延遲不受處理器影響。
+ * 分派執行緒每次取出一批事件，先依 (端點, 違反類型) 合併同批次的重複事件，
+ * 再於repeatInterval內抑制重複送達 (只累計次數，下次送達時一併帶出)，最後依各端點的violation-actions分組批次呼叫處理器。
+ */
+@Slf4j
+public class SLAViolationProcessor implements InitializingBean, DisposableBean {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final MpscRingBuffer<SLAViolationEvent> queue;
+    private final SLAViolationEvent[] batch;
+    private final Map<String, SLAViolationHandler> handlers = new LinkedHashMap<>();
+    private final List<String> globalViolationActions;
+    private final TestLibraryProperties.OverflowPolicy overflowPolicy;
+    private final long offerTimeoutNanos;
+    private final long repeatIntervalMillis;
+
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    private final Map<String, Suppression> suppressions = new HashMap<>();
+    private final Map<SLAViolationHandler, List<SLAViolationEvent>> deliveries = new LinkedHashMap<>();
+
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder suppressedCount = new LongAdder();
+    private final LongAdder deliveredCount = new LongAdder();
+    private final LongAdder handlerFailureCount = new LongAdder();
+
+    private volatile boolean running;
+    private volatile boolean dispatcherParked;
+    private volatile Thread dispatcher;
+
+    public SLAViolationProcessor(TestLibraryProperties.SloConfig sloProperties, List<SLAViolationHandler> violationHandlers) {
+        TestLibraryProperties.ViolationDispatchConfig dispatch = sloProperties.getDispatch();
+        this.queue = new MpscRingBuffer<>(dispatch.getQueueCapacity());
+        this.batch = new SLAViolationEvent[Math.max(1, dispatch.getBatchSize())];
+        this.globalViolationActions = List.copyOf(sloProperties.getGlobalViolationActions());
+        this.overflowPolicy = dispatch.getOverflowPolicy();
+        this.offerTimeoutNanos = dispatch.getOfferTimeout().toNanos();
+        this.repeatIntervalMillis = dispatch.getRepeatInterval().toMillis();
+        for (SLAViolationHandler handler : violationHandlers) {
+            SLAViolationHandler previous = handlers.put(handler.getHandlerName(), handler);
+            if (previous != null) {
+                log.warn("Duplicate SLA violation handler name '{}': {} replaces {}",
+                        handler.getHandlerName(), handler.getClass().getName(), previous.getClass().getName());
+            }
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        Thread thread = new Thread(this::runDispatcher, "test-library-sla-dispatcher");
+        thread.setDaemon(true);
+        dispatcher = thread;
+        thread.start();
+        log.debug("SLA violation dispatcher started with handlers: {}", handlers.keySet());
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        Thread thread = dispatcher;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        }
+    }
+
+    /**
+     * 發佈違反事件 (lock-free，不執行任何處理器)
+     *
+     * @param violation 違反事件
+     * @return false表示佇列已滿而被丟棄
+     */
+    public boolean publish(SLAViolationEvent violation) {
+        if (queue.offer(violation) || (overflowPolicy == TestLibraryProperties.OverflowPolicy.BLOCK && offerWithTimeout(violation))) {
+            publishedCount.increment();
+            if (dispatcherParked) {
+                LockSupport.unpark(dispatcher);
+            }
+            return true;
+        }
+        droppedCount.increment();
+        return false;
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    public long getSuppressedCount() {
+        return suppressedCount.sum();
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount.sum();
+    }
+
+    public long getHandlerFailureCount() {
+        return handlerFailureCount.sum();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * 分派一個批次 (僅能由分派執行緒或測試呼叫)
+     *
+     * @param nowMillis 目前時間
+     * @return 本次從佇列取出的事件數
+     */
+    int dispatchOnce(long nowMillis) {
+        int drained = queue.drain(batch, batch.length);
+        if (drained == 0) {
+            return 0;
+        }
+        for (int i = 0; i < drained; i++) {
+            SLAViolationEvent violation = batch[i];
+            batch[i] = null;
+            String key = violation.getEndpoint() + '#' + violation.getViolationType().name();
+            Pending existing = pending.get(key);
+            if (existing == null) {
+                pending.put(key, new Pending(violation));
+            } else {
+                existing.latest = violation;
+                existing.occurrences++;
+                coalescedCount.increment();
+            }
+        }
+        for (Map.Entry<String, Pending> entry : pending.entrySet()) {
+            Pending candidate = entry.getValue();
+            Suppression suppression = suppressions.computeIfAbsent(entry.getKey(), key -> new Suppression());
+            if (nowMillis - suppression.lastDeliveredMillis < repeatIntervalMillis) {
+                suppression.suppressedOccurrences += candidate.occurrences;
+                suppressedCount.add(candidate.occurrences);
+                continue;
+            }
+            int total = candidate.occurrences + suppression.suppressedOccurrences;
+            suppression.suppressedOccurrences = 0;
+            suppression.lastDeliveredMillis = nowMillis;
+            route(total == 1 ? candidate.latest : candidate.latest.coalesced(total));
+        }
+        pending.clear();
+        deliver();
+        return drained;
+    }
+
+    private void route(SLAViolationEvent violation) {
+        List<String> actions = violation.getSloConfig() == null
+                ? globalViolationActions : violation.getSloConfig().getViolationActions();
+        for (String action : actions) {
+            SLAViolationHandler handler = handlers.get(action);
+            if (handler == null) {
+                log.debug("No SLA violation handler registered for action '{}'", action);
+            } else if (handler.supports(violation.getViolationType())) {
+                deliveries.computeIfAbsent(handler, key -> new ArrayList<>()).add(violation);
+            }
+        }
+    }
+
+    private void deliver() {
+        for (Map.Entry<SLAViolationHandler, List<SLAViolationEvent>> entry : deliveries.entrySet()) {
+            List<SLAViolationEvent> violations = entry.getValue();
+            if (violations.isEmpty()) {
+                continue;
+            }
+            try {
+                entry.getKey().handleViolations(violations);
+                deliveredCount.add(violations.size());
+            } catch (RuntimeException e) {
+                handlerFailureCount.increment();
+                log.error("Error in SLA violation handler: {}", entry.getKey().getHandlerName(), e);
+            }
+            violations.clear();
+        }
+    }
+
+    private boolean offerWithTimeout(SLAViolationEvent violation) {
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            if (queue.offer(violation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void runDispatcher() {
+        while (running) {
+            try {
+                if (dispatchOnce(System.currentTimeMillis()) == 0) {
+                    dispatcherParked = true;
+                    if (queue.size() == 0 && running) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    dispatcherParked = false;
+                }
+            } catch (RuntimeException e) {
+                log.error("SLA violation dispatch failed", e);
+            }
+        }
+        while (dispatchOnce(System.currentTimeMillis()) > 0) {
+            // 關閉前送出佇列中剩餘的事件
+        }
+    }
+
+    private static final class Pending {
+        private SLAViolationEvent latest;
+        private int occurrences = 1;
+
+        private Pending(SLAViolationEvent latest) {
+            this.latest = latest;
+        }
+    }
+
+    private static final class Suppression {
+        private long lastDeliveredMillis = Long.MIN_VALUE / 2;
+        private int suppressedOccurrences;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+[004][飽和度]SaturationSignalType
+功能說明: 飽和度訊號類型與其取樣單位
+Input: 無
+Output: 執行緒池佇列深度、連線池等待執行緒數、GC停頓時間、heap佔用率
+*/
+package com.jamestann.test.library.actuator;
+
+/**
+ * 飽和度訊號類型
+ * 取樣值以long記錄在延遲直方圖 (與端點延遲相同的桶配置)，回報時換算為reportValue()的單位
+ */
+public enum SaturationSignalType {
+
+    /**
+     * Web伺服器執行緒池 (Tomcat/Jetty) 排隊中的請求數
+     */
+    EXECUTOR_QUEUE("requests", 1.0),
+    /**
+     * 連線池 (HikariCP) 等待連線的執行緒數
+     */
+    CONNECTION_PENDING("threads", 1.0),
+    /**
+     * 每秒的GC停頓時間，取樣單位為微秒，回報單位為毫秒
+     */
+    GC_PAUSE("ms", 1_000.0),
+    /**
+     * 最近一次GC後的heap佔用率，取樣單位為萬分比，回報單位為百分比
+     */
+    HEAP_OCCUPANCY("%", 100.0);
+
+    private final String unit;
+    private final double scale;
+
+    SaturationSignalType(String unit, double scale) {
+        this.unit = unit;
+        this.scale = scale;
+    }
+
+    /**
+     * @return reportValue()的單位
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * 將取樣值換算為回報單位
+     *
+     * @param sample 取樣值
+     * @return 回報值
+     */
+    public double reportValue(long sample) {
+        return sample / scale;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+[004][動態配置]LibraryConfigEndpoint
+功能說明: Library動態配置Actuator端點，查詢目前配置快照、於執行期變更或重設取樣與SLO配置
+Input: LibraryConfigManager
+Output: GET/POST/DELETE /actuator/{test.library.actuator.endpoint-path-prefix}/config
+*/
+package com.jamestann.test.library.actuator.endpoint;
+
+import com.jamestann.test.library.config.LibraryConfigManager;
+import com.jamestann.test.library.config.LibraryConfigSnapshot;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.Collections;
+
+/**
+ * Library動態配置端點
+ * 寫入操作的請求本文為 {"property": "sampling.rate", "value": "0.25"}，value省略表示移除該覆寫；
+ * 屬性不可於執行期變更或值無效時回應400，目前配置維持不變
+ */
+@Endpoint(id = LibraryConfigEndpoint.ENDPOINT_ID)
+public class LibraryConfigEndpoint {
+
+    /**
+     * 端點ID (曝露設定可寫成library-config)
+     */
+    public static final String ENDPOINT_ID = "libraryConfig";
+
+    private final LibraryConfigManager configManager;
+
+    public LibraryConfigEndpoint(LibraryConfigManager configManager) {
+        this.configManager = configManager;
+    }
+
+    @ReadOperation
+    public LibraryConfigSnapshot config() {
+        return configManager.getCurrent();
+    }
+
+    @WriteOperation
+    public LibraryConfigSnapshot update(String property, @Nullable String value) {
+        try {
+            return configManager.update(Collections.singletonMap(property, value), "actuator");
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+
+    @DeleteOperation
+    public LibraryConfigSnapshot reset() {
+        return configManager.reset("actuator");
+    }
+}
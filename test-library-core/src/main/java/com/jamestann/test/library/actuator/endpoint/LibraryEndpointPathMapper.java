@@ -0,0 +1,59 @@
+/*
+[003][M4][SLO端點]LibraryEndpointPathMapper
+功能說明: 將Library端點對應到test.library.actuator.endpoint-path-prefix設定的路徑
+Input: TestLibraryProperties.ActuatorConfig.endpointPathPrefix
+Output: librarySlo -> {prefix}，librarySloStream -> {prefix}/stream
+*/
+/*
+Update History:
+[004][動態配置] - 新增libraryConfig -> {prefix}/config
+[004][SLI歷史] - 新增libraryHistory -> {prefix}/history
+[004][JFR擷取] - 新增libraryRecordings -> {prefix}/recordings
+*/
+package com.jamestann.test.library.actuator.endpoint;
+
+import org.springframework.boot.actuate.endpoint.EndpointId;
+import org.springframework.boot.actuate.endpoint.web.PathMapper;
+import org.springframework.util.StringUtils;
+
+/**
+ * Library端點路徑對應
+ * 只處理Library自己的端點，其他端點 (或未設定前綴時) 回傳null交由下一個PathMapper決定
+ */
+public class LibraryEndpointPathMapper implements PathMapper {
+
+    private static final EndpointId SLO_ENDPOINT_ID = EndpointId.of(LibrarySLOEndpoint.ENDPOINT_ID);
+    private static final EndpointId SLO_STREAM_ENDPOINT_ID = EndpointId.of(LibrarySLOStreamEndpoint.ENDPOINT_ID);
+    private static final EndpointId CONFIG_ENDPOINT_ID = EndpointId.of(LibraryConfigEndpoint.ENDPOINT_ID);
+    private static final EndpointId HISTORY_ENDPOINT_ID = EndpointId.of(LibraryHistoryEndpoint.ENDPOINT_ID);
+    private static final EndpointId RECORDINGS_ENDPOINT_ID = EndpointId.of(LibraryRecordingsEndpoint.ENDPOINT_ID);
+
+    private final String pathPrefix;
+
+    public LibraryEndpointPathMapper(String pathPrefix) {
+        this.pathPrefix = pathPrefix;
+    }
+
+    @Override
+    public String getRootPath(EndpointId endpointId) {
+        if (!StringUtils.hasText(pathPrefix)) {
+            return null;
+        }
+        if (SLO_ENDPOINT_ID.equals(endpointId)) {
+            return pathPrefix;
+        }
+        if (SLO_STREAM_ENDPOINT_ID.equals(endpointId)) {
+            return pathPrefix + "/stream";
+        }
+        if (CONFIG_ENDPOINT_ID.equals(endpointId)) {
+            return pathPrefix + "/config";
+        }
+        if (HISTORY_ENDPOINT_ID.equals(endpointId)) {
+            return pathPrefix + "/history";
+        }
+        if (RECORDINGS_ENDPOINT_ID.equals(endpointId)) {
+            return pathPrefix + "/recordings";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+[004][SLI歷史]LibraryHistoryEndpoint
+功能說明: Library SLI歷史Actuator端點，回答端點指標的範圍查詢 (例如 /api/users 最近24小時的P99)
+Input: SLIHistoryStore、查詢參數 endpoint / metric / range
+Output: GET /actuator/{test.library.actuator.endpoint-path-prefix}/history
+*/
+package com.jamestann.test.library.actuator.endpoint;
+
+import com.jamestann.test.library.actuator.model.SLIHistorySeries;
+import com.jamestann.test.library.history.SLIHistoryMetric;
+import com.jamestann.test.library.history.SLIHistoryStore;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Library SLI歷史端點
+ * 例如 GET /actuator/test-library/history?endpoint=/api/users&amp;metric=p99&amp;range=24h；
+ * endpoint可為端點名稱或路徑 (同一路徑的各HTTP方法各回傳一條序列)，省略時回傳所有端點；
+ * metric預設p99，range預設1h
+ */
+@Endpoint(id = LibraryHistoryEndpoint.ENDPOINT_ID)
+public class LibraryHistoryEndpoint {
+
+    /**
+     * 端點ID (曝露設定可寫成library-history)
+     */
+    public static final String ENDPOINT_ID = "libraryHistory";
+
+    private static final Duration DEFAULT_RANGE = Duration.ofHours(1);
+
+    private final SLIHistoryStore historyStore;
+
+    public LibraryHistoryEndpoint(SLIHistoryStore historyStore) {
+        this.historyStore = historyStore;
+    }
+
+    @ReadOperation
+    public List<SLIHistorySeries> history(@Nullable String endpoint, @Nullable String metric, @Nullable String range) {
+        SLIHistoryMetric historyMetric;
+        Duration duration;
+        try {
+            historyMetric = metric == null ? SLIHistoryMetric.P99 : SLIHistoryMetric.fromLabel(metric);
+            duration = range == null ? DEFAULT_RANGE : DurationStyle.detectAndParse(range);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        if (duration.isNegative() || duration.isZero()) {
+            throw new InvalidEndpointRequestException("range must be positive", "range must be positive");
+        }
+        return historyStore.query(endpoint, historyMetric, duration, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,38 @@
+/*
+[004][JFR擷取]LibraryRecordingsEndpoint
+功能說明: 列出SLA違反觸發的JFR錄製
+Input: LibraryJfrCapture
+Output: GET /actuator/{test.library.actuator.endpoint-path-prefix}/recordings
+*/
+package com.jamestann.test.library.actuator.endpoint;
+
+import com.jamestann.test.library.actuator.LibraryJfrCapture;
+import com.jamestann.test.library.actuator.model.JfrRecordingInfo;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+/**
+ * Library JFR錄製端點
+ * 回傳此行程開始過的錄製 (新的在前)，檔案本身留在伺服器的錄製目錄，以JMC或jfr工具分析
+ */
+@Endpoint(id = LibraryRecordingsEndpoint.ENDPOINT_ID)
+public class LibraryRecordingsEndpoint {
+
+    /**
+     * 端點ID (曝露設定可寫成library-recordings)
+     */
+    public static final String ENDPOINT_ID = "libraryRecordings";
+
+    private final LibraryJfrCapture jfrCapture;
+
+    public LibraryRecordingsEndpoint(LibraryJfrCapture jfrCapture) {
+        this.jfrCapture = jfrCapture;
+    }
+
+    @ReadOperation
+    public List<JfrRecordingInfo> recordings() {
+        return jfrCapture.list();
+    }
+}
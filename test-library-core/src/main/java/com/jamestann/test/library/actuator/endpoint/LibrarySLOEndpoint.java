@@ -0,0 +1,36 @@
+/*
+[003][M4][SLO端點]LibrarySLOEndpoint
+功能說明: Library SLO Actuator端點，回傳最新一次彙總的各端點SLI快照
+Input: LibrarySLISnapshotPublisher
+Output: GET /actuator/{test.library.actuator.endpoint-path-prefix} (預設 /actuator/test-library)
+*/
+package com.jamestann.test.library.actuator.endpoint;
+
+import com.jamestann.test.library.actuator.LibrarySLISnapshotPublisher;
+import com.jamestann.test.library.actuator.model.LibrarySLISnapshot;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * Library SLO端點
+ * 讀取只取得發佈器中已彙總好的快照，不會走訪即時記錄器或計算百分位數
+ */
+@Endpoint(id = LibrarySLOEndpoint.ENDPOINT_ID)
+public class LibrarySLOEndpoint {
+
+    /**
+     * 端點ID (曝露設定可寫成library-slo)
+     */
+    public static final String ENDPOINT_ID = "librarySlo";
+
+    private final LibrarySLISnapshotPublisher snapshotPublisher;
+
+    public LibrarySLOEndpoint(LibrarySLISnapshotPublisher snapshotPublisher) {
+        this.snapshotPublisher = snapshotPublisher;
+    }
+
+    @ReadOperation
+    public LibrarySLISnapshot slis() {
+        return snapshotPublisher.getCurrent();
+    }
+}
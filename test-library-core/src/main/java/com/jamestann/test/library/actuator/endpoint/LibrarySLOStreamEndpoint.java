@@ -0,0 +1,131 @@
+/*
+[003][M4][SLO端點]LibrarySLOStreamEndpoint
+功能說明: 以Server-Sent Events推送每次彙總後的SLI快照，供Dashboard持續追蹤而不需輪詢
+Input: LibrarySLISnapshotPublisher的快照更新通知
+Output: GET /actuator/{endpoint-path-prefix}/stream (text/event-stream，事件名稱sli)
+*/
+package com.jamestann.test.library.actuator.endpoint;
+
+import com.jamestann.test.library.actuator.LibrarySLISnapshotPublisher;
+import com.jamestann.test.library.actuator.model.LibrarySLISnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.actuate.endpoint.web.annotation.RestControllerEndpoint;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Library SLI串流端點
+ * 每個快照只序列化一次 (LibrarySLISnapshot.toJson())，由單一推送執行緒寫給所有訂閱者；
+ * 推送落後時只送出最新快照，慢速的訂閱者不會拖慢彙總執行緒，也不會讓待送佇列累積
+ */
+@Slf4j
+@RestControllerEndpoint(id = LibrarySLOStreamEndpoint.ENDPOINT_ID)
+public class LibrarySLOStreamEndpoint implements DisposableBean {
+
+    /**
+     * 端點ID (曝露設定可寫成library-slo-stream)
+     */
+    public static final String ENDPOINT_ID = "librarySloStream";
+
+    static final int MAX_SUBSCRIBERS = 64;
+
+    private static final long STREAM_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private final LibrarySLISnapshotPublisher snapshotPublisher;
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean fanOutScheduled = new AtomicBoolean();
+    private final Consumer<LibrarySLISnapshot> listener = this::onSnapshot;
+
+    /**
+     * 沒有訂閱者時不保留執行緒
+     */
+    private final ThreadPoolExecutor pushExecutor = new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "test-library-sli-stream");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    public LibrarySLOStreamEndpoint(LibrarySLISnapshotPublisher snapshotPublisher) {
+        this.snapshotPublisher = snapshotPublisher;
+        snapshotPublisher.addListener(listener);
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        if (emitters.size() >= MAX_SUBSCRIBERS) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many SLI stream subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MILLIS);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(error -> emitters.remove(emitter));
+        LibrarySLISnapshot snapshot = snapshotPublisher.getCurrent();
+        if (snapshot != LibrarySLISnapshot.EMPTY && !send(emitter, snapshot)) {
+            return emitter;
+        }
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    int getSubscriberCount() {
+        return emitters.size();
+    }
+
+    @Override
+    public void destroy() {
+        snapshotPublisher.removeListener(listener);
+        pushExecutor.shutdownNow();
+        for (SseEmitter emitter : emitters) {
+            emitter.complete();
+        }
+        emitters.clear();
+    }
+
+    /**
+     * 在彙總執行緒上被呼叫，只排程推送不做IO
+     */
+    private void onSnapshot(LibrarySLISnapshot snapshot) {
+        if (!emitters.isEmpty() && fanOutScheduled.compareAndSet(false, true)) {
+            pushExecutor.execute(this::fanOut);
+        }
+    }
+
+    private void fanOut() {
+        // 先清除旗標再讀取最新快照：之後發佈的快照會重新排程，不會遺漏
+        fanOutScheduled.set(false);
+        LibrarySLISnapshot snapshot = snapshotPublisher.getCurrent();
+        for (SseEmitter emitter : emitters) {
+            if (!send(emitter, snapshot)) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    private boolean send(SseEmitter emitter, LibrarySLISnapshot snapshot) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("sli")
+                    .id(String.valueOf(snapshot.getTimestamp().toEpochMilli()))
+                    .data(snapshot.toJson()));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("SLI stream subscriber disconnected: {}", e.getMessage());
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+[003][M2][SLI滑動視窗]SLAViolationEvent
+功能說明: SLA違反事件模型
+Input: LibrarySLOChecker於滑動視窗上的評估結果
+Output: 違反端點、類型、目前值、門檻值、評估視窗與時間
+*/
+/*
+Update History:
+[003][M3][SLA違反處理] - 新增端點SLOConfig與合併次數(occurrences)，供非同步批次分派使用
+[004][飽和度] - 飽和度違反以 "saturation:" 開頭的訊號名稱作為端點
+*/
+package com.jamestann.test.library.actuator.event;
+
+import com.jamestann.test.library.actuator.model.SLOConfig;
+import com.jamestann.test.library.metrics.SLIWindow;
+
+import java.time.Instant;
+
+/**
+ * SLA違反事件類別
+ * 延遲類型的數值單位為毫秒，可用性與錯誤率的數值單位為百分比；
+ * 飽和度類型的endpoint為 "saturation:" + 訊號名稱，數值單位依訊號而定 (見SaturationSignalType)；
+ * occurrences為分派前被合併的重複違反次數
+ */
+public class SLAViolationEvent {
+    private final String endpoint;
+    private final SLAViolationType violationType;
+    private final double currentValue;
+    private final double threshold;
+    private final SLIWindow window;
+    private final long timestampMillis;
+    private final SLOConfig sloConfig;
+    private final int occurrences;
+
+    public SLAViolationEvent(String endpoint, SLAViolationType violationType, double currentValue,
+            double threshold, SLIWindow window, long timestampMillis, SLOConfig sloConfig) {
+        this(endpoint, violationType, currentValue, threshold, window, timestampMillis, sloConfig, 1);
+    }
+
+    public SLAViolationEvent(String endpoint, SLAViolationType violationType, double currentValue,
+            double threshold, SLIWindow window, long timestampMillis, SLOConfig sloConfig, int occurrences) {
+        this.endpoint = endpoint;
+        this.violationType = violationType;
+        this.currentValue = currentValue;
+        this.threshold = threshold;
+        this.window = window;
+        this.timestampMillis = timestampMillis;
+        this.sloConfig = sloConfig;
+        this.occurrences = occurrences;
+    }
+
+    /**
+     * 以此事件的最新數值建立合併後的事件
+     *
+     * @param totalOccurrences 合併後的總次數
+     * @return 合併後的事件
+     */
+    public SLAViolationEvent coalesced(int totalOccurrences) {
+        return new SLAViolationEvent(endpoint, violationType, currentValue, threshold, window,
+                timestampMillis, sloConfig, totalOccurrences);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public SLAViolationType getViolationType() {
+        return violationType;
+    }
+
+    public double getCurrentValue() {
+        return currentValue;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public SLIWindow getWindow() {
+        return window;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(timestampMillis);
+    }
+
+    public SLOConfig getSloConfig() {
+        return sloConfig;
+    }
+
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SLAViolationEvent{endpoint='%s', type=%s, current=%.3f, threshold=%.3f, window=%s, occurrences=%d, timestamp=%s}",
+                endpoint, violationType, currentValue, threshold, window.getLabel(), occurrences, getTimestamp());
+    }
+}
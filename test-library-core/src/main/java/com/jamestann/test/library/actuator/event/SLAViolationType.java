@@ -0,0 +1,22 @@
+/*
+[003][M2][SLI滑動視窗]SLAViolationType
+功能說明: SLA違反類型
+Input: 無
+Output: 延遲、可用性、錯誤率、最低吞吐量違反
+*/
+/*
+Update History:
+[004][飽和度] - 新增SATURATION_BREACH (執行緒池佇列、連線池等待、GC停頓、heap佔用率達到門檻)
+*/
+package com.jamestann.test.library.actuator.event;
+
+/**
+ * SLA違反類型列舉
+ */
+public enum SLAViolationType {
+    LATENCY_BREACH,
+    AVAILABILITY_BREACH,
+    ERROR_RATE_BREACH,
+    THROUGHPUT_BELOW_MINIMUM,
+    SATURATION_BREACH
+}
@@ -0,0 +1,60 @@
+/*
+[004][熔斷器]CircuitBreakerViolationHandler
+功能說明: SLA違反時打開端點熔斷器 (circuit-breaker)
+Input: SLAViolationEvent
+Output: 端點熔斷器跳脫、WARN等級的跳脫日誌
+*/
+/*
+Update History:
+[004][飽和度] - 不處理SATURATION_BREACH (飽和度訊號不是端點，沒有可跳脫的熔斷器)
+*/
+package com.jamestann.test.library.actuator.handler;
+
+import com.jamestann.test.library.actuator.EndpointLatencyRecorder;
+import com.jamestann.test.library.actuator.LibraryCircuitBreaker;
+import com.jamestann.test.library.actuator.LibrarySLICollector;
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.event.SLAViolationType;
+import com.jamestann.test.library.actuator.model.SLOConfig;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 熔斷器違反處理器
+ * 在SLO的violationActions (或globalViolationActions) 中加入 "circuit-breaker" 才會啟用
+ */
+@Slf4j
+public class CircuitBreakerViolationHandler implements SLAViolationHandler {
+
+    public static final String HANDLER_NAME = "circuit-breaker";
+
+    private final LibraryCircuitBreaker circuitBreaker;
+    private final LibrarySLICollector collector;
+
+    public CircuitBreakerViolationHandler(LibraryCircuitBreaker circuitBreaker, LibrarySLICollector collector) {
+        this.circuitBreaker = circuitBreaker;
+        this.collector = collector;
+    }
+
+    @Override
+    public void handleViolation(SLAViolationEvent violation, SLOConfig config) {
+        EndpointLatencyRecorder recorder = collector.recorderFor(violation.getEndpoint());
+        if (circuitBreaker.trip(recorder)) {
+            log.warn("Circuit breaker for {} opened - Type: {}, Current: {}, Threshold: {}, Window: {}",
+                    violation.getEndpoint(),
+                    violation.getViolationType(),
+                    violation.getCurrentValue(),
+                    violation.getThreshold(),
+                    violation.getWindow().getLabel());
+        }
+    }
+
+    @Override
+    public String getHandlerName() {
+        return HANDLER_NAME;
+    }
+
+    @Override
+    public boolean supports(SLAViolationType type) {
+        return type != SLAViolationType.SATURATION_BREACH;
+    }
+}
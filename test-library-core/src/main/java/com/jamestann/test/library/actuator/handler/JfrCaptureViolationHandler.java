@@ -0,0 +1,43 @@
+/*
+[004][JFR擷取]JfrCaptureViolationHandler
+功能說明: 延遲或飽和度違反時開始一段JFR錄製 (jfr-capture)
+Input: SLAViolationEvent
+Output: LibraryJfrCapture的錄製
+*/
+package com.jamestann.test.library.actuator.handler;
+
+import com.jamestann.test.library.actuator.LibraryJfrCapture;
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.event.SLAViolationType;
+import com.jamestann.test.library.actuator.model.SLOConfig;
+
+/**
+ * JFR錄製違反處理器
+ * 在SLO的violationActions (或globalViolationActions、saturation.violationActions) 中加入 "jfr-capture" 才會啟用；
+ * 錯誤率與可用性違反通常不是時間花在哪裡的問題，不觸發錄製
+ */
+public class JfrCaptureViolationHandler implements SLAViolationHandler {
+
+    public static final String HANDLER_NAME = "jfr-capture";
+
+    private final LibraryJfrCapture jfrCapture;
+
+    public JfrCaptureViolationHandler(LibraryJfrCapture jfrCapture) {
+        this.jfrCapture = jfrCapture;
+    }
+
+    @Override
+    public void handleViolation(SLAViolationEvent violation, SLOConfig config) {
+        jfrCapture.capture(violation);
+    }
+
+    @Override
+    public String getHandlerName() {
+        return HANDLER_NAME;
+    }
+
+    @Override
+    public boolean supports(SLAViolationType type) {
+        return type == SLAViolationType.LATENCY_BREACH || type == SLAViolationType.SATURATION_BREACH;
+    }
+}
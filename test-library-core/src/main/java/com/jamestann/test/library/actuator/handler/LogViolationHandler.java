@@ -0,0 +1,70 @@
+/*
+[003][M3][SLA違反處理]LogViolationHandler
+功能說明: 以日誌記錄SLA違反事件 (log-violation)
+Input: SLAViolationEvent
+Output: WARN等級的違反日誌
+*/
+/*
+Update History:
+[004][Log標準化] - 啟用Log標準化時改以結構化sla.violation事件輸出
+*/
+package com.jamestann.test.library.actuator.handler;
+
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.event.SLAViolationType;
+import com.jamestann.test.library.actuator.model.SLOConfig;
+import com.jamestann.test.library.logging.LibraryStructuredLogger;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.event.Level;
+
+/**
+ * 日誌違反處理器
+ */
+@Slf4j
+public class LogViolationHandler implements SLAViolationHandler {
+
+    public static final String HANDLER_NAME = "log-violation";
+
+    public static final String STRUCTURED_EVENT_NAME = "sla.violation";
+
+    private final LibraryStructuredLogger structuredLogger;
+
+    public LogViolationHandler() {
+        this(null);
+    }
+
+    /**
+     * @param structuredLogger 結構化Logger，null表示使用一般文字日誌
+     */
+    public LogViolationHandler(LibraryStructuredLogger structuredLogger) {
+        this.structuredLogger = structuredLogger;
+    }
+
+    @Override
+    public void handleViolation(SLAViolationEvent violation, SLOConfig config) {
+        if (structuredLogger != null) {
+            structuredLogger.logEvent(Level.WARN, STRUCTURED_EVENT_NAME, violation.getEndpoint(),
+                    violation.getViolationType().name(), violation.getWindow().getLabel(),
+                    violation.getCurrentValue(), violation.getThreshold(), violation.getOccurrences());
+            return;
+        }
+        log.warn("SLA Violation Detected - Endpoint: {}, Type: {}, Current: {}, Threshold: {}, Window: {}, Occurrences: {}, Time: {}",
+                violation.getEndpoint(),
+                violation.getViolationType(),
+                violation.getCurrentValue(),
+                violation.getThreshold(),
+                violation.getWindow().getLabel(),
+                violation.getOccurrences(),
+                violation.getTimestamp());
+    }
+
+    @Override
+    public String getHandlerName() {
+        return HANDLER_NAME;
+    }
+
+    @Override
+    public boolean supports(SLAViolationType type) {
+        return true;
+    }
+}
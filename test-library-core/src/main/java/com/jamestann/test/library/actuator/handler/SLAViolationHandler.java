@@ -0,0 +1,49 @@
+/*
+[003][M3][SLA違反處理]SLAViolationHandler
+功能說明: SLA違反處理器接口，由SLAViolationProcessor在專用分派執行緒上批次呼叫
+Input: SLAViolationEvent、端點SLOConfig
+Output: 處理器自訂的違反處理動作 (日誌、告警、熔斷等)
+*/
+package com.jamestann.test.library.actuator.handler;
+
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.event.SLAViolationType;
+import com.jamestann.test.library.actuator.model.SLOConfig;
+
+import java.util.List;
+
+/**
+ * SLA違反處理器接口
+ * 處理器永遠不會在請求執行緒上執行
+ */
+public interface SLAViolationHandler {
+
+    /**
+     * 處理SLA違反事件
+     *
+     * @param violation SLA違反事件詳情
+     * @param config    端點SLO配置
+     */
+    void handleViolation(SLAViolationEvent violation, SLOConfig config);
+
+    /**
+     * 批次處理SLA違反事件，預設逐筆呼叫handleViolation
+     *
+     * @param violations 同一批次中已合併的違反事件
+     */
+    default void handleViolations(List<SLAViolationEvent> violations) {
+        for (SLAViolationEvent violation : violations) {
+            handleViolation(violation, violation.getSloConfig());
+        }
+    }
+
+    /**
+     * 處理器名稱，用於violation-actions配置中引用
+     */
+    String getHandlerName();
+
+    /**
+     * 是否支援此類型的違反事件
+     */
+    boolean supports(SLAViolationType type);
+}
@@ -0,0 +1,125 @@
+/*
+[004][CPU與配置量]EndpointResourceSnapshot
+功能說明: 單一端點自啟動以來每次請求CPU時間與配置量的不可變快照
+Input: EndpointLatencyRecorder的CPU時間與配置量直方圖、累計值
+Output: 樣本數、累計值、平均值與P50/P95/P99
+*/
+package com.jamestann.test.library.actuator.model;
+
+/**
+ * 端點資源使用快照模型
+ * 只在啟用resourceAccountingEnabled後才會出現；CPU時間以微秒、配置量以位元組表示
+ * (直方圖以KiB記錄，百分位數的解析度為1KiB)
+ */
+public class EndpointResourceSnapshot {
+    private final long cpuSampleCount;
+    private final long cpuTimeTotalMicros;
+    private final long cpuP50Micros;
+    private final long cpuP95Micros;
+    private final long cpuP99Micros;
+    private final long allocationSampleCount;
+    private final long allocatedBytesTotal;
+    private final long allocatedP50Bytes;
+    private final long allocatedP95Bytes;
+    private final long allocatedP99Bytes;
+
+    public EndpointResourceSnapshot(long cpuSampleCount, long cpuTimeTotalMicros, long cpuP50Micros, long cpuP95Micros,
+            long cpuP99Micros, long allocationSampleCount, long allocatedBytesTotal, long allocatedP50Bytes,
+            long allocatedP95Bytes, long allocatedP99Bytes) {
+        this.cpuSampleCount = cpuSampleCount;
+        this.cpuTimeTotalMicros = cpuTimeTotalMicros;
+        this.cpuP50Micros = cpuP50Micros;
+        this.cpuP95Micros = cpuP95Micros;
+        this.cpuP99Micros = cpuP99Micros;
+        this.allocationSampleCount = allocationSampleCount;
+        this.allocatedBytesTotal = allocatedBytesTotal;
+        this.allocatedP50Bytes = allocatedP50Bytes;
+        this.allocatedP95Bytes = allocatedP95Bytes;
+        this.allocatedP99Bytes = allocatedP99Bytes;
+    }
+
+    public long getCpuSampleCount() {
+        return cpuSampleCount;
+    }
+
+    public long getCpuTimeTotalMicros() {
+        return cpuTimeTotalMicros;
+    }
+
+    /**
+     * 平均每次請求CPU時間
+     *
+     * @return 累計CPU時間 / 樣本數 (微秒)
+     */
+    public long getCpuMeanMicros() {
+        return cpuSampleCount == 0L ? 0L : cpuTimeTotalMicros / cpuSampleCount;
+    }
+
+    public long getCpuP50Micros() {
+        return cpuP50Micros;
+    }
+
+    public long getCpuP95Micros() {
+        return cpuP95Micros;
+    }
+
+    public long getCpuP99Micros() {
+        return cpuP99Micros;
+    }
+
+    public long getAllocationSampleCount() {
+        return allocationSampleCount;
+    }
+
+    public long getAllocatedBytesTotal() {
+        return allocatedBytesTotal;
+    }
+
+    /**
+     * 平均每次請求配置量
+     *
+     * @return 累計配置位元組 / 樣本數
+     */
+    public long getAllocatedMeanBytes() {
+        return allocationSampleCount == 0L ? 0L : allocatedBytesTotal / allocationSampleCount;
+    }
+
+    public long getAllocatedP50Bytes() {
+        return allocatedP50Bytes;
+    }
+
+    public long getAllocatedP95Bytes() {
+        return allocatedP95Bytes;
+    }
+
+    public long getAllocatedP99Bytes() {
+        return allocatedP99Bytes;
+    }
+
+    /**
+     * 以JSON物件格式附加此快照，欄位與getter一致
+     *
+     * @param builder 輸出目標
+     */
+    public void appendJson(StringBuilder builder) {
+        builder.append("{\"cpuSampleCount\":").append(cpuSampleCount)
+                .append(",\"cpuTimeTotalMicros\":").append(cpuTimeTotalMicros)
+                .append(",\"cpuMeanMicros\":").append(getCpuMeanMicros())
+                .append(",\"cpuP50Micros\":").append(cpuP50Micros)
+                .append(",\"cpuP95Micros\":").append(cpuP95Micros)
+                .append(",\"cpuP99Micros\":").append(cpuP99Micros)
+                .append(",\"allocationSampleCount\":").append(allocationSampleCount)
+                .append(",\"allocatedBytesTotal\":").append(allocatedBytesTotal)
+                .append(",\"allocatedMeanBytes\":").append(getAllocatedMeanBytes())
+                .append(",\"allocatedP50Bytes\":").append(allocatedP50Bytes)
+                .append(",\"allocatedP95Bytes\":").append(allocatedP95Bytes)
+                .append(",\"allocatedP99Bytes\":").append(allocatedP99Bytes)
+                .append('}');
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EndpointResourceSnapshot{cpuP95=%dus, allocatedP95=%dB, allocatedTotal=%dB}",
+                cpuP95Micros, allocatedP95Bytes, allocatedBytesTotal);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+[003][M4][SLO端點]EndpointSLISnapshot
+功能說明: 單一端點所有滑動視窗的SLI不可變快照
+Input: 各視窗的SLIWindowSnapshot
+Output: 端點名稱與1m/5m/1h視窗SLI
+*/
+/*
+Update History:
+[004][熔斷器] - 新增端點熔斷器狀態 (熔斷器未關閉時才輸出)
+[004][CPU與配置量] - 新增端點每次請求CPU時間與配置量快照 (啟用資源計量且有樣本時才輸出)
+[004][取樣監控] - 合併為單一建構子
+*/
+package com.jamestann.test.library.actuator.model;
+
+import com.jamestann.test.library.util.JsonStrings;
+
+import java.util.List;
+
+/**
+ * 端點SLI快照模型
+ */
+public class EndpointSLISnapshot {
+    private final String endpoint;
+    private final List<SLIWindowSnapshot> windows;
+    private final String circuitState;
+    private final EndpointResourceSnapshot resources;
+
+    /**
+     * @param endpoint     端點名稱
+     * @param windows      各視窗SLI
+     * @param circuitState 熔斷器狀態 (OPEN、HALF_OPEN)，關閉時為null
+     * @param resources    自啟動以來的CPU時間與配置量，未啟用資源計量或尚無樣本時為null
+     */
+    public EndpointSLISnapshot(String endpoint, List<SLIWindowSnapshot> windows, String circuitState,
+            EndpointResourceSnapshot resources) {
+        this.endpoint = endpoint;
+        this.windows = List.copyOf(windows);
+        this.circuitState = circuitState;
+        this.resources = resources;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public List<SLIWindowSnapshot> getWindows() {
+        return windows;
+    }
+
+    public String getCircuitState() {
+        return circuitState;
+    }
+
+    public EndpointResourceSnapshot getResources() {
+        return resources;
+    }
+
+    /**
+     * 以JSON物件格式附加此快照，欄位與getter一致
+     *
+     * @param builder 輸出目標
+     */
+    public void appendJson(StringBuilder builder) {
+        builder.append("{\"endpoint\":");
+        JsonStrings.appendQuoted(builder, endpoint);
+        if (circuitState != null) {
+            builder.append(",\"circuitState\":\"").append(circuitState).append('"');
+        }
+        builder.append(",\"windows\":[");
+        for (int i = 0; i < windows.size(); i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            windows.get(i).appendJson(builder);
+        }
+        builder.append(']');
+        if (resources != null) {
+            builder.append(",\"resources\":");
+            resources.appendJson(builder);
+        }
+        builder.append('}');
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EndpointSLISnapshot{endpoint='%s', circuitState=%s, windows=%s, resources=%s}", endpoint,
+                circuitState, windows, resources);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+[004][JFR擷取]JfrRecordingInfo
+功能說明: SLA違反觸發的單一JFR錄製資訊
+Input: LibraryJfrCapture保存的錄製
+Output: 錄製名稱、觸發端點與違反類型、檔案路徑與大小、開始時間、錄製時間、狀態
+*/
+package com.jamestann.test.library.actuator.model;
+
+/**
+ * JFR錄製資訊模型
+ */
+public class JfrRecordingInfo {
+    private final String name;
+    private final String endpoint;
+    private final String violationType;
+    private final String file;
+    private final long startedAt;
+    private final long durationSeconds;
+    private final long sizeBytes;
+    private final String state;
+
+    public JfrRecordingInfo(String name, String endpoint, String violationType, String file, long startedAt,
+            long durationSeconds, long sizeBytes, String state) {
+        this.name = name;
+        this.endpoint = endpoint;
+        this.violationType = violationType;
+        this.file = file;
+        this.startedAt = startedAt;
+        this.durationSeconds = durationSeconds;
+        this.sizeBytes = sizeBytes;
+        this.state = state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getViolationType() {
+        return violationType;
+    }
+
+    /**
+     * 錄製檔案路徑 (錄製中時尚未寫出)
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * 錄製開始時間 (epoch毫秒)
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    /**
+     * 檔案大小，檔案尚未寫出或已被刪除時為0
+     */
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    /**
+     * RECORDING、COMPLETED、DELETED (磁碟用量上限清除) 或FAILED
+     */
+    public String getState() {
+        return state;
+    }
+}
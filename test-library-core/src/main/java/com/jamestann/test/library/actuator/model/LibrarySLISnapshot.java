@@ -0,0 +1,68 @@
+/*
+[003][M4][SLO端點]LibrarySLISnapshot
+功能說明: 某次彙總tick後所有端點SLI的不可變快照，供Actuator端點與串流直接輸出
+Input: LibrarySLIAggregator在彙總執行緒上產生的端點快照
+Output: 快照時間、各端點SLI、預先序列化的JSON
+*/
+package com.jamestann.test.library.actuator.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Library SLI快照模型
+ * 建立後不再修改；JSON只在第一次需要時產生一次，之後所有串流訂閱者共用同一字串
+ */
+public class LibrarySLISnapshot {
+
+    /**
+     * 尚未完成第一次彙總時的空快照
+     */
+    public static final LibrarySLISnapshot EMPTY = new LibrarySLISnapshot(0L, List.of());
+
+    private final long timestampMillis;
+    private final List<EndpointSLISnapshot> endpoints;
+    private String json;
+
+    public LibrarySLISnapshot(long timestampMillis, List<EndpointSLISnapshot> endpoints) {
+        this.timestampMillis = timestampMillis;
+        this.endpoints = List.copyOf(endpoints);
+    }
+
+    public Instant getTimestamp() {
+        return Instant.ofEpochMilli(timestampMillis);
+    }
+
+    public List<EndpointSLISnapshot> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * 取得預先序列化的JSON，欄位與getter一致
+     * (多執行緒同時第一次呼叫時可能重複產生，但結果相同且String可安全發佈)
+     *
+     * @return JSON字串
+     */
+    public String toJson() {
+        String result = json;
+        if (result == null) {
+            StringBuilder builder = new StringBuilder(64 + endpoints.size() * 640)
+                    .append("{\"timestamp\":\"").append(getTimestamp())
+                    .append("\",\"endpoints\":[");
+            for (int i = 0; i < endpoints.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                endpoints.get(i).appendJson(builder);
+            }
+            result = builder.append("]}").toString();
+            json = result;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LibrarySLISnapshot{timestamp=%s, endpoints=%d}", getTimestamp(), endpoints.size());
+    }
+}
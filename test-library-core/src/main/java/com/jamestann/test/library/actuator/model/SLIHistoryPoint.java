@@ -0,0 +1,36 @@
+/*
+[004][SLI歷史]SLIHistoryPoint
+功能說明: SLI歷史查詢結果中的單一資料點
+Input: SLIHistoryStore解碼出的時間與指標值
+Output: 資料點起始時間 (epoch毫秒) 與指標值
+*/
+package com.jamestann.test.library.actuator.model;
+
+/**
+ * SLI歷史資料點模型
+ */
+public class SLIHistoryPoint {
+    private final long timestamp;
+    private final double value;
+
+    public SLIHistoryPoint(long timestamp, double value) {
+        this.timestamp = timestamp;
+        this.value = value;
+    }
+
+    /**
+     * 資料點涵蓋區間的起始時間 (epoch毫秒)
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SLIHistoryPoint{timestamp=%d, value=%s}", timestamp, value);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+[004][SLI歷史]SLIHistorySeries
+功能說明: 單一端點單一指標在查詢區間內的SLI歷史序列
+Input: SLIHistoryStore的範圍查詢結果
+Output: 端點、指標、資料點解析度、依時間排序的資料點
+*/
+package com.jamestann.test.library.actuator.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SLI歷史序列模型
+ */
+public class SLIHistorySeries {
+    private final String endpoint;
+    private final String metric;
+    private final long resolutionSeconds;
+    private final List<SLIHistoryPoint> points;
+
+    public SLIHistorySeries(String endpoint, String metric, long resolutionSeconds, List<SLIHistoryPoint> points) {
+        this.endpoint = endpoint;
+        this.metric = metric;
+        this.resolutionSeconds = resolutionSeconds;
+        this.points = Collections.unmodifiableList(points);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    /**
+     * 每個資料點涵蓋的秒數 (查詢所使用的保留層級解析度)
+     */
+    public long getResolutionSeconds() {
+        return resolutionSeconds;
+    }
+
+    public List<SLIHistoryPoint> getPoints() {
+        return points;
+    }
+
+    /**
+     * 區間內的最大值，無資料點時回傳0
+     */
+    public double getMax() {
+        double max = 0.0;
+        for (SLIHistoryPoint point : points) {
+            max = Math.max(max, point.getValue());
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SLIHistorySeries{endpoint=%s, metric=%s, resolution=%ds, points=%d}",
+                endpoint, metric, resolutionSeconds, points.size());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+[003][M4][SLO端點]SLIWindowSnapshot
+功能說明: 單一端點在單一滑動視窗(1m/5m/1h)內的SLI不可變快照
+Input: RollingSLIWindow的視窗彙總
+Output: 請求數、錯誤數、RPS、錯誤率、可用性、P50/P90/P95/P99(微秒)
+*/
+package com.jamestann.test.library.actuator.model;
+
+import com.jamestann.test.library.metrics.SLIWindow;
+
+/**
+ * 視窗SLI快照模型
+ */
+public class SLIWindowSnapshot {
+    private final SLIWindow window;
+    private final long requestCount;
+    private final long errorCount;
+    private final double errorRate;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p95Micros;
+    private final long p99Micros;
+
+    public SLIWindowSnapshot(SLIWindow window, long requestCount, long errorCount, double errorRate,
+            long p50Micros, long p90Micros, long p95Micros, long p99Micros) {
+        this.window = window;
+        this.requestCount = requestCount;
+        this.errorCount = errorCount;
+        this.errorRate = errorRate;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p95Micros = p95Micros;
+        this.p99Micros = p99Micros;
+    }
+
+    public String getWindow() {
+        return window.getLabel();
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * 視窗期間的平均每秒請求數
+     *
+     * @return 請求數 / 視窗秒數
+     */
+    public double getRequestsPerSecond() {
+        return (double) requestCount / window.getSeconds();
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public double getAvailability() {
+        return 100.0 - errorRate;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP95Micros() {
+        return p95Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    /**
+     * 以JSON物件格式附加此快照，欄位與getter一致
+     *
+     * @param builder 輸出目標
+     */
+    public void appendJson(StringBuilder builder) {
+        builder.append("{\"window\":\"").append(window.getLabel())
+                .append("\",\"requestCount\":").append(requestCount)
+                .append(",\"errorCount\":").append(errorCount)
+                .append(",\"requestsPerSecond\":").append(getRequestsPerSecond())
+                .append(",\"errorRate\":").append(errorRate)
+                .append(",\"availability\":").append(getAvailability())
+                .append(",\"p50Micros\":").append(p50Micros)
+                .append(",\"p90Micros\":").append(p90Micros)
+                .append(",\"p95Micros\":").append(p95Micros)
+                .append(",\"p99Micros\":").append(p99Micros)
+                .append('}');
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SLIWindowSnapshot{window=%s, requests=%d, errors=%d, errorRate=%.3f%%, p95=%dus}",
+                window.getLabel(), requestCount, errorCount, errorRate, p95Micros);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+[003][M2][SLI滑動視窗]SLOConfig
+功能說明: 單一端點合併後的SLO門檻 (全域預設 + 端點覆寫)
+Input: TestLibraryProperties.SloConfig
+Output: 扁平、不可變的SLO門檻值
+*/
+package com.jamestann.test.library.actuator.model;
+
+import java.util.List;
+
+/**
+ * 端點SLO配置模型
+ * 在端點第一次出現時解析一次，評估時直接讀取欄位，不再查詢配置Map
+ */
+public class SLOConfig {
+    private final String endpoint;
+    private final long latencyP95Micros;
+    private final double availability;
+    private final double errorRate;
+    private final List<String> violationActions;
+
+    public SLOConfig(String endpoint, long latencyP95Micros, double availability,
+            double errorRate, List<String> violationActions) {
+        this.endpoint = endpoint;
+        this.latencyP95Micros = latencyP95Micros;
+        this.availability = availability;
+        this.errorRate = errorRate;
+        this.violationActions = List.copyOf(violationActions);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getLatencyP95Micros() {
+        return latencyP95Micros;
+    }
+
+    public double getAvailability() {
+        return availability;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public List<String> getViolationActions() {
+        return violationActions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SLOConfig{endpoint='%s', latencyP95=%dus, availability=%.3f%%, errorRate=%.3f%%, actions=%s}",
+                endpoint, latencyP95Micros, availability, errorRate, violationActions);
+    }
+}
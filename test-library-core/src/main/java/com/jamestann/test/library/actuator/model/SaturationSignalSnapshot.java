@@ -0,0 +1,84 @@
+/*
+[004][飽和度]SaturationSignalSnapshot
+功能說明: 單一飽和度訊號的不可變快照
+Input: LibrarySaturationMonitor每秒的取樣與評估視窗彙總
+Output: 訊號名稱、類型、最新取樣、視窗P95、門檻、達到門檻的取樣比例、是否飽和
+*/
+package com.jamestann.test.library.actuator.model;
+
+/**
+ * 飽和度訊號快照模型
+ * 數值皆已換算為訊號類型的回報單位 (unit)
+ */
+public class SaturationSignalSnapshot {
+    private final String name;
+    private final String type;
+    private final String unit;
+    private final double current;
+    private final double windowP95;
+    private final double threshold;
+    private final double saturatedPercent;
+    private final boolean saturated;
+
+    public SaturationSignalSnapshot(String name, String type, String unit, double current, double windowP95,
+            double threshold, double saturatedPercent, boolean saturated) {
+        this.name = name;
+        this.type = type;
+        this.unit = unit;
+        this.current = current;
+        this.windowP95 = windowP95;
+        this.threshold = threshold;
+        this.saturatedPercent = saturatedPercent;
+        this.saturated = saturated;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * @return 最新一次取樣
+     */
+    public double getCurrent() {
+        return current;
+    }
+
+    /**
+     * @return 評估視窗內取樣的P95
+     */
+    public double getWindowP95() {
+        return windowP95;
+    }
+
+    /**
+     * @return 飽和門檻，0表示此訊號只記錄不評估
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @return 評估視窗內達到門檻的取樣比例 (百分比)
+     */
+    public double getSaturatedPercent() {
+        return saturatedPercent;
+    }
+
+    public boolean isSaturated() {
+        return saturated;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SaturationSignalSnapshot{name='%s', type=%s, current=%.3f%s, p95=%.3f%s, threshold=%.3f%s, saturated=%s}",
+                name, type, current, unit, windowP95, unit, threshold, unit, saturated);
+    }
+}
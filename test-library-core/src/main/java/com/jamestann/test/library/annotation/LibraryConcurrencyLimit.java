@@ -0,0 +1,44 @@
+/*
+[004][併發限制]LibraryConcurrencyLimit
+功能說明: 於Controller類別或handler method上啟用端點的自適應併發限制
+Input: 註解屬性 (initialLimit、maxLimit、maxQueue、queueTimeout)
+Output: 由LibraryConcurrencyLimiter建立端點的EndpointConcurrencyLimiter
+*/
+package com.jamestann.test.library.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 端點併發限制註解
+ * 併發上限依端點latency-p95 SLO目標自動調整 (AIMD)；未設定的屬性沿用test.library.concurrency-limit配置，
+ * 方法上的註解優先於類別上的註解
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LibraryConcurrencyLimit {
+
+    /**
+     * 初始併發上限，非正值表示未設定
+     */
+    int initialLimit() default -1;
+
+    /**
+     * 併發上限的上界，非正值表示未設定
+     */
+    int maxLimit() default -1;
+
+    /**
+     * 超過上限時最多等待的請求數 (0表示立即拒絕)，負值表示未設定
+     */
+    int maxQueue() default -1;
+
+    /**
+     * 排隊請求的最長等待時間，使用Spring Boot Duration格式 (例如 "20ms")，空字串表示未設定
+     */
+    String queueTimeout() default "";
+}
@@ -0,0 +1,45 @@
+/*
+[004][SLO策略索引]LibrarySLO
+功能說明: 於Controller類別或handler method上宣告端點SLO門檻
+Input: 註解屬性 (latencyP95、availability、errorRate、violationActions)
+Output: 由LibrarySLOPolicyIndex編譯為端點的扁平SLOConfig
+*/
+package com.jamestann.test.library.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 端點SLO註解
+ * 優先順序 (低到高): slo.defaults → 類別上的@LibrarySLO → 方法上的@LibrarySLO → slo.endpoints配置覆寫，
+ * 讓維運人員可以在不重新部署的情況下以配置調整程式碼中宣告的門檻。
+ * 未設定的屬性沿用下一層的值
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LibrarySLO {
+
+    /**
+     * P95延遲上限，使用Spring Boot Duration格式 (例如 "150ms"、"1s")，空字串表示未設定
+     */
+    String latencyP95() default "";
+
+    /**
+     * 可用性下限 (百分比，例如 99.9)，負值表示未設定
+     */
+    double availability() default -1;
+
+    /**
+     * 錯誤率上限 (百分比，例如 0.1)，負值表示未設定
+     */
+    double errorRate() default -1;
+
+    /**
+     * 違反處理動作，空陣列表示未設定
+     */
+    String[] violationActions() default {};
+}
@@ -0,0 +1,305 @@
+/*
+[004][動態配置]LibraryConfigManager
+功能說明: 執行期重新載入Library配置 (取樣與SLO)，以單一volatile參考發佈不可變的配置快照
+Input: Actuator寫入操作、test.library.reload.file指定的properties檔案
+Output: LibraryConfigSnapshot，並通知已註冊的監聽者 (SLI收集器、SLO檢查器)
+*/
+package com.jamestann.test.library.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Library配置管理器
+ * <p>
+ * 覆寫分為兩層，優先順序為 Actuator &gt; 檔案 &gt; 應用程式Environment；每次變更都以Binder重新綁定出全新的
+ * TestLibraryProperties並包成LibraryConfigSnapshot，驗證通過後才寫入volatile參考並依版本順序通知監聽者。
+ * 只有sampling.*與slo.* (slo.enabled、slo.dispatch.*除外) 可以在執行期變更，其餘屬性需要重新啟動。
+ * <p>
+ * 監聽者只替換各元件內的策略物件，端點記錄器、直方圖與滑動視窗都不會重建，累積的SLI資料完整保留
+ */
+@Slf4j
+public class LibraryConfigManager implements InitializingBean, DisposableBean {
+
+    static final String PREFIX = "test.library";
+
+    private static final List<ConfigurationPropertyName> RELOADABLE = List.of(
+            ConfigurationPropertyName.of("sampling"),
+            ConfigurationPropertyName.of("slo"));
+
+    private static final List<ConfigurationPropertyName> RESTART_REQUIRED = List.of(
+            ConfigurationPropertyName.of("slo.enabled"),
+            ConfigurationPropertyName.of("slo.dispatch"));
+
+    private final Iterable<ConfigurationPropertySource> baseSources;
+    private final TestLibraryProperties.ReloadConfig reloadConfig;
+    private final List<Consumer<LibraryConfigSnapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, String> fileOverrides = new LinkedHashMap<>();
+    private final Map<String, String> runtimeOverrides = new LinkedHashMap<>();
+
+    private volatile LibraryConfigSnapshot current;
+    private ScheduledExecutorService fileWatcher;
+    private long fileStamp = Long.MIN_VALUE;
+
+    public LibraryConfigManager(Environment environment, TestLibraryProperties.ReloadConfig reloadConfig) {
+        this(ConfigurationPropertySources.get(environment), reloadConfig);
+    }
+
+    /**
+     * @param baseSources  應用程式原本的配置來源
+     * @param reloadConfig 重新載入配置
+     */
+    public LibraryConfigManager(Iterable<ConfigurationPropertySource> baseSources,
+            TestLibraryProperties.ReloadConfig reloadConfig) {
+        this.baseSources = baseSources;
+        this.reloadConfig = reloadConfig;
+        this.current = bind(0L, "startup", new LinkedHashMap<>());
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (reloadConfig.getFile() == null || reloadConfig.getFile().trim().isEmpty()) {
+            return;
+        }
+        pollFile();
+        long intervalMillis = Math.max(100L, reloadConfig.getFilePollInterval().toMillis());
+        fileWatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "test-library-config-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        fileWatcher.scheduleWithFixedDelay(this::pollFile, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.debug("Watching {} for library configuration changes every {}ms", reloadConfig.getFile(), intervalMillis);
+    }
+
+    @Override
+    public void destroy() {
+        if (fileWatcher != null) {
+            fileWatcher.shutdownNow();
+        }
+    }
+
+    /**
+     * 取得目前生效的配置快照 (讀取一次volatile參考)
+     *
+     * @return 配置快照
+     */
+    public LibraryConfigSnapshot getCurrent() {
+        return current;
+    }
+
+    /**
+     * 註冊配置變更監聽者 (只會收到註冊之後發佈的快照)
+     *
+     * @param listener 監聽者
+     */
+    public void addListener(Consumer<LibraryConfigSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<LibraryConfigSnapshot> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 套用執行期覆寫，值為null表示移除該覆寫
+     *
+     * @param properties 屬性 (key可含或不含test.library前綴，例如 "sampling.rate"、"slo.defaults.latency-p95")
+     * @param source     變更來源 (記錄於快照)
+     * @return 新的配置快照
+     * @throws IllegalArgumentException 屬性不可在執行期變更或綁定/驗證失敗，此時原快照不變
+     */
+    public synchronized LibraryConfigSnapshot update(Map<String, String> properties, String source) {
+        Map<String, String> merged = new LinkedHashMap<>(runtimeOverrides);
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            String key = reloadableKey(entry.getKey());
+            if (entry.getValue() == null) {
+                merged.remove(key);
+            } else {
+                merged.put(key, entry.getValue());
+            }
+        }
+        LibraryConfigSnapshot snapshot = publish(source, fileOverrides, merged);
+        runtimeOverrides.clear();
+        runtimeOverrides.putAll(merged);
+        return snapshot;
+    }
+
+    /**
+     * 清除所有Actuator覆寫 (檔案覆寫保留)
+     *
+     * @param source 變更來源
+     * @return 新的配置快照
+     */
+    public synchronized LibraryConfigSnapshot reset(String source) {
+        LibraryConfigSnapshot snapshot = publish(source, fileOverrides, new LinkedHashMap<>());
+        runtimeOverrides.clear();
+        return snapshot;
+    }
+
+    /**
+     * 檢查監看的檔案是否變更 (依最後修改時間與大小)，變更時重新載入
+     */
+    void pollFile() {
+        Path path = Paths.get(reloadConfig.getFile());
+        try {
+            long stamp = Files.exists(path) ? Files.getLastModifiedTime(path).toMillis() * 31 + Files.size(path) : -1L;
+            if (stamp != fileStamp) {
+                fileStamp = stamp;
+                reloadFile(path, stamp == -1L ? new Properties() : readProperties(path));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to reload library configuration from {}: {}", path, e.getMessage());
+        }
+    }
+
+    private synchronized void reloadFile(Path path, Properties properties) {
+        Map<String, String> loaded = new LinkedHashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            loaded.put(reloadableKey(name), properties.getProperty(name));
+        }
+        if (loaded.equals(fileOverrides)) {
+            return;
+        }
+        publish("file:" + path, loaded, runtimeOverrides);
+        fileOverrides.clear();
+        fileOverrides.putAll(loaded);
+    }
+
+    private static Properties readProperties(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    /**
+     * 綁定、驗證並發佈新快照，失敗時丟出例外且不改變目前快照 (呼叫端需持有鎖)
+     */
+    private LibraryConfigSnapshot publish(String source, Map<String, String> file, Map<String, String> runtime) {
+        Map<String, String> overrides = new LinkedHashMap<>(file);
+        overrides.putAll(runtime);
+        LibraryConfigSnapshot snapshot = bind(current.getVersion() + 1, source, overrides);
+        current = snapshot;
+        for (Consumer<LibraryConfigSnapshot> listener : listeners) {
+            listener.accept(snapshot);
+        }
+        log.info("Applied library configuration v{} from {}: {}", snapshot.getVersion(), source, overrides);
+        return snapshot;
+    }
+
+    private LibraryConfigSnapshot bind(long version, String source, Map<String, String> overrides) {
+        List<ConfigurationPropertySource> sources = new ArrayList<>();
+        if (!overrides.isEmpty()) {
+            MapConfigurationPropertySource overrideSource = new MapConfigurationPropertySource();
+            for (Map.Entry<String, String> entry : overrides.entrySet()) {
+                overrideSource.put(PREFIX + "." + entry.getKey(), entry.getValue());
+            }
+            sources.add(overrideSource);
+        }
+        for (ConfigurationPropertySource base : baseSources) {
+            sources.add(base);
+        }
+        TestLibraryProperties properties;
+        try {
+            properties = new Binder(sources).bind(PREFIX, Bindable.of(TestLibraryProperties.class))
+                    .orElseGet(TestLibraryProperties::new);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid library configuration: " + rootMessage(e), e);
+        }
+        validate(properties.getSampling());
+        return new LibraryConfigSnapshot(version, source, Instant.now(), overrides, properties.getSampling(), properties.getSlo());
+    }
+
+    private static void validate(TestLibraryProperties.SamplingConfig sampling) {
+        checkRate("sampling.rate", sampling.getRate());
+        for (Map.Entry<String, Double> endpoint : sampling.getEndpoints().entrySet()) {
+            checkRate("sampling.endpoints[" + endpoint.getKey() + "]", endpoint.getValue());
+        }
+        checkRate("sampling.adaptive.min-rate", sampling.getAdaptive().getMinRate());
+    }
+
+    private static void checkRate(String name, Double rate) {
+        if (rate == null || !(rate > 0.0) || rate > 1.0) {
+            throw new IllegalArgumentException("Invalid library configuration: " + name + " must be in (0, 1], was " + rate);
+        }
+    }
+
+    /**
+     * 將屬性名稱正規化為相對於test.library的canonical形式，並確認可在執行期變更
+     */
+    static String reloadableKey(String key) {
+        ConfigurationPropertyName name = ConfigurationPropertyName.adapt(toDashed(key), '.');
+        ConfigurationPropertyName prefix = ConfigurationPropertyName.of(PREFIX);
+        if (prefix.isAncestorOf(name)) {
+            name = name.subName(prefix.getNumberOfElements());
+        }
+        boolean reloadable = false;
+        for (ConfigurationPropertyName candidate : RELOADABLE) {
+            reloadable |= candidate.isAncestorOf(name);
+        }
+        for (ConfigurationPropertyName candidate : RESTART_REQUIRED) {
+            reloadable &= !candidate.equals(name) && !candidate.isAncestorOf(name);
+        }
+        if (!reloadable) {
+            throw new IllegalArgumentException("Property '" + key + "' cannot be changed at runtime");
+        }
+        return name.toString();
+    }
+
+    /**
+     * camelCase轉為kebab-case (中括號內的map key保持原樣)
+     */
+    private static String toDashed(String key) {
+        StringBuilder dashed = new StringBuilder(key.length() + 8);
+        int depth = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            depth += c == '[' ? 1 : c == ']' ? -1 : 0;
+            if (depth == 0 && Character.isUpperCase(c)) {
+                if (i > 0 && key.charAt(i - 1) != '.') {
+                    dashed.append('-');
+                }
+                dashed.append(Character.toLowerCase(c));
+            } else {
+                dashed.append(c);
+            }
+        }
+        return dashed.toString();
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+}
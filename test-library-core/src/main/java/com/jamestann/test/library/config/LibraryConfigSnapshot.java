@@ -0,0 +1,75 @@
+/*
+[004][動態配置]LibraryConfigSnapshot
+功能說明: 執行期可重新載入的Library配置快照 (取樣與SLO)
+Input: LibraryConfigManager每次套用變更時重新綁定的TestLibraryProperties
+Output: 版本號、來源、生效時間、取樣配置、SLO配置
+*/
+package com.jamestann.test.library.config;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Library配置快照
+ * 每次變更都重新綁定出全新的配置物件，發佈後不再被任何人修改，
+ * 因此讀取端只需要讀一次LibraryConfigManager的volatile參考，不需要加鎖
+ */
+public class LibraryConfigSnapshot {
+    private final long version;
+    private final String source;
+    private final Instant appliedAt;
+    private final Map<String, String> overrides;
+    private final TestLibraryProperties.SamplingConfig sampling;
+    private final TestLibraryProperties.SloConfig slo;
+
+    public LibraryConfigSnapshot(long version, String source, Instant appliedAt, Map<String, String> overrides,
+            TestLibraryProperties.SamplingConfig sampling, TestLibraryProperties.SloConfig slo) {
+        this.version = version;
+        this.source = source;
+        this.appliedAt = appliedAt;
+        this.overrides = Collections.unmodifiableMap(new LinkedHashMap<>(overrides));
+        this.sampling = sampling;
+        this.slo = slo;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Instant getAppliedAt() {
+        return appliedAt;
+    }
+
+    /**
+     * 目前生效的執行期覆寫 (檔案與Actuator合併後，key相對於test.library)
+     */
+    public Map<String, String> getOverrides() {
+        return overrides;
+    }
+
+    /**
+     * 取樣配置 (唯讀，請勿修改)
+     */
+    public TestLibraryProperties.SamplingConfig getSampling() {
+        return sampling;
+    }
+
+    /**
+     * SLO配置 (唯讀，請勿修改)
+     */
+    public TestLibraryProperties.SloConfig getSlo() {
+        return slo;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LibraryConfigSnapshot{version=%d, source='%s', appliedAt=%s, overrides=%s}",
+                version, source, appliedAt, overrides);
+    }
+}
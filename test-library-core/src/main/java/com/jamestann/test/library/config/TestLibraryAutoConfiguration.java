@@ -6,20 +6,108 @@ Spring Boot Auto Configuration 類別
 /*
 Update History:
 [002][依賴調整] - 新增版本相容性檢查功能，整合SpringBootVersionDetector
+[003][M1][SLI收集] - 新增LibrarySLICollector與LibraryMetricsAspect，受performanceMonitoringEnabled控制
+[003][M2][SLI滑動視窗] - 新增LibrarySLIAggregator與LibrarySLOChecker，以滑動視窗評估SLO
+[003][M3][SLA違反處理] - 新增SLAViolationProcessor與LogViolationHandler，違反事件改為非同步批次分派
+[004][效能調校] - 移除@ComponentScan改為明確@Bean註冊，依功能拆分條件式配置；版本檢查移至TestLibraryManager；SLA違反處理改為延遲初始化
+[003][M4][SLO端點] - 新增LibrarySLOEndpoint與SSE串流端點，受actuator.customEndpointsEnabled控制
+[004][Log標準化] - 新增LibraryStructuredLogger，受loggingStandardizationEnabled控制，供存取日誌與SLA違反事件使用
+[004][取樣監控] - LibrarySLICollector依sampling配置建立LibrarySamplingPolicy
+[004][SLO策略索引] - 啟動完成時掃描Spring MVC handler method，預先編譯所有路由的SLO策略
+[004][動態配置] - 新增LibraryConfigManager與LibraryConfigEndpoint，取樣與SLO配置可於執行期重新載入
+[004][Off-Heap儲存] - LibrarySLICollector依storage配置選擇heap或off-heap直方圖，並套用端點數上限
+[004][SLI持久化] - LibrarySLIAggregator依persistence配置還原/寫出SLI視窗檔案
+[004][SLI歷史] - 新增SLIHistoryStore (history.enabled) 與LibraryHistoryEndpoint
+[004][Micrometer橋接] - classpath上有Micrometer時新增LibraryMicrometerBridge (micrometer.enabled)，由彙總執行緒批次推送
+[004][虛擬執行緒] - LibraryMetricsAspect依contextPropagationEnabled設定LibraryRequestContext範圍
+[004][WebFlux監控] - Reactive應用改以LibraryWebFilter監控 (classpath上有Reactor與WebFlux時)，LibraryMetricsAspect不再註冊
+[004][熔斷器] - 新增LibraryCircuitBreaker與CircuitBreakerViolationHandler (slo.circuit-breaker.enabled)，由LibraryMetricsAspect放行判斷
+[004][併發限制] - 新增LibraryConcurrencyLimiter (concurrency-limit.enabled)，以SLO策略索引的latency-p95目標調整端點併發上限
+[004][JSON回應] - Servlet應用新增JsonWritableHttpMessageConverter，回傳JsonWritable的Controller不經過Jackson
+[004][飽和度] - 新增LibrarySaturationMonitor (saturation.enabled)，註冊Web伺服器執行緒池與DataSource，並提供TestLibraryManager健康狀態
+[004][JFR擷取] - 新增LibraryJfrCapture、JfrCaptureViolationHandler (slo.jfr-capture.enabled) 與LibraryRecordingsEndpoint
+[004][CPU與配置量] - resourceAccountingEnabled時LibraryMetricsAspect記錄每次請求的CPU時間與配置量
+[004][熔斷器] - Reactive應用的LibraryWebFilter同樣依LibraryCircuitBreaker放行判斷
+[004][併發限制] - Reactive應用的LibraryWebFilter同樣套用LibraryConcurrencyLimiter
+[004][SLI持久化] - LibrarySLOChecker與LibraryConcurrencyLimiter監聽記錄器補上handler method的事件，還原視窗後的端點仍套用註解
 */
 package com.jamestann.test.library.config;
 
+import com.jamestann.test.library.actuator.EndpointLatencyRecorder;
+import com.jamestann.test.library.actuator.LibraryCircuitBreaker;
+import com.jamestann.test.library.actuator.LibraryConcurrencyLimiter;
+import com.jamestann.test.library.actuator.LibraryJfrCapture;
+import com.jamestann.test.library.actuator.LibraryMetricsAspect;
+import com.jamestann.test.library.actuator.LibrarySLIAggregator;
+import com.jamestann.test.library.actuator.LibraryMicrometerBridge;
+import com.jamestann.test.library.actuator.LibraryResourceAccounting;
+import com.jamestann.test.library.actuator.LibrarySLICollector;
+import com.jamestann.test.library.actuator.LibrarySLIExporter;
+import com.jamestann.test.library.actuator.LibrarySLISnapshotPublisher;
+import com.jamestann.test.library.actuator.LibrarySLOChecker;
+import com.jamestann.test.library.actuator.LibrarySamplingPolicy;
+import com.jamestann.test.library.actuator.LibrarySaturationMonitor;
+import com.jamestann.test.library.actuator.SLAViolationProcessor;
+import com.jamestann.test.library.actuator.endpoint.LibraryConfigEndpoint;
+import com.jamestann.test.library.actuator.endpoint.LibraryEndpointPathMapper;
+import com.jamestann.test.library.actuator.endpoint.LibraryHistoryEndpoint;
+import com.jamestann.test.library.actuator.endpoint.LibraryRecordingsEndpoint;
+import com.jamestann.test.library.actuator.endpoint.LibrarySLOEndpoint;
+import com.jamestann.test.library.actuator.endpoint.LibrarySLOStreamEndpoint;
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.handler.CircuitBreakerViolationHandler;
+import com.jamestann.test.library.actuator.handler.JfrCaptureViolationHandler;
+import com.jamestann.test.library.actuator.handler.LogViolationHandler;
+import com.jamestann.test.library.actuator.handler.SLAViolationHandler;
+import com.jamestann.test.library.history.SLIHistoryStore;
+import com.jamestann.test.library.logging.LibraryStructuredLogger;
+import com.jamestann.test.library.logging.Slf4jStructuredLogSink;
+import com.jamestann.test.library.logging.StreamStructuredLogSink;
+import com.jamestann.test.library.logging.StructuredLogEncoder;
+import com.jamestann.test.library.logging.StructuredLogSink;
+import com.jamestann.test.library.metrics.LogLinearHistogram;
+import com.jamestann.test.library.metrics.OffHeapHistogramArena;
+import com.jamestann.test.library.reactive.LibraryWebFilter;
 import com.jamestann.test.library.util.SpringBootVersionDetector;
+import com.jamestann.test.library.web.JsonWritableHttpMessageConverter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnNotWebApplication;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.util.function.SingletonSupplier;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
+import javax.sql.DataSource;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Library自動配置
+ * 所有Bean皆以@Bean明確註冊 (不做classpath掃描)，各功能以巢狀配置類別搭配@ConditionalOn*控制，
+ * 停用的功能不會建立任何Bean定義以外的物件
+ */
 @Slf4j
 @AutoConfiguration
-@ComponentScan(basePackages = "com.jamestann.test.library")
 @EnableConfigurationProperties(TestLibraryProperties.class)
 @ConditionalOnProperty(
     prefix = "test.library",
@@ -29,34 +117,440 @@ import org.springframework.context.annotation.ComponentScan;
 )
 public class TestLibraryAutoConfiguration {
 
-    private final SpringBootVersionDetector versionDetector;
-
-    public TestLibraryAutoConfiguration(SpringBootVersionDetector versionDetector) {
-        this.versionDetector = versionDetector;
-        log.info("Test Library Auto Configuration initialized");
-        performVersionCompatibilityCheck();
+    @Bean
+    @ConditionalOnMissingBean
+    public SpringBootVersionDetector springBootVersionDetector() {
+        return new SpringBootVersionDetector();
     }
 
     @Bean
-    public TestLibraryManager testLibraryManager(TestLibraryProperties properties) {
+    public TestLibraryManager testLibraryManager(TestLibraryProperties properties,
+            SpringBootVersionDetector springBootVersionDetector,
+            ObjectProvider<LibrarySaturationMonitor> librarySaturationMonitor) {
         log.info("Creating TestLibraryManager with properties: {}", properties);
-        return new TestLibraryManager(properties, versionDetector);
+        return new TestLibraryManager(properties, springBootVersionDetector, librarySaturationMonitor.getIfAvailable());
+    }
+
+    /**
+     * Log標準化 (結構化存取日誌與Library事件)
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(
+        prefix = "test.library",
+        name = "logging-standardization-enabled",
+        havingValue = "true",
+        matchIfMissing = true
+    )
+    static class LoggingStandardizationConfiguration {
+
+        @Bean
+        public LibraryStructuredLogger libraryStructuredLogger(TestLibraryProperties properties) {
+            TestLibraryProperties.LoggingConfig logging = properties.getLogging();
+            StructuredLogSink sink = logging.getOutput() == TestLibraryProperties.LogOutput.STDOUT
+                    ? new StreamStructuredLogSink(new FileOutputStream(FileDescriptor.out), 64 * 1024)
+                    : new Slf4jStructuredLogSink();
+            return new LibraryStructuredLogger(new StructuredLogEncoder(properties.getLibraryName()), sink,
+                    logging.getBufferCapacity(), logging.getBatchSize());
+        }
+    }
+
+    /**
+     * 效能監控 (SLI收集、AOP攔截、滑動視窗彙總)
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(
+        prefix = "test.library",
+        name = "performance-monitoring-enabled",
+        havingValue = "true",
+        matchIfMissing = true
+    )
+    static class PerformanceMonitoringConfiguration {
+
+        @Bean
+        public LibrarySLICollector librarySLICollector(TestLibraryProperties properties) {
+            TestLibraryProperties.StorageConfig storage = properties.getStorage();
+            Supplier<LogLinearHistogram> histogramFactory = EndpointLatencyRecorder::newLatencyHistogram;
+            if (storage.getBackend() == TestLibraryProperties.StorageBackend.OFF_HEAP) {
+                histogramFactory = new OffHeapHistogramArena(EndpointLatencyRecorder.LATENCY_SUB_BUCKET_BITS,
+                        EndpointLatencyRecorder.MAX_TRACKABLE_MICROS, (int) storage.getOffHeapChunkSize().toBytes());
+            }
+            return new LibrarySLICollector(new LibrarySamplingPolicy(properties.getSampling()), histogramFactory,
+                    storage.getMaxEndpoints());
+        }
+
+        @Bean
+        @ConditionalOnClass(name = {
+            "org.aspectj.weaver.Advice",
+            "org.springframework.web.bind.annotation.RestController"
+        })
+        @Conditional(NonReactiveApplicationCondition.class)
+        public LibraryMetricsAspect libraryMetricsAspect(LibrarySLICollector librarySLICollector,
+                TestLibraryProperties properties, ObjectProvider<LibraryStructuredLogger> libraryStructuredLogger,
+                ObjectProvider<LibraryCircuitBreaker> libraryCircuitBreaker,
+                ObjectProvider<LibraryConcurrencyLimiter> libraryConcurrencyLimiter) {
+            log.info("Performance monitoring enabled, registering LibraryMetricsAspect");
+            LibraryStructuredLogger accessLogger = properties.getLogging().isAccessLogEnabled()
+                    ? libraryStructuredLogger.getIfAvailable() : null;
+            LibraryResourceAccounting resourceAccounting = properties.isResourceAccountingEnabled()
+                    ? new LibraryResourceAccounting() : null;
+            return LibraryMetricsAspect.builder(librarySLICollector)
+                    .accessLogger(accessLogger)
+                    .propagateContext(properties.isContextPropagationEnabled())
+                    .circuitBreaker(libraryCircuitBreaker.getIfAvailable())
+                    .concurrencyLimiter(libraryConcurrencyLimiter.getIfAvailable())
+                    .resourceAccounting(resourceAccounting)
+                    .build();
+        }
+
+        /**
+         * 只有@LibraryConcurrencyLimit或concurrency-limit.endpoints列出的端點受限制；
+         * SLO未啟用時沒有latency-p95目標，上限只依使用率增長
+         */
+        @Bean
+        @ConditionalOnProperty(prefix = "test.library.concurrency-limit", name = "enabled", havingValue = "true",
+                matchIfMissing = true)
+        public LibraryConcurrencyLimiter libraryConcurrencyLimiter(TestLibraryProperties properties,
+                LibrarySLICollector librarySLICollector, ObjectProvider<LibrarySLOChecker> librarySLOChecker) {
+            LibrarySLOChecker checker = librarySLOChecker.getIfAvailable();
+            LibraryConcurrencyLimiter limiter = new LibraryConcurrencyLimiter(properties.getConcurrencyLimit(),
+                    checker == null ? null : checker.getPolicyIndex());
+            librarySLICollector.addHandlerBindingListener(limiter::invalidate);
+            return limiter;
+        }
+
+        @Bean
+        public LibrarySLIAggregator librarySLIAggregator(LibrarySLICollector librarySLICollector,
+                ObjectProvider<LibrarySLOChecker> librarySLOChecker,
+                ObjectProvider<SLAViolationProcessor> slaViolationProcessor,
+                ObjectProvider<LibrarySLISnapshotPublisher> librarySLISnapshotPublisher,
+                ObjectProvider<SLIHistoryStore> sliHistoryStore,
+                ObjectProvider<LibrarySLIExporter> librarySLIExporter,
+                TestLibraryProperties properties) {
+            return LibrarySLIAggregator.builder(librarySLICollector)
+                    .sloChecker(librarySLOChecker.getIfAvailable())
+                    .violationSink(lazyViolationSink(slaViolationProcessor))
+                    .snapshotPublisher(librarySLISnapshotPublisher.getIfAvailable())
+                    .persistence(properties.getPersistence())
+                    .historyStore(sliHistoryStore.getIfAvailable())
+                    .exporter(librarySLIExporter.getIfUnique())
+                    .build();
+        }
+
+        @Bean
+        @ConditionalOnProperty(prefix = "test.library.history", name = "enabled", havingValue = "true")
+        public SLIHistoryStore sliHistoryStore(TestLibraryProperties properties, LibrarySLICollector librarySLICollector) {
+            return new SLIHistoryStore(properties.getHistory(), librarySLICollector.getHistogramFactory());
+        }
+
+        /**
+         * 執行期配置變更只替換收集器與檢查器內的策略物件，記錄器與滑動視窗保留
+         */
+        @Bean
+        public LibraryConfigManager libraryConfigManager(Environment environment, TestLibraryProperties properties,
+                LibrarySLICollector librarySLICollector, ObjectProvider<LibrarySLOChecker> librarySLOChecker) {
+            LibraryConfigManager manager = new LibraryConfigManager(environment, properties.getReload());
+            manager.addListener(snapshot -> librarySLICollector.reconfigure(new LibrarySamplingPolicy(snapshot.getSampling())));
+            LibrarySLOChecker sloChecker = librarySLOChecker.getIfAvailable();
+            if (sloChecker != null) {
+                manager.addListener(snapshot -> sloChecker.reconfigure(snapshot.getSlo()));
+            }
+            return manager;
+        }
+
+        /**
+         * Reactive應用的監控路徑 (Controller方法只回傳Mono/Flux，AOP量不到實際處理時間)
+         */
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+        @ConditionalOnClass(name = {
+            "reactor.core.publisher.Mono",
+            "org.springframework.web.server.WebFilter"
+        })
+        static class ReactiveMonitoringConfiguration {
+
+            /**
+             * 熔斷器與併發限制需要在handler執行前解析端點，因此注入Controller路由 (actuator的@ControllerEndpoint也是此類型)
+             */
+            @Bean
+            public LibraryWebFilter libraryWebFilter(LibrarySLICollector librarySLICollector,
+                    TestLibraryProperties properties, ObjectProvider<LibraryStructuredLogger> libraryStructuredLogger,
+                    ObjectProvider<LibraryCircuitBreaker> libraryCircuitBreaker,
+                    ObjectProvider<LibraryConcurrencyLimiter> libraryConcurrencyLimiter,
+                    ObjectProvider<org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping>
+                            handlerMappings) {
+                log.info("Reactive web application detected, registering LibraryWebFilter");
+                LibraryStructuredLogger accessLogger = properties.getLogging().isAccessLogEnabled()
+                        ? libraryStructuredLogger.getIfAvailable() : null;
+                return LibraryWebFilter.builder(librarySLICollector)
+                        .accessLogger(accessLogger)
+                        .circuitBreaker(libraryCircuitBreaker.getIfAvailable())
+                        .concurrencyLimiter(libraryConcurrencyLimiter.getIfAvailable())
+                        .handlerMappings(handlerMappings.orderedStream().collect(Collectors.toList()))
+                        .build();
+            }
+        }
+
+        /**
+         * 非Web或Servlet應用才以AOP監控Controller (Reactive應用由LibraryWebFilter監控，避免重複計數)
+         */
+        static class NonReactiveApplicationCondition extends AnyNestedCondition {
+
+            NonReactiveApplicationCondition() {
+                super(ConfigurationPhase.REGISTER_BEAN);
+            }
+
+            @ConditionalOnNotWebApplication
+            static class NotWebApplication {
+            }
+
+            @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+            static class ServletWebApplication {
+            }
+        }
+
+        /**
+         * SLAViolationProcessor為延遲初始化，第一次發生違反時才建立 (與其分派執行緒)
+         */
+        private static Consumer<SLAViolationEvent> lazyViolationSink(ObjectProvider<SLAViolationProcessor> provider) {
+            SingletonSupplier<SLAViolationProcessor> processor = SingletonSupplier.of(provider::getIfAvailable);
+            return violation -> {
+                SLAViolationProcessor target = processor.get();
+                if (target != null) {
+                    target.publish(violation);
+                }
+            };
+        }
+    }
+
+    /**
+     * 飽和度監控 (單一排程執行緒取樣執行緒池、連線池、GC停頓與heap佔用率)
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(
+        prefix = "test.library",
+        name = {"performance-monitoring-enabled", "saturation.enabled"},
+        havingValue = "true",
+        matchIfMissing = true
+    )
+    static class SaturationConfiguration {
+
+        /**
+         * 飽和時的違反事件與SLO違反共用SLAViolationProcessor (SLO未啟用時只記錄不分派)
+         */
+        @Bean
+        public LibrarySaturationMonitor librarySaturationMonitor(TestLibraryProperties properties,
+                ObjectProvider<SLAViolationProcessor> slaViolationProcessor) {
+            return new LibrarySaturationMonitor(properties.getSaturation(),
+                    PerformanceMonitoringConfiguration.lazyViolationSink(slaViolationProcessor));
+        }
+
+        /**
+         * 所有單例建立完成後註冊DataSource連線池 (Web伺服器執行緒池由WebServerInitializedEvent註冊)
+         */
+        @Bean
+        @ConditionalOnClass(name = "javax.sql.DataSource")
+        public SmartInitializingSingleton librarySaturationDataSources(LibrarySaturationMonitor librarySaturationMonitor,
+                ObjectProvider<DataSource> dataSources) {
+            return () -> dataSources.orderedStream().forEach(librarySaturationMonitor::monitorDataSource);
+        }
+    }
+
+    /**
+     * Micrometer橋接 (MeterBinder由Spring Boot綁定到所有MeterRegistry)
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(
+        prefix = "test.library",
+        name = {"performance-monitoring-enabled", "micrometer.enabled"},
+        havingValue = "true",
+        matchIfMissing = true
+    )
+    static class MicrometerConfiguration {
+
+        @Bean
+        public LibraryMicrometerBridge libraryMicrometerBridge(TestLibraryProperties properties,
+                ObjectProvider<LibrarySLOChecker> librarySLOChecker) {
+            TestLibraryProperties.MicrometerConfig micrometer = properties.getMicrometer();
+            LibrarySLOChecker sloChecker = librarySLOChecker.getIfAvailable();
+            return new LibraryMicrometerBridge(properties.getLibraryName(), micrometer.getWindow(), micrometer.getStep(),
+                    sloChecker == null ? null : sloChecker.getPolicyIndex());
+        }
+    }
+
+    /**
+     * SLO評估與SLA違反處理
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(
+        prefix = "test.library",
+        name = {"performance-monitoring-enabled", "slo.enabled"},
+        havingValue = "true",
+        matchIfMissing = true
+    )
+    static class SloConfiguration {
+
+        @Bean
+        public LibrarySLOChecker librarySLOChecker(TestLibraryProperties properties,
+                ObjectProvider<LibrarySLICollector> librarySLICollector) {
+            LibrarySLOChecker checker = new LibrarySLOChecker(properties.getSlo());
+            librarySLICollector.ifAvailable(collector -> collector.addHandlerBindingListener(
+                    checker.getPolicyIndex()::invalidate));
+            return checker;
+        }
+
+        @Bean
+        @Lazy
+        public LogViolationHandler logViolationHandler(ObjectProvider<LibraryStructuredLogger> libraryStructuredLogger) {
+            return new LogViolationHandler(libraryStructuredLogger.getIfAvailable());
+        }
+
+        @Bean
+        @ConditionalOnProperty(prefix = "test.library.slo.circuit-breaker", name = "enabled", havingValue = "true",
+                matchIfMissing = true)
+        public LibraryCircuitBreaker libraryCircuitBreaker(TestLibraryProperties properties,
+                LibrarySLOChecker librarySLOChecker) {
+            return new LibraryCircuitBreaker(properties.getSlo().getCircuitBreaker(), librarySLOChecker.getPolicyIndex(),
+                    Duration.ofSeconds(librarySLOChecker.getEvaluationWindow().getSeconds()));
+        }
+
+        @Bean
+        @Lazy
+        @ConditionalOnProperty(prefix = "test.library.slo.circuit-breaker", name = "enabled", havingValue = "true",
+                matchIfMissing = true)
+        public CircuitBreakerViolationHandler circuitBreakerViolationHandler(LibraryCircuitBreaker libraryCircuitBreaker,
+                LibrarySLICollector librarySLICollector) {
+            return new CircuitBreakerViolationHandler(libraryCircuitBreaker, librarySLICollector);
+        }
+
+        /**
+         * 錄製只在violation-actions含 "jfr-capture" 且發生違反時開始，未觸發前不啟動JFR
+         */
+        @Bean
+        @ConditionalOnClass(name = "jdk.jfr.Recording")
+        @ConditionalOnProperty(prefix = "test.library.slo.jfr-capture", name = "enabled", havingValue = "true",
+                matchIfMissing = true)
+        public LibraryJfrCapture libraryJfrCapture(TestLibraryProperties properties) {
+            return new LibraryJfrCapture(properties.getSlo().getJfrCapture());
+        }
+
+        @Bean
+        @Lazy
+        @ConditionalOnClass(name = "jdk.jfr.Recording")
+        @ConditionalOnProperty(prefix = "test.library.slo.jfr-capture", name = "enabled", havingValue = "true",
+                matchIfMissing = true)
+        public JfrCaptureViolationHandler jfrCaptureViolationHandler(LibraryJfrCapture libraryJfrCapture) {
+            return new JfrCaptureViolationHandler(libraryJfrCapture);
+        }
+
+        @Bean
+        @Lazy
+        public SLAViolationProcessor slaViolationProcessor(TestLibraryProperties properties,
+                ObjectProvider<SLAViolationHandler> violationHandlers) {
+            return new SLAViolationProcessor(properties.getSlo(), violationHandlers.orderedStream().collect(Collectors.toList()));
+        }
+
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+        @ConditionalOnClass(name = "org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping")
+        static class HandlerPolicyConfiguration {
+
+            /**
+             * 所有單例建立完成後 (handler mapping已註冊全部路由) 一次編譯每個路由的SLO策略
+             */
+            @Bean
+            public SmartInitializingSingleton librarySLOPolicyCompiler(LibrarySLOChecker librarySLOChecker,
+                    ObjectProvider<RequestMappingHandlerMapping> handlerMappings) {
+                return () -> handlerMappings.orderedStream().forEach(mapping -> {
+                    List<Method> methods = mapping.getHandlerMethods().values().stream()
+                            .map(HandlerMethod::getMethod)
+                            .collect(Collectors.toList());
+                    librarySLOChecker.getPolicyIndex().registerHandlers(methods);
+                });
+            }
+        }
+    }
+
+    /**
+     * JsonWritable回應 (HttpMessageConverters會把HttpMessageConverter bean放在Jackson之前)
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnClass(name = "org.springframework.http.converter.AbstractHttpMessageConverter")
+    static class JsonResponseConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public JsonWritableHttpMessageConverter jsonWritableHttpMessageConverter() {
+            return new JsonWritableHttpMessageConverter();
+        }
     }
 
     /**
-     * 執行Spring Boot版本相容性檢查
+     * 自訂Actuator端點 (SLI快照與SSE串流)
      */
-    private void performVersionCompatibilityCheck() {
-        SpringBootVersionDetector.VersionCompatibilityReport report = versionDetector.getCompatibilityReport();
-        
-        if (report.isCompatible()) {
-            log.info("Spring Boot version compatibility check passed: {}", report.getMessage());
-        } else {
-            log.warn("Spring Boot version compatibility warning: {}", report.getMessage());
-            log.warn("Supported versions: {}", String.join(", ", report.getSupportedVersions()));
-            log.warn("Current setup may not work as expected. Consider upgrading to a supported Spring Boot version.");
-        }
-        
-        log.debug("Version compatibility report: {}", report);
-    }
-}
\ No newline at end of file
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    @ConditionalOnProperty(
+        prefix = "test.library",
+        name = {"performance-monitoring-enabled", "actuator.custom-endpoints-enabled"},
+        havingValue = "true",
+        matchIfMissing = true
+    )
+    static class ActuatorEndpointConfiguration {
+
+        @Bean
+        public LibrarySLISnapshotPublisher librarySLISnapshotPublisher() {
+            return new LibrarySLISnapshotPublisher();
+        }
+
+        @Bean
+        public LibraryEndpointPathMapper libraryEndpointPathMapper(TestLibraryProperties properties) {
+            return new LibraryEndpointPathMapper(properties.getActuator().getEndpointPathPrefix());
+        }
+
+        @Bean
+        @ConditionalOnAvailableEndpoint(endpoint = LibrarySLOEndpoint.class)
+        public LibrarySLOEndpoint librarySLOEndpoint(LibrarySLISnapshotPublisher librarySLISnapshotPublisher) {
+            return new LibrarySLOEndpoint(librarySLISnapshotPublisher);
+        }
+
+        @Bean
+        @ConditionalOnAvailableEndpoint(endpoint = LibraryConfigEndpoint.class)
+        public LibraryConfigEndpoint libraryConfigEndpoint(LibraryConfigManager libraryConfigManager) {
+            return new LibraryConfigEndpoint(libraryConfigManager);
+        }
+
+        @Bean
+        @ConditionalOnProperty(prefix = "test.library.history", name = "enabled", havingValue = "true")
+        @ConditionalOnAvailableEndpoint(endpoint = LibraryHistoryEndpoint.class)
+        public LibraryHistoryEndpoint libraryHistoryEndpoint(SLIHistoryStore sliHistoryStore) {
+            return new LibraryHistoryEndpoint(sliHistoryStore);
+        }
+
+        @Bean
+        @ConditionalOnClass(name = "jdk.jfr.Recording")
+        @ConditionalOnProperty(
+            prefix = "test.library.slo",
+            name = {"enabled", "jfr-capture.enabled"},
+            havingValue = "true",
+            matchIfMissing = true
+        )
+        @ConditionalOnAvailableEndpoint(endpoint = LibraryRecordingsEndpoint.class)
+        public LibraryRecordingsEndpoint libraryRecordingsEndpoint(LibraryJfrCapture libraryJfrCapture) {
+            return new LibraryRecordingsEndpoint(libraryJfrCapture);
+        }
+
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+        @ConditionalOnClass(name = "org.springframework.web.servlet.mvc.method.annotation.SseEmitter")
+        static class StreamEndpointConfiguration {
+
+            @Bean
+            @ConditionalOnAvailableEndpoint(endpoint = LibrarySLOStreamEndpoint.class)
+            public LibrarySLOStreamEndpoint librarySLOStreamEndpoint(LibrarySLISnapshotPublisher librarySLISnapshotPublisher) {
+                return new LibrarySLOStreamEndpoint(librarySLISnapshotPublisher);
+            }
+        }
+    }
+}
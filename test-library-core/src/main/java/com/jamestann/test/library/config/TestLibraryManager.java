@@ -6,22 +6,59 @@ Test Library管理類別
 /*
 Update History:
 [002][依賴調整] - 整合SpringBootVersionDetector，新增版本資訊管理功能
+[004][效能調校] - 版本相容性警告由AutoConfiguration建構子移至此處的初始化日誌
+[004][飽和度] - 新增健康狀態 (UP/SATURATED/DISABLED)，由LibrarySaturationMonitor的飽和狀態決定
 */
 package com.jamestann.test.library.config;
 
+import com.jamestann.test.library.actuator.LibrarySaturationMonitor;
+import com.jamestann.test.library.actuator.model.SaturationSignalSnapshot;
 import com.jamestann.test.library.util.SpringBootVersionDetector;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.InitializingBean;
 
+import java.util.Collections;
+import java.util.List;
+
 @Slf4j
 public class TestLibraryManager implements InitializingBean {
 
+    /**
+     * Library健康狀態
+     */
+    public enum HealthStatus {
+        /**
+         * 正常運作
+         */
+        UP,
+        /**
+         * 至少一個飽和度訊號在評估視窗內達到門檻 (執行緒池、連線池、GC或heap)
+         */
+        SATURATED,
+        /**
+         * Library功能已停用
+         */
+        DISABLED
+    }
+
     private final TestLibraryProperties properties;
     private final SpringBootVersionDetector versionDetector;
+    private final LibrarySaturationMonitor saturationMonitor;
 
     public TestLibraryManager(TestLibraryProperties properties, SpringBootVersionDetector versionDetector) {
+        this(properties, versionDetector, null);
+    }
+
+    /**
+     * @param properties        Library配置
+     * @param versionDetector   Spring Boot版本偵測器
+     * @param saturationMonitor 飽和度監控器，null表示健康狀態不考慮飽和度
+     */
+    public TestLibraryManager(TestLibraryProperties properties, SpringBootVersionDetector versionDetector,
+            LibrarySaturationMonitor saturationMonitor) {
         this.properties = properties;
         this.versionDetector = versionDetector;
+        this.saturationMonitor = saturationMonitor;
     }
 
     @Override
@@ -32,6 +69,7 @@ public class TestLibraryManager implements InitializingBean {
         log.info("  - Performance Monitoring: {}", properties.isPerformanceMonitoringEnabled());
         log.info("  - Logging Standardization: {}", properties.isLoggingStandardizationEnabled());
         log.info("  - Custom Actuator Endpoints: {}", properties.getActuator().isCustomEndpointsEnabled());
+        log.info("  - Saturation Monitoring: {}", saturationMonitor != null);
         
         // 添加版本資訊到初始化日誌
         logVersionInformation();
@@ -52,6 +90,10 @@ public class TestLibraryManager implements InitializingBean {
         SpringBootVersionDetector.VersionCompatibilityReport report = versionDetector.getCompatibilityReport();
         log.info("  - Spring Boot Version: {}", report.getCurrentVersion());
         log.info("  - Version Compatibility: {}", report.isCompatible() ? "Compatible" : "Not Compatible");
+        if (!report.isCompatible()) {
+            log.warn("Spring Boot version compatibility warning: {}", report.getMessage());
+            log.warn("Current setup may not work as expected. Consider upgrading to a supported Spring Boot version.");
+        }
     }
 
     public TestLibraryProperties getProperties() {
@@ -62,6 +104,27 @@ public class TestLibraryManager implements InitializingBean {
         return properties.isEnabled();
     }
 
+    /**
+     * 取得Library健康狀態 (只讀取飽和度監控器最近一次發佈的狀態)
+     *
+     * @return 健康狀態
+     */
+    public HealthStatus getHealthStatus() {
+        if (!properties.isEnabled()) {
+            return HealthStatus.DISABLED;
+        }
+        return saturationMonitor != null && saturationMonitor.isSaturated() ? HealthStatus.SATURATED : HealthStatus.UP;
+    }
+
+    /**
+     * 取得各飽和度訊號的最新快照
+     *
+     * @return 訊號快照，未啟用飽和度監控時為空列表
+     */
+    public List<SaturationSignalSnapshot> getSaturationSignals() {
+        return saturationMonitor == null ? Collections.emptyList() : saturationMonitor.getSignals();
+    }
+
     /**
      * 取得版本相容性資訊
      * 
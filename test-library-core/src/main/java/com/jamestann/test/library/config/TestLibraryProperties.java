@@ -3,10 +3,38 @@
 Test Library配置屬性類別
 管理Library的配置參數
 */
+/*
+Update History:
+[003][M2][SLI滑動視窗] - 新增SLO配置 (defaults、endpoints覆寫、評估視窗)
+[003][M3][SLA違反處理] - 新增違反事件非同步分派配置 (佇列容量、批次大小、重複抑制、溢出策略)
+[004][Log標準化] - 新增結構化Log配置 (存取日誌、緩衝區容量、批次大小、輸出目標)
+[004][取樣監控] - 新增效能監控取樣配置 (固定比率、端點比率、依CPU/排程延遲自適應降載)
+[004][動態配置] - 新增執行期重新載入配置 (監看檔案路徑、輪詢間隔)
+[004][Off-Heap儲存] - 新增端點狀態儲存配置 (heap/off-heap、端點數上限、off-heap區塊大小)
+[004][SLI持久化] - 新增SLI視窗持久化配置 (檔案路徑、寫出間隔、可還原的最大停機時間)
+[004][SLI歷史] - 新增SLI歷史儲存配置 (區塊檔案、降採樣與保留層級)
+[004][Micrometer橋接] - 新增Micrometer橋接配置 (是否啟用、推送間隔、分位數視窗)
+[004][虛擬執行緒] - 新增請求上下文傳遞開關
+[004][熔斷器] - 新增端點熔斷器配置 (是否啟用、打開時間、半開探測數)
+[004][併發限制] - 新增自適應併發限制配置 (限制端點、限制上下界、等待佇列、調整間隔與退讓比例)
+[004][飽和度] - 新增飽和度監控配置 (評估視窗、各訊號門檻、違反處理動作)
+[004][JFR擷取] - 新增違反時JFR錄製配置 (錄製時間、最短間隔、輸出目錄、磁碟用量上限、JFR設定檔)
+[004][CPU與配置量] - 新增每次請求CPU時間與配置量計量開關
+[004][Off-Heap儲存] - 端點數上限預設值由2000降為1000，並註明每端點記憶體成本
+[004][Off-Heap儲存] - 記錄器分段改為依寫入競爭增加，端點數上限恢復為2000
+*/
 package com.jamestann.test.library.config;
 
+import com.jamestann.test.library.metrics.SLIWindow;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Data
 @ConfigurationProperties(prefix = "test.library")
@@ -27,16 +55,76 @@ public class TestLibraryProperties {
      */
     private boolean performanceMonitoringEnabled = true;
 
+    /**
+     * 是否在LibraryRequestContext範圍內執行Controller方法 (Java 21+以ScopedValue、否則以ThreadLocal承載)
+     */
+    private boolean contextPropagationEnabled = true;
+
+    /**
+     * 是否記錄每次請求的執行緒CPU時間與配置位元組 (performanceMonitoringEnabled為true時生效，只適用Servlet應用)
+     */
+    private boolean resourceAccountingEnabled = false;
+
+    /**
+     * 效能監控取樣配置 (performanceMonitoringEnabled為true時生效)
+     */
+    private SamplingConfig sampling = new SamplingConfig();
+
+    /**
+     * 端點指標狀態儲存配置 (performanceMonitoringEnabled為true時生效)
+     */
+    private StorageConfig storage = new StorageConfig();
+
+    /**
+     * SLI視窗持久化配置 (重新啟動後還原1m/5m/1h視窗)
+     */
+    private PersistenceConfig persistence = new PersistenceConfig();
+
+    /**
+     * SLI歷史儲存配置 (每分鐘彙總，供Actuator範圍查詢)
+     */
+    private HistoryConfig history = new HistoryConfig();
+
+    /**
+     * Micrometer橋接配置 (classpath上有Micrometer時發佈端點SLI量表)
+     */
+    private MicrometerConfig micrometer = new MicrometerConfig();
+
+    /**
+     * 自適應併發限制配置 (只限制@LibraryConcurrencyLimit或endpoints列出的端點)
+     */
+    private ConcurrencyLimitConfig concurrencyLimit = new ConcurrencyLimitConfig();
+
+    /**
+     * 飽和度監控配置 (執行緒池、連線池、GC停頓、heap佔用率)
+     */
+    private SaturationConfig saturation = new SaturationConfig();
+
+    /**
+     * 執行期重新載入配置 (sampling.*、slo.* 可不重啟變更)
+     */
+    private ReloadConfig reload = new ReloadConfig();
+
     /**
      * 是否啟用Log標準化
      */
     private boolean loggingStandardizationEnabled = true;
 
+    /**
+     * 結構化Log配置 (loggingStandardizationEnabled為true時生效)
+     */
+    private LoggingConfig logging = new LoggingConfig();
+
     /**
      * Actuator端點配置
      */
     private ActuatorConfig actuator = new ActuatorConfig();
 
+    /**
+     * SLO配置
+     */
+    private SloConfig slo = new SloConfig();
+
     @Data
     public static class ActuatorConfig {
         /**
@@ -49,4 +137,498 @@ public class TestLibraryProperties {
          */
         private String endpointPathPrefix = "test-library";
     }
-}
\ No newline at end of file
+
+    @Data
+    public static class ConcurrencyLimitConfig {
+        /**
+         * 是否啟用自適應併發限制
+         */
+        private boolean enabled = true;
+
+        /**
+         * 不使用註解時要限制的端點，元素為端點名稱 ("GET /api/users") 或路徑 ("/api/users")
+         */
+        private List<String> endpoints = new ArrayList<>();
+
+        /**
+         * 初始併發上限
+         */
+        private int initialLimit = 20;
+
+        /**
+         * 併發上限的下界
+         */
+        private int minLimit = 1;
+
+        /**
+         * 併發上限的上界
+         */
+        private int maxLimit = 200;
+
+        /**
+         * 超過上限時最多等待的請求數，0表示立即拒絕
+         */
+        private int maxQueue = 0;
+
+        /**
+         * 排隊請求的最長等待時間，逾時後拒絕
+         */
+        private Duration queueTimeout = Duration.ofMillis(50);
+
+        /**
+         * 調整併發上限的間隔 (每個間隔至少需要minSamples個完成的請求)
+         */
+        private Duration adjustInterval = Duration.ofMillis(100);
+
+        /**
+         * 每次調整所需的最少完成請求數
+         */
+        private int minSamples = 10;
+
+        /**
+         * 間隔內P95超過端點latency-p95目標時，併發上限乘上的退讓比例
+         */
+        private double backoffRatio = 0.9;
+    }
+
+    @Data
+    public static class SaturationConfig {
+        /**
+         * 是否啟用飽和度監控
+         */
+        private boolean enabled = true;
+
+        /**
+         * 評估是否飽和所用的滑動視窗
+         */
+        private SLIWindow window = SLIWindow.ONE_MINUTE;
+
+        /**
+         * 視窗內取樣數低於此值時不評估 (每秒取樣一次)
+         */
+        private int minimumSamples = 10;
+
+        /**
+         * Web伺服器執行緒池排隊請求數的門檻，0表示只記錄不評估
+         */
+        private int executorQueueThreshold = 50;
+
+        /**
+         * 連線池等待連線執行緒數的門檻，0表示只記錄不評估
+         */
+        private int connectionPendingThreshold = 1;
+
+        /**
+         * 每秒GC停頓時間的門檻，0表示只記錄不評估
+         */
+        private Duration gcPauseThreshold = Duration.ofMillis(100);
+
+        /**
+         * GC後heap佔用率的門檻 (百分比)，0表示只記錄不評估
+         */
+        private double heapOccupancyThreshold = 90.0;
+
+        /**
+         * 飽和時的違反處理動作 (與slo.global-violation-actions相同的處理器名稱)
+         */
+        private List<String> violationActions = new ArrayList<>(List.of("log-violation"));
+    }
+
+    @Data
+    public static class ReloadConfig {
+        /**
+         * 監看的properties檔案路徑 (key相對於test.library，例如 sampling.rate=0.5)，未設定時不監看
+         */
+        private String file;
+
+        /**
+         * 檢查檔案是否變更的間隔
+         */
+        private Duration filePollInterval = Duration.ofSeconds(2);
+    }
+
+    @Data
+    public static class StorageConfig {
+        /**
+         * 延遲直方圖計數的儲存位置；off-heap只移動完整直方圖 (記錄器分段與1m/5m/1h彙總值)，
+         * 稀疏的視窗時間片仍在heap上，且tick經由ByteBuffer存取較heap慢
+         */
+        private StorageBackend backend = StorageBackend.HEAP;
+
+        /**
+         * 個別追蹤的端點數上限，超過後新端點合併記錄為OVERFLOW；
+         * 每個端點約 (記錄器分段數 + 3) × 2.9KB 的完整直方圖，加上每個非0桶約12位元組的視窗時間片。
+         * 記錄器分段從1個開始，只有同時被多個執行緒寫入的端點才加倍到CPU數 (最多32)，
+         * 低流量端點約20KB，2000個端點約40MB
+         */
+        private int maxEndpoints = 2000;
+
+        /**
+         * off-heap時每次配置的direct buffer區塊大小
+         */
+        private DataSize offHeapChunkSize = DataSize.ofMegabytes(4);
+    }
+
+    @Data
+    public static class PersistenceConfig {
+        /**
+         * SLI視窗檔案路徑，未設定時不持久化
+         */
+        private String file;
+
+        /**
+         * 寫出間隔 (由SLI彙總執行緒寫出，應用程式關閉時也會寫出一次)
+         */
+        private Duration flushInterval = Duration.ofSeconds(30);
+
+        /**
+         * 檔案超過此時間未更新則不還原 (視窗內容已全部過期)
+         */
+        private Duration maxAge = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class HistoryConfig {
+        /**
+         * 是否啟用SLI歷史儲存
+         */
+        private boolean enabled = false;
+
+        /**
+         * 封存區塊的附加寫入檔案，未設定時只保存在記憶體
+         */
+        private String file;
+
+        /**
+         * 保留層級 (依解析度由細到粗)，解析度須為1分鐘的整數倍
+         */
+        private List<HistoryTier> tiers = new ArrayList<>(List.of(
+                HistoryTier.of(Duration.ofMinutes(1), Duration.ofHours(24)),
+                HistoryTier.of(Duration.ofMinutes(10), Duration.ofDays(7)),
+                HistoryTier.of(Duration.ofHours(1), Duration.ofDays(30))));
+    }
+
+    @Data
+    public static class HistoryTier {
+        /**
+         * 每個資料點涵蓋的時間
+         */
+        private Duration resolution;
+
+        /**
+         * 資料保留時間
+         */
+        private Duration retention;
+
+        public static HistoryTier of(Duration resolution, Duration retention) {
+            HistoryTier tier = new HistoryTier();
+            tier.setResolution(resolution);
+            tier.setRetention(retention);
+            return tier;
+        }
+    }
+
+    @Data
+    public static class MicrometerConfig {
+        /**
+         * 是否將端點SLI發佈為Micrometer量表
+         */
+        private boolean enabled = true;
+
+        /**
+         * 由SLI彙總執行緒推送量表數值的間隔
+         */
+        private Duration step = Duration.ofSeconds(10);
+
+        /**
+         * 延遲分位數與錯誤率量表所用的滑動視窗
+         */
+        private SLIWindow window = SLIWindow.ONE_MINUTE;
+    }
+
+    public enum StorageBackend {
+        /**
+         * 計數存於Java heap的long陣列
+         */
+        HEAP,
+        /**
+         * 計數存於direct ByteBuffer的固定槽位，不佔用heap也不需GC掃描
+         */
+        OFF_HEAP
+    }
+
+    @Data
+    public static class SamplingConfig {
+        /**
+         * 取樣模式
+         */
+        private SamplingMode mode = SamplingMode.NONE;
+
+        /**
+         * 預設取樣比率 (0, 1]，實際以「每N個請求取樣1個」套用，N = round(1 / rate)
+         */
+        private double rate = 1.0;
+
+        /**
+         * 端點取樣比率覆寫，key為端點名稱 ("GET /api/orders") 或路徑 ("/api/orders")
+         */
+        private Map<String, Double> endpoints = new LinkedHashMap<>();
+
+        /**
+         * 自適應取樣配置 (mode為ADAPTIVE時生效)
+         */
+        private AdaptiveSamplingConfig adaptive = new AdaptiveSamplingConfig();
+    }
+
+    @Data
+    public static class AdaptiveSamplingConfig {
+        /**
+         * 行程CPU使用率達到此值 (0~1) 時視為飽和並降低取樣比率
+         */
+        private double cpuThreshold = 0.85;
+
+        /**
+         * SLI彙總tick的排程延遲達到此值時視為飽和並降低取樣比率
+         */
+        private Duration tickLagThreshold = Duration.ofMillis(250);
+
+        /**
+         * 自適應降載後的最低取樣比率 (相對於固定/端點比率)
+         */
+        private double minRate = 0.01;
+
+        /**
+         * 連續幾次tick未飽和後才將取樣比率加倍回復
+         */
+        private int recoveryTicks = 5;
+    }
+
+    /**
+     * 效能監控取樣模式
+     */
+    public enum SamplingMode {
+        /**
+         * 不取樣，每個請求都記錄延遲
+         */
+        NONE,
+        /**
+         * 依rate與端點覆寫的固定比率取樣
+         */
+        FIXED,
+        /**
+         * 固定比率之上再依CPU使用率與tick排程延遲自動降低/回復取樣比率
+         */
+        ADAPTIVE
+    }
+
+    @Data
+    public static class LoggingConfig {
+        /**
+         * 是否為每個被取樣的Controller請求輸出一行結構化存取日誌 (INFO)，預設關閉以免改變既有應用的Log量
+         */
+        private boolean accessLogEnabled = false;
+
+        /**
+         * 待寫出的Log記錄緩衝區容量 (向上取整為2的次方)，滿時新記錄直接丟棄並計數
+         */
+        private int bufferCapacity = 8192;
+
+        /**
+         * 寫出執行緒每批次最多處理的記錄數
+         */
+        private int batchSize = 256;
+
+        /**
+         * 結構化Log輸出目標
+         */
+        private LogOutput output = LogOutput.LOGGER;
+    }
+
+    /**
+     * 結構化Log輸出目標
+     */
+    public enum LogOutput {
+        /**
+         * 經由SLF4J Logger輸出 (com.jamestann.test.library.access / com.jamestann.test.library.events)，
+         * 沿用應用程式的Logging設定，每行會在寫出執行緒上產生一個String
+         */
+        LOGGER,
+        /**
+         * 以JSON Lines直接批次寫入標準輸出，不經過Logging框架也不產生任何物件
+         */
+        STDOUT
+    }
+
+    @Data
+    public static class SloConfig {
+        /**
+         * 是否啟用SLO評估
+         */
+        private boolean enabled = true;
+
+        /**
+         * SLO評估使用的滑動視窗 (1m、5m、1h)
+         */
+        private Duration evaluationWindow = Duration.ofMinutes(1);
+
+        /**
+         * 視窗內請求數低於此值時不評估，避免低流量時誤判
+         */
+        private long minimumRequests = 20;
+
+        /**
+         * 全域預設SLO
+         */
+        private SloThresholds defaults = SloThresholds.defaults();
+
+        /**
+         * 端點特定SLO，key為端點名稱 ("GET /api/users") 或路徑 ("/api/users")
+         * YAML中含 "/" 的key需以 "[/api/users]" 形式撰寫
+         */
+        private Map<String, SloThresholds> endpoints = new LinkedHashMap<>();
+
+        /**
+         * 全域違反處理動作
+         */
+        private List<String> globalViolationActions = new ArrayList<>(List.of("log-violation"));
+
+        /**
+         * 違反事件分派配置
+         */
+        private ViolationDispatchConfig dispatch = new ViolationDispatchConfig();
+
+        /**
+         * 端點熔斷器配置 (在violationActions中加入 "circuit-breaker" 時才會跳脫)
+         */
+        private CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+
+        /**
+         * 違反時的JFR錄製配置 (在violationActions中加入 "jfr-capture" 時才會錄製)
+         */
+        private JfrCaptureConfig jfrCapture = new JfrCaptureConfig();
+    }
+
+    @Data
+    public static class JfrCaptureConfig {
+        /**
+         * 是否啟用JFR錄製
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每次錄製的時間，到期後自動停止並寫出檔案
+         */
+        private Duration duration = Duration.ofSeconds(30);
+
+        /**
+         * 兩次錄製開始的最短間隔 (同一時間最多只有一個錄製)，期間內的違反不再錄製
+         */
+        private Duration minInterval = Duration.ofMinutes(5);
+
+        /**
+         * 錄製檔案目錄，未設定時使用 ${java.io.tmpdir}/test-library-jfr
+         */
+        private String directory;
+
+        /**
+         * 目錄內.jfr檔案的總大小上限，每次錄製最多使用四分之一，開始前刪除最舊的檔案騰出空間
+         */
+        private DataSize maxDiskUsage = DataSize.ofMegabytes(256);
+
+        /**
+         * JFR設定檔名稱 ("default" 約1%額外負擔、"profile" 約2%並含較密集的方法取樣)
+         */
+        private String settings = "profile";
+    }
+
+    @Data
+    public static class CircuitBreakerConfig {
+        /**
+         * 是否啟用端點熔斷器
+         */
+        private boolean enabled = true;
+
+        /**
+         * 跳脫後拒絕請求的時間，到期後進入半開並放行探測請求
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * 半開時放行的探測請求數，全部成功才關閉
+         */
+        private int halfOpenProbes = 5;
+    }
+
+    @Data
+    public static class ViolationDispatchConfig {
+        /**
+         * 違反事件佇列容量 (向上取整為2的次方)
+         */
+        private int queueCapacity = 1024;
+
+        /**
+         * 每次分派的最大批次大小
+         */
+        private int batchSize = 64;
+
+        /**
+         * 同一端點、同一違反類型重複送達處理器的最短間隔，期間內的違反只累計次數
+         */
+        private Duration repeatInterval = Duration.ofSeconds(60);
+
+        /**
+         * 佇列已滿時的處理策略
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+        /**
+         * overflowPolicy為BLOCK時，發佈端最多等待的時間，逾時後丟棄
+         */
+        private Duration offerTimeout = Duration.ofMillis(5);
+    }
+
+    /**
+     * 違反事件佇列溢出策略
+     */
+    public enum OverflowPolicy {
+        /**
+         * 立即丟棄並計數，發佈端永不等待
+         */
+        DROP,
+        /**
+         * 發佈端等待至offerTimeout，仍無空間時丟棄並計數 (僅適用於非請求執行緒發佈)
+         */
+        BLOCK
+    }
+
+    @Data
+    public static class SloThresholds {
+        /**
+         * P95延遲上限
+         */
+        private Duration latencyP95;
+
+        /**
+         * 可用性下限 (百分比，例如 99.5)
+         */
+        private Double availability;
+
+        /**
+         * 錯誤率上限 (百分比，例如 0.5)
+         */
+        private Double errorRate;
+
+        /**
+         * 違反處理動作，未設定時使用globalViolationActions
+         */
+        private List<String> violationActions;
+
+        static SloThresholds defaults() {
+            SloThresholds thresholds = new SloThresholds();
+            thresholds.setLatencyP95(Duration.ofMillis(200));
+            thresholds.setAvailability(99.5);
+            thresholds.setErrorRate(0.5);
+            return thresholds;
+        }
+    }
+}
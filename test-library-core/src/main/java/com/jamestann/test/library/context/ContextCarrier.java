@@ -0,0 +1,29 @@
+/*
+[004][虛擬執行緒]ContextCarrier
+功能說明: Library請求上下文的承載方式 (ScopedValue或ThreadLocal)
+Input: 端點名稱與在其範圍內執行的呼叫
+Output: 目前範圍的端點名稱
+*/
+package com.jamestann.test.library.context;
+
+/**
+ * 請求上下文承載器
+ * 實作只能在呼叫期間持有上下文，呼叫結束後不可在執行緒上留下任何狀態
+ */
+interface ContextCarrier {
+
+    /**
+     * 在端點範圍內執行呼叫，結束後還原外層範圍
+     */
+    <T> T call(String endpoint, ContextualCall<T> call) throws Throwable;
+
+    /**
+     * @return 目前範圍的端點名稱，不在範圍內時為null
+     */
+    String current();
+
+    /**
+     * @return 承載方式名稱 (記錄用)
+     */
+    String name();
+}
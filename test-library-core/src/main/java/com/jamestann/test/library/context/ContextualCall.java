@@ -0,0 +1,18 @@
+/*
+[004][虛擬執行緒]ContextualCall
+功能說明: 在Library請求上下文範圍內執行的呼叫
+Input: 無
+Output: 呼叫結果，或原封不動拋出的例外
+*/
+package com.jamestann.test.library.context;
+
+/**
+ * 上下文範圍內的呼叫 (可直接使用ProceedingJoinPoint::proceed)
+ *
+ * @param <T> 結果型別
+ */
+@FunctionalInterface
+public interface ContextualCall<T> {
+
+    T call() throws Throwable;
+}
@@ -0,0 +1,60 @@
+/*
+[004][虛擬執行緒]LibraryRequestContext
+功能說明: Library請求上下文 (目前請求的端點)，Java 21+以ScopedValue承載，Java 11/17以ThreadLocal承載
+Input: LibraryMetricsAspect設定的端點範圍
+Output: 請求範圍內任何程式碼可讀取的目前端點名稱
+*/
+package com.jamestann.test.library.context;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Library請求上下文
+ * <p>
+ * 取代以MDC/ThreadLocal長期保存請求資訊的做法：上下文只在LibraryMetricsAspect包住的呼叫期間存在，
+ * 不建立任何以執行緒為單位的快取。在虛擬執行緒上，執行緒數量與請求數量相同，
+ * 以執行緒為單位的狀態會隨請求數成長，因此Library的監控與Log路徑都不保存這類狀態；
+ * 承載方式在類別載入時決定一次，之後每次讀取只是一次ScopedValue或ThreadLocal查詢。
+ * <p>
+ * 上下文不會自動傳遞到另外建立的執行緒 (ScopedValue只在StructuredTaskScope的子任務中繼承)
+ */
+@Slf4j
+public final class LibraryRequestContext {
+
+    private static final ContextCarrier CARRIER = ScopedValueContextCarrier.isSupported()
+            ? ScopedValueContextCarrier.create() : new ThreadLocalContextCarrier();
+
+    static {
+        log.debug("Library request context carried by {}", CARRIER.name());
+    }
+
+    private LibraryRequestContext() {
+    }
+
+    /**
+     * 在端點範圍內執行呼叫，結束後還原外層範圍 (例外原封不動拋出)
+     *
+     * @param endpoint 端點名稱
+     * @param call     呼叫
+     * @return 呼叫結果
+     */
+    public static <T> T call(String endpoint, ContextualCall<T> call) throws Throwable {
+        return CARRIER.call(endpoint, call);
+    }
+
+    /**
+     * 取得目前請求的端點名稱
+     *
+     * @return 端點名稱，例如 "GET /api/users"；不在Library監控的請求範圍內時為null
+     */
+    public static String currentEndpoint() {
+        return CARRIER.current();
+    }
+
+    /**
+     * @return 承載方式 ("ScopedValue" 或 "ThreadLocal")
+     */
+    public static String carrierName() {
+        return CARRIER.name();
+    }
+}
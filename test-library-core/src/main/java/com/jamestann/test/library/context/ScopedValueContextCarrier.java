@@ -0,0 +1,146 @@
+/*
+[004][虛擬執行緒]ScopedValueContextCarrier
+功能說明: 以java.lang.ScopedValue承載請求上下文 (Java 21+，以MethodHandle呼叫，原始碼維持Java 11相容)
+Input: 端點名稱與在其範圍內執行的呼叫
+Output: 目前範圍的端點名稱
+*/
+package com.jamestann.test.library.context;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * ScopedValue上下文承載器
+ * <p>
+ * 綁定只存在於呼叫的動態範圍內，不寫入執行緒的ThreadLocalMap，虛擬執行緒結束或卸載時沒有任何需要清除的狀態。
+ * ScopedValue在Java 21為預覽API、之後才正式提供；類別載入時以一次實際綁定確認可用，
+ * 不可用 (舊版JVM、未啟用預覽) 時isSupported()為false，由LibraryRequestContext改用ThreadLocal。
+ * MethodHandle存於static final欄位，JIT可視為常數內聯
+ */
+final class ScopedValueContextCarrier implements ContextCarrier {
+
+    private static final MethodHandle NEW_INSTANCE;
+    private static final MethodHandle WHERE;
+    private static final MethodHandle RUN;
+    private static final MethodHandle IS_BOUND;
+    private static final MethodHandle GET;
+    private static final boolean SUPPORTED;
+
+    static {
+        MethodHandle newInstance = null;
+        MethodHandle where = null;
+        MethodHandle run = null;
+        MethodHandle isBound = null;
+        MethodHandle get = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> scopedValue = Class.forName("java.lang.ScopedValue");
+            Class<?> carrier = Class.forName("java.lang.ScopedValue$Carrier");
+            newInstance = lookup.findStatic(scopedValue, "newInstance", MethodType.methodType(scopedValue))
+                    .asType(MethodType.methodType(Object.class));
+            where = lookup.findStatic(scopedValue, "where", MethodType.methodType(carrier, scopedValue, Object.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+            run = lookup.findVirtual(carrier, "run", MethodType.methodType(void.class, Runnable.class))
+                    .asType(MethodType.methodType(void.class, Object.class, Runnable.class));
+            isBound = lookup.findVirtual(scopedValue, "isBound", MethodType.methodType(boolean.class))
+                    .asType(MethodType.methodType(boolean.class, Object.class));
+            get = lookup.findVirtual(scopedValue, "get", MethodType.methodType(Object.class))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            newInstance = null;
+        }
+        NEW_INSTANCE = newInstance;
+        WHERE = where;
+        RUN = run;
+        IS_BOUND = isBound;
+        GET = get;
+        SUPPORTED = newInstance != null && probe();
+    }
+
+    private final Object key;
+
+    private ScopedValueContextCarrier(Object key) {
+        this.key = key;
+    }
+
+    /**
+     * @return 執行中的JVM是否可使用ScopedValue
+     */
+    static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    /**
+     * 建立承載器 (呼叫前須確認isSupported())
+     */
+    static ScopedValueContextCarrier create() {
+        try {
+            return new ScopedValueContextCarrier((Object) NEW_INSTANCE.invokeExact());
+        } catch (Throwable e) {
+            throw new IllegalStateException("ScopedValue is not available", e);
+        }
+    }
+
+    @Override
+    public <T> T call(String endpoint, ContextualCall<T> call) throws Throwable {
+        ScopedCall<T> scoped = new ScopedCall<>(call);
+        RUN.invokeExact((Object) WHERE.invokeExact(key, (Object) endpoint), (Runnable) scoped);
+        return scoped.result();
+    }
+
+    @Override
+    public String current() {
+        try {
+            return (boolean) IS_BOUND.invokeExact(key) ? (String) (Object) GET.invokeExact(key) : null;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to read ScopedValue", e);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "ScopedValue";
+    }
+
+    /**
+     * 以一次實際綁定確認ScopedValue可用 (Java 21未啟用預覽時會在此失敗)
+     */
+    private static boolean probe() {
+        try {
+            ScopedValueContextCarrier carrier = new ScopedValueContextCarrier((Object) NEW_INSTANCE.invokeExact());
+            return "probe".equals(carrier.call("probe", carrier::current)) && carrier.current() == null;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * 在ScopedValue範圍內執行呼叫並保存結果或例外 (Carrier.run()只接受Runnable)
+     */
+    private static final class ScopedCall<T> implements Runnable {
+        private final ContextualCall<T> call;
+        private T result;
+        private Throwable failure;
+
+        private ScopedCall(ContextualCall<T> call) {
+            this.call = call;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result = call.call();
+            } catch (Throwable e) {
+                failure = e;
+            }
+        }
+
+        private T result() throws Throwable {
+            if (failure != null) {
+                throw failure;
+            }
+            return result;
+        }
+    }
+}
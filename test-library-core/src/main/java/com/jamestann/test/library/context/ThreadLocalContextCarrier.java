@@ -0,0 +1,42 @@
+/*
+[004][虛擬執行緒]ThreadLocalContextCarrier
+功能說明: 以ThreadLocal承載請求上下文 (Java 11/17，或ScopedValue不可用時)
+Input: 端點名稱與在其範圍內執行的呼叫
+Output: 目前執行緒範圍的端點名稱
+*/
+package com.jamestann.test.library.context;
+
+/**
+ * ThreadLocal上下文承載器
+ * 只存放既有的端點字串參考，不快取任何緩衝區；最外層範圍結束時remove()，
+ * 因此不論是平台執行緒池或數百萬個虛擬執行緒，請求結束後都不會留下ThreadLocalMap項目
+ */
+final class ThreadLocalContextCarrier implements ContextCarrier {
+
+    private final ThreadLocal<String> endpoint = new ThreadLocal<>();
+
+    @Override
+    public <T> T call(String endpoint, ContextualCall<T> call) throws Throwable {
+        String outer = this.endpoint.get();
+        this.endpoint.set(endpoint);
+        try {
+            return call.call();
+        } finally {
+            if (outer == null) {
+                this.endpoint.remove();
+            } else {
+                this.endpoint.set(outer);
+            }
+        }
+    }
+
+    @Override
+    public String current() {
+        return endpoint.get();
+    }
+
+    @Override
+    public String name() {
+        return "ThreadLocal";
+    }
+}
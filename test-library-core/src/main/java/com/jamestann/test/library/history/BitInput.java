@@ -0,0 +1,60 @@
+/*
+[004][SLI歷史]BitInput
+功能說明: BitOutput對應的位元串流讀取器
+Input: BitOutput寫出的long[]與位元數
+Output: 依寫入順序讀回的數值
+*/
+package com.jamestann.test.library.history;
+
+/**
+ * 位元串流讀取器
+ * 讀取端自行持有游標，同一份位元可由多個讀取器同時讀取
+ */
+final class BitInput {
+
+    private final long[] words;
+    private final int bitCount;
+    private int position;
+
+    BitInput(long[] words, int bitCount) {
+        this.words = words;
+        this.bitCount = bitCount;
+    }
+
+    boolean readBit() {
+        return readBits(1) != 0L;
+    }
+
+    /**
+     * 讀取bits個位元 (1 ~ 64)，回傳於低位元
+     *
+     * @throws IllegalStateException 超出已寫入的位元數
+     */
+    long readBits(int bits) {
+        if (bits == 0) {
+            return 0L;
+        }
+        if (position + bits > bitCount) {
+            throw new IllegalStateException("Read past end of bit stream: " + (position + bits) + " > " + bitCount);
+        }
+        int wordIndex = position >>> 6;
+        int free = 64 - (position & 63);
+        long result;
+        if (bits <= free) {
+            result = words[wordIndex] >>> (free - bits);
+        } else {
+            int spill = bits - free;
+            result = (words[wordIndex] << spill) | (words[wordIndex + 1] >>> (64 - spill));
+        }
+        position += bits;
+        return bits == 64 ? result : result & ((1L << bits) - 1);
+    }
+
+    /**
+     * 讀取bits個位元並視為二補數有號整數
+     */
+    long readSigned(int bits) {
+        long value = readBits(bits);
+        return value >= (1L << (bits - 1)) ? value - (1L << bits) : value;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+[004][SLI歷史]BitOutput
+功能說明: 以long[]為底、可成長的位元串流寫入器，供Gorilla壓縮欄位使用
+Input: 任意位元數 (1 ~ 64) 的數值
+Output: 依寫入順序 (高位元在前) 緊密排列的位元
+*/
+package com.jamestann.test.library.history;
+
+import java.util.Arrays;
+
+/**
+ * 位元串流寫入器
+ * 只能附加，封存 (trim) 後陣列大小剛好容納已寫入的位元
+ */
+final class BitOutput {
+
+    private long[] words;
+    private int bitCount;
+
+    BitOutput(int initialWords) {
+        this.words = new long[Math.max(1, initialWords)];
+    }
+
+    BitOutput(long[] words, int bitCount) {
+        this.words = words;
+        this.bitCount = bitCount;
+    }
+
+    void writeBit(boolean bit) {
+        writeBits(bit ? 1L : 0L, 1);
+    }
+
+    /**
+     * 寫入value的低bits個位元
+     */
+    void writeBits(long value, int bits) {
+        if (bits == 0) {
+            return;
+        }
+        int end = bitCount + bits;
+        if (((end + 63) >>> 6) > words.length) {
+            words = Arrays.copyOf(words, Math.max(words.length * 2, (end + 63) >>> 6));
+        }
+        long masked = bits == 64 ? value : value & ((1L << bits) - 1);
+        int wordIndex = bitCount >>> 6;
+        int free = 64 - (bitCount & 63);
+        if (bits <= free) {
+            words[wordIndex] |= masked << (free - bits);
+        } else {
+            int spill = bits - free;
+            words[wordIndex] |= masked >>> spill;
+            words[wordIndex + 1] |= masked << (64 - spill);
+        }
+        bitCount = end;
+    }
+
+    int getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * 底層陣列 (唯讀)，長度可能大於實際需要
+     */
+    long[] words() {
+        return words;
+    }
+
+    int wordCount() {
+        return (bitCount + 63) >>> 6;
+    }
+
+    void trim() {
+        words = Arrays.copyOf(words, Math.max(1, wordCount()));
+    }
+
+    BitInput reader() {
+        return new BitInput(words, bitCount);
+    }
+
+    long estimatedFootprintBytes() {
+        return 16L + 8L * words.length;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+[004][SLI歷史]SLIHistoryMetric
+功能說明: SLI歷史可查詢的指標，以及各指標對應的儲存欄位
+Input: 查詢參數 (requests、errors、error-rate、p50、p90、p95、p99)
+Output: 由儲存欄位計算出的指標值
+*/
+package com.jamestann.test.library.history;
+
+import java.util.Locale;
+
+/**
+ * SLI歷史指標
+ * 每筆歷史資料列固定儲存6欄: 請求數、錯誤數、P50/P90/P95/P99 (微秒)，錯誤率於查詢時由前兩欄計算
+ */
+public enum SLIHistoryMetric {
+
+    REQUESTS("requests", SLIHistoryStore.REQUESTS_COLUMN),
+    ERRORS("errors", SLIHistoryStore.ERRORS_COLUMN),
+    ERROR_RATE("error-rate", SLIHistoryStore.REQUESTS_COLUMN, SLIHistoryStore.ERRORS_COLUMN),
+    P50("p50", SLIHistoryStore.P50_COLUMN),
+    P90("p90", SLIHistoryStore.P90_COLUMN),
+    P95("p95", SLIHistoryStore.P95_COLUMN),
+    P99("p99", SLIHistoryStore.P99_COLUMN);
+
+    private final String label;
+    private final int[] columns;
+
+    SLIHistoryMetric(String label, int... columns) {
+        this.label = label;
+        this.columns = columns;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * 依標籤解析指標 (不分大小寫，底線與連字號視為相同)
+     *
+     * @param label 指標標籤，例如 "p99"、"error-rate"
+     * @return 指標
+     * @throws IllegalArgumentException 不支援的指標
+     */
+    public static SLIHistoryMetric fromLabel(String label) {
+        String normalized = label.trim().toLowerCase(Locale.ROOT).replace('_', '-');
+        for (SLIHistoryMetric metric : values()) {
+            if (metric.label.equals(normalized)) {
+                return metric;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported SLI history metric: " + label);
+    }
+
+    int[] columns() {
+        return columns;
+    }
+
+    /**
+     * 由columns()順序解碼出的欄位值計算指標
+     */
+    double valueOf(double[] values) {
+        if (this == ERROR_RATE) {
+            return values[0] == 0.0 ? 0.0 : values[1] * 100.0 / values[0];
+        }
+        return values[0];
+    }
+}
@@ -0,0 +1,478 @@
+/*
+[004][SLI歷史]SLIHistoryStore
+功能說明: 內嵌的附加式欄式時間序列儲存，保存各端點每分鐘SLI彙總，依保留層級降採樣並支援範圍查詢
+Input: SLI彙總器每分鐘產生的端點分鐘時間片、歷史儲存配置
+Output: 端點指標的歷史序列 (請求數、錯誤數、錯誤率、P50/P90/P95/P99)
+*/
+package com.jamestann.test.library.history;
+
+import com.jamestann.test.library.actuator.model.SLIHistoryPoint;
+import com.jamestann.test.library.actuator.model.SLIHistorySeries;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.metrics.LogLinearHistogram;
+import com.jamestann.test.library.metrics.SLISlice;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * SLI歷史儲存
+ * <p>
+ * 每個端點、每個保留層級各有一條序列，序列由SeriesChunk組成 (每塊最多CHUNK_POINTS筆)。
+ * 最細層級直接寫入每分鐘時間片；較粗層級先合併直方圖，到達下一個對齊的時間桶時才計算百分位數並寫入，
+ * 因此降採樣後的P99是整個時間桶的真實P99，而不是分鐘P99的平均。
+ * 區塊寫滿後封存，有設定檔案時以附加方式寫入 (每筆附CRC32)；啟動時依序讀回，
+ * 遇到不完整的尾端紀錄即停止，並在有資料被丟棄時重寫檔案。
+ * <p>
+ * 寫入只來自SLI彙總執行緒，查詢來自Actuator執行緒，兩者以端點為單位加鎖
+ */
+@Slf4j
+public class SLIHistoryStore implements InitializingBean, DisposableBean {
+
+    static final int REQUESTS_COLUMN = 0;
+    static final int ERRORS_COLUMN = 1;
+    static final int P50_COLUMN = 2;
+    static final int P90_COLUMN = 3;
+    static final int P95_COLUMN = 4;
+    static final int P99_COLUMN = 5;
+    static final int COLUMN_COUNT = 6;
+
+    /**
+     * 每個區塊的資料點上限 (1分鐘層級約2小時)
+     */
+    static final int CHUNK_POINTS = 120;
+
+    private static final int FILE_MAGIC = 0x544C5348;
+    private static final int FILE_VERSION = 1;
+    private static final int RECORD_MAGIC = 0x43484E4B;
+    private static final int RECORD_HEADER_BYTES = 4 + 4 + 8;
+    private static final long MINUTE_SECONDS = 60L;
+    private static final double[] PERCENTILES = {50.0, 90.0, 95.0, 99.0};
+
+    private final long[] resolutions;
+    private final long[] retentions;
+    private final Supplier<LogLinearHistogram> histogramFactory;
+    private final Path file;
+    private final Map<String, EndpointHistory> endpoints = new ConcurrentHashMap<>();
+    private final long[] percentiles = new long[PERCENTILES.length];
+
+    private FileChannel channel;
+
+    /**
+     * @param config           歷史儲存配置
+     * @param histogramFactory 降採樣時合併直方圖使用的工廠 (與SLI視窗相同桶配置)
+     * @throws IllegalArgumentException 保留層級配置無效
+     */
+    public SLIHistoryStore(TestLibraryProperties.HistoryConfig config, Supplier<LogLinearHistogram> histogramFactory) {
+        List<TestLibraryProperties.HistoryTier> tiers = new ArrayList<>(config.getTiers());
+        if (tiers.isEmpty()) {
+            throw new IllegalArgumentException("At least one SLI history tier is required");
+        }
+        tiers.sort(Comparator.comparing(TestLibraryProperties.HistoryTier::getResolution));
+        this.resolutions = new long[tiers.size()];
+        this.retentions = new long[tiers.size()];
+        for (int t = 0; t < tiers.size(); t++) {
+            long resolution = tiers.get(t).getResolution().getSeconds();
+            long retention = tiers.get(t).getRetention().getSeconds();
+            if (resolution < MINUTE_SECONDS || resolution % MINUTE_SECONDS != 0 || (t > 0 && resolution == resolutions[t - 1])) {
+                throw new IllegalArgumentException("SLI history tier resolution must be a distinct multiple of 1m: "
+                        + tiers.get(t).getResolution());
+            }
+            if (retention < resolution) {
+                throw new IllegalArgumentException("SLI history tier retention must cover its resolution: "
+                        + tiers.get(t).getRetention());
+            }
+            resolutions[t] = resolution;
+            retentions[t] = retention;
+        }
+        this.histogramFactory = histogramFactory;
+        this.file = config.getFile() == null || config.getFile().trim().isEmpty() ? null : Paths.get(config.getFile());
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (file != null) {
+            load(System.currentTimeMillis() / 1_000L);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+    }
+
+    /**
+     * 封存所有未寫滿的區塊並寫入檔案 (降採樣中的時間桶不保留)
+     */
+    @Override
+    public void destroy() throws IOException {
+        for (Map.Entry<String, EndpointHistory> entry : endpoints.entrySet()) {
+            synchronized (entry.getValue()) {
+                for (int t = 0; t < resolutions.length; t++) {
+                    entry.getValue().tiers[t].sealOpen(entry.getKey(), t);
+                }
+            }
+        }
+        synchronized (this) {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * 寫入端點一分鐘的SLI (僅由SLI彙總執行緒呼叫)
+     *
+     * @param endpoint    端點名稱
+     * @param minuteStart 該分鐘的起始時間 (epoch秒)
+     * @param minute      該分鐘的SLI時間片
+     */
+    public void append(String endpoint, long minuteStart, SLISlice minute) {
+        EndpointHistory history = endpoints.computeIfAbsent(endpoint, name -> new EndpointHistory(resolutions.length));
+        synchronized (history) {
+            for (int t = 0; t < resolutions.length; t++) {
+                TierSeries series = history.tiers[t];
+                if (resolutions[t] == MINUTE_SECONDS) {
+                    series.add(endpoint, t, minuteStart, rowOf(minute.getRequestCount(), minute.getErrorCount(),
+                            minute.getLatency(), percentiles));
+                    continue;
+                }
+                long bucket = minuteStart - Math.floorMod(minuteStart, resolutions[t]);
+                if (series.pendingMinutes > 0 && series.pendingStart != bucket) {
+                    series.add(endpoint, t, series.pendingStart, rowOf(series.pendingRequests, series.pendingErrors,
+                            series.pendingLatency, percentiles));
+                    series.resetPending();
+                }
+                if (series.pendingLatency == null) {
+                    series.pendingLatency = histogramFactory.get();
+                }
+                series.pendingStart = bucket;
+                series.pendingRequests += minute.getRequestCount();
+                series.pendingErrors += minute.getErrorCount();
+                series.pendingLatency.merge(minute.getLatency());
+                series.pendingMinutes++;
+            }
+        }
+    }
+
+    /**
+     * 查詢端點指標的歷史序列，使用保留時間涵蓋查詢區間的最細層級
+     *
+     * @param endpoint  端點名稱 ("GET /api/users") 或路徑 ("/api/users")，null表示所有端點
+     * @param metric    指標
+     * @param range     查詢區間 (到現在為止)
+     * @param nowMillis 現在時間 (epoch毫秒)
+     * @return 各符合端點的序列，依端點名稱排序
+     */
+    public List<SLIHistorySeries> query(String endpoint, SLIHistoryMetric metric, Duration range, long nowMillis) {
+        long to = nowMillis / 1_000L;
+        long from = to - range.getSeconds();
+        int tier = tierFor(range.getSeconds());
+        int[] columns = metric.columns();
+        long[] scratch = new long[PERCENTILES.length];
+        List<SLIHistorySeries> result = new ArrayList<>();
+        for (Map.Entry<String, EndpointHistory> entry : endpoints.entrySet()) {
+            if (!matches(entry.getKey(), endpoint)) {
+                continue;
+            }
+            List<SLIHistoryPoint> points = new ArrayList<>();
+            SeriesChunk.RowConsumer collect = (time, values) ->
+                    points.add(new SLIHistoryPoint(time * 1_000L, metric.valueOf(values)));
+            synchronized (entry.getValue()) {
+                TierSeries series = entry.getValue().tiers[tier];
+                for (SeriesChunk chunk : series.sealed) {
+                    chunk.scan(from, to, columns, collect);
+                }
+                if (series.open != null) {
+                    series.open.scan(from, to, columns, collect);
+                }
+                if (series.pendingMinutes > 0 && series.pendingStart >= from && series.pendingStart <= to) {
+                    // 尚未結束的時間桶以目前累積值回傳
+                    double[] row = rowOf(series.pendingRequests, series.pendingErrors, series.pendingLatency, scratch);
+                    double[] values = new double[columns.length];
+                    for (int c = 0; c < columns.length; c++) {
+                        values[c] = row[columns[c]];
+                    }
+                    collect.accept(series.pendingStart, values);
+                }
+            }
+            result.add(new SLIHistorySeries(entry.getKey(), metric.getLabel(), resolutions[tier], points));
+        }
+        result.sort(Comparator.comparing(SLIHistorySeries::getEndpoint));
+        return result;
+    }
+
+    public int getEndpointCount() {
+        return endpoints.size();
+    }
+
+    /**
+     * 估算所有序列佔用的heap (不含降採樣中的直方圖)
+     *
+     * @return 位元組數
+     */
+    public long getEstimatedFootprintBytes() {
+        long bytes = 0L;
+        for (EndpointHistory history : endpoints.values()) {
+            synchronized (history) {
+                for (TierSeries series : history.tiers) {
+                    for (SeriesChunk chunk : series.sealed) {
+                        bytes += chunk.estimatedFootprintBytes();
+                    }
+                    if (series.open != null) {
+                        bytes += series.open.estimatedFootprintBytes();
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private int tierFor(long rangeSeconds) {
+        for (int t = 0; t < retentions.length; t++) {
+            if (retentions[t] >= rangeSeconds) {
+                return t;
+            }
+        }
+        return retentions.length - 1;
+    }
+
+    private static boolean matches(String name, String endpoint) {
+        if (endpoint == null || endpoint.trim().isEmpty()) {
+            return true;
+        }
+        int space = name.indexOf(' ');
+        return name.equals(endpoint) || (space >= 0 && name.regionMatches(space + 1, endpoint, 0, endpoint.length())
+                && name.length() - space - 1 == endpoint.length());
+    }
+
+    private static double[] rowOf(long requests, long errors, LogLinearHistogram latency, long[] scratch) {
+        latency.getValuesAtPercentiles(PERCENTILES, scratch);
+        double[] row = new double[COLUMN_COUNT];
+        row[REQUESTS_COLUMN] = requests;
+        row[ERRORS_COLUMN] = errors;
+        row[P50_COLUMN] = scratch[0];
+        row[P90_COLUMN] = scratch[1];
+        row[P95_COLUMN] = scratch[2];
+        row[P99_COLUMN] = scratch[3];
+        return row;
+    }
+
+    /**
+     * 附加寫入一個封存區塊 (呼叫端持有端點鎖)
+     */
+    private void persist(String endpoint, int tier, SeriesChunk chunk) {
+        synchronized (this) {
+            if (channel == null) {
+                return;
+            }
+            try {
+                ByteBuffer record = encodeRecord(endpoint, resolutions[tier], chunk);
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to append SLI history chunk for {} to {}: {}", endpoint, file, e.getMessage());
+            }
+        }
+    }
+
+    private static ByteBuffer encodeRecord(String endpoint, long resolution, SeriesChunk chunk) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeUTF(endpoint);
+        payload.writeLong(resolution);
+        chunk.writeTo(payload);
+        payload.flush();
+        return recordOf(bytes.toByteArray());
+    }
+
+    private static ByteBuffer recordOf(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+        record.putInt(RECORD_MAGIC).putInt(payload.length).putLong(crc.getValue()).put(payload);
+        record.flip();
+        return record;
+    }
+
+    /**
+     * 讀回檔案中的封存區塊，丟棄過期/層級不符的區塊與不完整的尾端，必要時重寫檔案
+     */
+    private void load(long now) throws IOException {
+        if (!Files.exists(file)) {
+            rewrite(new ArrayList<>());
+            return;
+        }
+        List<byte[]> kept = new ArrayList<>();
+        int dropped = 0;
+        boolean damaged = false;
+        try (InputStream stream = Files.newInputStream(file);
+                DataInputStream input = new DataInputStream(new BufferedInputStream(stream))) {
+            if (input.readInt() != FILE_MAGIC || input.readInt() != FILE_VERSION) {
+                throw new IOException("Unsupported SLI history file format");
+            }
+            while (true) {
+                int magic;
+                try {
+                    magic = input.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                int length = input.readInt();
+                long crc = input.readLong();
+                if (magic != RECORD_MAGIC || length < 0 || length > (1 << 24)) {
+                    throw new IOException("Invalid SLI history record header");
+                }
+                byte[] payload = new byte[length];
+                input.readFully(payload);
+                CRC32 actual = new CRC32();
+                actual.update(payload);
+                if (actual.getValue() != crc) {
+                    throw new IOException("SLI history record checksum mismatch");
+                }
+                if (restoreRecord(payload, now)) {
+                    kept.add(payload);
+                } else {
+                    dropped++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("SLI history file {} is damaged after {} chunks, discarding the rest: {}", file, kept.size(), e.getMessage());
+            damaged = true;
+        }
+        if (damaged || dropped > 0) {
+            rewrite(kept);
+        }
+        log.info("Loaded {} SLI history chunks for {} endpoints from {} ({} expired)", kept.size(), endpoints.size(), file, dropped);
+    }
+
+    /**
+     * 還原一筆紀錄，過期或層級已不存在時回傳false
+     */
+    private boolean restoreRecord(byte[] payload, long now) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+        String endpoint = input.readUTF();
+        long resolution = input.readLong();
+        SeriesChunk chunk = SeriesChunk.readFrom(input, COLUMN_COUNT);
+        for (int t = 0; t < resolutions.length; t++) {
+            if (resolutions[t] == resolution) {
+                if (chunk.getEndTime() < now - retentions[t]) {
+                    return false;
+                }
+                endpoints.computeIfAbsent(endpoint, name -> new EndpointHistory(resolutions.length)).tiers[t].sealed.addLast(chunk);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 以保留的紀錄重寫檔案 (暫存檔 + 原子rename)
+     */
+    private void rewrite(List<byte[]> payloads) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(8).putInt(FILE_MAGIC).putInt(FILE_VERSION);
+            header.flip();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            for (byte[] payload : payloads) {
+                ByteBuffer record = recordOf(payload);
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+            }
+            out.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private final class EndpointHistory {
+        private final TierSeries[] tiers;
+
+        private EndpointHistory(int tierCount) {
+            this.tiers = new TierSeries[tierCount];
+            for (int t = 0; t < tierCount; t++) {
+                tiers[t] = new TierSeries();
+            }
+        }
+    }
+
+    /**
+     * 單一層級的序列: 已封存區塊 + 寫入中區塊 + 降採樣中的時間桶
+     */
+    private final class TierSeries {
+        private final Deque<SeriesChunk> sealed = new ArrayDeque<>();
+        private SeriesChunk open;
+        private long pendingStart;
+        private long pendingRequests;
+        private long pendingErrors;
+        private int pendingMinutes;
+        private LogLinearHistogram pendingLatency;
+
+        private void add(String endpoint, int tier, long time, double[] row) {
+            if (open != null && time < open.getEndTime()) {
+                // 系統時鐘倒退，捨棄此筆以維持序列遞增
+                return;
+            }
+            if (open == null) {
+                open = new SeriesChunk(time, COLUMN_COUNT);
+            }
+            open.append(time, row);
+            if (open.getCount() == CHUNK_POINTS) {
+                sealOpen(endpoint, tier);
+            }
+            long cutoff = time - retentions[tier];
+            while (!sealed.isEmpty() && sealed.peekFirst().getEndTime() < cutoff) {
+                sealed.removeFirst();
+            }
+        }
+
+        private void sealOpen(String endpoint, int tier) {
+            if (open == null || open.getCount() == 0) {
+                return;
+            }
+            open.seal();
+            sealed.addLast(open);
+            persist(endpoint, tier, open);
+            open = null;
+        }
+
+        private void resetPending() {
+            pendingRequests = 0L;
+            pendingErrors = 0L;
+            pendingMinutes = 0;
+            pendingLatency.reset();
+        }
+    }
+}
@@ -0,0 +1,329 @@
+/*
+[004][SLI歷史]SeriesChunk
+功能說明: 欄式壓縮的時間序列區塊，時間戳記以delta-of-delta、數值以Gorilla XOR編碼
+Input: 依時間遞增的資料列 (epoch秒 + 固定欄數的數值)
+Output: 壓縮後的時間欄與數值欄、範圍掃描
+*/
+package com.jamestann.test.library.history;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 時間序列區塊
+ * <p>
+ * 每個欄位各自是一條位元串流，掃描時只解碼需要的欄位。
+ * 時間欄: 第一筆存於區塊標頭，之後每筆寫入與前一個間隔的差 (delta-of-delta)，
+ * 固定每分鐘一筆時幾乎每筆只佔1 bit。
+ * 數值欄: 與前一筆的IEEE 754位元做XOR，相同時1 bit，否則沿用或重新記錄前導/尾隨0的位置。
+ * <p>
+ * 寫滿 (或關閉時) 封存後不可再附加；非執行緒安全，由SLIHistoryStore以端點為單位加鎖
+ */
+final class SeriesChunk {
+
+    private final int columnCount;
+    private final long startTime;
+    private final BitOutput timestamps;
+    private final BitOutput[] columns;
+    private int count;
+    private long endTime;
+    private boolean sealed;
+
+    private long lastDelta;
+    private final long[] lastBits;
+    private final int[] leading;
+    private final int[] trailing;
+
+    SeriesChunk(long startTime, int columnCount) {
+        this.columnCount = columnCount;
+        this.startTime = startTime;
+        this.endTime = startTime;
+        this.timestamps = new BitOutput(4);
+        this.columns = new BitOutput[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            columns[c] = new BitOutput(8);
+        }
+        this.lastBits = new long[columnCount];
+        this.leading = new int[columnCount];
+        this.trailing = new int[columnCount];
+    }
+
+    private SeriesChunk(long startTime, long endTime, int count, BitOutput timestamps, BitOutput[] columns) {
+        this.columnCount = columns.length;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.count = count;
+        this.timestamps = timestamps;
+        this.columns = columns;
+        this.sealed = true;
+        this.lastBits = null;
+        this.leading = null;
+        this.trailing = null;
+    }
+
+    /**
+     * 附加一筆資料列
+     *
+     * @param time   epoch秒，不可小於前一筆
+     * @param values 各欄數值
+     */
+    void append(long time, double[] values) {
+        if (sealed) {
+            throw new IllegalStateException("Chunk is sealed");
+        }
+        if (count > 0 && time < endTime) {
+            throw new IllegalArgumentException("Timestamps must not decrease: " + time + " < " + endTime);
+        }
+        if (count > 0) {
+            long delta = time - endTime;
+            writeDeltaOfDelta(delta - lastDelta);
+            lastDelta = delta;
+        } else if (time != startTime) {
+            throw new IllegalArgumentException("First timestamp must equal chunk start: " + time);
+        }
+        for (int c = 0; c < columnCount; c++) {
+            writeValue(c, Double.doubleToRawLongBits(values[c]));
+        }
+        endTime = time;
+        count++;
+    }
+
+    /**
+     * 封存區塊，釋放多配置的陣列空間與編碼狀態
+     */
+    void seal() {
+        if (!sealed) {
+            sealed = true;
+            timestamps.trim();
+            for (BitOutput column : columns) {
+                column.trim();
+            }
+        }
+    }
+
+    /**
+     * 依時間順序掃描 [from, to] 區間的資料列
+     *
+     * @param from     起始epoch秒 (含)
+     * @param to       結束epoch秒 (含)
+     * @param wanted   要解碼的欄位索引
+     * @param consumer 接收時間與wanted順序的數值 (陣列會重複使用)
+     */
+    void scan(long from, long to, int[] wanted, RowConsumer consumer) {
+        if (count == 0 || to < startTime || from > endTime) {
+            return;
+        }
+        BitInput timeInput = timestamps.reader();
+        ValueDecoder[] decoders = new ValueDecoder[wanted.length];
+        for (int w = 0; w < wanted.length; w++) {
+            decoders[w] = new ValueDecoder(columns[wanted[w]].reader());
+        }
+        double[] row = new double[wanted.length];
+        long time = startTime;
+        long delta = 0L;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                delta += readDeltaOfDelta(timeInput);
+                time += delta;
+            }
+            for (int w = 0; w < wanted.length; w++) {
+                row[w] = Double.longBitsToDouble(decoders[w].next());
+            }
+            if (time > to) {
+                return;
+            }
+            if (time >= from) {
+                consumer.accept(time, row);
+            }
+        }
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getStartTime() {
+        return startTime;
+    }
+
+    long getEndTime() {
+        return endTime;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    int getColumnCount() {
+        return columnCount;
+    }
+
+    long estimatedFootprintBytes() {
+        long bytes = 64L + timestamps.estimatedFootprintBytes();
+        for (BitOutput column : columns) {
+            bytes += column.estimatedFootprintBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 寫出已封存的區塊
+     */
+    void writeTo(DataOutput output) throws IOException {
+        if (!sealed) {
+            throw new IllegalStateException("Only sealed chunks can be written");
+        }
+        output.writeLong(startTime);
+        output.writeLong(endTime);
+        output.writeInt(count);
+        output.writeShort(columnCount);
+        writeStream(output, timestamps);
+        for (BitOutput column : columns) {
+            writeStream(output, column);
+        }
+    }
+
+    /**
+     * 讀回writeTo()寫出的區塊 (封存狀態)
+     *
+     * @throws IOException 內容不完整或欄數不符
+     */
+    static SeriesChunk readFrom(DataInput input, int expectedColumns) throws IOException {
+        long startTime = input.readLong();
+        long endTime = input.readLong();
+        int count = input.readInt();
+        int columnCount = input.readUnsignedShort();
+        if (columnCount != expectedColumns || count < 0 || endTime < startTime) {
+            throw new IOException("Invalid chunk header");
+        }
+        BitOutput timestamps = readStream(input);
+        BitOutput[] columns = new BitOutput[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            columns[c] = readStream(input);
+        }
+        return new SeriesChunk(startTime, endTime, count, timestamps, columns);
+    }
+
+    private static void writeStream(DataOutput output, BitOutput stream) throws IOException {
+        output.writeInt(stream.getBitCount());
+        long[] words = stream.words();
+        for (int i = 0; i < stream.wordCount(); i++) {
+            output.writeLong(words[i]);
+        }
+    }
+
+    private static BitOutput readStream(DataInput input) throws IOException {
+        int bitCount = input.readInt();
+        if (bitCount < 0) {
+            throw new IOException("Invalid bit count: " + bitCount);
+        }
+        long[] words = new long[Math.max(1, (bitCount + 63) >>> 6)];
+        for (int i = 0; i < (bitCount + 63) >>> 6; i++) {
+            words[i] = input.readLong();
+        }
+        return new BitOutput(words, bitCount);
+    }
+
+    private void writeDeltaOfDelta(long dod) {
+        if (dod == 0L) {
+            timestamps.writeBit(false);
+        } else if (dod >= -64L && dod <= 63L) {
+            timestamps.writeBits(0b10, 2);
+            timestamps.writeBits(dod, 7);
+        } else if (dod >= -256L && dod <= 255L) {
+            timestamps.writeBits(0b110, 3);
+            timestamps.writeBits(dod, 9);
+        } else if (dod >= -2048L && dod <= 2047L) {
+            timestamps.writeBits(0b1110, 4);
+            timestamps.writeBits(dod, 12);
+        } else {
+            timestamps.writeBits(0b1111, 4);
+            timestamps.writeBits(dod, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitInput input) {
+        if (!input.readBit()) {
+            return 0L;
+        }
+        if (!input.readBit()) {
+            return input.readSigned(7);
+        }
+        if (!input.readBit()) {
+            return input.readSigned(9);
+        }
+        if (!input.readBit()) {
+            return input.readSigned(12);
+        }
+        return input.readBits(64);
+    }
+
+    private void writeValue(int column, long bits) {
+        BitOutput output = columns[column];
+        if (count == 0) {
+            output.writeBits(bits, 64);
+            leading[column] = -1;
+        } else {
+            long xor = bits ^ lastBits[column];
+            if (xor == 0L) {
+                output.writeBit(false);
+            } else {
+                output.writeBit(true);
+                int lead = Math.min(31, Long.numberOfLeadingZeros(xor));
+                int trail = Long.numberOfTrailingZeros(xor);
+                if (leading[column] >= 0 && lead >= leading[column] && trail >= trailing[column]) {
+                    // 有效位元落在前一次記錄的範圍內，只寫有效位元
+                    output.writeBit(false);
+                    output.writeBits(xor >>> trailing[column], 64 - leading[column] - trailing[column]);
+                } else {
+                    int length = 64 - lead - trail;
+                    output.writeBit(true);
+                    output.writeBits(lead, 5);
+                    output.writeBits(length == 64 ? 0 : length, 6);
+                    output.writeBits(xor >>> trail, length);
+                    leading[column] = lead;
+                    trailing[column] = trail;
+                }
+            }
+        }
+        lastBits[column] = bits;
+    }
+
+    /**
+     * 單一數值欄的解碼狀態
+     */
+    private static final class ValueDecoder {
+        private final BitInput input;
+        private boolean first = true;
+        private long bits;
+        private int leading;
+        private int trailing;
+
+        private ValueDecoder(BitInput input) {
+            this.input = input;
+        }
+
+        private long next() {
+            if (first) {
+                first = false;
+                bits = input.readBits(64);
+            } else if (input.readBit()) {
+                if (input.readBit()) {
+                    leading = (int) input.readBits(5);
+                    int length = (int) input.readBits(6);
+                    trailing = 64 - leading - (length == 0 ? 64 : length);
+                }
+                bits ^= input.readBits(64 - leading - trailing) << trailing;
+            }
+            return bits;
+        }
+    }
+
+    /**
+     * 資料列接收者
+     */
+    interface RowConsumer {
+        void accept(long time, double[] values);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+[004][Log標準化]LibraryStructuredLogger
+功能說明: Library標準化結構化Log入口，請求執行緒只填寫預先配置的槽位，由專用寫出執行緒批次編碼與輸出
+Input: 存取日誌 (端點、耗時、是否錯誤)、Library事件 (等級、事件名稱、端點、數值)
+Output: 經StructuredLogSink輸出的JSON行，以及寫出/丟棄/失敗計數
+*/
+/*
+Update History:
+[004][虛擬執行緒] - 記錄執行緒ID (虛擬執行緒未命名)；事件未指定端點時取LibraryRequestContext的目前端點
+*/
+package com.jamestann.test.library.logging;
+
+import com.jamestann.test.library.context.LibraryRequestContext;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Library結構化Logger
+ * <p>
+ * logAccess()/logEvent()在呼叫端只做一次CAS取得槽位並寫入基本型別與既有字串參考，不建立物件、不裝箱、不做IO；
+ * 緩衝區滿時直接丟棄並計數，請求執行緒永不等待。
+ * 寫出執行緒使用自己獨佔的StringBuilder編碼 (因此不需要ThreadLocal緩衝區)，並以批次交給StructuredLogSink。
+ * 存取日誌不會逐筆喚醒寫出執行緒，只在累積滿一個批次時喚醒，否則由寫出執行緒定期醒來處理。
+ */
+@Slf4j
+public class LibraryStructuredLogger implements InitializingBean, DisposableBean {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final StructuredLogBuffer buffer;
+    private final StructuredLogEncoder encoder;
+    private final StructuredLogSink sink;
+    private final int batchSize;
+    private final StringBuilder line = new StringBuilder(256);
+    private final Consumer<StructuredLogRecord> writeRecord = this::writeRecord;
+
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+
+    private volatile boolean running;
+    private volatile boolean writerParked;
+    private volatile Thread writer;
+
+    /**
+     * @param encoder        JSON編碼器
+     * @param sink           輸出目標
+     * @param bufferCapacity 緩衝區容量 (向上取整為2的次方)
+     * @param batchSize      每批次最多寫出數量
+     */
+    public LibraryStructuredLogger(StructuredLogEncoder encoder, StructuredLogSink sink, int bufferCapacity, int batchSize) {
+        this.buffer = new StructuredLogBuffer(bufferCapacity);
+        this.encoder = encoder;
+        this.sink = sink;
+        this.batchSize = Math.max(1, Math.min(batchSize, buffer.capacity()));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        Thread thread = new Thread(this::runWriter, "test-library-log-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+        log.debug("Structured log writer started with {} slots, batch size {}", buffer.capacity(), batchSize);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        Thread thread = writer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        }
+    }
+
+    /**
+     * 記錄一筆存取日誌 (熱路徑，不配置物件)
+     *
+     * @param endpoint      端點名稱
+     * @param durationNanos 請求耗時(奈秒)
+     * @param error         請求是否以例外結束
+     */
+    public void logAccess(String endpoint, long durationNanos, boolean error) {
+        long index = buffer.claim();
+        if (index < 0) {
+            droppedCount.increment();
+            return;
+        }
+        Thread thread = Thread.currentThread();
+        buffer.record(index).setAccess(System.currentTimeMillis(), thread.getName(), thread.getId(),
+                endpoint, durationNanos / 1_000L, error);
+        buffer.publish(index);
+        if (writerParked && buffer.size() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * 記錄一筆Library事件 (不配置物件，會立即喚醒寫出執行緒)
+     *
+     * @param level     日誌等級
+     * @param event     事件名稱，例如 sla.violation
+     * @param endpoint  相關端點，null時使用LibraryRequestContext的目前端點 (不在請求範圍內則不輸出)
+     * @param detail    事件細節，可為null
+     * @param window    相關SLI視窗標籤，可為null
+     * @param value     目前值，NaN表示不輸出
+     * @param threshold 門檻值，NaN表示不輸出
+     * @param count     次數，負值表示不輸出
+     */
+    public void logEvent(Level level, String event, String endpoint, String detail, String window,
+            double value, double threshold, long count) {
+        long index = buffer.claim();
+        if (index < 0) {
+            droppedCount.increment();
+            return;
+        }
+        Thread thread = Thread.currentThread();
+        buffer.record(index).setEvent(System.currentTimeMillis(), thread.getName(), thread.getId(), level, event,
+                endpoint != null ? endpoint : LibraryRequestContext.currentEndpoint(), detail, window, value, threshold, count);
+        buffer.publish(index);
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+
+    /**
+     * 寫出一批記錄 (僅能由寫出執行緒或測試呼叫)
+     *
+     * @return 寫出數量
+     */
+    int writeBatch() {
+        int written = buffer.consume(batchSize, writeRecord);
+        if (written > 0) {
+            try {
+                sink.flush();
+            } catch (RuntimeException e) {
+                failureCount.increment();
+                log.debug("Structured log sink flush failed", e);
+            }
+        }
+        return written;
+    }
+
+    private void writeRecord(StructuredLogRecord record) {
+        line.setLength(0);
+        try {
+            encoder.encode(record, line);
+            sink.write(record, line);
+            writtenCount.increment();
+        } catch (RuntimeException e) {
+            failureCount.increment();
+            log.debug("Structured log sink write failed", e);
+        }
+    }
+
+    private void runWriter() {
+        while (running) {
+            if (writeBatch() == 0) {
+                writerParked = true;
+                if (buffer.size() == 0 && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                writerParked = false;
+            }
+        }
+        while (writeBatch() > 0) {
+            // 關閉前寫出剩餘記錄
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+[004][Log標準化]Slf4jStructuredLogSink
+功能說明: 經由SLF4J輸出結構化Log，存取日誌與Library事件使用不同Logger
+Input: 編碼完成的JSON行
+Output: com.jamestann.test.library.access / com.jamestann.test.library.events Logger的日誌
+*/
+package com.jamestann.test.library.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SLF4J結構化Log輸出
+ * 先檢查等級是否啟用再轉成String，關閉的Logger不產生任何物件
+ */
+public class Slf4jStructuredLogSink implements StructuredLogSink {
+
+    public static final String ACCESS_LOGGER_NAME = "com.jamestann.test.library.access";
+    public static final String EVENTS_LOGGER_NAME = "com.jamestann.test.library.events";
+
+    private final Logger accessLogger = LoggerFactory.getLogger(ACCESS_LOGGER_NAME);
+    private final Logger eventsLogger = LoggerFactory.getLogger(EVENTS_LOGGER_NAME);
+
+    @Override
+    public void write(StructuredLogRecord record, CharSequence json) {
+        Logger logger = record.getKind() == StructuredLogRecord.Kind.ACCESS ? accessLogger : eventsLogger;
+        switch (record.getLevel()) {
+            case ERROR:
+                if (logger.isErrorEnabled()) {
+                    logger.error(json.toString());
+                }
+                break;
+            case WARN:
+                if (logger.isWarnEnabled()) {
+                    logger.warn(json.toString());
+                }
+                break;
+            case DEBUG:
+                if (logger.isDebugEnabled()) {
+                    logger.debug(json.toString());
+                }
+                break;
+            case TRACE:
+                if (logger.isTraceEnabled()) {
+                    logger.trace(json.toString());
+                }
+                break;
+            default:
+                if (logger.isInfoEnabled()) {
+                    logger.info(json.toString());
+                }
+                break;
+        }
+    }
+}
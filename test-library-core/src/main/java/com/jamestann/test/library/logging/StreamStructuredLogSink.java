@@ -0,0 +1,86 @@
+/*
+[004][Log標準化]StreamStructuredLogSink
+功能說明: 將結構化Log以JSON Lines批次寫入輸出串流 (預設為標準輸出)
+Input: 編碼完成的JSON行
+Output: UTF-8 JSON Lines，每批次一次write()
+*/
+package com.jamestann.test.library.logging;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * 串流結構化Log輸出
+ * 字元直接編碼為UTF-8寫入重複使用的位元組緩衝區，批次結束時一次寫出，不產生任何物件
+ */
+@Slf4j
+public class StreamStructuredLogSink implements StructuredLogSink {
+
+    private final OutputStream out;
+    private byte[] buffer;
+    private int length;
+    private boolean failureLogged;
+
+    /**
+     * @param out             輸出串流，不會被關閉
+     * @param initialCapacity 初始緩衝區大小(位元組)
+     */
+    public StreamStructuredLogSink(OutputStream out, int initialCapacity) {
+        this.out = out;
+        this.buffer = new byte[Math.max(256, initialCapacity)];
+    }
+
+    @Override
+    public void write(StructuredLogRecord record, CharSequence json) {
+        ensureCapacity(json.length() * 3 + 1);
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xC0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < json.length() && Character.isLowSurrogate(json.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, json.charAt(++i));
+                buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[length++] = '?';
+            } else {
+                buffer[length++] = (byte) (0xE0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        buffer[length++] = '\n';
+    }
+
+    @Override
+    public void flush() {
+        if (length == 0) {
+            return;
+        }
+        try {
+            out.write(buffer, 0, length);
+            out.flush();
+        } catch (IOException e) {
+            if (!failureLogged) {
+                failureLogged = true;
+                log.warn("Failed to write structured log batch, further failures are dropped silently", e);
+            }
+        } finally {
+            length = 0;
+        }
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additional));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+[004][Log標準化]StructuredLogBuffer
+功能說明: 槽位預先配置的有界MPSC環形緩衝區，寫入端就地填寫記錄，不需建立事件物件
+Input: 任意執行緒claim()取得的槽位
+Output: 單一寫出執行緒依序consume()的記錄
+*/
+package com.jamestann.test.library.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * 結構化Log緩衝區
+ * 與MpscRingBuffer相同的序號協定 (Vyukov bounded queue)，差別在於槽位本身就是可重複使用的StructuredLogRecord：
+ * claim() → 填寫槽位 → publish()，寫出端consume()處理後才把槽位還給生產者
+ */
+final class StructuredLogBuffer {
+
+    private final StructuredLogRecord[] records;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private volatile long consumerIndex;
+
+    /**
+     * @param capacity 容量，會向上取整為2的次方
+     */
+    StructuredLogBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.records = new StructuredLogRecord[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            records[i] = new StructuredLogRecord();
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 取得一個可寫入的槽位 (可由多個執行緒同時呼叫)
+     *
+     * @return 槽位序號，-1表示緩衝區已滿
+     */
+    long claim() {
+        while (true) {
+            long index = producerIndex.get();
+            long difference = sequences.get((int) (index & mask)) - index;
+            if (difference == 0) {
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    return index;
+                }
+            } else if (difference < 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * 取得已claim()的槽位記錄
+     */
+    StructuredLogRecord record(long index) {
+        return records[(int) (index & mask)];
+    }
+
+    /**
+     * 發佈已填寫完成的槽位
+     */
+    void publish(long index) {
+        sequences.lazySet((int) (index & mask), index + 1);
+    }
+
+    /**
+     * 依序處理最多max筆已發佈的記錄並釋放槽位 (僅能由單一寫出執行緒呼叫)
+     *
+     * @param max     最多處理數量
+     * @param handler 記錄處理者，呼叫結束後槽位即被重用，不可保留記錄參考
+     * @return 實際處理數量
+     */
+    int consume(int max, Consumer<StructuredLogRecord> handler) {
+        int consumed = 0;
+        while (consumed < max) {
+            long index = consumerIndex;
+            int slot = (int) (index & mask);
+            if (sequences.get(slot) != index + 1) {
+                break;
+            }
+            try {
+                handler.accept(records[slot]);
+            } finally {
+                consumerIndex = index + 1;
+                sequences.lazySet(slot, index + records.length);
+                consumed++;
+            }
+        }
+        return consumed;
+    }
+
+    int capacity() {
+        return records.length;
+    }
+
+    int size() {
+        return (int) Math.max(0, producerIndex.get() - consumerIndex);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+[004][Log標準化]StructuredLogEncoder
+功能說明: 將StructuredLogRecord編碼為單行JSON，欄位名稱預先組好、時間戳直接以數字運算格式化
+Input: StructuredLogRecord、重複使用的StringBuilder
+Output: 一行JSON (不含換行)
+*/
+/*
+Update History:
+[004][虛擬執行緒] - 執行緒名稱為空 (虛擬執行緒預設未命名) 時輸出 "#<執行緒ID>"
+*/
+package com.jamestann.test.library.logging;
+
+import com.jamestann.test.library.util.JsonStrings;
+
+/**
+ * 結構化Log編碼器
+ * 編碼過程不建立物件、不裝箱：字串欄位直接跳脫附加，數值以StringBuilder的基本型別append輸出，
+ * ISO-8601時間戳以整數運算產生，不經過java.time或DateTimeFormatter
+ * <p>
+ * 輸出格式：
+ * <pre>
+ * {"ts":"2024-01-01T00:00:00.000Z","level":"INFO","type":"access","service":"demo","thread":"http-nio-1",
+ *  "endpoint":"GET /api/users","durationMicros":1234,"error":false}
+ * {"ts":"...","level":"WARN","type":"event","service":"demo","thread":"...","event":"sla.violation",
+ *  "endpoint":"GET /api/users","detail":"LATENCY_BREACH","window":"1m","value":250.0,"threshold":200.0,"count":3}
+ * </pre>
+ */
+public final class StructuredLogEncoder {
+
+    private static final String TS = "{\"ts\":\"";
+    private static final String LEVEL = "\",\"level\":\"";
+    private static final String TYPE_ACCESS = "\",\"type\":\"access\",\"service\":";
+    private static final String TYPE_EVENT = "\",\"type\":\"event\",\"service\":";
+    private static final String THREAD = ",\"thread\":";
+    private static final String EVENT = ",\"event\":";
+    private static final String ENDPOINT = ",\"endpoint\":";
+    private static final String DETAIL = ",\"detail\":";
+    private static final String WINDOW = ",\"window\":";
+    private static final String DURATION_MICROS = ",\"durationMicros\":";
+    private static final String ERROR = ",\"error\":";
+    private static final String VALUE = ",\"value\":";
+    private static final String THRESHOLD = ",\"threshold\":";
+    private static final String COUNT = ",\"count\":";
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    /**
+     * 預先跳脫的服務名稱 (含引號)
+     */
+    private final String serviceJson;
+
+    /**
+     * @param service 服務名稱 (test.library.library-name)
+     */
+    public StructuredLogEncoder(String service) {
+        this.serviceJson = JsonStrings.appendQuoted(new StringBuilder(), service).toString();
+    }
+
+    /**
+     * 將記錄編碼並附加到目標
+     *
+     * @param record 記錄
+     * @param target 輸出目標
+     */
+    public void encode(StructuredLogRecord record, StringBuilder target) {
+        target.append(TS);
+        appendIsoTimestamp(target, record.getTimestampMillis());
+        target.append(LEVEL).append(record.getLevel().name());
+        target.append(record.getKind() == StructuredLogRecord.Kind.ACCESS ? TYPE_ACCESS : TYPE_EVENT).append(serviceJson);
+        if (record.getThread() == null || record.getThread().isEmpty()) {
+            target.append(THREAD).append("\"#").append(record.getThreadId()).append('"');
+        } else {
+            appendString(target, THREAD, record.getThread());
+        }
+        if (record.getKind() == StructuredLogRecord.Kind.ACCESS) {
+            appendString(target, ENDPOINT, record.getEndpoint());
+            target.append(DURATION_MICROS).append(record.getDurationMicros());
+            target.append(ERROR).append(record.isError());
+        } else {
+            appendString(target, EVENT, record.getEvent());
+            appendString(target, ENDPOINT, record.getEndpoint());
+            appendString(target, DETAIL, record.getDetail());
+            appendString(target, WINDOW, record.getWindow());
+            appendNumber(target, VALUE, record.getValue());
+            appendNumber(target, THRESHOLD, record.getThreshold());
+            if (record.getCount() >= 0) {
+                target.append(COUNT).append(record.getCount());
+            }
+        }
+        target.append('}');
+    }
+
+    /**
+     * 以UTC ISO-8601格式 (yyyy-MM-ddTHH:mm:ss.SSSZ) 附加時間戳
+     *
+     * @param target      輸出目標
+     * @param epochMillis epoch毫秒
+     */
+    static void appendIsoTimestamp(StringBuilder target, long epochMillis) {
+        long days = Math.floorDiv(epochMillis, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(epochMillis, MILLIS_PER_DAY);
+
+        // 由epoch日數推算西曆年月日 (Howard Hinnant civil_from_days)
+        long z = days + 719_468;
+        long era = (z >= 0 ? z : z - 146_096) / 146_097;
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+        int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        appendPadded(target, year, 4);
+        target.append('-');
+        appendPadded(target, month, 2);
+        target.append('-');
+        appendPadded(target, day, 2);
+        target.append('T');
+        appendPadded(target, millisOfDay / 3_600_000, 2);
+        target.append(':');
+        appendPadded(target, millisOfDay / 60_000 % 60, 2);
+        target.append(':');
+        appendPadded(target, millisOfDay / 1_000 % 60, 2);
+        target.append('.');
+        appendPadded(target, millisOfDay % 1_000, 3);
+        target.append('Z');
+    }
+
+    private static void appendPadded(StringBuilder target, long value, int width) {
+        for (long limit = 10; width > 1; width--, limit *= 10) {
+            if (value < limit) {
+                target.append('0');
+            }
+        }
+        target.append(value);
+    }
+
+    private static void appendString(StringBuilder target, String field, String value) {
+        if (value != null) {
+            JsonStrings.appendQuoted(target.append(field), value);
+        }
+    }
+
+    private static void appendNumber(StringBuilder target, String field, double value) {
+        if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+            target.append(field).append(value);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+[004][Log標準化]StructuredLogRecord
+功能說明: 預先配置、可重複使用的結構化Log記錄槽位
+Input: 請求執行緒寫入的存取資訊或Library事件欄位 (只有基本型別與既有字串參考)
+Output: 寫出執行緒編碼為JSON的欄位值
+*/
+/*
+Update History:
+[004][虛擬執行緒] - 新增執行緒ID欄位，未命名的執行緒 (例如虛擬執行緒) 以ID識別
+*/
+package com.jamestann.test.library.logging;
+
+import org.slf4j.event.Level;
+
+/**
+ * 結構化Log記錄
+ * 槽位由StructuredLogBuffer預先配置並循環使用：寫入端填入欄位後發佈，寫出端編碼後釋放，
+ * 因此記錄Log不需要建立任何物件；欄位只能由擁有該槽位的執行緒修改
+ */
+public final class StructuredLogRecord {
+
+    /**
+     * 記錄種類
+     */
+    public enum Kind {
+        /**
+         * 每個Controller請求的存取日誌
+         */
+        ACCESS,
+        /**
+         * Library事件 (例如SLA違反)
+         */
+        EVENT
+    }
+
+    private Kind kind;
+    private Level level;
+    private long timestampMillis;
+    private String thread;
+    private long threadId;
+    private String event;
+    private String endpoint;
+    private String detail;
+    private String window;
+    private long durationMicros;
+    private boolean error;
+    private double value;
+    private double threshold;
+    private long count;
+
+    void setAccess(long timestampMillis, String thread, long threadId, String endpoint, long durationMicros, boolean error) {
+        this.kind = Kind.ACCESS;
+        this.level = Level.INFO;
+        this.timestampMillis = timestampMillis;
+        this.thread = thread;
+        this.threadId = threadId;
+        this.event = null;
+        this.endpoint = endpoint;
+        this.detail = null;
+        this.window = null;
+        this.durationMicros = durationMicros;
+        this.error = error;
+        this.value = Double.NaN;
+        this.threshold = Double.NaN;
+        this.count = -1;
+    }
+
+    void setEvent(long timestampMillis, String thread, long threadId, Level level, String event, String endpoint,
+            String detail, String window, double value, double threshold, long count) {
+        this.kind = Kind.EVENT;
+        this.level = level;
+        this.timestampMillis = timestampMillis;
+        this.thread = thread;
+        this.threadId = threadId;
+        this.event = event;
+        this.endpoint = endpoint;
+        this.detail = detail;
+        this.window = window;
+        this.durationMicros = -1;
+        this.error = false;
+        this.value = value;
+        this.threshold = threshold;
+        this.count = count;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    public long getThreadId() {
+        return threadId;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public String getWindow() {
+        return window;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public boolean isError() {
+        return error;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+[004][Log標準化]StructuredLogSink
+功能說明: 結構化Log的輸出介面，由單一寫出執行緒呼叫
+Input: 記錄與編碼完成的JSON行
+Output: 依實作寫出 (SLF4J Logger或輸出串流)
+*/
+package com.jamestann.test.library.logging;
+
+/**
+ * 結構化Log輸出介面
+ * 只會被寫出執行緒呼叫，實作不需處理並行；json內容在呼叫結束後即被覆寫，不可保留參考
+ */
+public interface StructuredLogSink {
+
+    /**
+     * 寫出一行JSON
+     *
+     * @param record 原始記錄 (供實作決定Logger、等級)
+     * @param json   編碼完成的JSON (不含換行)
+     */
+    void write(StructuredLogRecord record, CharSequence json);
+
+    /**
+     * 一個批次寫完後呼叫
+     */
+    default void flush() {
+    }
+}
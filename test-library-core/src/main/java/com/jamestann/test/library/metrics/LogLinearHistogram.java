@@ -0,0 +1,407 @@
+/*
+[003][M1][SLI收集]LogLinearHistogram
+功能說明: 固定記憶體、以long[]為底的HDR風格log-linear直方圖，用於SLI百分位數計算
+Input: 非負整數數值 (例如微秒延遲)
+Output: 百分位數、總筆數，並支援合併(merge)與相減(subtract)
+*/
+/*
+Update History:
+[004][Off-Heap儲存] - 計數可改存於direct ByteBuffer (固定槽位)，不佔用Java heap
+[004][SLI持久化] - 新增只記錄非0桶的二進位編碼/解碼，供SLI視窗檔案使用
+[003][M2][SLI滑動視窗] - 新增單一桶的非原子增減，供稀疏時間片加到/扣出視窗彙總值
+[004][Off-Heap儲存] - 新增只嘗試一次CAS的tryRecordCount()，供StripedHistogram偵測寫入競爭
+*/
+package com.jamestann.test.library.metrics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Log-linear直方圖
+ * 2^subBucketBits以上的每個2的次方區間再切成2^(subBucketBits-1)個線性子桶，相對誤差上限為 1 / 2^(subBucketBits-1)；
+ * 小於2^subBucketBits的數值則精確記錄。
+ * <p>
+ * record() 透過VarHandle原子累加，可由多執行緒同時呼叫；
+ * merge()/subtract()/copyFrom()/reset() 只修改目標直方圖，呼叫端需保證目標沒有同時被record()。
+ * <p>
+ * 計數預設存於long[]；以ByteBuffer建立時存於該direct buffer (每桶8 bytes、native byte order)，
+ * 兩種儲存方式的直方圖可以互相合併/相減/複製。
+ */
+public final class LogLinearHistogram {
+
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle BUFFER_COUNTS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final int subBucketBits;
+    private final int subBucketCount;
+    private final int subBucketHalfCount;
+    private final long maxTrackableValue;
+    private final int bucketCount;
+    private final long[] counts;
+    private final ByteBuffer buffer;
+
+    /**
+     * @param subBucketBits     每個2的次方區間的子桶位元數 (1 ~ 16)
+     * @param maxTrackableValue 可追蹤的最大值，超過者歸入最後一個桶
+     */
+    public LogLinearHistogram(int subBucketBits, long maxTrackableValue) {
+        this(subBucketBits, maxTrackableValue, null);
+    }
+
+    /**
+     * @param subBucketBits     每個2的次方區間的子桶位元數 (1 ~ 16)
+     * @param maxTrackableValue 可追蹤的最大值，超過者歸入最後一個桶
+     * @param storage           計數儲存空間 (direct、8 bytes對齊、至少storageBytes()大小且內容為0)，null表示使用heap上的long[]
+     */
+    public LogLinearHistogram(int subBucketBits, long maxTrackableValue, ByteBuffer storage) {
+        if (subBucketBits < 1 || subBucketBits > 16) {
+            throw new IllegalArgumentException("subBucketBits must be between 1 and 16: " + subBucketBits);
+        }
+        if (maxTrackableValue < 1) {
+            throw new IllegalArgumentException("maxTrackableValue must be positive: " + maxTrackableValue);
+        }
+        this.subBucketBits = subBucketBits;
+        this.subBucketCount = 1 << subBucketBits;
+        this.subBucketHalfCount = subBucketCount >>> 1;
+        this.maxTrackableValue = maxTrackableValue;
+        this.bucketCount = bucketIndex(maxTrackableValue) + 1;
+        if (storage == null) {
+            this.counts = new long[bucketCount];
+            this.buffer = null;
+        } else {
+            if (!storage.isDirect() || storage.capacity() < bucketCount * 8) {
+                throw new IllegalArgumentException("Histogram storage must be a direct buffer of at least "
+                        + bucketCount * 8 + " bytes");
+            }
+            this.counts = null;
+            this.buffer = storage;
+        }
+    }
+
+    /**
+     * 計算指定桶配置所需的儲存空間
+     *
+     * @param subBucketBits     子桶位元數
+     * @param maxTrackableValue 可追蹤的最大值
+     * @return 位元組數
+     */
+    public static int storageBytes(int subBucketBits, long maxTrackableValue) {
+        return (bucketIndex(maxTrackableValue, subBucketBits) + 1) * 8;
+    }
+
+    /**
+     * 建立相同桶配置的空直方圖
+     *
+     * @return 新的空直方圖
+     */
+    public LogLinearHistogram emptyCopy() {
+        return new LogLinearHistogram(subBucketBits, maxTrackableValue);
+    }
+
+    /**
+     * 記錄一個數值 (O(1)，lock-free，不配置物件)
+     *
+     * @param value 數值，負值視為0
+     */
+    public void record(long value) {
+        addAt(bucketIndex(clamp(value)), 1L);
+    }
+
+    /**
+     * 記錄同一數值多次
+     *
+     * @param value 數值
+     * @param count 次數
+     */
+    public void recordCount(long value, long count) {
+        addAt(bucketIndex(clamp(value)), count);
+    }
+
+    /**
+     * 嘗試以一次CAS記錄同一數值多次，不重試
+     *
+     * @param value 數值
+     * @param count 次數
+     * @return 是否已記錄；false表示該桶同時被其他執行緒修改，呼叫端需改用recordCount()
+     */
+    public boolean tryRecordCount(long value, long count) {
+        int index = bucketIndex(clamp(value));
+        long current = countAt(index);
+        return counts != null ? COUNTS.compareAndSet(counts, index, current, current + count)
+                : BUFFER_COUNTS.compareAndSet(buffer, index << 3, current, current + count);
+    }
+
+    /**
+     * 將另一個直方圖的計數加到此直方圖
+     *
+     * @param other 相同桶配置的直方圖
+     */
+    public void merge(LogLinearHistogram other) {
+        checkCompatible(other);
+        for (int i = 0; i < bucketCount; i++) {
+            setAt(i, countAt(i) + other.countAt(i));
+        }
+    }
+
+    /**
+     * 從此直方圖扣除另一個直方圖的計數，用於滑動視窗移出過期時間片
+     *
+     * @param other 相同桶配置的直方圖，其計數必須已包含在此直方圖中
+     */
+    public void subtract(LogLinearHistogram other) {
+        checkCompatible(other);
+        for (int i = 0; i < bucketCount; i++) {
+            setAt(i, countAt(i) - other.countAt(i));
+        }
+    }
+
+    /**
+     * 以另一個直方圖的計數覆寫此直方圖
+     *
+     * @param other 相同桶配置的直方圖
+     */
+    public void copyFrom(LogLinearHistogram other) {
+        checkCompatible(other);
+        for (int i = 0; i < bucketCount; i++) {
+            setAt(i, other.countAt(i));
+        }
+    }
+
+    /**
+     * 清除所有計數
+     */
+    public void reset() {
+        for (int i = 0; i < bucketCount; i++) {
+            setAt(i, 0L);
+        }
+    }
+
+    /**
+     * 取得總筆數
+     *
+     * @return 所有桶的計數總和
+     */
+    public long getTotalCount() {
+        long total = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            total += countAt(i);
+        }
+        return total;
+    }
+
+    /**
+     * 取得指定百分位數的數值 (回傳該桶可代表的最大值)
+     *
+     * @param percentile 百分位數 (0 ~ 100)
+     * @return 百分位數值，無資料時回傳0
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = getTotalCount();
+        if (total == 0) {
+            return 0;
+        }
+        long target = percentileTarget(total, percentile);
+        long seen = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            seen += countAt(i);
+            if (seen >= target) {
+                return highestEquivalentValueAt(i);
+            }
+        }
+        return highestEquivalentValueAt(bucketCount - 1);
+    }
+
+    /**
+     * 一次掃描計算多個百分位數，不配置物件
+     *
+     * @param percentiles 由小到大排序的百分位數
+     * @param results     結果輸出陣列，長度需不小於percentiles
+     */
+    public void getValuesAtPercentiles(double[] percentiles, long[] results) {
+        long total = getTotalCount();
+        if (total == 0) {
+            for (int p = 0; p < percentiles.length; p++) {
+                results[p] = 0;
+            }
+            return;
+        }
+        int p = 0;
+        long target = percentileTarget(total, percentiles[0]);
+        long seen = 0;
+        for (int i = 0; i < bucketCount && p < percentiles.length; i++) {
+            seen += countAt(i);
+            while (p < percentiles.length && seen >= target) {
+                results[p++] = highestEquivalentValueAt(i);
+                if (p < percentiles.length) {
+                    target = percentileTarget(total, percentiles[p]);
+                }
+            }
+        }
+        for (; p < percentiles.length; p++) {
+            results[p] = highestEquivalentValueAt(bucketCount - 1);
+        }
+    }
+
+    /**
+     * 取得與指定數值落在同一桶的最大值
+     *
+     * @param value 數值
+     * @return 該桶可代表的最大值
+     */
+    public long highestEquivalentValue(long value) {
+        return highestEquivalentValueAt(bucketIndex(clamp(value)));
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public long getCountAtBucket(int index) {
+        return countAt(index);
+    }
+
+    public int getSubBucketBits() {
+        return subBucketBits;
+    }
+
+    public long getMaxTrackableValue() {
+        return maxTrackableValue;
+    }
+
+    /**
+     * 估算計數陣列佔用的記憶體
+     *
+     * @return 位元組數
+     */
+    public long getEstimatedFootprintBytes() {
+        return 16L + 8L * bucketCount;
+    }
+
+    /**
+     * 計數是否存於heap之外 (direct ByteBuffer)
+     */
+    public boolean isOffHeap() {
+        return buffer != null;
+    }
+
+    /**
+     * 編碼後的位元組數 (非0桶數 + 每個非0桶的索引與計數)
+     */
+    int encodedBytes() {
+        int nonZero = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            if (countAt(i) != 0L) {
+                nonZero++;
+            }
+        }
+        return 4 + nonZero * 12;
+    }
+
+    /**
+     * 將計數以稀疏格式寫入buffer，寫入位元組數等於encodedBytes()
+     */
+    void encodeTo(ByteBuffer target) {
+        int countPosition = target.position();
+        target.putInt(0);
+        int nonZero = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            long count = countAt(i);
+            if (count != 0L) {
+                target.putInt(i).putLong(count);
+                nonZero++;
+            }
+        }
+        target.putInt(countPosition, nonZero);
+    }
+
+    /**
+     * 以encodeTo()寫出的內容覆寫此直方圖
+     *
+     * @throws IllegalArgumentException 桶索引超出此直方圖的桶配置
+     */
+    void decodeFrom(ByteBuffer source) {
+        reset();
+        int nonZero = source.getInt();
+        for (int n = 0; n < nonZero; n++) {
+            int index = source.getInt();
+            long count = source.getLong();
+            if (index < 0 || index >= bucketCount) {
+                throw new IllegalArgumentException("Bucket index out of range: " + index);
+            }
+            setAt(index, count);
+        }
+    }
+
+    /**
+     * 單一桶的非原子增減 (只能由唯一的寫入執行緒使用，例如SLI彙總執行緒上的視窗彙總值)
+     */
+    void addAtBucket(int index, long delta) {
+        setAt(index, countAt(index) + delta);
+    }
+
+    private long countAt(int index) {
+        return counts != null ? (long) COUNTS.getOpaque(counts, index) : (long) BUFFER_COUNTS.getOpaque(buffer, index << 3);
+    }
+
+    private void setAt(int index, long value) {
+        if (counts != null) {
+            COUNTS.setOpaque(counts, index, value);
+        } else {
+            BUFFER_COUNTS.setOpaque(buffer, index << 3, value);
+        }
+    }
+
+    private void addAt(int index, long delta) {
+        if (counts != null) {
+            COUNTS.getAndAdd(counts, index, delta);
+        } else {
+            BUFFER_COUNTS.getAndAdd(buffer, index << 3, delta);
+        }
+    }
+
+    int bucketIndex(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - subBucketBits + 1;
+        return shift * subBucketHalfCount + (int) (value >>> shift);
+    }
+
+    private static int bucketIndex(long value, int subBucketBits) {
+        if (value < (1L << subBucketBits)) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - subBucketBits + 1;
+        return shift * (1 << (subBucketBits - 1)) + (int) (value >>> shift);
+    }
+
+    long highestEquivalentValueAt(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int shift = index / subBucketHalfCount - 1;
+        long subBucket = index - (long) shift * subBucketHalfCount;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private long clamp(long value) {
+        if (value < 0) {
+            return 0;
+        }
+        return Math.min(value, maxTrackableValue);
+    }
+
+    private static long percentileTarget(long total, double percentile) {
+        return Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100.0) / 100.0));
+    }
+
+    private void checkCompatible(LogLinearHistogram other) {
+        if (other.subBucketBits != subBucketBits || other.bucketCount != bucketCount) {
+            throw new IllegalArgumentException("Histogram layouts differ: subBucketBits "
+                    + subBucketBits + "/" + other.subBucketBits + ", buckets "
+                    + bucketCount + "/" + other.bucketCount);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+[004][Off-Heap儲存]OffHeapHistogramArena
+功能說明: 以大塊direct ByteBuffer切出固定大小槽位，提供計數存於heap之外的LogLinearHistogram
+Input: 直方圖桶配置 (子桶位元數、最大可追蹤值)、每塊配置大小
+Output: Off-heap直方圖、已配置/已使用的off-heap位元組數
+*/
+/*
+Update History:
+[004][Off-Heap儲存] - 註明只有完整直方圖配置於此，稀疏的視窗時間片不經過配置區
+*/
+package com.jamestann.test.library.metrics;
+
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+/**
+ * Off-heap直方圖配置區
+ * <p>
+ * 每個直方圖佔用一個固定大小的槽位 (桶數 × 8 bytes)，槽位從依需要配置的direct buffer區塊中依序切出，
+ * heap上只剩直方圖物件本身與一個ByteBuffer view，GC不需要掃描或搬移計數陣列。
+ * 槽位不會歸還 (端點狀態與應用程式同生命週期)，區塊隨配置區一起被GC回收時釋放。
+ * 只有記錄器分段與滑動視窗的1m/5m/1h彙總值是完整直方圖，RollingSLIWindow的稀疏時間片仍在heap上；
+ * off-heap不減少總記憶體，只把計數移出GC範圍，代價是ByteBuffer存取較long陣列慢。
+ * <p>
+ * 配置只在端點第一次出現時發生，以synchronized保護即可
+ */
+public final class OffHeapHistogramArena implements Supplier<LogLinearHistogram> {
+
+    private final int subBucketBits;
+    private final long maxTrackableValue;
+    private final int slotBytes;
+    private final int slotsPerChunk;
+
+    private ByteBuffer chunk;
+    private int nextSlot;
+    private long chunkCount;
+    private long allocatedSlots;
+
+    /**
+     * @param subBucketBits     直方圖子桶位元數
+     * @param maxTrackableValue 直方圖最大可追蹤值
+     * @param chunkBytes        每次向作業系統配置的區塊大小，至少容納一個槽位
+     */
+    public OffHeapHistogramArena(int subBucketBits, long maxTrackableValue, int chunkBytes) {
+        this.subBucketBits = subBucketBits;
+        this.maxTrackableValue = maxTrackableValue;
+        this.slotBytes = LogLinearHistogram.storageBytes(subBucketBits, maxTrackableValue);
+        this.slotsPerChunk = Math.max(1, chunkBytes / slotBytes);
+    }
+
+    /**
+     * 配置一個新的off-heap直方圖 (計數全為0)
+     *
+     * @return 直方圖
+     */
+    @Override
+    public synchronized LogLinearHistogram get() {
+        if (chunk == null || nextSlot == slotsPerChunk) {
+            // 多配置8 bytes，確保切出的每個槽位都以8 bytes對齊 (原子存取的必要條件)
+            chunk = ByteBuffer.allocateDirect(slotsPerChunk * slotBytes + 8).alignedSlice(8);
+            nextSlot = 0;
+            chunkCount++;
+        }
+        int offset = nextSlot++ * slotBytes;
+        ByteBuffer slot = chunk.duplicate();
+        slot.position(offset).limit(offset + slotBytes);
+        allocatedSlots++;
+        return new LogLinearHistogram(subBucketBits, maxTrackableValue, slot.slice());
+    }
+
+    public int getSlotBytes() {
+        return slotBytes;
+    }
+
+    /**
+     * 已向作業系統配置的off-heap位元組數
+     */
+    public synchronized long getReservedBytes() {
+        return chunkCount * ((long) slotsPerChunk * slotBytes + 8);
+    }
+
+    /**
+     * 已配置給直方圖的off-heap位元組數
+     */
+    public synchronized long getUsedBytes() {
+        return allocatedSlots * slotBytes;
+    }
+}
@@ -0,0 +1,249 @@
+/*
+[003][M2][SLI滑動視窗]RollingSLIWindow
+功能說明: 以預先配置的每秒時間片環形緩衝區實作的SLI滑動視窗
+Input: 每秒一次的端點累計SLI (請求數、錯誤數、延遲直方圖)
+Output: 1分鐘/5分鐘/1小時視窗的SLI彙總
+*/
+/*
+Update History:
+[004][SLI持久化] - 新增視窗狀態的二進位編碼/解碼，以及重新啟動後依停機時間讓視窗老化的skip()
+[004][SLI歷史] - advance()回傳是否完成一分鐘，並可取得剛完成的分鐘時間片
+[003][M2][SLI滑動視窗] - 每秒/每分鐘時間片與累計基準值改存為只含非0桶的SparseSLISlice，只有1m/5m/1h彙總值保留完整直方圖；
+                         getLastMinute()改為填入呼叫端的時間片；編碼只寫出游標與時間片，彙總值於解碼時重新計算
+*/
+package com.jamestann.test.library.metrics;
+
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
+/**
+ * SLI滑動視窗
+ * <p>
+ * 只有1分鐘/5分鐘/1小時三個彙總值使用完整直方圖 (由histogramFactory建立)，
+ * 60個每秒時間片、60個每分鐘時間片與上一次的累計基準值都是只含非0桶的SparseSLISlice：
+ * 每個端點固定約3個直方圖 (預設桶配置約9KB)，再加上每個非0桶約12位元組，
+ * 空閒端點約10KB，每秒落在數十個桶的忙碌端點約數十KB。
+ * <p>
+ * 每次tick掃描一次累計直方圖求出本秒增量，其餘加到/扣出彙總值的工作只與非0桶數成正比：
+ * 新時間片加入1分鐘視窗、過期時間片從視窗扣除；完成一分鐘時，1分鐘彙總值恰好等於剛結束的分鐘，
+ * 轉為分鐘時間片後同樣以增量更新5分鐘與1小時視窗。查詢時直接回傳彙總值，不需合併任何時間片也不配置物件。
+ * <p>
+ * 此類別非執行緒安全，只能由SLI彙總執行緒使用。
+ */
+public final class RollingSLIWindow {
+
+    private static final int SECOND_SLICES = 60;
+    private static final int MINUTE_SLICES = 60;
+    private static final int FIVE_MINUTE_SLICES = SLIWindow.FIVE_MINUTES.getSeconds() / 60;
+
+    private final SparseSLISlice[] seconds = new SparseSLISlice[SECOND_SLICES];
+    private final SparseSLISlice[] minutes = new SparseSLISlice[MINUTE_SLICES];
+    private final SparseSLISlice previous = new SparseSLISlice();
+    private final SLISlice oneMinute;
+    private final SLISlice fiveMinutes;
+    private final SLISlice oneHour;
+
+    private int secondCursor;
+    private int minuteCursor;
+
+    /**
+     * @param histogramFactory 延遲直方圖工廠，只用於三個視窗彙總值，必須與advance()傳入的累計直方圖使用相同桶配置
+     */
+    public RollingSLIWindow(Supplier<LogLinearHistogram> histogramFactory) {
+        for (int i = 0; i < SECOND_SLICES; i++) {
+            seconds[i] = new SparseSLISlice();
+        }
+        for (int i = 0; i < MINUTE_SLICES; i++) {
+            minutes[i] = new SparseSLISlice();
+        }
+        this.oneMinute = new SLISlice(histogramFactory.get());
+        this.fiveMinutes = new SLISlice(histogramFactory.get());
+        this.oneHour = new SLISlice(histogramFactory.get());
+    }
+
+    /**
+     * 以端點目前的累計值推進一秒
+     *
+     * @param totalRequests 累計請求數
+     * @param totalErrors   累計錯誤數
+     * @param totalLatency  累計延遲直方圖
+     * @return 此次推進是否完成一分鐘 (可由getLastMinute()取得該分鐘)
+     */
+    public boolean advance(long totalRequests, long totalErrors, LogLinearHistogram totalLatency) {
+        SparseSLISlice slice = seconds[secondCursor];
+        slice.subtractFrom(oneMinute);
+        slice.setDelta(totalRequests, totalErrors, totalLatency, previous);
+        slice.addTo(oneMinute);
+        previous.set(totalRequests, totalErrors, totalLatency);
+
+        secondCursor++;
+        if (secondCursor == SECOND_SLICES) {
+            secondCursor = 0;
+            rollMinute();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 將最近完成的一分鐘填入target (僅能在彙總執行緒上呼叫)
+     *
+     * @param target 接收分鐘內容的時間片，直方圖必須與此視窗使用相同桶配置
+     * @return target
+     */
+    public SLISlice getLastMinute(SLISlice target) {
+        target.reset();
+        minutes[(minuteCursor + MINUTE_SLICES - 1) % MINUTE_SLICES].addTo(target);
+        return target;
+    }
+
+    /**
+     * 取得視窗彙總值 (唯讀，僅能在彙總執行緒上讀取)
+     *
+     * @param window 視窗長度
+     * @return 視窗彙總時間片
+     */
+    public SLISlice get(SLIWindow window) {
+        switch (window) {
+            case ONE_MINUTE:
+                return oneMinute;
+            case FIVE_MINUTES:
+                return fiveMinutes;
+            default:
+                return oneHour;
+        }
+    }
+
+    /**
+     * 推進沒有任何請求的秒數 (用於還原後補上停機期間)，
+     * 超過視窗長度的部分直接整分鐘滾動，成本不隨停機時間成長
+     *
+     * @param idleSeconds 停機秒數
+     */
+    public void skip(long idleSeconds) {
+        long remaining = idleSeconds;
+        while (remaining > 0 && secondCursor != 0) {
+            advanceIdle();
+            remaining--;
+        }
+        if (remaining >= SECOND_SLICES) {
+            // 整分鐘的空白時間片: 先清空1分鐘視窗，再以空白的1分鐘彙總值滾動每分鐘時間片
+            long idleMinutes = remaining / SECOND_SLICES;
+            for (int i = 0; i < SECOND_SLICES; i++) {
+                seconds[i].reset();
+            }
+            oneMinute.reset();
+            for (long i = 0; i < Math.min(idleMinutes, MINUTE_SLICES); i++) {
+                rollMinute();
+            }
+            remaining -= idleMinutes * SECOND_SLICES;
+        }
+        while (remaining > 0) {
+            advanceIdle();
+            remaining--;
+        }
+    }
+
+    /**
+     * 估算此視窗佔用的記憶體 (三個彙總直方圖與所有稀疏時間片)
+     *
+     * @return 位元組數
+     */
+    public long getEstimatedFootprintBytes() {
+        long bytes = previous.getEstimatedFootprintBytes() + oneMinute.getLatency().getEstimatedFootprintBytes()
+                + fiveMinutes.getLatency().getEstimatedFootprintBytes() + oneHour.getLatency().getEstimatedFootprintBytes();
+        for (SparseSLISlice slice : seconds) {
+            bytes += slice.getEstimatedFootprintBytes();
+        }
+        for (SparseSLISlice slice : minutes) {
+            bytes += slice.getEstimatedFootprintBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 編碼後的位元組數
+     */
+    int encodedBytes() {
+        int bytes = 8;
+        for (SparseSLISlice slice : seconds) {
+            bytes += slice.encodedBytes();
+        }
+        for (SparseSLISlice slice : minutes) {
+            bytes += slice.encodedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 寫出游標與時間片；彙總值可由時間片重新計算，累計基準值屬於目前行程的記錄器，兩者都不寫出
+     */
+    void encodeTo(ByteBuffer target) {
+        target.putInt(secondCursor).putInt(minuteCursor);
+        for (SparseSLISlice slice : seconds) {
+            slice.encodeTo(target);
+        }
+        for (SparseSLISlice slice : minutes) {
+            slice.encodeTo(target);
+        }
+    }
+
+    /**
+     * 以encodeTo()寫出的內容還原視窗並重新計算彙總值，累計基準值歸零 (新行程的記錄器從0開始累計)
+     *
+     * @throws IllegalArgumentException 內容與此視窗的配置不符
+     */
+    void decodeFrom(ByteBuffer source) {
+        int second = source.getInt();
+        int minute = source.getInt();
+        if (second < 0 || second >= SECOND_SLICES || minute < 0 || minute >= MINUTE_SLICES) {
+            throw new IllegalArgumentException("Window cursor out of range: " + second + "/" + minute);
+        }
+        int bucketCount = oneMinute.getLatency().getBucketCount();
+        for (SparseSLISlice slice : seconds) {
+            slice.decodeFrom(source, bucketCount);
+        }
+        for (SparseSLISlice slice : minutes) {
+            slice.decodeFrom(source, bucketCount);
+        }
+        secondCursor = second;
+        minuteCursor = minute;
+        oneMinute.reset();
+        fiveMinutes.reset();
+        oneHour.reset();
+        for (SparseSLISlice slice : seconds) {
+            slice.addTo(oneMinute);
+        }
+        for (int i = 0; i < MINUTE_SLICES; i++) {
+            minutes[i].addTo(oneHour);
+        }
+        for (int i = 1; i <= FIVE_MINUTE_SLICES; i++) {
+            minutes[(minuteCursor + MINUTE_SLICES - i) % MINUTE_SLICES].addTo(fiveMinutes);
+        }
+        previous.reset();
+    }
+
+    private void advanceIdle() {
+        SparseSLISlice slice = seconds[secondCursor];
+        slice.subtractFrom(oneMinute);
+        slice.reset();
+        secondCursor++;
+        if (secondCursor == SECOND_SLICES) {
+            secondCursor = 0;
+            rollMinute();
+        }
+    }
+
+    /**
+     * 每秒時間片剛好繞完一圈，1分鐘彙總值即為剛結束的分鐘
+     */
+    private void rollMinute() {
+        SparseSLISlice slice = minutes[minuteCursor];
+        minutes[(minuteCursor + MINUTE_SLICES - FIVE_MINUTE_SLICES) % MINUTE_SLICES].subtractFrom(fiveMinutes);
+        slice.subtractFrom(oneHour);
+        slice.set(oneMinute.getRequestCount(), oneMinute.getErrorCount(), oneMinute.getLatency());
+        slice.addTo(fiveMinutes);
+        slice.addTo(oneHour);
+        minuteCursor = (minuteCursor + 1) % MINUTE_SLICES;
+    }
+}
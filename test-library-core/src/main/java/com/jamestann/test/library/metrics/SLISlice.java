@@ -0,0 +1,118 @@
+/*
+[003][M2][SLI滑動視窗]SLISlice
+功能說明: 預先配置的SLI時間片，包含請求數、錯誤數與延遲直方圖
+Input: 時間片期間的SLI增量
+Output: 可合併、可相減的SLI累計值
+*/
+/*
+Update History:
+[004][SLI持久化] - 新增時間片的二進位編碼/解碼
+[003][M2][SLI滑動視窗] - 新增請求數/錯誤數增減，供SparseSLISlice加到/扣出視窗彙總值
+*/
+package com.jamestann.test.library.metrics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * SLI時間片
+ * 只由SLI彙總執行緒修改，時間片本身在建立後不再配置任何物件
+ */
+public final class SLISlice {
+
+    private long requestCount;
+    private long errorCount;
+    private final LogLinearHistogram latency;
+
+    public SLISlice(LogLinearHistogram latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * 以兩個累計值的差設定此時間片
+     *
+     * @param requestDelta 期間內的請求數
+     * @param errorDelta   期間內的錯誤數
+     * @param current      目前的累計延遲直方圖
+     * @param previous     上一次的累計延遲直方圖
+     */
+    public void setDelta(long requestDelta, long errorDelta, LogLinearHistogram current, LogLinearHistogram previous) {
+        this.requestCount = requestDelta;
+        this.errorCount = errorDelta;
+        latency.copyFrom(current);
+        latency.subtract(previous);
+    }
+
+    public void merge(SLISlice other) {
+        requestCount += other.requestCount;
+        errorCount += other.errorCount;
+        latency.merge(other.latency);
+    }
+
+    public void subtract(SLISlice other) {
+        requestCount -= other.requestCount;
+        errorCount -= other.errorCount;
+        latency.subtract(other.latency);
+    }
+
+    public void copyFrom(SLISlice other) {
+        requestCount = other.requestCount;
+        errorCount = other.errorCount;
+        latency.copyFrom(other.latency);
+    }
+
+    public void reset() {
+        requestCount = 0;
+        errorCount = 0;
+        latency.reset();
+    }
+
+    void addCounts(long requests, long errors) {
+        requestCount += requests;
+        errorCount += errors;
+    }
+
+    int encodedBytes() {
+        return 16 + latency.encodedBytes();
+    }
+
+    void encodeTo(ByteBuffer target) {
+        target.putLong(requestCount).putLong(errorCount);
+        latency.encodeTo(target);
+    }
+
+    void decodeFrom(ByteBuffer source) {
+        requestCount = source.getLong();
+        errorCount = source.getLong();
+        latency.decodeFrom(source);
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * 錯誤率百分比
+     *
+     * @return 錯誤率 (0 ~ 100)，無請求時回傳0
+     */
+    public double getErrorRatePercent() {
+        return requestCount == 0 ? 0.0 : errorCount * 100.0 / requestCount;
+    }
+
+    /**
+     * 可用性百分比
+     *
+     * @return 可用性 (0 ~ 100)，無請求時回傳100
+     */
+    public double getAvailabilityPercent() {
+        return 100.0 - getErrorRatePercent();
+    }
+
+    public LogLinearHistogram getLatency() {
+        return latency;
+    }
+}
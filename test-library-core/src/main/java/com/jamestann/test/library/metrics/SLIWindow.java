@@ -0,0 +1,51 @@
+/*
+[003][M2][SLI滑動視窗]SLIWindow
+功能說明: SLO評估支援的滑動視窗長度
+Input: 無
+Output: 1分鐘、5分鐘、1小時三種視窗
+*/
+package com.jamestann.test.library.metrics;
+
+import java.time.Duration;
+
+/**
+ * SLI滑動視窗列舉
+ * 1分鐘視窗以每秒時間片滾動；5分鐘與1小時視窗以每分鐘時間片滾動
+ */
+public enum SLIWindow {
+
+    ONE_MINUTE("1m", 60),
+    FIVE_MINUTES("5m", 300),
+    ONE_HOUR("1h", 3600);
+
+    private final String label;
+    private final int seconds;
+
+    SLIWindow(String label, int seconds) {
+        this.label = label;
+        this.seconds = seconds;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public int getSeconds() {
+        return seconds;
+    }
+
+    /**
+     * 取得能涵蓋指定時間長度的最小視窗
+     *
+     * @param duration 時間長度
+     * @return 對應的視窗，超過1小時時回傳ONE_HOUR
+     */
+    public static SLIWindow covering(Duration duration) {
+        for (SLIWindow window : values()) {
+            if (duration.getSeconds() <= window.seconds) {
+                return window;
+            }
+        }
+        return ONE_HOUR;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+[004][SLI持久化]SLIWindowFile
+功能說明: 以MappedByteBuffer讀寫版本化的SLI滑動視窗二進位檔，供重新啟動後還原視窗
+Input: 端點名稱與RollingSLIWindow、檔案路徑
+Output: 視窗快照檔 / 還原後的端點視窗
+*/
+/*
+Update History:
+[003][M2][SLI滑動視窗] - 格式版本2: 視窗只寫出游標與稀疏的每秒/每分鐘時間片，彙總值於讀取時重新計算
+*/
+package com.jamestann.test.library.metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * SLI視窗檔案
+ * <p>
+ * 檔案格式 (big-endian):
+ * <pre>
+ * header  : magic(4) version(4) subBucketBits(4) maxTrackableValue(8) savedAtMillis(8)
+ *           endpointCount(4) payloadLength(4) payloadCrc32(8)
+ * payload : endpointCount × [ nameLength(2) name(UTF-8) window ]
+ * window  : secondCursor(4) minuteCursor(4) 60 × 每秒時間片 60 × 每分鐘時間片
+ * </pre>
+ * 時間片只寫出非0桶，彙總值不寫出，空閒端點的視窗只佔數KB。
+ * <p>
+ * 寫入時先映射同目錄下的暫存檔、寫完後force()再以原子rename取代正式檔，
+ * 任何時間點當機，正式檔不是舊的完整版本就是新的完整版本；讀取時再以CRC32驗證內容。
+ * 此類別不做同步，呼叫端需保證寫入期間視窗不被修改 (由SLI彙總執行緒呼叫)
+ */
+public final class SLIWindowFile {
+
+    /**
+     * 檔案識別碼 ("TLSW")
+     */
+    static final int MAGIC = 0x544C5357;
+
+    /**
+     * 檔案格式版本，格式不相容的變更需遞增
+     */
+    static final int FORMAT_VERSION = 2;
+
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 8 + 4 + 4 + 8;
+
+    private static final int CRC_OFFSET = HEADER_BYTES - 8;
+
+    private SLIWindowFile() {
+    }
+
+    /**
+     * 寫出所有端點的視窗
+     *
+     * @param file          目標檔案
+     * @param savedAtMillis 寫出時間 (還原時用來計算停機時間)
+     * @param windows       端點名稱與視窗
+     * @return 檔案大小 (bytes)
+     * @throws IOException 寫入失敗，此時正式檔維持原狀
+     */
+    public static long write(Path file, long savedAtMillis, Map<String, RollingSLIWindow> windows) throws IOException {
+        int subBucketBits = 0;
+        long maxTrackableValue = 0L;
+        long payloadLength = 0L;
+        Map<byte[], RollingSLIWindow> encoded = new LinkedHashMap<>();
+        for (Map.Entry<String, RollingSLIWindow> entry : windows.entrySet()) {
+            byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            LogLinearHistogram layout = entry.getValue().get(SLIWindow.ONE_MINUTE).getLatency();
+            subBucketBits = layout.getSubBucketBits();
+            maxTrackableValue = layout.getMaxTrackableValue();
+            payloadLength += 2 + name.length + entry.getValue().encodedBytes();
+            encoded.put(name, entry.getValue());
+        }
+        if (HEADER_BYTES + payloadLength > Integer.MAX_VALUE) {
+            throw new IOException("SLI window file too large: " + payloadLength + " bytes");
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + payloadLength);
+            mapped.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(subBucketBits).putLong(maxTrackableValue)
+                    .putLong(savedAtMillis).putInt(encoded.size()).putInt((int) payloadLength).putLong(0L);
+            for (Map.Entry<byte[], RollingSLIWindow> entry : encoded.entrySet()) {
+                mapped.putShort((short) entry.getKey().length).put(entry.getKey());
+                entry.getValue().encodeTo(mapped);
+            }
+            mapped.putLong(CRC_OFFSET, crcOf(mapped, HEADER_BYTES, (int) payloadLength));
+            mapped.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return HEADER_BYTES + payloadLength;
+    }
+
+    /**
+     * 讀取視窗檔案
+     *
+     * @param file             檔案
+     * @param histogramFactory 還原視窗使用的直方圖工廠，桶配置須與檔案相同
+     * @return 檔案內容，檔案不存在時回傳null
+     * @throws IOException 讀取失敗、格式版本/桶配置不符或內容損毀
+     */
+    public static Contents read(Path file, Supplier<LogLinearHistogram> histogramFactory) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid SLI window file size: " + size);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt() != MAGIC) {
+                throw new IOException("Not an SLI window file: " + file);
+            }
+            int version = mapped.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported SLI window file version " + version);
+            }
+            int subBucketBits = mapped.getInt();
+            long maxTrackableValue = mapped.getLong();
+            long savedAtMillis = mapped.getLong();
+            int endpointCount = mapped.getInt();
+            int payloadLength = mapped.getInt();
+            long crc = mapped.getLong();
+            if (payloadLength != size - HEADER_BYTES || crcOf(mapped, HEADER_BYTES, payloadLength) != crc) {
+                throw new IOException("Corrupt SLI window file: " + file);
+            }
+
+            Map<String, RollingSLIWindow> windows = new LinkedHashMap<>();
+            try {
+                for (int i = 0; i < endpointCount; i++) {
+                    byte[] name = new byte[mapped.getShort() & 0xFFFF];
+                    mapped.get(name);
+                    RollingSLIWindow window = new RollingSLIWindow(histogramFactory);
+                    LogLinearHistogram layout = window.get(SLIWindow.ONE_MINUTE).getLatency();
+                    if (layout.getSubBucketBits() != subBucketBits || layout.getMaxTrackableValue() != maxTrackableValue) {
+                        throw new IOException("SLI window file histogram layout does not match: "
+                                + subBucketBits + "/" + maxTrackableValue);
+                    }
+                    window.decodeFrom(mapped);
+                    windows.put(new String(name, StandardCharsets.UTF_8), window);
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupt SLI window file: " + file, e);
+            }
+            return new Contents(savedAtMillis, windows);
+        }
+    }
+
+    private static long crcOf(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(offset).limit(offset + length);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return crc.getValue();
+    }
+
+    /**
+     * 視窗檔案內容
+     */
+    public static final class Contents {
+
+        private final long savedAtMillis;
+        private final Map<String, RollingSLIWindow> windows;
+
+        Contents(long savedAtMillis, Map<String, RollingSLIWindow> windows) {
+            this.savedAtMillis = savedAtMillis;
+            this.windows = windows;
+        }
+
+        public long getSavedAtMillis() {
+            return savedAtMillis;
+        }
+
+        /**
+         * 端點名稱與還原後的視窗 (依寫出順序)
+         */
+        public Map<String, RollingSLIWindow> getWindows() {
+            return windows;
+        }
+    }
+}
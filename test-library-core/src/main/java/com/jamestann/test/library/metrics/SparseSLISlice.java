@@ -0,0 +1,189 @@
+/*
+[003][M2][SLI滑動視窗]SparseSLISlice
+功能說明: 只保存非0桶的SLI時間片，供滑動視窗的每秒/每分鐘環形緩衝區使用
+Input: 累計SLI的差值，或視窗彙總時間片的內容
+Output: 可加到/扣出SLISlice彙總值的稀疏時間片
+*/
+package com.jamestann.test.library.metrics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 稀疏SLI時間片
+ * <p>
+ * 延遲只以遞增的 (桶索引, 計數) 兩個平行陣列保存非0桶：一秒內的請求通常只落在數個到數十個桶，
+ * 相對於完整直方圖的數百個桶，空閒時間片幾乎不佔記憶體，加到/扣出彙總值的成本也只與非0桶數成正比。
+ * <p>
+ * 陣列在非0桶數超過容量時才重新配置，並在需求降到容量的四分之一以下時縮小，穩定流量下每次tick不配置物件。
+ * 此類別非執行緒安全，只能由SLI彙總執行緒使用。
+ */
+final class SparseSLISlice {
+
+    private static final int[] NO_BUCKETS = new int[0];
+    private static final long[] NO_COUNTS = new long[0];
+
+    private static final int MIN_CAPACITY = 8;
+
+    private long requestCount;
+    private long errorCount;
+    private int[] buckets = NO_BUCKETS;
+    private long[] counts = NO_COUNTS;
+    private int size;
+
+    /**
+     * 以完整直方圖的內容設定此時間片
+     *
+     * @param requests 請求數
+     * @param errors   錯誤數
+     * @param latency  延遲直方圖
+     */
+    void set(long requests, long errors, LogLinearHistogram latency) {
+        requestCount = requests;
+        errorCount = errors;
+        int bucketCount = latency.getBucketCount();
+        int nonZero = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            if (latency.getCountAtBucket(i) != 0L) {
+                nonZero++;
+            }
+        }
+        ensureCapacity(nonZero);
+        size = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            long count = latency.getCountAtBucket(i);
+            if (count != 0L) {
+                buckets[size] = i;
+                counts[size++] = count;
+            }
+        }
+    }
+
+    /**
+     * 以目前累計值減去上一次累計值設定此時間片
+     *
+     * @param totalRequests 目前累計請求數
+     * @param totalErrors   目前累計錯誤數
+     * @param totalLatency  目前累計延遲直方圖
+     * @param previous      上一次的累計值 (以set()保存)
+     */
+    void setDelta(long totalRequests, long totalErrors, LogLinearHistogram totalLatency, SparseSLISlice previous) {
+        requestCount = totalRequests - previous.requestCount;
+        errorCount = totalErrors - previous.errorCount;
+        int bucketCount = totalLatency.getBucketCount();
+        int nonZero = 0;
+        for (int i = 0, p = 0; i < bucketCount; i++) {
+            long before = p < previous.size && previous.buckets[p] == i ? previous.counts[p++] : 0L;
+            if (totalLatency.getCountAtBucket(i) != before) {
+                nonZero++;
+            }
+        }
+        ensureCapacity(nonZero);
+        size = 0;
+        for (int i = 0, p = 0; i < bucketCount; i++) {
+            long before = p < previous.size && previous.buckets[p] == i ? previous.counts[p++] : 0L;
+            long delta = totalLatency.getCountAtBucket(i) - before;
+            if (delta != 0L) {
+                buckets[size] = i;
+                counts[size++] = delta;
+            }
+        }
+    }
+
+    /**
+     * 將此時間片加到彙總時間片
+     */
+    void addTo(SLISlice target) {
+        target.addCounts(requestCount, errorCount);
+        LogLinearHistogram latency = target.getLatency();
+        for (int n = 0; n < size; n++) {
+            latency.addAtBucket(buckets[n], counts[n]);
+        }
+    }
+
+    /**
+     * 從彙總時間片扣除此時間片 (此時間片必須已加到該彙總中)
+     */
+    void subtractFrom(SLISlice target) {
+        target.addCounts(-requestCount, -errorCount);
+        LogLinearHistogram latency = target.getLatency();
+        for (int n = 0; n < size; n++) {
+            latency.addAtBucket(buckets[n], -counts[n]);
+        }
+    }
+
+    void reset() {
+        requestCount = 0L;
+        errorCount = 0L;
+        size = 0;
+        if (buckets.length > MIN_CAPACITY) {
+            buckets = NO_BUCKETS;
+            counts = NO_COUNTS;
+        }
+    }
+
+    /**
+     * 估算佔用的heap位元組數 (物件標頭與兩個陣列)
+     */
+    long getEstimatedFootprintBytes() {
+        return 48L + 16L + 4L * buckets.length + 16L + 8L * counts.length;
+    }
+
+    /**
+     * 編碼後的位元組數，格式與SLISlice相同 (請求數、錯誤數、非0桶數 + 每個非0桶的索引與計數)
+     */
+    int encodedBytes() {
+        return 16 + 4 + size * 12;
+    }
+
+    void encodeTo(ByteBuffer target) {
+        target.putLong(requestCount).putLong(errorCount).putInt(size);
+        for (int n = 0; n < size; n++) {
+            target.putInt(buckets[n]).putLong(counts[n]);
+        }
+    }
+
+    /**
+     * 以encodeTo()寫出的內容覆寫此時間片
+     *
+     * @param bucketCount 視窗直方圖的桶數
+     * @throws IllegalArgumentException 桶索引超出範圍或未遞增
+     */
+    void decodeFrom(ByteBuffer source, int bucketCount) {
+        requestCount = source.getLong();
+        errorCount = source.getLong();
+        int nonZero = source.getInt();
+        if (nonZero < 0 || nonZero > bucketCount) {
+            throw new IllegalArgumentException("Non-zero bucket count out of range: " + nonZero);
+        }
+        ensureCapacity(nonZero);
+        size = 0;
+        for (int n = 0; n < nonZero; n++) {
+            int index = source.getInt();
+            long count = source.getLong();
+            if (index < 0 || index >= bucketCount || (n > 0 && index <= buckets[n - 1])) {
+                throw new IllegalArgumentException("Bucket index out of range: " + index);
+            }
+            buckets[n] = index;
+            counts[n] = count;
+            size++;
+        }
+    }
+
+    long getRequestCount() {
+        return requestCount;
+    }
+
+    long getErrorCount() {
+        return errorCount;
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = buckets.length;
+        if (required <= capacity && (capacity <= MIN_CAPACITY || required >= capacity / 4)) {
+            return;
+        }
+        int resized = Math.max(MIN_CAPACITY, required + (required >>> 2));
+        buckets = new int[resized];
+        counts = new long[resized];
+    }
+}
@@ -0,0 +1,104 @@
+/*
+[004][Off-Heap儲存]StripedHistogram
+功能說明: 依寫入競爭逐步增加分段的LogLinearHistogram，低流量端點只佔一個直方圖
+Input: 多執行緒同時記錄的數值、直方圖工廠、分段數上限
+Output: 合併所有分段後的累計分佈
+*/
+package com.jamestann.test.library.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 分段直方圖
+ * <p>
+ * 與LongAdder相同的做法：一開始只有一個分段，寫入以一次CAS嘗試，失敗 (同一桶同時被其他執行緒修改) 時
+ * 改以原子累加完成該筆記錄，並把分段數加倍，直到分段數上限。沒有競爭的端點永遠只佔一個直方圖，
+ * 只有真的被多個執行緒同時寫入的端點才會長到上限。
+ * <p>
+ * 分段以執行緒ID雜湊選擇，不使用ThreadLocal：虛擬執行緒的ID同樣唯一且遞增，雜湊後均勻分佈，
+ * 請求結束後不留下任何狀態。同時寫入的只有掛載中的執行緒 (數量不超過carrier數)，
+ * 因此上限依CPU數而非執行緒數決定。加倍時保留原有分段，持有舊陣列的寫入者寫入的計數不會遺失
+ */
+public final class StripedHistogram {
+
+    private final Supplier<LogLinearHistogram> histogramFactory;
+    private final int maxStripes;
+    private final AtomicBoolean growing = new AtomicBoolean();
+    private volatile LogLinearHistogram[] stripes;
+
+    /**
+     * @param histogramFactory 分段直方圖工廠，所有分段使用相同桶配置
+     * @param maxStripes       分段數上限，進位到2的次方
+     */
+    public StripedHistogram(Supplier<LogLinearHistogram> histogramFactory, int maxStripes) {
+        this.histogramFactory = histogramFactory;
+        this.maxStripes = Integer.highestOneBit(Math.max(1, maxStripes) * 2 - 1);
+        this.stripes = new LogLinearHistogram[] {histogramFactory.get()};
+    }
+
+    /**
+     * 記錄同一數值多次 (熱路徑，除分段加倍外不配置物件)
+     *
+     * @param value 數值
+     * @param count 次數
+     */
+    public void recordCount(long value, long count) {
+        LogLinearHistogram[] current = stripes;
+        LogLinearHistogram stripe = current[stripeIndex(current.length)];
+        if (!stripe.tryRecordCount(value, count)) {
+            stripe.recordCount(value, count);
+            grow(current);
+        }
+    }
+
+    /**
+     * 將所有分段的累計分佈合併到目標直方圖
+     *
+     * @param target 相同桶配置的直方圖，會先被清除
+     */
+    public void copyInto(LogLinearHistogram target) {
+        target.reset();
+        for (LogLinearHistogram stripe : stripes) {
+            target.merge(stripe);
+        }
+    }
+
+    /**
+     * 目前的分段數
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    public int getMaxStripes() {
+        return maxStripes;
+    }
+
+    /**
+     * 分段數加倍；已在加倍中或其他執行緒已經加倍時直接返回，寫入端不等待
+     */
+    private void grow(LogLinearHistogram[] seen) {
+        if (seen.length >= maxStripes || !growing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (stripes == seen) {
+                LogLinearHistogram[] grown = Arrays.copyOf(seen, seen.length * 2);
+                for (int i = seen.length; i < grown.length; i++) {
+                    grown[i] = histogramFactory.get();
+                }
+                stripes = grown;
+            }
+        } finally {
+            growing.set(false);
+        }
+    }
+
+    private static int stripeIndex(int stripeCount) {
+        long threadId = Thread.currentThread().getId();
+        int hash = (int) ((threadId * 0x9E3779B97F4A7C15L) >>> 32);
+        return hash & (stripeCount - 1);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+[004][WebFlux監控]LibraryReactiveContext
+功能說明: 由Reactor Context讀取LibraryWebFilter寫入的請求上下文
+Input: handler或其下游運算子的ContextView (例如Mono.deferContextual)
+Output: 目前請求的端點名稱
+*/
+package com.jamestann.test.library.reactive;
+
+import com.jamestann.test.library.actuator.EndpointLatencyRecorder;
+import reactor.util.context.ContextView;
+
+/**
+ * Library Reactive請求上下文
+ * Reactive handler會在不同執行緒之間切換，因此不使用LibraryRequestContext (ScopedValue/ThreadLocal)，
+ * 而是讀取隨訂閱傳遞的Reactor Context，例如：
+ * <pre>
+ * Mono.deferContextual(context -&gt; Mono.just(LibraryReactiveContext.currentEndpoint(context)))
+ * </pre>
+ */
+public final class LibraryReactiveContext {
+
+    /**
+     * LibraryWebFilter寫入Reactor Context的key
+     */
+    public static final String KEY = LibraryReactiveContext.class.getName();
+
+    private LibraryReactiveContext() {
+    }
+
+    /**
+     * 取得目前請求的端點名稱
+     *
+     * @param context Reactor Context
+     * @return 端點名稱；不在LibraryWebFilter範圍內或handler尚未決定時為null
+     */
+    public static String currentEndpoint(ContextView context) {
+        Object state = context.getOrDefault(KEY, null);
+        if (!(state instanceof MonitoredExchangeSubscriber)) {
+            return null;
+        }
+        EndpointLatencyRecorder recorder = ((MonitoredExchangeSubscriber) state).recorder();
+        return recorder == null ? null : recorder.getEndpoint();
+    }
+}
@@ -0,0 +1,220 @@
+/*
+[004][WebFlux監控]LibraryWebFilter
+功能說明: WebFlux請求的SLI監控，將延遲與錯誤寫入與Servlet路徑相同的端點記錄器
+Input: 每個ServerWebExchange與其WebFilterChain
+Output: 寫入LibrarySLICollector的端點記錄器、結構化存取日誌、Reactor Context中的請求上下文
+*/
+/*
+Update History:
+[004][熔斷器] - 有熔斷器未關閉時先查詢路由，依端點熔斷器放行、探測或以LibraryCircuitOpenException拒絕；改以builder建構
+[004][併發限制] - 有受限制的handler時先查詢路由，以不等待的EndpointConcurrencyLimiter.acquireNow()取得名額，超過上限時以LibraryConcurrencyLimitException拒絕
+*/
+package com.jamestann.test.library.reactive;
+
+import com.jamestann.test.library.actuator.EndpointConcurrencyLimiter;
+import com.jamestann.test.library.actuator.EndpointLatencyRecorder;
+import com.jamestann.test.library.actuator.LibraryCircuitBreaker;
+import com.jamestann.test.library.actuator.LibraryCircuitOpenException;
+import com.jamestann.test.library.actuator.LibraryConcurrencyLimitException;
+import com.jamestann.test.library.actuator.LibraryConcurrencyLimiter;
+import com.jamestann.test.library.actuator.LibrarySLICollector;
+import com.jamestann.test.library.logging.LibraryStructuredLogger;
+import org.springframework.core.Ordered;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoOperator;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Library WebFlux監控過濾器
+ * <p>
+ * 不使用doOnSuccess/doOnError/doOnCancel等多層運算子，也不註冊全域Reactor Hooks (會讓應用程式中每個運算子都多一層)：
+ * 每個請求只建立一個MonitoredExchangeSubscriber，同時擔任計時、記錄與Reactor Context寫入 (等同contextWrite)；
+ * 訊號只原樣轉送，不配置物件、不切換執行緒、不呼叫block()。
+ * <p>
+ * 端點在請求結束時由handler mapping設定的屬性解析，與Servlet路徑相同只監控Controller handler method
+ * (functional endpoint與404不記錄)；錯誤定義與LibraryMetricsAspect一致，只有以例外結束的請求算錯誤。
+ * <p>
+ * 熔斷器與併發限制的放行判斷必須在handler執行前知道端點，但DispatcherHandler在過濾器之後才比對路由：
+ * 所有熔斷器都關閉 (一次volatile讀取) 且沒有受併發限制的handler時不做任何額外工作；
+ * 否則先向RequestMappingHandlerMapping查詢一次路由，每個請求多一次路由比對
+ * (有受限制的handler時為所有請求，只有熔斷器時為熔斷器未關閉期間)。
+ * 事件迴圈執行緒不能等待，超過併發上限的請求立即拒絕，maxQueue/queueTimeout不適用；
+ * 名額在完成、錯誤或取消時歸還
+ */
+public class LibraryWebFilter implements WebFilter, Ordered {
+
+    private final LibrarySLICollector collector;
+    private final LibraryStructuredLogger accessLogger;
+    private final LibraryCircuitBreaker circuitBreaker;
+    private final LibraryConcurrencyLimiter concurrencyLimiter;
+    private final List<RequestMappingHandlerMapping> handlerMappings;
+    private final boolean limitedHandlers;
+
+    private LibraryWebFilter(Builder builder) {
+        this.collector = builder.collector;
+        this.accessLogger = builder.accessLogger;
+        this.circuitBreaker = builder.circuitBreaker;
+        this.concurrencyLimiter = builder.concurrencyLimiter;
+        this.handlerMappings = builder.handlerMappings;
+        this.limitedHandlers = concurrencyLimiter != null && handlerMappings.stream()
+                .flatMap(mapping -> mapping.getHandlerMethods().values().stream())
+                .anyMatch(handlerMethod -> concurrencyLimiter.isLimited(handlerMethod.getMethod()));
+    }
+
+    /**
+     * @param collector SLI數據收集器
+     * @return 只記錄SLI、其餘功能皆未啟用的建構器
+     */
+    public static Builder builder(LibrarySLICollector collector) {
+        return new Builder(collector);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!limitedHandlers && (circuitBreaker == null || handlerMappings.isEmpty() || !circuitBreaker.hasOpenCircuits())) {
+            return monitored(exchange, chain, null, LibraryCircuitBreaker.PERMITTED, null);
+        }
+        // 查詢失敗 (405、415等) 或不是Controller時照常交給DispatcherHandler，由它回應同樣的錯誤
+        return Flux.fromIterable(handlerMappings)
+                .concatMap(mapping -> mapping.getHandler(exchange).onErrorResume(error -> Mono.empty()))
+                .next()
+                .map(handler -> admit(exchange, chain, handler))
+                .switchIfEmpty(Mono.fromSupplier(() -> monitored(exchange, chain, null, LibraryCircuitBreaker.PERMITTED, null)))
+                .flatMap(Function.identity());
+    }
+
+    /**
+     * 最先執行，延遲涵蓋其他WebFilter與handler
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    LibrarySLICollector getCollector() {
+        return collector;
+    }
+
+    LibraryStructuredLogger getAccessLogger() {
+        return accessLogger;
+    }
+
+    LibraryCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * 依端點熔斷器與併發限制決定放行、探測或拒絕；被拒絕的請求不執行handler，也不寫入端點記錄器 (與LibraryMetricsAspect一致)
+     */
+    private Mono<Void> admit(ServerWebExchange exchange, WebFilterChain chain, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return monitored(exchange, chain, null, LibraryCircuitBreaker.PERMITTED, null);
+        }
+        EndpointLatencyRecorder recorder = collector.recorderFor(((HandlerMethod) handler).getMethod());
+        int permit = circuitBreaker == null ? LibraryCircuitBreaker.PERMITTED : circuitBreaker.acquire(recorder);
+        if (permit == LibraryCircuitBreaker.REJECTED) {
+            return Mono.error(new LibraryCircuitOpenException(recorder.getEndpoint()));
+        }
+        EndpointConcurrencyLimiter limiter = concurrencyLimiter == null ? null : concurrencyLimiter.limiterFor(recorder);
+        if (limiter != null && !limiter.acquireNow()) {
+            if (permit == LibraryCircuitBreaker.PROBE) {
+                circuitBreaker.releaseProbe(recorder);
+            }
+            return Mono.error(new LibraryConcurrencyLimitException(recorder.getEndpoint(), limiter.getLimit()));
+        }
+        return monitored(exchange, chain, recorder, permit, limiter);
+    }
+
+    private Mono<Void> monitored(ServerWebExchange exchange, WebFilterChain chain, EndpointLatencyRecorder recorder,
+            int permit, EndpointConcurrencyLimiter limiter) {
+        return new MonitoredExchange(chain.filter(exchange), exchange, this, recorder, permit, limiter);
+    }
+
+    /**
+     * LibraryWebFilter建構器，未設定的選用功能一律不啟用
+     */
+    public static final class Builder {
+        private final LibrarySLICollector collector;
+        private LibraryStructuredLogger accessLogger;
+        private LibraryCircuitBreaker circuitBreaker;
+        private LibraryConcurrencyLimiter concurrencyLimiter;
+        private List<RequestMappingHandlerMapping> handlerMappings = Collections.emptyList();
+
+        private Builder(LibrarySLICollector collector) {
+            this.collector = collector;
+        }
+
+        /**
+         * @param accessLogger 結構化存取日誌，null表示不輸出
+         */
+        public Builder accessLogger(LibraryStructuredLogger accessLogger) {
+            this.accessLogger = accessLogger;
+            return this;
+        }
+
+        /**
+         * @param circuitBreaker 端點熔斷器，null表示不啟用
+         */
+        public Builder circuitBreaker(LibraryCircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        /**
+         * @param concurrencyLimiter 自適應併發限制，null表示不啟用
+         */
+        public Builder concurrencyLimiter(LibraryConcurrencyLimiter concurrencyLimiter) {
+            this.concurrencyLimiter = concurrencyLimiter;
+            return this;
+        }
+
+        /**
+         * @param handlerMappings 依順序查詢的Controller路由 (熔斷器與併發限制用來在handler執行前解析端點)；
+         *                        建構時掃描一次是否有受併發限制的handler method
+         */
+        public Builder handlerMappings(List<RequestMappingHandlerMapping> handlerMappings) {
+            this.handlerMappings = List.copyOf(handlerMappings);
+            return this;
+        }
+
+        public LibraryWebFilter build() {
+            return new LibraryWebFilter(this);
+        }
+    }
+
+    /**
+     * 請求的處理流程，每次訂閱建立一個MonitoredExchangeSubscriber
+     */
+    private static final class MonitoredExchange extends MonoOperator<Void, Void> {
+        private final ServerWebExchange exchange;
+        private final LibraryWebFilter filter;
+        private final EndpointLatencyRecorder recorder;
+        private final int permit;
+        private final EndpointConcurrencyLimiter limiter;
+
+        private MonitoredExchange(Mono<Void> source, ServerWebExchange exchange, LibraryWebFilter filter,
+                EndpointLatencyRecorder recorder, int permit, EndpointConcurrencyLimiter limiter) {
+            super(source);
+            this.exchange = exchange;
+            this.filter = filter;
+            this.recorder = recorder;
+            this.permit = permit;
+            this.limiter = limiter;
+        }
+
+        @Override
+        public void subscribe(CoreSubscriber<? super Void> actual) {
+            source.subscribe(new MonitoredExchangeSubscriber(actual, exchange, filter, recorder, permit, limiter));
+        }
+    }
+}
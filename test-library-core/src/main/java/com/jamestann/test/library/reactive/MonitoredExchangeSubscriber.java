@@ -0,0 +1,168 @@
+/*
+[004][WebFlux監控]MonitoredExchangeSubscriber
+功能說明: 訂閱WebFilterChain結果的單一Subscriber，於完成、錯誤或取消時記錄一次SLI
+Input: 下游Subscriber、ServerWebExchange、LibraryWebFilter
+Output: 寫入端點記錄器的延遲/錯誤、Reactor Context中的請求上下文
+*/
+/*
+Update History:
+[004][熔斷器] - 探測請求一律計時並回報探測結果，取消時歸還探測許可
+[004][併發限制] - 完成、錯誤或取消時歸還併發名額，受限制的請求一律計時 (權重1)
+*/
+package com.jamestann.test.library.reactive;
+
+import com.jamestann.test.library.actuator.EndpointConcurrencyLimiter;
+import com.jamestann.test.library.actuator.EndpointLatencyRecorder;
+import com.jamestann.test.library.actuator.LibraryCircuitBreaker;
+import com.jamestann.test.library.logging.LibraryStructuredLogger;
+import org.reactivestreams.Subscription;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.CoreSubscriber;
+import reactor.util.context.Context;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * 請求監控Subscriber
+ * <p>
+ * 同時是下游看到的Subscription：request/onNext原樣轉送，不配置物件。
+ * 完成、錯誤與取消可能在不同執行緒上競爭 (例如用戶端斷線時handler剛好完成)，以一次CAS保證只記錄一次；
+ * 取消的請求只累加請求數，不把被截斷的耗時寫入延遲分佈，也不算錯誤；
+ * 取消的熔斷器探測不算探測結果，歸還許可讓下一個請求接手探測。
+ * <p>
+ * currentContext()在建立時把自己放入下游的Context一次 (等同contextWrite)，
+ * 上游的handler可用LibraryReactiveContext讀取目前端點
+ */
+final class MonitoredExchangeSubscriber implements CoreSubscriber<Void>, Subscription {
+
+    private static final int RUNNING = 0;
+    private static final int FINISHED = 1;
+
+    private static final AtomicIntegerFieldUpdater<MonitoredExchangeSubscriber> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(MonitoredExchangeSubscriber.class, "state");
+
+    private final CoreSubscriber<? super Void> actual;
+    private final ServerWebExchange exchange;
+    private final LibraryWebFilter filter;
+    private final EndpointLatencyRecorder admittedRecorder;
+    private final int permit;
+    private final EndpointConcurrencyLimiter limiter;
+    private final Context context;
+    private final long startNanos;
+    private Subscription upstream;
+    private volatile int state;
+
+    /**
+     * @param actual   下游Subscriber
+     * @param exchange 目前請求
+     * @param filter   建立此Subscriber的過濾器
+     * @param recorder 放行判斷時已解析的端點記錄器，null表示結束時由handler mapping屬性解析
+     * @param permit   熔斷器放行結果 (PERMITTED或PROBE)
+     * @param limiter  已取得名額的併發限制器，null表示未受限制
+     */
+    MonitoredExchangeSubscriber(CoreSubscriber<? super Void> actual, ServerWebExchange exchange, LibraryWebFilter filter,
+            EndpointLatencyRecorder recorder, int permit, EndpointConcurrencyLimiter limiter) {
+        this.actual = actual;
+        this.exchange = exchange;
+        this.filter = filter;
+        this.admittedRecorder = recorder;
+        this.permit = permit;
+        this.limiter = limiter;
+        this.context = actual.currentContext().put(LibraryReactiveContext.KEY, this);
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public Context currentContext() {
+        return context;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.upstream = subscription;
+        actual.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(Void value) {
+        actual.onNext(value);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        finish(false, true);
+        actual.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        finish(false, false);
+        actual.onComplete();
+    }
+
+    @Override
+    public void request(long n) {
+        upstream.request(n);
+    }
+
+    @Override
+    public void cancel() {
+        finish(true, false);
+        upstream.cancel();
+    }
+
+    /**
+     * 目前請求的端點記錄器 (handler mapping完成前或非Controller請求為null)
+     */
+    EndpointLatencyRecorder recorder() {
+        if (admittedRecorder != null) {
+            return admittedRecorder;
+        }
+        Object handler = exchange.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        return handler instanceof HandlerMethod
+                ? filter.getCollector().recorderFor(((HandlerMethod) handler).getMethod()) : null;
+    }
+
+    private void finish(boolean cancelled, boolean error) {
+        if (!STATE.compareAndSet(this, RUNNING, FINISHED)) {
+            return;
+        }
+        long duration = System.nanoTime() - startNanos;
+        if (limiter != null) {
+            limiter.release(duration);
+        }
+        EndpointLatencyRecorder recorder = recorder();
+        if (recorder == null) {
+            return;
+        }
+        if (permit == LibraryCircuitBreaker.PROBE) {
+            if (cancelled) {
+                filter.getCircuitBreaker().releaseProbe(recorder);
+            } else {
+                filter.getCircuitBreaker().onProbeResult(recorder, duration, error);
+            }
+        }
+        if (cancelled) {
+            recorder.recordUnsampled(false);
+            return;
+        }
+        // 探測與受併發限制的請求一律計時，沒有經過取樣，以權重1記錄
+        int weight = 1;
+        if (permit == LibraryCircuitBreaker.PERMITTED && limiter == null) {
+            int interval = filter.getCollector().getSamplingPolicy().effectiveInterval(recorder);
+            if (interval > 1 && ThreadLocalRandom.current().nextInt(interval) != 0) {
+                recorder.recordUnsampled(error);
+                return;
+            }
+            weight = interval;
+        }
+        recorder.record(duration, error, weight);
+        LibraryStructuredLogger accessLogger = filter.getAccessLogger();
+        if (accessLogger != null) {
+            accessLogger.logAccess(recorder.getEndpoint(), duration, error);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+[004][效能調校]JsonStrings
+功能說明: 預先序列化JSON時共用的字串跳脫工具
+Input: 任意字串
+Output: 附加到StringBuilder的JSON字串常值
+*/
+package com.jamestann.test.library.util;
+
+/**
+ * JSON字串工具
+ */
+public final class JsonStrings {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private JsonStrings() {
+    }
+
+    /**
+     * 以JSON字串常值格式附加數值 (含前後引號與跳脫)，null輸出為null
+     *
+     * @param builder 輸出目標
+     * @param value   字串
+     * @return 同一個builder
+     */
+    public static StringBuilder appendQuoted(StringBuilder builder, String value) {
+        if (value == null) {
+            return builder.append("null");
+        }
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"');
+    }
+}
@@ -0,0 +1,105 @@
+/*
+[003][M3][SLA違反處理]MpscRingBuffer
+功能說明: 有界、lock-free的多生產者單消費者環形緩衝區
+Input: 任意執行緒offer()的元素
+Output: 單一消費者執行緒批次drain()的元素
+*/
+package com.jamestann.test.library.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 有界MPSC環形緩衝區
+ * 每個槽位以序號標記狀態 (Vyukov bounded queue)：生產者以CAS取得槽位，
+ * 滿時offer()立即回傳false，不會阻塞也不會配置物件
+ *
+ * @param <E> 元素型別
+ */
+public final class MpscRingBuffer<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private volatile long consumerIndex;
+
+    /**
+     * @param capacity 容量，會向上取整為2的次方
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 放入元素 (可由多個執行緒同時呼叫)
+     *
+     * @param element 元素
+     * @return false表示緩衝區已滿
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long index = producerIndex.get();
+            int slot = (int) (index & mask);
+            long difference = sequences.get(slot) - index;
+            if (difference == 0) {
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    elements[slot] = element;
+                    sequences.lazySet(slot, index + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 取出最多max個元素到目標陣列 (僅能由單一消費者執行緒呼叫)
+     *
+     * @param target 目標陣列
+     * @param max    最多取出數量
+     * @return 實際取出數量
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(E[] target, int max) {
+        long index = consumerIndex;
+        int limit = Math.min(max, target.length);
+        int drained = 0;
+        while (drained < limit) {
+            int slot = (int) (index & mask);
+            if (sequences.get(slot) != index + 1) {
+                break;
+            }
+            target[drained++] = (E) elements[slot];
+            elements[slot] = null;
+            sequences.lazySet(slot, index + elements.length);
+            index++;
+        }
+        consumerIndex = index;
+        return drained;
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+
+    /**
+     * 目前元素數量的估計值
+     *
+     * @return 元素數量
+     */
+    public int size() {
+        long size = producerIndex.get() - consumerIndex;
+        return (int) Math.max(0, Math.min(size, elements.length));
+    }
+}
@@ -4,17 +4,26 @@
 Input: 無 (透過Spring Boot API檢測)
 Output: 版本資訊、相容性檢查結果
 */
+/*
+Update History:
+[004][效能調校] - 版本相容性報告於類別載入時計算一次並快取，報告內預先產生info/actuator/REST回應格式
+*/
 package com.jamestann.test.library.util;
 
 import org.springframework.boot.SpringBootVersion;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Spring Boot版本檢測工具類
  * 提供版本檢測、相容性驗證和支援版本資訊查詢功能
+ * <p>
+ * 執行中的JVM內Spring Boot版本不會改變，因此當前版本的相容性報告只計算一次，
+ * 之後的查詢都直接回傳同一個不可變快照，不配置任何物件
  */
 @Component
 public class SpringBootVersionDetector {
@@ -22,7 +31,7 @@ public class SpringBootVersionDetector {
     /**
      * 支援的Spring Boot版本清單
      */
-    private static final List<String> SUPPORTED_VERSION_PREFIXES = Arrays.asList(
+    private static final List<String> SUPPORTED_VERSION_PREFIXES = List.of(
             "2.7", "3.0", "3.1", "3.2"
     );
 
@@ -32,7 +41,7 @@ public class SpringBootVersionDetector {
      * @return 當前Spring Boot版本字串
      */
     public String detectSpringBootVersion() {
-        return SpringBootVersion.getVersion();
+        return CurrentVersion.REPORT.getCurrentVersion();
     }
 
     /**
@@ -46,8 +55,12 @@ public class SpringBootVersionDetector {
             return false;
         }
 
-        return SUPPORTED_VERSION_PREFIXES.stream()
-                .anyMatch(supportedPrefix -> version.startsWith(supportedPrefix));
+        for (String supportedPrefix : SUPPORTED_VERSION_PREFIXES) {
+            if (version.startsWith(supportedPrefix)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -56,28 +69,36 @@ public class SpringBootVersionDetector {
      * @return true如果當前版本受支援，false否則
      */
     public boolean isCurrentVersionCompatible() {
-        String currentVersion = detectSpringBootVersion();
-        return isCompatibleVersion(currentVersion);
+        return CurrentVersion.REPORT.isCompatible();
     }
 
     /**
      * 回傳支援的版本清單
      *
-     * @return 支援的版本前綴清單
+     * @return 支援的版本前綴清單 (不可修改)
      */
     public List<String> getSupportedVersions() {
-        return List.copyOf(SUPPORTED_VERSION_PREFIXES);
+        return SUPPORTED_VERSION_PREFIXES;
     }
 
     /**
-     * 取得詳細的版本相容性資訊
+     * 取得詳細的版本相容性資訊 (快取的快照，不配置物件)
      *
      * @return 版本相容性報告
      */
     public VersionCompatibilityReport getCompatibilityReport() {
-        String currentVersion = detectSpringBootVersion();
+        return CurrentVersion.REPORT;
+    }
+
+    /**
+     * 依指定版本建立相容性報告
+     *
+     * @param currentVersion Spring Boot版本字串，可能為null (無法從MANIFEST取得版本時)
+     * @return 版本相容性報告
+     */
+    VersionCompatibilityReport createCompatibilityReport(String currentVersion) {
         boolean isCompatible = isCompatibleVersion(currentVersion);
-        
+
         return new VersionCompatibilityReport(
                 currentVersion,
                 isCompatible,
@@ -89,30 +110,43 @@ public class SpringBootVersionDetector {
     /**
      * 產生相容性訊息
      */
-    private String generateCompatibilityMessage(String currentVersion, boolean isCompatible) {
+    private static String generateCompatibilityMessage(String currentVersion, boolean isCompatible) {
         if (isCompatible) {
             return String.format("Spring Boot %s is supported by test-library", currentVersion);
         } else {
-            return String.format("Spring Boot %s is NOT supported. Supported versions: %s", 
+            return String.format("Spring Boot %s is NOT supported. Supported versions: %s",
                     currentVersion, String.join(", ", SUPPORTED_VERSION_PREFIXES));
         }
     }
 
+    /**
+     * 當前版本報告的延遲初始化持有類別 (第一次查詢時才讀取SpringBootVersion)
+     */
+    private static final class CurrentVersion {
+        private static final VersionCompatibilityReport REPORT =
+                new SpringBootVersionDetector().createCompatibilityReport(SpringBootVersion.getVersion());
+    }
+
     /**
      * 版本相容性報告類別
+     * 建立時即預先產生Map (info/actuator回應) 與JSON字串 (REST回應) 兩種序列化格式
      */
     public static class VersionCompatibilityReport {
         private final String currentVersion;
         private final boolean isCompatible;
         private final List<String> supportedVersions;
         private final String message;
+        private final Map<String, Object> details;
+        private final String json;
 
-        public VersionCompatibilityReport(String currentVersion, boolean isCompatible, 
+        public VersionCompatibilityReport(String currentVersion, boolean isCompatible,
                 List<String> supportedVersions, String message) {
             this.currentVersion = currentVersion;
             this.isCompatible = isCompatible;
             this.supportedVersions = List.copyOf(supportedVersions);
             this.message = message;
+            this.details = buildDetails();
+            this.json = buildJson();
         }
 
         public String getCurrentVersion() {
@@ -131,10 +165,54 @@ public class SpringBootVersionDetector {
             return message;
         }
 
+        /**
+         * 取得預先產生的報告內容，供InfoContributor、Actuator端點與REST回應直接序列化
+         *
+         * @return 不可修改的Map (currentVersion、compatible、message、supportedVersions)
+         */
+        public Map<String, Object> getDetails() {
+            return details;
+        }
+
+        /**
+         * 取得預先序列化的JSON字串
+         *
+         * @return 與getDetails()內容相同的JSON
+         */
+        public String toJson() {
+            return json;
+        }
+
+        private Map<String, Object> buildDetails() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("currentVersion", currentVersion);
+            map.put("compatible", isCompatible);
+            map.put("message", message);
+            map.put("supportedVersions", supportedVersions);
+            return Collections.unmodifiableMap(map);
+        }
+
+        private String buildJson() {
+            StringBuilder builder = new StringBuilder(128)
+                    .append("{\"currentVersion\":");
+            JsonStrings.appendQuoted(builder, currentVersion);
+            builder.append(",\"compatible\":").append(isCompatible)
+                    .append(",\"message\":");
+            JsonStrings.appendQuoted(builder, message);
+            builder.append(",\"supportedVersions\":[");
+            for (int i = 0; i < supportedVersions.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                JsonStrings.appendQuoted(builder, supportedVersions.get(i));
+            }
+            return builder.append("]}").toString();
+        }
+
         @Override
         public String toString() {
-            return String.format("VersionCompatibilityReport{currentVersion='%s', isCompatible=%s, message='%s'}", 
+            return String.format("VersionCompatibilityReport{currentVersion='%s', isCompatible=%s, message='%s'}",
                     currentVersion, isCompatible, message);
         }
     }
-}
\ No newline at end of file
+}
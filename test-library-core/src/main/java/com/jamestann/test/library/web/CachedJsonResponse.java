@@ -0,0 +1,63 @@
+/*
+[004][JSON回應]CachedJsonResponse
+功能說明: 依輸入版本快取的預先序列化JSON回應，輸入改變時才重新序列化
+Input: 呼叫端依回應輸入計算的版本號、回應內容產生器
+Output: 目前版本的PreSerializedJson
+*/
+package com.jamestann.test.library.web;
+
+/**
+ * 快取的JSON回應
+ * <p>
+ * 呼叫端把回應的所有輸入折成一個long版本號 (例如內容包含秒級時間戳時使用epoch秒)，
+ * 版本號不變時直接回傳上次的位元組：一次volatile讀取與一次比較，不配置物件。
+ * 多個執行緒同時遇到新版本時可能各自序列化一次，結果相同，最後寫入者勝出
+ */
+public final class CachedJsonResponse {
+
+    /**
+     * 回應內容產生器
+     */
+    @FunctionalInterface
+    public interface Renderer {
+
+        /**
+         * @param version 輸入版本號
+         * @param writer  寫出器
+         */
+        void render(long version, JsonResponseWriter writer);
+    }
+
+    private final Renderer renderer;
+    private volatile Entry entry;
+
+    public CachedJsonResponse(Renderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /**
+     * 取得指定輸入版本的回應
+     *
+     * @param version 輸入版本號
+     * @return 預先序列化的JSON
+     */
+    public PreSerializedJson get(long version) {
+        Entry current = entry;
+        if (current != null && current.version == version) {
+            return current.body;
+        }
+        PreSerializedJson body = PreSerializedJson.of(writer -> renderer.render(version, writer));
+        entry = new Entry(version, body);
+        return body;
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final PreSerializedJson body;
+
+        private Entry(long version, PreSerializedJson body) {
+            this.version = version;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/*
+[004][JSON回應]JsonResponseWriter
+功能說明: 直接以UTF-8位元組串流輸出JSON，欄位名稱使用預先編碼的位元組片段
+Input: 目標OutputStream、預先編碼的欄位名稱、字串/整數/布林等欄位值
+Output: 寫入OutputStream的JSON位元組
+*/
+package com.jamestann.test.library.web;
+
+import com.jamestann.test.library.util.JsonStrings;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * JSON回應寫出器
+ * <p>
+ * 不建立Map、不經過Jackson樹：欄位名稱以fieldName()預先編碼為 {@code "field":} 位元組，
+ * 字串值逐字元跳脫並直接編碼成UTF-8，整數以數字運算寫出，全部先寫入內部緩衝區、滿了才寫到輸出串流。
+ * 逗號由寫出器依巢狀層級自動補上。
+ * <pre>
+ * private static final byte[] STATUS = JsonResponseWriter.fieldName("status");
+ * writer.beginObject().field(STATUS, "UP").endObject().flush();
+ * </pre>
+ * 此類別非執行緒安全，每個回應使用一個實例
+ */
+public final class JsonResponseWriter {
+
+    private static final int DEFAULT_BUFFER_SIZE = 512;
+
+    /**
+     * 超過此層數的巢狀結構不支援 (以long的位元記錄各層是否已有元素)
+     */
+    private static final int MAX_DEPTH = 63;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position;
+    private int depth;
+    private long hasElement;
+    private boolean afterName;
+
+    public JsonResponseWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param out        輸出串流
+     * @param bufferSize 內部緩衝區大小 (至少32 bytes)
+     */
+    public JsonResponseWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[Math.max(32, bufferSize)];
+    }
+
+    /**
+     * 預先編碼欄位名稱 (含引號與冒號)，應保存為常數重複使用
+     *
+     * @param field 欄位名稱
+     * @return {@code "field":} 的UTF-8位元組
+     */
+    public static byte[] fieldName(String field) {
+        StringBuilder builder = new StringBuilder(field.length() + 3);
+        JsonStrings.appendQuoted(builder, field);
+        return builder.append(':').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public JsonResponseWriter beginObject() {
+        return open('{');
+    }
+
+    public JsonResponseWriter endObject() {
+        return close('}');
+    }
+
+    public JsonResponseWriter beginArray() {
+        return open('[');
+    }
+
+    public JsonResponseWriter endArray() {
+        return close(']');
+    }
+
+    /**
+     * 寫出欄位名稱，下一個寫出的值即為此欄位的值
+     *
+     * @param name fieldName()預先編碼的欄位名稱
+     */
+    public JsonResponseWriter name(byte[] name) {
+        separate();
+        write(name, 0, name.length);
+        afterName = true;
+        return this;
+    }
+
+    public JsonResponseWriter field(byte[] name, String value) {
+        return name(name).value(value);
+    }
+
+    public JsonResponseWriter field(byte[] name, long value) {
+        return name(name).value(value);
+    }
+
+    public JsonResponseWriter field(byte[] name, boolean value) {
+        return name(name).value(value);
+    }
+
+    public JsonResponseWriter value(String value) {
+        separate();
+        if (value == null) {
+            write(NULL, 0, NULL.length);
+        } else {
+            writeQuoted(value);
+        }
+        return this;
+    }
+
+    public JsonResponseWriter value(long value) {
+        separate();
+        writeLong(value);
+        return this;
+    }
+
+    public JsonResponseWriter value(boolean value) {
+        separate();
+        byte[] literal = value ? TRUE : FALSE;
+        write(literal, 0, literal.length);
+        return this;
+    }
+
+    /**
+     * 寫出浮點數 (經由Double.toString，非有限值輸出為null)
+     */
+    public JsonResponseWriter value(double value) {
+        separate();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            write(NULL, 0, NULL.length);
+        } else {
+            writeAscii(Double.toString(value));
+        }
+        return this;
+    }
+
+    /**
+     * 寫出已序列化的JSON值 (呼叫端保證內容是合法的JSON)
+     *
+     * @param json UTF-8編碼的JSON值
+     */
+    public JsonResponseWriter rawValue(byte[] json) {
+        separate();
+        write(json, 0, json.length);
+        return this;
+    }
+
+    /**
+     * 寫出任意值 (String、Number、Boolean、Map、Collection、陣列以外的物件以toString()寫成字串)
+     * 用於只序列化一次的內容，例如啟動時預先產生的回應；熱路徑應使用型別明確的value()
+     *
+     * @param value 值
+     */
+    public JsonResponseWriter writeValue(Object value) {
+        if (value == null) {
+            return value((String) null);
+        }
+        if (value instanceof Boolean) {
+            return value(((Boolean) value).booleanValue());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return value(((Number) value).doubleValue());
+        }
+        if (value instanceof Number) {
+            return value(((Number) value).longValue());
+        }
+        if (value instanceof Map) {
+            beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                name(fieldName(String.valueOf(entry.getKey())));
+                writeValue(entry.getValue());
+            }
+            return endObject();
+        }
+        if (value instanceof Collection) {
+            beginArray();
+            for (Object element : (Collection<?>) value) {
+                writeValue(element);
+            }
+            return endArray();
+        }
+        if (value instanceof Object[]) {
+            beginArray();
+            for (Object element : (Object[]) value) {
+                writeValue(element);
+            }
+            return endArray();
+        }
+        return value(value.toString());
+    }
+
+    /**
+     * 將緩衝區內容寫到輸出串流並flush
+     */
+    public void flush() {
+        drain();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonResponseWriter open(char bracket) {
+        separate();
+        if (depth >= MAX_DEPTH) {
+            throw new IllegalStateException("JSON nesting deeper than " + MAX_DEPTH);
+        }
+        put((byte) bracket);
+        depth++;
+        hasElement &= ~(1L << depth);
+        return this;
+    }
+
+    private JsonResponseWriter close(char bracket) {
+        if (depth == 0) {
+            throw new IllegalStateException("No open JSON object or array");
+        }
+        put((byte) bracket);
+        depth--;
+        return this;
+    }
+
+    /**
+     * 值或欄位名稱之前補上逗號 (緊接在欄位名稱之後的值除外)
+     */
+    private void separate() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        long bit = 1L << depth;
+        if ((hasElement & bit) != 0) {
+            put((byte) ',');
+        } else {
+            hasElement |= bit;
+        }
+    }
+
+    private void writeQuoted(String value) {
+        put((byte) '"');
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    put((byte) '\\');
+                    put((byte) c);
+                } else if (c < 0x20) {
+                    ensure(6);
+                    buffer[position++] = '\\';
+                    buffer[position++] = 'u';
+                    buffer[position++] = '0';
+                    buffer[position++] = '0';
+                    buffer[position++] = HEX[c >> 4];
+                    buffer[position++] = HEX[c & 0xF];
+                } else {
+                    put((byte) c);
+                }
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensure(4);
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                if (Character.isSurrogate(c)) {
+                    // 不成對的surrogate無法編碼為UTF-8，與String.getBytes()相同以'?'取代
+                    c = '?';
+                }
+                ensure(3);
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        put((byte) '"');
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            write(MIN_LONG, 0, MIN_LONG.length);
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long scale = 10; digits < 19 && value >= scale; scale *= 10) {
+            digits++;
+        }
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    private void writeAscii(String value) {
+        ensure(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void put(byte b) {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = b;
+    }
+
+    private void write(byte[] bytes, int offset, int length) {
+        if (length > buffer.length - position) {
+            drain();
+            if (length > buffer.length) {
+                try {
+                    out.write(bytes, offset, length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    private void ensure(int length) {
+        if (length > buffer.length - position) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        if (position == 0) {
+            return;
+        }
+        try {
+            out.write(buffer, 0, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        position = 0;
+    }
+}
@@ -0,0 +1,22 @@
+/*
+[004][JSON回應]JsonWritable
+功能說明: 可自行以JsonResponseWriter串流輸出的回應內容
+Input: JsonResponseWriter
+Output: 寫出的JSON
+*/
+package com.jamestann.test.library.web;
+
+/**
+ * 可串流輸出的JSON回應
+ * Controller回傳此型別時由JsonWritableHttpMessageConverter直接寫到回應串流，不經過Jackson
+ */
+@FunctionalInterface
+public interface JsonWritable {
+
+    /**
+     * 寫出一個完整的JSON值
+     *
+     * @param writer 寫出器 (由呼叫端flush)
+     */
+    void writeJson(JsonResponseWriter writer);
+}
@@ -0,0 +1,64 @@
+/*
+[004][JSON回應]JsonWritableHttpMessageConverter
+功能說明: 將Controller回傳的JsonWritable直接寫到HTTP回應串流
+Input: JsonWritable / PreSerializedJson
+Output: application/json回應本文
+*/
+package com.jamestann.test.library.web;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * JsonWritable訊息轉換器
+ * PreSerializedJson設定Content-Length後一次寫出；其他JsonWritable以JsonResponseWriter串流寫出。
+ * 只支援寫出，請求本文仍由其他轉換器處理
+ */
+public class JsonWritableHttpMessageConverter extends AbstractHttpMessageConverter<JsonWritable> {
+
+    public JsonWritableHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return JsonWritable.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected JsonWritable readInternal(Class<? extends JsonWritable> clazz, HttpInputMessage inputMessage)
+            throws HttpMessageNotReadableException {
+        throw new HttpMessageNotReadableException("JsonWritable is write-only", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(JsonWritable content, MediaType contentType) {
+        return content instanceof PreSerializedJson ? (long) ((PreSerializedJson) content).length() : null;
+    }
+
+    @Override
+    protected void writeInternal(JsonWritable content, HttpOutputMessage outputMessage) throws IOException {
+        if (content instanceof PreSerializedJson) {
+            ((PreSerializedJson) content).writeTo(outputMessage.getBody());
+            return;
+        }
+        try {
+            JsonResponseWriter writer = new JsonResponseWriter(outputMessage.getBody());
+            content.writeJson(writer);
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
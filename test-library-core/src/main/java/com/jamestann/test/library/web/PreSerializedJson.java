@@ -0,0 +1,62 @@
+/*
+[004][JSON回應]PreSerializedJson
+功能說明: 已序列化完成的JSON回應位元組
+Input: JsonWritable (序列化一次)
+Output: 不可變的UTF-8 JSON位元組，寫出時直接複製
+*/
+package com.jamestann.test.library.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 預先序列化的JSON
+ * 內容在建立後不再改變，JsonWritableHttpMessageConverter會設定Content-Length並一次寫出
+ */
+public final class PreSerializedJson implements JsonWritable {
+
+    private final byte[] bytes;
+
+    private PreSerializedJson(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * 序列化一次並保存結果
+     *
+     * @param content 回應內容
+     * @return 預先序列化的JSON
+     */
+    public static PreSerializedJson of(JsonWritable content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        JsonResponseWriter writer = new JsonResponseWriter(out);
+        content.writeJson(writer);
+        writer.flush();
+        return new PreSerializedJson(out.toByteArray());
+    }
+
+    public int length() {
+        return bytes.length;
+    }
+
+    /**
+     * 寫出全部位元組
+     *
+     * @param out 輸出串流
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes);
+    }
+
+    @Override
+    public void writeJson(JsonResponseWriter writer) {
+        writer.rawValue(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
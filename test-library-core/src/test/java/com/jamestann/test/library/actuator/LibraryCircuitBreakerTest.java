@@ -0,0 +1,137 @@
+/*
+[004][熔斷器]LibraryCircuitBreakerTest
+功能說明: 驗證違反處理器跳脫、打開時拒絕、半開探測的關閉與重新打開、未執行探測許可的歸還、關閉後的寬限期間，以及快照中的熔斷器狀態
+Input: 模擬的SLAViolationEvent與探測結果
+Output: 端點熔斷器狀態轉換驗證結果
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.event.SLAViolationType;
+import com.jamestann.test.library.actuator.handler.CircuitBreakerViolationHandler;
+import com.jamestann.test.library.actuator.model.EndpointSLISnapshot;
+import com.jamestann.test.library.actuator.model.SLOConfig;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.metrics.SLIWindow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Library Circuit Breaker Test")
+class LibraryCircuitBreakerTest {
+
+    private static final String ENDPOINT = "GET /api/orders";
+
+    private final LibrarySLICollector collector = new LibrarySLICollector();
+    private final TestLibraryProperties.SloConfig sloProperties = new TestLibraryProperties().getSlo();
+
+    @Test
+    @DisplayName("Should open on a routed violation and reject requests until the open duration elapses")
+    void shouldTripAndReject() {
+        LibraryCircuitBreaker circuitBreaker = newCircuitBreaker(Duration.ofHours(1), Duration.ofMinutes(1));
+        EndpointLatencyRecorder recorder = collector.recorderFor(ENDPOINT);
+        assertThat(circuitBreaker.acquire(recorder)).isEqualTo(LibraryCircuitBreaker.PERMITTED);
+
+        CircuitBreakerViolationHandler handler = new CircuitBreakerViolationHandler(circuitBreaker, collector);
+        handler.handleViolation(violation(SLAViolationType.ERROR_RATE_BREACH), null);
+        handler.handleViolation(violation(SLAViolationType.LATENCY_BREACH), null);
+
+        EndpointCircuitBreaker state = recorder.getCircuitBreaker();
+        assertThat(state.getState()).isEqualTo(EndpointCircuitBreaker.State.OPEN);
+        assertThat(state.getTripCount()).isEqualTo(1);
+        assertThat(state.getStateSinceMillis()).isPositive();
+        for (int i = 0; i < 3; i++) {
+            assertThat(circuitBreaker.acquire(recorder)).isEqualTo(LibraryCircuitBreaker.REJECTED);
+        }
+        assertThat(state.getRejectedCount()).isEqualTo(3);
+        assertThat(circuitBreaker.acquire(collector.recorderFor("GET /api/users")))
+                .isEqualTo(LibraryCircuitBreaker.PERMITTED);
+    }
+
+    @Test
+    @DisplayName("Should admit a limited number of probes and close after all of them pass")
+    void shouldCloseAfterSuccessfulProbes() {
+        sloProperties.getCircuitBreaker().setHalfOpenProbes(2);
+        LibraryCircuitBreaker circuitBreaker = newCircuitBreaker(Duration.ZERO, Duration.ofMinutes(1));
+        EndpointLatencyRecorder recorder = collector.recorderFor(ENDPOINT);
+        assertThat(circuitBreaker.trip(recorder)).isTrue();
+
+        assertThat(circuitBreaker.acquire(recorder)).isEqualTo(LibraryCircuitBreaker.PROBE);
+        assertThat(recorder.getCircuitBreaker().getState()).isEqualTo(EndpointCircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.acquire(recorder)).isEqualTo(LibraryCircuitBreaker.PROBE);
+
+        circuitBreaker.onProbeResult(recorder, TimeUnit.MILLISECONDS.toNanos(5), false);
+        assertThat(recorder.getCircuitBreaker().getState()).isEqualTo(EndpointCircuitBreaker.State.HALF_OPEN);
+        circuitBreaker.onProbeResult(recorder, TimeUnit.MILLISECONDS.toNanos(5), false);
+
+        assertThat(recorder.getCircuitBreaker().getState()).isEqualTo(EndpointCircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.acquire(recorder)).isEqualTo(LibraryCircuitBreaker.PERMITTED);
+        assertThat(circuitBreaker.trip(recorder)).as("trip within the evaluation window after closing").isFalse();
+    }
+
+    @Test
+    @DisplayName("Should re-open when a probe fails or exceeds the endpoint P95 target")
+    void shouldReopenOnFailedProbe() {
+        LibraryCircuitBreaker circuitBreaker = newCircuitBreaker(Duration.ZERO, Duration.ZERO);
+        EndpointLatencyRecorder recorder = collector.recorderFor(ENDPOINT);
+
+        circuitBreaker.trip(recorder);
+        assertThat(circuitBreaker.acquire(recorder)).isEqualTo(LibraryCircuitBreaker.PROBE);
+        circuitBreaker.onProbeResult(recorder, TimeUnit.MILLISECONDS.toNanos(5), true);
+        assertThat(recorder.getCircuitBreaker().getState()).isEqualTo(EndpointCircuitBreaker.State.OPEN);
+
+        assertThat(circuitBreaker.acquire(recorder)).isEqualTo(LibraryCircuitBreaker.PROBE);
+        circuitBreaker.onProbeResult(recorder, TimeUnit.MILLISECONDS.toNanos(500), false);
+        assertThat(recorder.getCircuitBreaker().getState()).isEqualTo(EndpointCircuitBreaker.State.OPEN);
+        assertThat(recorder.getCircuitBreaker().getTripCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should hand a released probe permit to the next request instead of waiting for the probe timeout")
+    void shouldReleaseUnusedProbe() throws InterruptedException {
+        sloProperties.getCircuitBreaker().setHalfOpenProbes(1);
+        LibraryCircuitBreaker circuitBreaker = newCircuitBreaker(Duration.ofMillis(200), Duration.ZERO);
+        EndpointLatencyRecorder recorder = collector.recorderFor(ENDPOINT);
+        circuitBreaker.trip(recorder);
+        Thread.sleep(250);
+
+        assertThat(circuitBreaker.acquire(recorder)).isEqualTo(LibraryCircuitBreaker.PROBE);
+        assertThat(circuitBreaker.acquire(recorder)).isEqualTo(LibraryCircuitBreaker.REJECTED);
+        assertThat(circuitBreaker.acquire(recorder)).isEqualTo(LibraryCircuitBreaker.REJECTED);
+
+        circuitBreaker.releaseProbe(recorder);
+        assertThat(circuitBreaker.acquire(recorder)).isEqualTo(LibraryCircuitBreaker.PROBE);
+        assertThat(circuitBreaker.acquire(recorder)).isEqualTo(LibraryCircuitBreaker.REJECTED);
+        circuitBreaker.onProbeResult(recorder, TimeUnit.MILLISECONDS.toNanos(5), false);
+        assertThat(recorder.getCircuitBreaker().getState()).isEqualTo(EndpointCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Should report non-closed circuit state in the endpoint snapshot JSON")
+    void shouldExposeStateInSnapshot() {
+        StringBuilder closed = new StringBuilder();
+        new EndpointSLISnapshot(ENDPOINT, List.of(), null, null).appendJson(closed);
+        StringBuilder open = new StringBuilder();
+        new EndpointSLISnapshot(ENDPOINT, List.of(), EndpointCircuitBreaker.State.OPEN.name(), null).appendJson(open);
+
+        assertThat(closed.toString()).isEqualTo("{\"endpoint\":\"GET /api/orders\",\"windows\":[]}");
+        assertThat(open.toString())
+                .isEqualTo("{\"endpoint\":\"GET /api/orders\",\"circuitState\":\"OPEN\",\"windows\":[]}");
+    }
+
+    private LibraryCircuitBreaker newCircuitBreaker(Duration openDuration, Duration evaluationWindow) {
+        sloProperties.getCircuitBreaker().setOpenDuration(openDuration);
+        return new LibraryCircuitBreaker(sloProperties.getCircuitBreaker(), new LibrarySLOPolicyIndex(sloProperties),
+                evaluationWindow);
+    }
+
+    private static SLAViolationEvent violation(SLAViolationType type) {
+        SLOConfig slo = new SLOConfig(ENDPOINT, 200_000, 99.5, 0.5, List.of(CircuitBreakerViolationHandler.HANDLER_NAME));
+        return new SLAViolationEvent(ENDPOINT, type, 5.0, 0.5, SLIWindow.ONE_MINUTE, 0, slo);
+    }
+}
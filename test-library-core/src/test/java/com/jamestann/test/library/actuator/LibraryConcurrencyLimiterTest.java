@@ -0,0 +1,177 @@
+/*
+[004][併發限制]LibraryConcurrencyLimiterTest
+功能說明: 驗證受限制端點的解析、超過上限的拒絕與排隊、依latency-p95目標的AIMD上限調整、受限制請求以權重1記錄
+Input: @LibraryConcurrencyLimit註解的Controller、concurrency-limit配置、模擬的請求耗時
+Output: 併發限制驗證結果
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.annotation.LibraryConcurrencyLimit;
+import com.jamestann.test.library.annotation.LibrarySLO;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.metrics.LogLinearHistogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Library Concurrency Limiter Test")
+class LibraryConcurrencyLimiterTest {
+
+    private final LibrarySLICollector collector = new LibrarySLICollector();
+    private TestLibraryProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TestLibraryProperties();
+        properties.getConcurrencyLimit().setAdjustInterval(Duration.ZERO);
+        properties.getConcurrencyLimit().setMinSamples(1);
+    }
+
+    @Test
+    @DisplayName("Should limit only annotated or configured endpoints, with annotation attributes overriding config")
+    void shouldResolveLimitedEndpoints() throws NoSuchMethodException {
+        properties.getConcurrencyLimit().setEndpoints(List.of("/api/reports"));
+        LibraryConcurrencyLimiter limiter = newLimiter();
+
+        EndpointConcurrencyLimiter search = limiter.limiterFor(
+                collector.recorderFor(SearchController.class.getMethod("search")));
+        assertThat(search).isNotNull();
+        assertThat(search.getLimit()).isEqualTo(2);
+        assertThat(limiter.limiterFor(collector.recorderFor(SearchController.class.getMethod("search")))).isSameAs(search);
+        assertThat(limiter.limiterFor(collector.recorderFor("GET /api/reports")).getLimit()).isEqualTo(20);
+        assertThat(limiter.limiterFor(collector.recorderFor("GET /api/users"))).isNull();
+        assertThat(limiter.limiterFor(new EndpointLatencyRecorder("GET /api/reports"))).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should reject requests above the limit immediately when no queue is configured")
+    void shouldRejectAboveLimit() {
+        properties.getConcurrencyLimit().setInitialLimit(2);
+        properties.getConcurrencyLimit().setMinSamples(100);
+        EndpointConcurrencyLimiter limiter = configuredLimiter();
+
+        assertThat(limiter.acquire()).isTrue();
+        assertThat(limiter.acquire()).isTrue();
+        assertThat(limiter.acquire()).isFalse();
+        assertThat(limiter.getRejectedCount()).isEqualTo(1);
+
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.acquire()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should let a queued request proceed when a slot is released and time out otherwise")
+    void shouldQueueWithinBound() throws Exception {
+        properties.getConcurrencyLimit().setInitialLimit(1);
+        properties.getConcurrencyLimit().setMinSamples(100);
+        properties.getConcurrencyLimit().setMaxQueue(1);
+        properties.getConcurrencyLimit().setQueueTimeout(Duration.ofSeconds(5));
+        EndpointConcurrencyLimiter limiter = configuredLimiter();
+        assertThat(limiter.acquire()).isTrue();
+
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(limiter::acquire);
+        while (limiter.getQueued() == 0) {
+            Thread.onSpinWait();
+        }
+        assertThat(limiter.acquire()).as("queue is full").isFalse();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(limiter.getQueued()).isZero();
+
+        properties.getConcurrencyLimit().setQueueTimeout(Duration.ofMillis(20));
+        EndpointConcurrencyLimiter shortQueue = configuredLimiter();
+        assertThat(shortQueue.acquire()).isTrue();
+        long start = System.nanoTime();
+        assertThat(shortQueue.acquire()).isFalse();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    @DisplayName("Should back off when P95 exceeds the latency-p95 SLO and grow while saturated and fast")
+    void shouldAdjustLimitAgainstLatencyTarget() throws NoSuchMethodException {
+        properties.getConcurrencyLimit().setInitialLimit(10);
+        properties.getConcurrencyLimit().setMinSamples(1);
+        LibraryConcurrencyLimiter limiter = newLimiter();
+        EndpointConcurrencyLimiter search = limiter.limiterFor(
+                collector.recorderFor(SearchController.class.getMethod("slowSearch")));
+        assertThat(search.getLimit()).isEqualTo(10);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(search.acquire()).isTrue();
+            search.release(TimeUnit.MILLISECONDS.toNanos(80));
+        }
+        assertThat(search.getLimit()).isEqualTo(7);
+
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 4; j++) {
+                assertThat(search.acquire()).isTrue();
+            }
+            for (int j = 0; j < 4; j++) {
+                search.release(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        }
+        assertThat(search.getLimit()).isGreaterThan(7);
+        assertThat(search.getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should record limited requests once each even when the endpoint is sampled")
+    void shouldRecordLimitedRequestsWithUnitWeight() throws NoSuchMethodException {
+        TestLibraryProperties.SamplingConfig sampling = new TestLibraryProperties.SamplingConfig();
+        sampling.setMode(TestLibraryProperties.SamplingMode.FIXED);
+        sampling.setRate(0.1);
+        LibrarySLICollector sampledCollector = new LibrarySLICollector(new LibrarySamplingPolicy(sampling));
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new SearchController());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(LibraryMetricsAspect.builder(sampledCollector).concurrencyLimiter(newLimiter()).build());
+        SearchController controller = proxyFactory.getProxy();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(controller.search()).isEqualTo("search");
+        }
+
+        EndpointLatencyRecorder recorder = sampledCollector.recorderFor(SearchController.class.getMethod("search"));
+        LogLinearHistogram latency = EndpointLatencyRecorder.newLatencyHistogram();
+        recorder.copyLatencyInto(latency);
+        assertThat(recorder.getRequestCount()).isEqualTo(5);
+        assertThat(latency.getTotalCount()).isEqualTo(5);
+    }
+
+    private LibraryConcurrencyLimiter newLimiter() {
+        return new LibraryConcurrencyLimiter(properties.getConcurrencyLimit(),
+                new LibrarySLOPolicyIndex(properties.getSlo()));
+    }
+
+    private EndpointConcurrencyLimiter configuredLimiter() {
+        properties.getConcurrencyLimit().setEndpoints(List.of("GET /api/orders"));
+        return newLimiter().limiterFor(new EndpointLatencyRecorder("GET /api/orders"));
+    }
+
+    @RestController
+    static class SearchController {
+
+        @GetMapping("/api/search")
+        @LibraryConcurrencyLimit(initialLimit = 2)
+        public String search() {
+            return "search";
+        }
+
+        @GetMapping("/api/search/slow")
+        @LibraryConcurrencyLimit
+        @LibrarySLO(latencyP95 = "50ms")
+        public String slowSearch() {
+            return "slow";
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+[004][JFR擷取]LibraryJfrCaptureTest
+功能說明: 驗證違反觸發的JFR錄製會自動停止並寫出含端點標記的檔案、錄製頻率限制、磁碟用量上限與處理器支援的違反類型
+Input: 模擬的SLAViolationEvent、暫存錄製目錄
+Output: JFR錄製驗證結果
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.event.SLAViolationType;
+import com.jamestann.test.library.actuator.handler.JfrCaptureViolationHandler;
+import com.jamestann.test.library.actuator.model.JfrRecordingInfo;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.metrics.SLIWindow;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Library JFR Capture Test")
+class LibraryJfrCaptureTest {
+
+    private static final String ENDPOINT = "GET /api/orders";
+
+    @TempDir
+    Path directory;
+
+    private LibraryJfrCapture capture;
+
+    @AfterEach
+    void tearDown() {
+        if (capture != null) {
+            capture.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should write a time-boxed recording tagged with the breaching endpoint")
+    void shouldRecordTaggedCapture() throws Exception {
+        capture = new LibraryJfrCapture(config(Duration.ofSeconds(1), Duration.ZERO));
+
+        JfrRecordingInfo started = capture.capture(violation(SLAViolationType.LATENCY_BREACH));
+        assertThat(started).isNotNull();
+        assertThat(started.getState()).isEqualTo("RECORDING");
+        assertThat(started.getName()).isEqualTo(LibraryJfrCapture.RECORDING_PREFIX + ENDPOINT);
+        assertThat(started.getFile()).endsWith("-GET_api_orders.jfr");
+        assertThat(capture.capture(violation(SLAViolationType.LATENCY_BREACH))).as("one recording at a time").isNull();
+
+        JfrRecordingInfo completed = awaitCompletion();
+        assertThat(completed.getSizeBytes()).isPositive();
+        List<RecordedEvent> tags = RecordingFile.readAllEvents(Path.of(completed.getFile())).stream()
+                .filter(event -> event.getEventType().getName().equals("com.jamestann.test.library.SLAViolation"))
+                .collect(Collectors.toList());
+        assertThat(tags).hasSize(1);
+        assertThat(tags.get(0).getString("endpoint")).isEqualTo(ENDPOINT);
+        assertThat(tags.get(0).getString("violationType")).isEqualTo("LATENCY_BREACH");
+    }
+
+    @Test
+    @DisplayName("Should skip captures within the minimum interval")
+    void shouldRateLimitCaptures() throws Exception {
+        capture = new LibraryJfrCapture(config(Duration.ofSeconds(1), Duration.ofHours(1)));
+
+        assertThat(capture.capture(violation(SLAViolationType.LATENCY_BREACH))).isNotNull();
+        awaitCompletion();
+        assertThat(capture.capture(violation(SLAViolationType.SATURATION_BREACH))).isNull();
+        assertThat(capture.list()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should delete the oldest recordings to stay within the disk usage cap")
+    void shouldEnforceDiskUsage() throws Exception {
+        Path oldest = Files.write(directory.resolve("old-1.jfr"), new byte[3 * 1024 * 1024]);
+        Files.setLastModifiedTime(oldest, FileTime.fromMillis(1_000L));
+        Path newer = Files.write(directory.resolve("old-2.jfr"), new byte[1024]);
+        Path unrelated = Files.write(directory.resolve("notes.txt"), new byte[4 * 1024 * 1024]);
+        TestLibraryProperties.JfrCaptureConfig config = config(Duration.ofSeconds(1), Duration.ZERO);
+        config.setMaxDiskUsage(DataSize.ofMegabytes(4));
+        capture = new LibraryJfrCapture(config);
+
+        assertThat(capture.capture(violation(SLAViolationType.LATENCY_BREACH))).isNotNull();
+
+        assertThat(oldest).doesNotExist();
+        assertThat(newer).exists();
+        assertThat(unrelated).exists();
+    }
+
+    @Test
+    @DisplayName("Should route only latency and saturation breaches to the capture handler")
+    void shouldSupportLatencyAndSaturation() {
+        JfrCaptureViolationHandler handler = new JfrCaptureViolationHandler(
+                new LibraryJfrCapture(config(Duration.ofSeconds(1), Duration.ZERO)));
+
+        assertThat(handler.getHandlerName()).isEqualTo("jfr-capture");
+        assertThat(handler.supports(SLAViolationType.LATENCY_BREACH)).isTrue();
+        assertThat(handler.supports(SLAViolationType.SATURATION_BREACH)).isTrue();
+        assertThat(handler.supports(SLAViolationType.ERROR_RATE_BREACH)).isFalse();
+        assertThat(handler.supports(SLAViolationType.AVAILABILITY_BREACH)).isFalse();
+    }
+
+    private JfrRecordingInfo awaitCompletion() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(15).toNanos();
+        while (System.nanoTime() < deadline) {
+            JfrRecordingInfo latest = capture.list().get(0);
+            if (!latest.getState().equals("RECORDING")) {
+                assertThat(latest.getState()).isEqualTo("COMPLETED");
+                return latest;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("JFR recording did not complete");
+    }
+
+    private TestLibraryProperties.JfrCaptureConfig config(Duration duration, Duration minInterval) {
+        TestLibraryProperties.JfrCaptureConfig config = new TestLibraryProperties.JfrCaptureConfig();
+        config.setDirectory(directory.toString());
+        config.setDuration(duration);
+        config.setMinInterval(minInterval);
+        config.setSettings("default");
+        return config;
+    }
+
+    private static SLAViolationEvent violation(SLAViolationType type) {
+        return new SLAViolationEvent(ENDPOINT, type, 350.0, 200.0, SLIWindow.ONE_MINUTE, 0L, null);
+    }
+}
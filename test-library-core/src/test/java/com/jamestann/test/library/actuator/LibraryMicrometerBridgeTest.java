@@ -0,0 +1,95 @@
+/*
+[004][Micrometer橋接]LibraryMicrometerBridgeTest
+功能說明: 驗證Micrometer量表只在端點第一次匯出時註冊、數值依推送間隔批次更新，以及SLO目標的發佈
+Input: 模擬的端點請求、SimpleMeterRegistry
+Output: Micrometer橋接驗證結果
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.metrics.SLIWindow;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+@DisplayName("Library Micrometer Bridge Test")
+class LibraryMicrometerBridgeTest {
+
+    @Test
+    @DisplayName("Should register meters once per endpoint and push values in batches")
+    void shouldPushEndpointValuesInBatches() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LibrarySLICollector collector = new LibrarySLICollector();
+        LibraryMicrometerBridge bridge = new LibraryMicrometerBridge("orders", SLIWindow.ONE_MINUTE,
+                Duration.ofHours(1), null);
+        bridge.bindTo(registry);
+        LibrarySLIAggregator aggregator = LibrarySLIAggregator.builder(collector).exporter(bridge).build();
+
+        EndpointLatencyRecorder orders = collector.recorderFor("GET /api/orders");
+        EndpointLatencyRecorder users = collector.recorderFor("GET /api/users");
+        for (int i = 1; i <= 1_000; i++) {
+            orders.record(i * 1_000_000L, i % 20 == 0);
+        }
+        users.record(2_000_000L, false);
+        aggregator.tick();
+
+        FunctionCounter requests = registry.get("library.sli.requests")
+                .tags("library", "orders", "endpoint", "GET /api/orders").functionCounter();
+        assertThat(requests.count()).isEqualTo(1_000.0);
+        assertThat(registry.get("library.sli.errors").tag("endpoint", "GET /api/orders").functionCounter().count())
+                .isEqualTo(50.0);
+        assertThat(registry.get("library.sli.error.ratio").tags("endpoint", "GET /api/orders", "window", "1m")
+                .gauge().value()).isEqualTo(0.05);
+        double p99 = registry.get("library.sli.latency").tags("endpoint", "GET /api/orders", "quantile", "0.99")
+                .timeGauge().value(TimeUnit.MILLISECONDS);
+        assertThat(p99).isCloseTo(990.0, withinPercentage(4.0));
+        assertThat(registry.find("library.slo.latency.target").meters()).isEmpty();
+
+        // 推送間隔內的tick不更新量表，新請求也不註冊任何量表
+        int meterCount = registry.getMeters().size();
+        for (int i = 0; i < 500; i++) {
+            orders.record(1_000_000L, false);
+        }
+        aggregator.tick();
+        assertThat(requests.count()).isEqualTo(1_000.0);
+        assertThat(registry.getMeters()).hasSize(meterCount);
+        assertThat(meterCount).isEqualTo(2 * 7);
+        assertThat(bridge.getEndpointCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should publish endpoint SLO targets and register known endpoints on late-bound registries")
+    void shouldPublishSloTargets() {
+        TestLibraryProperties.SloConfig slo = new TestLibraryProperties.SloConfig();
+        slo.getDefaults().setLatencyP95(Duration.ofMillis(300));
+        slo.getDefaults().setAvailability(99.5);
+        LibrarySLOPolicyIndex policyIndex = new LibrarySLOPolicyIndex(slo);
+        LibrarySLICollector collector = new LibrarySLICollector();
+        LibraryMicrometerBridge bridge = new LibraryMicrometerBridge("orders", SLIWindow.FIVE_MINUTES,
+                Duration.ZERO, policyIndex);
+        SimpleMeterRegistry first = new SimpleMeterRegistry();
+        bridge.bindTo(first);
+        LibrarySLIAggregator aggregator = LibrarySLIAggregator.builder(collector).exporter(bridge).build();
+        collector.recorderFor("POST /api/orders").record(5_000_000L, false);
+        aggregator.tick();
+
+        SimpleMeterRegistry second = new SimpleMeterRegistry();
+        bridge.bindTo(second);
+        for (SimpleMeterRegistry registry : new SimpleMeterRegistry[]{first, second}) {
+            assertThat(registry.get("library.slo.latency.target").tag("endpoint", "POST /api/orders")
+                    .timeGauge().value(TimeUnit.MILLISECONDS)).isEqualTo(300.0);
+            assertThat(registry.get("library.slo.availability.target").tag("endpoint", "POST /api/orders")
+                    .gauge().value()).isEqualTo(0.995);
+            // 5分鐘視窗只包含已完成的分鐘
+            assertThat(registry.get("library.sli.latency").tags("window", "5m", "quantile", "0.5").timeGauge()
+                    .value(TimeUnit.MILLISECONDS)).isZero();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+[004][CPU與配置量]LibraryResourceAccountingTest
+功能說明: 驗證端點CPU時間與配置量的記錄、SLI快照輸出，以及resourceAccountingEnabled開關下的AOP整合
+Input: 已知的CPU時間與配置量、會配置大陣列的測試用RestController
+Output: 資源計量驗證結果
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.model.EndpointResourceSnapshot;
+import com.jamestann.test.library.actuator.model.EndpointSLISnapshot;
+import com.jamestann.test.library.config.TestLibraryAutoConfiguration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assumptions.assumeThat;
+
+@DisplayName("Library Resource Accounting Test")
+class LibraryResourceAccountingTest {
+
+    private static final int ALLOCATION_SIZE = 4 * 1024 * 1024;
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(AopAutoConfiguration.class, TestLibraryAutoConfiguration.class))
+            .withUserConfiguration(AllocatingController.class);
+
+    @Test
+    @DisplayName("Should publish weighted CPU time and allocation percentiles in the SLI snapshot")
+    void shouldPublishResourcePercentiles() {
+        LibrarySLICollector collector = new LibrarySLICollector();
+        LibrarySLISnapshotPublisher publisher = new LibrarySLISnapshotPublisher();
+        LibrarySLIAggregator aggregator = LibrarySLIAggregator.builder(collector).snapshotPublisher(publisher).build();
+        EndpointLatencyRecorder recorder = collector.recorderFor("GET /api/reports");
+        collector.recorderFor("GET /api/ping").record(1_000_000L, false);
+        for (int i = 0; i < 100; i++) {
+            recorder.record(5_000_000L, false);
+            recorder.recordResources(2_000_000L, 64L * 1024L, 1);
+        }
+        recorder.recordResources(-1L, 1024L * 1024L, 2);
+
+        aggregator.tick();
+
+        EndpointSLISnapshot reports = snapshotOf(publisher, "GET /api/reports");
+        EndpointResourceSnapshot resources = reports.getResources();
+        assertThat(resources).isNotNull();
+        assertThat(resources.getCpuSampleCount()).isEqualTo(100);
+        assertThat(resources.getCpuTimeTotalMicros()).isEqualTo(200_000L);
+        assertThat(resources.getCpuMeanMicros()).isEqualTo(2_000L);
+        assertThat(resources.getCpuP95Micros()).isBetween(2_000L, 2_064L);
+        assertThat(resources.getAllocationSampleCount()).isEqualTo(102);
+        assertThat(resources.getAllocatedBytesTotal()).isEqualTo(100L * 64L * 1024L + 2L * 1024L * 1024L);
+        assertThat(resources.getAllocatedP50Bytes()).isBetween(64L * 1024L, 68L * 1024L);
+        assertThat(resources.getAllocatedP99Bytes()).isBetween(1024L * 1024L, 1088L * 1024L);
+        assertThat(snapshotOf(publisher, "GET /api/ping").getResources()).isNull();
+        assertThat(publisher.getCurrent().toJson())
+                .contains("\"resources\":{\"cpuSampleCount\":100,\"cpuTimeTotalMicros\":200000");
+    }
+
+    @Test
+    @DisplayName("Should account CPU time and allocated bytes around advised calls when enabled")
+    void shouldAccountResourcesThroughAspect() {
+        LibraryResourceAccounting accounting = new LibraryResourceAccounting();
+        assumeThat(accounting.isCpuTimeSupported() && accounting.isAllocatedBytesSupported()).isTrue();
+        contextRunner
+                .withPropertyValues("test.library.resource-accounting-enabled=true")
+                .run(context -> {
+                    AllocatingController controller = context.getBean(AllocatingController.class);
+                    LibrarySLICollector collector = context.getBean(LibrarySLICollector.class);
+
+                    for (int i = 0; i < 3; i++) {
+                        assertThat(controller.allocate()).isEqualTo(ALLOCATION_SIZE);
+                    }
+
+                    EndpointLatencyRecorder recorder = collector.recorderFor("GET /resources/allocate");
+                    assertThat(recorder.getCpuSampleCount()).isEqualTo(3);
+                    assertThat(recorder.getAllocationSampleCount()).isEqualTo(3);
+                    assertThat(recorder.getAllocatedBytes()).isGreaterThanOrEqualTo(3L * ALLOCATION_SIZE);
+                    assertThat(recorder.getCpuTimeNanos()).isPositive();
+                });
+    }
+
+    @Test
+    @DisplayName("Should leave resource accounting off by default")
+    void shouldNotAccountResourcesByDefault() {
+        contextRunner.run(context -> {
+            AllocatingController controller = context.getBean(AllocatingController.class);
+            LibrarySLICollector collector = context.getBean(LibrarySLICollector.class);
+
+            controller.allocate();
+
+            EndpointLatencyRecorder recorder = collector.recorderFor("GET /resources/allocate");
+            assertThat(recorder.getRequestCount()).isEqualTo(1);
+            assertThat(recorder.hasResourceSamples()).isFalse();
+        });
+    }
+
+    private static EndpointSLISnapshot snapshotOf(LibrarySLISnapshotPublisher publisher, String endpoint) {
+        return publisher.getCurrent().getEndpoints().stream()
+                .filter(snapshot -> snapshot.getEndpoint().equals(endpoint))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @RestController
+    @RequestMapping("/resources")
+    static class AllocatingController {
+
+        @GetMapping("/allocate")
+        public int allocate() {
+            return new byte[ALLOCATION_SIZE].length;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+[003][M1][SLI收集]LibrarySLICollectorTest
+功能說明: 驗證端點延遲記錄器的百分位數準確性、多線程安全與AOP攔截整合
+Input: 已知分佈的延遲數據、測試用RestController
+Output: SLI數據收集驗證結果
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.config.TestLibraryAutoConfiguration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("Library SLI Collector Test")
+class LibrarySLICollectorTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(AopAutoConfiguration.class, TestLibraryAutoConfiguration.class))
+            .withUserConfiguration(SampleController.class);
+
+    @Test
+    @DisplayName("Should report percentiles within the histogram relative error")
+    void shouldReportPercentilesWithinRelativeError() {
+        EndpointLatencyRecorder recorder = new EndpointLatencyRecorder("GET /sample", 1, 4);
+        for (int micros = 1; micros <= 10_000; micros++) {
+            recorder.record(micros * 1_000L, micros % 100 == 0);
+        }
+
+        EndpointLatencySnapshot snapshot = recorder.snapshot();
+
+        assertThat(snapshot.getRequestCount()).isEqualTo(10_000);
+        assertThat(snapshot.getErrorCount()).isEqualTo(100);
+        assertThat((double) snapshot.getP50Micros()).isCloseTo(5_000, within(5_000 * 0.04));
+        assertThat((double) snapshot.getP90Micros()).isCloseTo(9_000, within(9_000 * 0.04));
+        assertThat((double) snapshot.getP95Micros()).isCloseTo(9_500, within(9_500 * 0.04));
+        assertThat((double) snapshot.getP99Micros()).isCloseTo(9_900, within(9_900 * 0.04));
+    }
+
+    @Test
+    @DisplayName("Should count every request when recording concurrently")
+    void shouldCountEveryRequestConcurrently() throws InterruptedException {
+        EndpointLatencyRecorder recorder = new EndpointLatencyRecorder("GET /concurrent");
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    recorder.record(250_000L, false);
+                }
+                done.countDown();
+            });
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        EndpointLatencySnapshot snapshot = recorder.snapshot();
+        assertThat(snapshot.getRequestCount()).isEqualTo((long) threads * perThread);
+        assertThat((double) snapshot.getP99Micros()).isCloseTo(250, within(250 * 0.04));
+    }
+
+    @Test
+    @DisplayName("Should record controller calls through the metrics aspect")
+    void shouldRecordControllerCallsThroughAspect() {
+        contextRunner.run(context -> {
+            assertThat(context).hasSingleBean(LibraryMetricsAspect.class);
+            SampleController controller = context.getBean(SampleController.class);
+            LibrarySLICollector collector = context.getBean(LibrarySLICollector.class);
+
+            controller.hello();
+            controller.hello();
+            assertThatThrownBy(controller::fail).isInstanceOf(IllegalStateException.class);
+
+            EndpointLatencySnapshot hello = collector.getEndpointSnapshot("GET /sample/hello");
+            assertThat(hello).isNotNull();
+            assertThat(hello.getRequestCount()).isEqualTo(2);
+            assertThat(hello.getErrorCount()).isZero();
+
+            EndpointLatencySnapshot fail = collector.getEndpointSnapshot("GET /sample/fail");
+            assertThat(fail.getRequestCount()).isEqualTo(1);
+            assertThat(fail.getErrorCount()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    @DisplayName("Should fold endpoints beyond the cardinality limit into the overflow recorder")
+    void shouldFoldEndpointsBeyondLimitIntoOverflow() {
+        contextRunner
+                .withPropertyValues("test.library.storage.backend=off-heap", "test.library.storage.max-endpoints=2")
+                .run(context -> {
+                    LibrarySLICollector collector = context.getBean(LibrarySLICollector.class);
+                    assertThat(collector.getHistogramFactory().get().isOffHeap()).isTrue();
+
+                    EndpointLatencyRecorder first = collector.recorderFor("GET /a");
+                    collector.recorderFor("GET /b");
+                    EndpointLatencyRecorder overflow = collector.recorderFor("GET /c");
+                    collector.recorderFor("GET /d").record(1_000_000L, false);
+
+                    assertThat(collector.recorderFor("GET /a")).isSameAs(first);
+                    assertThat(overflow.getEndpoint()).isEqualTo(LibrarySLICollector.OVERFLOW_ENDPOINT);
+                    assertThat(collector.recorderFor("GET /d")).isSameAs(overflow);
+                    assertThat(overflow.getRequestCount()).isEqualTo(1);
+                    assertThat(collector.getEndpointSnapshot("GET /c")).isNull();
+                });
+    }
+
+    @Test
+    @DisplayName("Should not register monitoring beans when performance monitoring is disabled")
+    void shouldNotRegisterMonitoringWhenDisabled() {
+        contextRunner
+                .withPropertyValues("test.library.performance-monitoring-enabled=false")
+                .run(context -> {
+                    assertThat(context).doesNotHaveBean(LibrarySLICollector.class);
+                    assertThat(context).doesNotHaveBean(LibraryMetricsAspect.class);
+                });
+    }
+
+    @RestController
+    @RequestMapping("/sample")
+    static class SampleController {
+
+        @GetMapping("/hello")
+        public String hello() {
+            return "hello";
+        }
+
+        @GetMapping("fail")
+        public String fail() {
+            throw new IllegalStateException("failure");
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+[004][SLI持久化]LibrarySLIPersistenceTest
+功能說明: 驗證SLI視窗檔案的寫出/還原、停機時間老化、還原後端點仍套用handler註解，以及損毀或過期檔案的處理
+Input: 暫存目錄中的SLI視窗檔案、模擬的端點SLI
+Output: SLI持久化驗證結果
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.annotation.LibraryConcurrencyLimit;
+import com.jamestann.test.library.annotation.LibrarySLO;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.metrics.LogLinearHistogram;
+import com.jamestann.test.library.metrics.RollingSLIWindow;
+import com.jamestann.test.library.metrics.SLISlice;
+import com.jamestann.test.library.metrics.SLIWindow;
+import com.jamestann.test.library.metrics.SLIWindowFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Library SLI Persistence Test")
+class LibrarySLIPersistenceTest {
+
+    @Test
+    @DisplayName("Should restore endpoint windows written by a previous aggregator")
+    void shouldRestoreWindowsAcrossRestart(@TempDir Path directory) {
+        TestLibraryProperties.PersistenceConfig persistence = persistence(directory.resolve("sli.bin"));
+        LibrarySLICollector collector = new LibrarySLICollector();
+        LibrarySLIAggregator aggregator = LibrarySLIAggregator.builder(collector).persistence(persistence).build();
+        EndpointLatencyRecorder recorder = collector.recorderFor("GET /api/orders");
+        for (int i = 1; i <= 1_000; i++) {
+            recorder.record(i * 1_000_000L, i % 10 == 0);
+        }
+        aggregator.tick();
+        aggregator.flush(System.currentTimeMillis());
+
+        LibrarySLICollector restartedCollector = new LibrarySLICollector();
+        LibrarySLIAggregator restarted = LibrarySLIAggregator.builder(restartedCollector).persistence(persistence).build();
+        restarted.restore(System.currentTimeMillis());
+
+        SLISlice after = restarted.windowFor("GET /api/orders").get(SLIWindow.ONE_MINUTE);
+        assertThat(after.getRequestCount()).isEqualTo(1_000);
+        assertThat(after.getErrorCount()).isEqualTo(100);
+        assertThat(after.getLatency().getValueAtPercentile(99.0))
+                .isEqualTo(aggregator.windowFor("GET /api/orders").get(SLIWindow.ONE_MINUTE)
+                        .getLatency().getValueAtPercentile(99.0));
+
+        // 新行程的記錄器從0開始累計，第一次tick的增量不應扣掉前一個行程的累計值
+        restartedCollector.recorderFor("GET /api/orders").record(5_000_000L, false);
+        restarted.tick();
+        assertThat(restarted.windowFor("GET /api/orders").get(SLIWindow.ONE_MINUTE).getRequestCount())
+                .isEqualTo(1_001);
+    }
+
+    @Test
+    @DisplayName("Should keep enforcing handler annotations on endpoints restored by name")
+    void shouldBindHandlerMethodAfterRestore(@TempDir Path directory) throws NoSuchMethodException {
+        TestLibraryProperties properties = new TestLibraryProperties();
+        properties.getPersistence().setFile(directory.resolve("sli.bin").toString());
+        Method export = ReportController.class.getMethod("export");
+        LibrarySLICollector collector = new LibrarySLICollector();
+        LibrarySLIAggregator aggregator = LibrarySLIAggregator.builder(collector)
+                .persistence(properties.getPersistence())
+                .build();
+        collector.recorderFor(export).record(1_000_000L, false);
+        aggregator.tick();
+        aggregator.flush(System.currentTimeMillis());
+
+        LibrarySLICollector restartedCollector = new LibrarySLICollector();
+        LibrarySLOChecker sloChecker = new LibrarySLOChecker(properties.getSlo());
+        LibraryConcurrencyLimiter concurrencyLimiter = new LibraryConcurrencyLimiter(properties.getConcurrencyLimit(),
+                sloChecker.getPolicyIndex());
+        restartedCollector.addHandlerBindingListener(sloChecker.getPolicyIndex()::invalidate);
+        restartedCollector.addHandlerBindingListener(concurrencyLimiter::invalidate);
+        LibrarySLIAggregator restarted = LibrarySLIAggregator.builder(restartedCollector)
+                .sloChecker(sloChecker)
+                .persistence(properties.getPersistence())
+                .build();
+        restarted.restore(System.currentTimeMillis());
+        // 第一次請求前，彙總tick與查詢都只看得到以名稱還原的記錄器
+        restarted.tick();
+        EndpointLatencyRecorder restored = restartedCollector.recorderFor("GET /api/reports/export");
+        assertThat(concurrencyLimiter.limiterFor(restored)).isNull();
+        assertThat(sloChecker.getPolicyIndex().policyFor(restored).getLatencyP95Micros()).isNotEqualTo(50_000L);
+
+        EndpointLatencyRecorder recorder = restartedCollector.recorderFor(export);
+        assertThat(recorder).isSameAs(restored);
+        assertThat(restarted.windowFor("GET /api/reports/export").get(SLIWindow.ONE_MINUTE).getRequestCount())
+                .isEqualTo(1);
+        EndpointConcurrencyLimiter limiter = concurrencyLimiter.limiterFor(recorder);
+        assertThat(limiter).isNotNull();
+        assertThat(limiter.acquire()).isTrue();
+        assertThat(limiter.acquire()).isFalse();
+        assertThat(sloChecker.getPolicyIndex().policyFor(recorder).getLatencyP95Micros()).isEqualTo(50_000L);
+    }
+
+    @Test
+    @DisplayName("Should age restored windows by the downtime")
+    void shouldAgeWindowsByDowntime() {
+        RollingSLIWindow window = new RollingSLIWindow(EndpointLatencyRecorder::newLatencyHistogram);
+        LogLinearHistogram cumulative = EndpointLatencyRecorder.newLatencyHistogram();
+        long requests = 0;
+        for (int second = 0; second < 150; second++) {
+            requests += 10;
+            cumulative.recordCount(2_000, 10);
+            window.advance(requests, 0, cumulative);
+        }
+        assertThat(window.get(SLIWindow.ONE_MINUTE).getRequestCount()).isEqualTo(600);
+        assertThat(window.get(SLIWindow.FIVE_MINUTES).getRequestCount()).isEqualTo(1_200);
+
+        window.skip(30);
+        assertThat(window.get(SLIWindow.ONE_MINUTE).getRequestCount()).isEqualTo(300);
+        assertThat(window.get(SLIWindow.FIVE_MINUTES).getRequestCount()).isEqualTo(1_500);
+
+        window.skip(Duration.ofMinutes(4).getSeconds());
+        assertThat(window.get(SLIWindow.ONE_MINUTE).getRequestCount()).isZero();
+        assertThat(window.get(SLIWindow.FIVE_MINUTES).getRequestCount()).isEqualTo(300);
+        assertThat(window.get(SLIWindow.ONE_HOUR).getRequestCount()).isEqualTo(1_500);
+
+        window.skip(Duration.ofHours(2).getSeconds());
+        assertThat(window.get(SLIWindow.ONE_HOUR).getRequestCount()).isZero();
+        assertThat(window.get(SLIWindow.ONE_HOUR).getLatency().getTotalCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reject corrupt files and ignore stale ones")
+    void shouldRejectCorruptAndStaleFiles(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("sli.bin");
+        RollingSLIWindow window = new RollingSLIWindow(EndpointLatencyRecorder::newLatencyHistogram);
+        LogLinearHistogram cumulative = EndpointLatencyRecorder.newLatencyHistogram();
+        cumulative.record(1_000);
+        window.advance(1, 0, cumulative);
+        long staleAt = System.currentTimeMillis() - Duration.ofHours(2).toMillis();
+        SLIWindowFile.write(file, staleAt, Map.of("GET /api/orders", window));
+
+        assertThat(SLIWindowFile.read(directory.resolve("missing.bin"), EndpointLatencyRecorder::newLatencyHistogram)).isNull();
+        assertThat(SLIWindowFile.read(file, EndpointLatencyRecorder::newLatencyHistogram).getWindows())
+                .containsOnlyKeys("GET /api/orders");
+        assertThatThrownBy(() -> SLIWindowFile.read(file, () -> new LogLinearHistogram(6, 1_000_000)))
+                .isInstanceOf(IOException.class);
+
+        LibrarySLIAggregator stale = LibrarySLIAggregator.builder(new LibrarySLICollector())
+                .persistence(persistence(file))
+                .build();
+        stale.restore(System.currentTimeMillis());
+        assertThat(stale.windowFor("GET /api/orders")).isNull();
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x7F;
+        Files.write(file, bytes);
+        assertThatThrownBy(() -> SLIWindowFile.read(file, EndpointLatencyRecorder::newLatencyHistogram))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Corrupt");
+    }
+
+    private static TestLibraryProperties.PersistenceConfig persistence(Path file) {
+        TestLibraryProperties.PersistenceConfig persistence = new TestLibraryProperties.PersistenceConfig();
+        persistence.setFile(file.toString());
+        return persistence;
+    }
+
+    @RestController
+    static class ReportController {
+
+        @GetMapping("/api/reports/export")
+        @LibraryConcurrencyLimit(initialLimit = 1, maxQueue = 0)
+        @LibrarySLO(latencyP95 = "50ms")
+        public String export() {
+            return "export";
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+[003][M2][SLI滑動視窗]LibrarySLOCheckerTest
+功能說明: 驗證多層級SLO解析與於滑動視窗上的SLO評估
+Input: SLO配置、模擬請求
+Output: SLA違反事件驗證結果
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.event.SLAViolationType;
+import com.jamestann.test.library.actuator.model.SLOConfig;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.metrics.SLIWindow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Library SLO Checker Test")
+class LibrarySLOCheckerTest {
+
+    private TestLibraryProperties.SloConfig sloProperties;
+
+    @BeforeEach
+    void setUp() {
+        sloProperties = new TestLibraryProperties().getSlo();
+        TestLibraryProperties.SloThresholds users = new TestLibraryProperties.SloThresholds();
+        users.setLatencyP95(Duration.ofMillis(100));
+        users.setViolationActions(List.of("log-violation", "alert-prometheus"));
+        sloProperties.getEndpoints().put("/api/users", users);
+        TestLibraryProperties.SloThresholds reports = new TestLibraryProperties.SloThresholds();
+        reports.setErrorRate(5.0);
+        sloProperties.getEndpoints().put("GET /api/reports", reports);
+    }
+
+    @Test
+    @DisplayName("Should merge endpoint overrides with global defaults")
+    void shouldMergeOverridesWithDefaults() {
+        LibrarySLOChecker checker = new LibrarySLOChecker(sloProperties);
+
+        SLOConfig users = checker.resolve("GET /api/users");
+        assertThat(users.getLatencyP95Micros()).isEqualTo(100_000);
+        assertThat(users.getAvailability()).isEqualTo(99.5);
+        assertThat(users.getViolationActions()).containsExactly("log-violation", "alert-prometheus");
+
+        SLOConfig reports = checker.resolve("GET /api/reports");
+        assertThat(reports.getLatencyP95Micros()).isEqualTo(200_000);
+        assertThat(reports.getErrorRate()).isEqualTo(5.0);
+        assertThat(reports.getViolationActions()).containsExactly("log-violation");
+
+        SLOConfig other = checker.resolve("POST /api/orders");
+        assertThat(other.getErrorRate()).isEqualTo(0.5);
+        assertThat(checker.getEvaluationWindow()).isEqualTo(SLIWindow.ONE_MINUTE);
+    }
+
+    @Test
+    @DisplayName("Should raise violations from the rolling window on aggregation tick")
+    void shouldRaiseViolationsOnTick() {
+        LibrarySLICollector collector = new LibrarySLICollector();
+        List<SLAViolationEvent> violations = new ArrayList<>();
+        LibrarySLIAggregator aggregator = LibrarySLIAggregator.builder(collector)
+                .sloChecker(new LibrarySLOChecker(sloProperties))
+                .violationSink(violations::add)
+                .build();
+
+        EndpointLatencyRecorder users = collector.recorderFor("GET /api/users");
+        for (int i = 0; i < 100; i++) {
+            users.record(Duration.ofMillis(150).toNanos(), i < 2);
+        }
+        EndpointLatencyRecorder health = collector.recorderFor("GET /api/health");
+        for (int i = 0; i < 100; i++) {
+            health.record(Duration.ofMillis(5).toNanos(), false);
+        }
+        aggregator.tick();
+
+        assertThat(violations).extracting(SLAViolationEvent::getEndpoint).containsOnly("GET /api/users");
+        assertThat(violations).extracting(SLAViolationEvent::getViolationType).containsExactlyInAnyOrder(
+                SLAViolationType.LATENCY_BREACH, SLAViolationType.ERROR_RATE_BREACH, SLAViolationType.AVAILABILITY_BREACH);
+        assertThat(aggregator.windowFor("GET /api/users").get(SLIWindow.ONE_MINUTE).getRequestCount()).isEqualTo(100);
+
+        violations.clear();
+        for (int i = 0; i < 60; i++) {
+            aggregator.tick();
+        }
+        assertThat(violations).hasSize(3 * 59);
+        assertThat(aggregator.windowFor("GET /api/users").get(SLIWindow.ONE_MINUTE).getRequestCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should skip evaluation below the minimum request count")
+    void shouldSkipLowTrafficWindows() {
+        LibrarySLICollector collector = new LibrarySLICollector();
+        List<SLAViolationEvent> violations = new ArrayList<>();
+        LibrarySLIAggregator aggregator = LibrarySLIAggregator.builder(collector)
+                .sloChecker(new LibrarySLOChecker(sloProperties))
+                .violationSink(violations::add)
+                .build();
+
+        collector.recorderFor("GET /api/users").record(Duration.ofSeconds(1).toNanos(), true);
+        aggregator.tick();
+
+        assertThat(violations).isEmpty();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+[004][SLO策略索引]LibrarySLOPolicyIndexTest
+功能說明: 驗證SLO層級合併順序、記錄器索引快取、重新編譯與handler method註解解析
+Input: SLO配置、帶@LibrarySLO的Controller
+Output: SLO策略索引驗證結果
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.model.SLOConfig;
+import com.jamestann.test.library.annotation.LibrarySLO;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Library SLO Policy Index Test")
+class LibrarySLOPolicyIndexTest {
+
+    @Test
+    @DisplayName("Should layer defaults, class annotation, method annotation and config overrides")
+    void shouldLayerPolicies() throws NoSuchMethodException {
+        TestLibraryProperties.SloConfig sloProperties = new TestLibraryProperties().getSlo();
+        TestLibraryProperties.SloThresholds orders = new TestLibraryProperties.SloThresholds();
+        orders.setErrorRate(2.0);
+        sloProperties.getEndpoints().put("/api/orders", orders);
+        LibrarySLOPolicyIndex index = new LibrarySLOPolicyIndex(sloProperties);
+        index.registerHandlers(List.of(
+                OrderController.class.getMethod("list"),
+                OrderController.class.getMethod("create")));
+
+        SLOConfig list = index.resolve("GET /api/orders");
+        assertThat(list.getLatencyP95Micros()).isEqualTo(50_000);
+        assertThat(list.getAvailability()).isEqualTo(99.9);
+        assertThat(list.getErrorRate()).isEqualTo(2.0);
+        assertThat(list.getViolationActions()).containsExactly("log-violation");
+
+        SLOConfig create = index.resolve("POST /api/orders");
+        assertThat(create.getLatencyP95Micros()).isEqualTo(500_000);
+        assertThat(create.getAvailability()).isEqualTo(99.9);
+        assertThat(create.getViolationActions()).containsExactly("alert-prometheus");
+
+        assertThat(index.resolve("GET /api/unknown").getLatencyP95Micros()).isEqualTo(200_000);
+        assertThat(index.getCompiledRouteCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should cache policies per recorder and invalidate them on recompile")
+    void shouldCachePerRecorderAndRecompile() {
+        TestLibraryProperties.SloConfig sloProperties = new TestLibraryProperties().getSlo();
+        LibrarySLOPolicyIndex index = new LibrarySLOPolicyIndex(sloProperties);
+        LibrarySLICollector collector = new LibrarySLICollector();
+        List<EndpointLatencyRecorder> recorders = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            recorders.add(collector.recorderFor("GET /api/route/" + i));
+        }
+
+        SLOConfig first = index.policyFor(recorders.get(0));
+        SLOConfig last = index.policyFor(recorders.get(599));
+        assertThat(index.policyFor(recorders.get(0))).isSameAs(first);
+        assertThat(index.policyFor(recorders.get(599))).isSameAs(last);
+        assertThat(last.getEndpoint()).isEqualTo("GET /api/route/599");
+
+        TestLibraryProperties.SloConfig updated = new TestLibraryProperties().getSlo();
+        updated.getDefaults().setLatencyP95(Duration.ofMillis(80));
+        index.compile(updated);
+
+        assertThat(index.policyFor(recorders.get(0)).getLatencyP95Micros()).isEqualTo(80_000);
+        assertThat(index.policyFor(recorders.get(599)).getLatencyP95Micros()).isEqualTo(80_000);
+    }
+
+    @Test
+    @DisplayName("Should resolve annotations from the handler method of lazily created recorders")
+    void shouldResolveAnnotationsLazily() throws NoSuchMethodException {
+        LibrarySLOPolicyIndex index = new LibrarySLOPolicyIndex(new TestLibraryProperties().getSlo());
+        Method list = OrderController.class.getMethod("list");
+        EndpointLatencyRecorder recorder = new LibrarySLICollector().recorderFor(list);
+
+        assertThat(index.policyFor(recorder).getLatencyP95Micros()).isEqualTo(50_000);
+    }
+
+    @RestController
+    @RequestMapping("/api/orders")
+    @LibrarySLO(availability = 99.9, errorRate = 0.1)
+    public static class OrderController {
+
+        @GetMapping
+        @LibrarySLO(latencyP95 = "50ms")
+        public String list() {
+            return "orders";
+        }
+
+        @PostMapping
+        @LibrarySLO(latencyP95 = "500ms", violationActions = "alert-prometheus")
+        public String create() {
+            return "created";
+        }
+    }
+}
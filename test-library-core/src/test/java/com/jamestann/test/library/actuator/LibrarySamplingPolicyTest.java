@@ -0,0 +1,122 @@
+/*
+[004][取樣監控]LibrarySamplingPolicyTest
+功能說明: 驗證取樣間隔解析、自適應降載/回復，以及取樣後的請求數與百分位數估計
+Input: 取樣配置、模擬的CPU使用率與tick延遲、已知分佈的延遲數據
+Output: 取樣監控驗證結果
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.config.TestLibraryAutoConfiguration;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.metrics.LogLinearHistogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("Library Sampling Policy Test")
+class LibrarySamplingPolicyTest {
+
+    @Test
+    @DisplayName("Should resolve intervals from the default rate and endpoint overrides")
+    void shouldResolveIntervals() {
+        TestLibraryProperties.SamplingConfig config = new TestLibraryProperties.SamplingConfig();
+        config.setMode(TestLibraryProperties.SamplingMode.FIXED);
+        config.setRate(0.1);
+        config.getEndpoints().put("/api/orders", 0.5);
+        config.getEndpoints().put("GET /api/health", 1.0);
+
+        LibrarySamplingPolicy policy = new LibrarySamplingPolicy(config);
+
+        assertThat(policy.baseIntervalFor("GET /api/users")).isEqualTo(10);
+        assertThat(policy.baseIntervalFor("POST /api/orders")).isEqualTo(2);
+        assertThat(policy.baseIntervalFor("GET /api/health")).isEqualTo(1);
+        assertThat(LibrarySamplingPolicy.disabled().baseIntervalFor("GET /api/users")).isEqualTo(1);
+
+        config.setRate(0.0);
+        assertThatThrownBy(() -> new LibrarySamplingPolicy(config)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should shed sampling under saturation and recover gradually")
+    void shouldAdaptToSaturation() {
+        TestLibraryProperties.SamplingConfig config = new TestLibraryProperties.SamplingConfig();
+        config.setMode(TestLibraryProperties.SamplingMode.ADAPTIVE);
+        config.setRate(0.5);
+        config.getAdaptive().setMinRate(0.125);
+        config.getAdaptive().setRecoveryTicks(3);
+        config.getAdaptive().setTickLagThreshold(Duration.ofMillis(200));
+        LibrarySamplingPolicy policy = new LibrarySamplingPolicy(config);
+        EndpointLatencyRecorder recorder = new EndpointLatencyRecorder("GET /adaptive", policy.baseIntervalFor("GET /adaptive"));
+
+        policy.adjust(0.95, 0L);
+        assertThat(policy.effectiveInterval(recorder)).isEqualTo(4);
+        policy.adjust(0.10, 500L);
+        policy.adjust(0.99, 0L);
+        policy.adjust(0.99, 0L);
+        assertThat(policy.getAdaptiveFactor()).isEqualTo(8);
+        assertThat(policy.effectiveInterval(recorder)).isEqualTo(16);
+
+        policy.adjust(0.50, 0L);
+        policy.adjust(0.50, 0L);
+        assertThat(policy.getAdaptiveFactor()).isEqualTo(8);
+        policy.adjust(0.50, 0L);
+        assertThat(policy.getAdaptiveFactor()).isEqualTo(4);
+        policy.adjust(0.80, 0L);
+        policy.adjust(0.50, 0L);
+        policy.adjust(0.50, 0L);
+        assertThat(policy.getAdaptiveFactor()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should keep counts exact and percentiles unbiased when sampling")
+    void shouldCorrectSampledEstimates() {
+        EndpointLatencyRecorder recorder = new EndpointLatencyRecorder("GET /sampled", 8);
+        SplittableRandom random = new SplittableRandom(42);
+        int requests = 200_000;
+        for (int i = 0; i < requests; i++) {
+            long micros = 1 + random.nextInt(10_000);
+            boolean error = i % 100 == 0;
+            if (random.nextInt(8) == 0) {
+                recorder.record(micros * 1_000L, error, 8);
+            } else {
+                recorder.recordUnsampled(error);
+            }
+        }
+
+        EndpointLatencySnapshot snapshot = recorder.snapshot();
+        LogLinearHistogram latency = EndpointLatencyRecorder.newLatencyHistogram();
+        recorder.copyLatencyInto(latency);
+
+        assertThat(snapshot.getRequestCount()).isEqualTo(requests);
+        assertThat(snapshot.getErrorCount()).isEqualTo(requests / 100);
+        assertThat((double) latency.getTotalCount()).isCloseTo(requests, within(requests * 0.03));
+        assertThat((double) snapshot.getP50Micros()).isCloseTo(5_000, within(5_000 * 0.06));
+        assertThat((double) snapshot.getP95Micros()).isCloseTo(9_500, within(9_500 * 0.06));
+        assertThat((double) snapshot.getP99Micros()).isCloseTo(9_900, within(9_900 * 0.06));
+    }
+
+    @Test
+    @DisplayName("Should apply sampling configuration to the collector")
+    void shouldConfigureCollector() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(TestLibraryAutoConfiguration.class))
+                .withPropertyValues(
+                        "test.library.sampling.mode=fixed",
+                        "test.library.sampling.rate=0.25",
+                        "test.library.sampling.endpoints[/api/critical]=1.0")
+                .run(context -> {
+                    LibrarySLICollector collector = context.getBean(LibrarySLICollector.class);
+                    assertThat(collector.getSamplingPolicy().getMode()).isEqualTo(TestLibraryProperties.SamplingMode.FIXED);
+                    assertThat(collector.recorderFor("GET /api/users").getSamplingInterval()).isEqualTo(4);
+                    assertThat(collector.recorderFor("GET /api/critical").getSamplingInterval()).isEqualTo(1);
+                });
+    }
+}
@@ -0,0 +1,150 @@
+/*
+[004][飽和度]LibrarySaturationMonitorTest
+功能說明: 驗證執行緒池佇列深度的反射取樣、評估視窗內的飽和判斷與違反事件、GC/heap訊號，以及TestLibraryManager健康狀態
+Input: 佇列堆積的ThreadPoolExecutor、提供getQueueSize()的執行緒池、System.gc()
+Output: 飽和度訊號快照與SATURATION_BREACH違反事件驗證結果
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.event.SLAViolationType;
+import com.jamestann.test.library.actuator.model.SaturationSignalSnapshot;
+import com.jamestann.test.library.config.TestLibraryManager;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.util.SpringBootVersionDetector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Library Saturation Monitor Test")
+class LibrarySaturationMonitorTest {
+
+    private final TestLibraryProperties properties = new TestLibraryProperties();
+    private final List<SLAViolationEvent> violations = new ArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        properties.getSaturation().setMinimumSamples(5);
+        properties.getSaturation().setExecutorQueueThreshold(3);
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should report saturation and emit a violation once queued work stays above the threshold")
+    void shouldDetectQueueSaturation() {
+        LibrarySaturationMonitor monitor = new LibrarySaturationMonitor(properties.getSaturation(), violations::add);
+        TestLibraryManager manager = new TestLibraryManager(properties, new SpringBootVersionDetector(), monitor);
+        assertThat(monitor.monitorExecutor("test", executor)).isTrue();
+
+        for (int i = 0; i < 5; i++) {
+            monitor.tick();
+        }
+        assertThat(signal(monitor, "executor:test").getCurrent()).isZero();
+        assertThat(monitor.isSaturated()).isFalse();
+        assertThat(manager.getHealthStatus()).isEqualTo(TestLibraryManager.HealthStatus.UP);
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(this::awaitRelease);
+        }
+        monitor.tick();
+
+        SaturationSignalSnapshot queue = signal(monitor, "executor:test");
+        assertThat(queue.getCurrent()).isEqualTo(4.0);
+        assertThat(queue.getType()).isEqualTo(SaturationSignalType.EXECUTOR_QUEUE.name());
+        assertThat(queue.isSaturated()).isTrue();
+        assertThat(manager.getHealthStatus()).isEqualTo(TestLibraryManager.HealthStatus.SATURATED);
+        assertThat(manager.getSaturationSignals()).contains(queue);
+        assertThat(violations).hasSize(1);
+        SLAViolationEvent violation = violations.get(0);
+        assertThat(violation.getEndpoint()).isEqualTo("saturation:executor:test");
+        assertThat(violation.getViolationType()).isEqualTo(SLAViolationType.SATURATION_BREACH);
+        assertThat(violation.getThreshold()).isEqualTo(3.0);
+        assertThat(violation.getSloConfig().getViolationActions()).containsExactly("log-violation");
+    }
+
+    @Test
+    @DisplayName("Should resolve queue depth from getQueueSize() and skip pools without a readable queue")
+    void shouldResolveExecutorProbes() {
+        LibrarySaturationMonitor monitor = new LibrarySaturationMonitor(properties.getSaturation(), null);
+
+        assertThat(monitor.monitorExecutor("jetty", new QueuedPool(7))).isTrue();
+        assertThat(monitor.monitorExecutor("jetty", new QueuedPool(0))).as("duplicate name is ignored").isTrue();
+        assertThat(monitor.monitorExecutor("virtual", new Object())).isFalse();
+        monitor.tick();
+
+        assertThat(signal(monitor, "executor:jetty").getCurrent()).isEqualTo(7.0);
+        assertThat(monitor.getSignals()).extracting(SaturationSignalSnapshot::getName)
+                .containsExactly("gc-pause", "heap", "executor:jetty");
+    }
+
+    @Test
+    @DisplayName("Should accumulate GC pause time from collector notifications and report heap occupancy")
+    void shouldSampleGcAndHeap() throws InterruptedException {
+        LibrarySaturationMonitor monitor = new LibrarySaturationMonitor(properties.getSaturation(), null);
+        monitor.startGcNotifications();
+        try {
+            monitor.tick();
+            System.gc();
+            // GC通知由JVM的通知執行緒非同步送達
+            double pause = 0.0;
+            for (int i = 0; i < 50 && pause == 0.0; i++) {
+                Thread.sleep(20);
+                monitor.tick();
+                pause = Math.max(pause, signal(monitor, "gc-pause").getCurrent());
+            }
+            assertThat(pause).isPositive();
+            assertThat(signal(monitor, "heap").getCurrent()).isBetween(0.0, 100.0);
+            assertThat(signal(monitor, "heap").getUnit()).isEqualTo("%");
+        } finally {
+            monitor.destroy();
+        }
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static SaturationSignalSnapshot signal(LibrarySaturationMonitor monitor, String name) {
+        return monitor.getSignals().stream()
+                .filter(snapshot -> snapshot.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * 模擬Jetty QueuedThreadPool的getQueueSize()
+     */
+    public static class QueuedPool {
+        private final int queueSize;
+
+        QueuedPool(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+[003][M3][SLA違反處理]SLAViolationProcessorTest
+功能說明: 驗證違反事件的合併、重複抑制、依violation-actions路由、溢出丟棄計數與非同步分派
+Input: 模擬的SLAViolationEvent與記錄用處理器
+Output: 違反事件分派驗證結果
+*/
+package com.jamestann.test.library.actuator;
+
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.event.SLAViolationType;
+import com.jamestann.test.library.actuator.handler.SLAViolationHandler;
+import com.jamestann.test.library.actuator.model.SLOConfig;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.metrics.SLIWindow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@DisplayName("SLA Violation Processor Test")
+class SLAViolationProcessorTest {
+
+    private static final SLOConfig USERS_SLO = new SLOConfig("GET /api/users", 100_000, 99.9, 0.1,
+            List.of("log-violation", "alert-prometheus"));
+    private static final SLOConfig REPORTS_SLO = new SLOConfig("GET /api/reports", 5_000_000, 99.0, 1.0,
+            List.of("latency-only"));
+
+    private TestLibraryProperties.SloConfig sloProperties;
+    private RecordingHandler logHandler;
+    private RecordingHandler alertHandler;
+    private RecordingHandler latencyOnlyHandler;
+
+    @BeforeEach
+    void setUp() {
+        sloProperties = new TestLibraryProperties().getSlo();
+        logHandler = new RecordingHandler("log-violation", null);
+        alertHandler = new RecordingHandler("alert-prometheus", null);
+        latencyOnlyHandler = new RecordingHandler("latency-only", SLAViolationType.LATENCY_BREACH);
+    }
+
+    @Test
+    @DisplayName("Should coalesce repeated breaches of the same endpoint and type within a batch")
+    void shouldCoalesceRepeatedBreaches() {
+        SLAViolationProcessor processor = newProcessor();
+        for (int i = 0; i < 10; i++) {
+            processor.publish(violation(USERS_SLO, SLAViolationType.LATENCY_BREACH, 100 + i));
+        }
+        processor.publish(violation(USERS_SLO, SLAViolationType.ERROR_RATE_BREACH, 2.0));
+
+        processor.dispatchOnce(1_000);
+
+        assertThat(logHandler.batches).hasSize(1);
+        List<SLAViolationEvent> delivered = logHandler.batches.get(0);
+        assertThat(delivered).hasSize(2);
+        assertThat(delivered.get(0).getViolationType()).isEqualTo(SLAViolationType.LATENCY_BREACH);
+        assertThat(delivered.get(0).getOccurrences()).isEqualTo(10);
+        assertThat(delivered.get(0).getCurrentValue()).isEqualTo(109);
+        assertThat(alertHandler.batches).hasSize(1);
+        assertThat(processor.getCoalescedCount()).isEqualTo(9);
+        assertThat(processor.getDeliveredCount()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should suppress repeats within the repeat interval and report them on the next delivery")
+    void shouldSuppressRepeatsWithinInterval() {
+        sloProperties.getDispatch().setRepeatInterval(Duration.ofSeconds(60));
+        SLAViolationProcessor processor = newProcessor();
+
+        processor.publish(violation(USERS_SLO, SLAViolationType.LATENCY_BREACH, 150));
+        processor.dispatchOnce(0);
+        for (int second = 1; second < 60; second++) {
+            processor.publish(violation(USERS_SLO, SLAViolationType.LATENCY_BREACH, 150));
+            processor.dispatchOnce(second * 1_000L);
+        }
+        assertThat(logHandler.deliveredCount()).isEqualTo(1);
+        assertThat(processor.getSuppressedCount()).isEqualTo(59);
+
+        processor.publish(violation(USERS_SLO, SLAViolationType.LATENCY_BREACH, 150));
+        processor.dispatchOnce(60_000);
+
+        assertThat(logHandler.deliveredCount()).isEqualTo(2);
+        assertThat(logHandler.batches.get(1).get(0).getOccurrences()).isEqualTo(60);
+    }
+
+    @Test
+    @DisplayName("Should route only to configured and supporting handlers")
+    void shouldRouteToSupportingHandlers() {
+        SLAViolationProcessor processor = newProcessor();
+        processor.publish(violation(REPORTS_SLO, SLAViolationType.LATENCY_BREACH, 6_000));
+        processor.publish(violation(REPORTS_SLO, SLAViolationType.ERROR_RATE_BREACH, 3.0));
+
+        processor.dispatchOnce(0);
+
+        assertThat(latencyOnlyHandler.deliveredCount()).isEqualTo(1);
+        assertThat(logHandler.deliveredCount()).isZero();
+        assertThat(alertHandler.deliveredCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should drop and count violations when the queue is full")
+    void shouldDropWhenQueueIsFull() {
+        sloProperties.getDispatch().setQueueCapacity(4);
+        SLAViolationProcessor processor = newProcessor();
+
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (processor.publish(violation(USERS_SLO, SLAViolationType.LATENCY_BREACH, i))) {
+                accepted++;
+            }
+        }
+
+        assertThat(accepted).isEqualTo(4);
+        assertThat(processor.getPublishedCount()).isEqualTo(4);
+        assertThat(processor.getDroppedCount()).isEqualTo(6);
+        assertThat(processor.getQueueSize()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should keep dispatching when a handler fails")
+    void shouldIsolateHandlerFailures() {
+        SLAViolationHandler failing = new RecordingHandler("log-violation", null) {
+            @Override
+            public void handleViolation(SLAViolationEvent violation, SLOConfig config) {
+                throw new IllegalStateException("handler failure");
+            }
+        };
+        SLAViolationProcessor processor = new SLAViolationProcessor(sloProperties, List.of(failing, alertHandler));
+        processor.publish(violation(USERS_SLO, SLAViolationType.LATENCY_BREACH, 150));
+
+        processor.dispatchOnce(0);
+
+        assertThat(processor.getHandlerFailureCount()).isEqualTo(1);
+        assertThat(alertHandler.deliveredCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should deliver violations on the dedicated dispatcher thread")
+    void shouldDeliverOnDispatcherThread() throws InterruptedException {
+        SLAViolationProcessor processor = newProcessor();
+        processor.afterPropertiesSet();
+        try {
+            processor.publish(violation(USERS_SLO, SLAViolationType.LATENCY_BREACH, 150));
+
+            await().atMost(Duration.ofSeconds(5)).until(() -> logHandler.deliveredCount() == 1);
+            assertThat(logHandler.threads).containsOnly("test-library-sla-dispatcher");
+        } finally {
+            processor.destroy();
+        }
+    }
+
+    private SLAViolationProcessor newProcessor() {
+        return new SLAViolationProcessor(sloProperties, List.of(logHandler, alertHandler, latencyOnlyHandler));
+    }
+
+    private static SLAViolationEvent violation(SLOConfig slo, SLAViolationType type, double value) {
+        return new SLAViolationEvent(slo.getEndpoint(), type, value, 0, SLIWindow.ONE_MINUTE, 0, slo);
+    }
+
+    private static class RecordingHandler implements SLAViolationHandler {
+        private final String name;
+        private final SLAViolationType supportedType;
+        private final List<List<SLAViolationEvent>> batches = new CopyOnWriteArrayList<>();
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+
+        RecordingHandler(String name, SLAViolationType supportedType) {
+            this.name = name;
+            this.supportedType = supportedType;
+        }
+
+        @Override
+        public void handleViolations(List<SLAViolationEvent> violations) {
+            threads.add(Thread.currentThread().getName());
+            SLAViolationHandler.super.handleViolations(violations);
+            batches.add(List.copyOf(violations));
+        }
+
+        @Override
+        public void handleViolation(SLAViolationEvent violation, SLOConfig config) {
+        }
+
+        @Override
+        public String getHandlerName() {
+            return name;
+        }
+
+        @Override
+        public boolean supports(SLAViolationType type) {
+            return supportedType == null || supportedType == type;
+        }
+
+        int deliveredCount() {
+            return batches.stream().mapToInt(List::size).sum();
+        }
+    }
+}
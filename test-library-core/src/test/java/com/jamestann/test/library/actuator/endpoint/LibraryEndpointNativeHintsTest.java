@@ -0,0 +1,99 @@
+/*
+[004][效能調校]LibraryEndpointNativeHintsTest
+功能說明: 驗證所有Library Actuator端點回傳的模型類別都已登記在native-image的reflect-config.json
+Input: endpoint套件中的@Endpoint類別、reflect-config.json
+Output: 未登記的模型類別 (應為空)
+*/
+package com.jamestann.test.library.actuator.endpoint;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Library Endpoint Native Hints Test")
+class LibraryEndpointNativeHintsTest {
+
+    private static final String REFLECT_CONFIG =
+            "/META-INF/native-image/com.jamestann/test-library-core/reflect-config.json";
+
+    private static final String LIBRARY_PACKAGE = "com.jamestann.test.library.";
+
+    @Test
+    @DisplayName("Should register every library type reachable from actuator read operations")
+    void shouldRegisterEndpointModels() throws Exception {
+        Set<String> registered = new TreeSet<>();
+        try (InputStream json = getClass().getResourceAsStream(REFLECT_CONFIG)) {
+            assertThat(json).isNotNull();
+            for (JsonNode entry : new ObjectMapper().readTree(json)) {
+                registered.add(entry.get("name").asText());
+            }
+        }
+
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Endpoint.class));
+        Set<Class<?>> reachable = new LinkedHashSet<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(getClass().getPackageName())) {
+            Class<?> endpoint = Class.forName(candidate.getBeanClassName());
+            for (Method method : endpoint.getMethods()) {
+                if (method.isAnnotationPresent(ReadOperation.class)) {
+                    collect(ResolvableType.forMethodReturnType(method), reachable);
+                }
+            }
+        }
+
+        assertThat(reachable).isNotEmpty();
+        assertThat(reachable).extracting(Class::getName).allSatisfy(name -> assertThat(registered).contains(name));
+    }
+
+    /**
+     * 走訪Jackson會序列化的getter；設定屬性類別由Spring Boot的@ConfigurationProperties hints處理，列舉不需要反射
+     */
+    private static void collect(ResolvableType type, Set<Class<?>> reachable) {
+        Class<?> raw = type.resolve();
+        if (raw == null) {
+            return;
+        }
+        if (raw.isArray()) {
+            collect(type.getComponentType(), reachable);
+            return;
+        }
+        if (Collection.class.isAssignableFrom(raw)) {
+            collect(type.asCollection().getGeneric(0), reachable);
+            return;
+        }
+        if (Map.class.isAssignableFrom(raw)) {
+            collect(type.asMap().getGeneric(1), reachable);
+            return;
+        }
+        if (!raw.getName().startsWith(LIBRARY_PACKAGE) || raw.isEnum()
+                || raw.getName().startsWith(TestLibraryProperties.class.getName()) || !reachable.add(raw)) {
+            return;
+        }
+        for (Method getter : raw.getMethods()) {
+            String name = getter.getName();
+            if (getter.getParameterCount() == 0 && !Modifier.isStatic(getter.getModifiers())
+                    && getter.getDeclaringClass() != Object.class && (name.startsWith("get") || name.startsWith("is"))) {
+                collect(ResolvableType.forMethodReturnType(getter, raw), reachable);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+[003][M4][SLO端點]LibrarySLOEndpointTest
+功能說明: 驗證SLI快照的發佈、端點讀取、路徑對應與條件式註冊
+Input: 手動推進的LibrarySLIAggregator、ApplicationContextRunner
+Output: SLO端點驗證結果
+*/
+package com.jamestann.test.library.actuator.endpoint;
+
+import com.jamestann.test.library.actuator.LibrarySLIAggregator;
+import com.jamestann.test.library.actuator.LibrarySLICollector;
+import com.jamestann.test.library.actuator.LibrarySLISnapshotPublisher;
+import com.jamestann.test.library.actuator.model.EndpointSLISnapshot;
+import com.jamestann.test.library.actuator.model.LibrarySLISnapshot;
+import com.jamestann.test.library.actuator.model.SLIWindowSnapshot;
+import com.jamestann.test.library.config.TestLibraryAutoConfiguration;
+import com.jamestann.test.library.metrics.SLIWindow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.autoconfigure.endpoint.EndpointAutoConfiguration;
+import org.springframework.boot.actuate.endpoint.EndpointId;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Library SLO Endpoint Test")
+class LibrarySLOEndpointTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(EndpointAutoConfiguration.class, TestLibraryAutoConfiguration.class))
+            .withPropertyValues("management.endpoints.web.exposure.include=library-slo");
+
+    @Test
+    @DisplayName("Should swap in a new immutable snapshot on every aggregation tick")
+    void shouldPublishSnapshotPerTick() {
+        LibrarySLICollector collector = new LibrarySLICollector();
+        LibrarySLISnapshotPublisher publisher = new LibrarySLISnapshotPublisher();
+        LibrarySLIAggregator aggregator = LibrarySLIAggregator.builder(collector).snapshotPublisher(publisher).build();
+        LibrarySLOEndpoint endpoint = new LibrarySLOEndpoint(publisher);
+        assertThat(endpoint.slis()).isSameAs(LibrarySLISnapshot.EMPTY);
+
+        for (int i = 0; i < 100; i++) {
+            collector.recorderFor("GET /api/users").record(2_000_000L, i < 5);
+        }
+        aggregator.tick();
+        LibrarySLISnapshot first = endpoint.slis();
+
+        assertThat(first.getEndpoints()).hasSize(1);
+        EndpointSLISnapshot users = first.getEndpoints().get(0);
+        assertThat(users.getEndpoint()).isEqualTo("GET /api/users");
+        assertThat(users.getWindows()).extracting(SLIWindowSnapshot::getWindow).containsExactly("1m", "5m", "1h");
+        SLIWindowSnapshot oneMinute = users.getWindows().get(0);
+        assertThat(oneMinute.getRequestCount()).isEqualTo(100);
+        assertThat(oneMinute.getErrorRate()).isEqualTo(5.0);
+        assertThat(oneMinute.getP95Micros()).isBetween(2_000L, 2_064L);
+
+        collector.recorderFor("GET /api/users").record(2_000_000L, false);
+        aggregator.tick();
+
+        assertThat(endpoint.slis()).isNotSameAs(first);
+        assertThat(endpoint.slis().getEndpoints().get(0).getWindows().get(0).getRequestCount()).isEqualTo(101);
+        assertThat(first.getEndpoints().get(0).getWindows().get(0).getRequestCount()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Should serialize the snapshot once into JSON matching the getters")
+    void shouldSerializeSnapshotOnce() {
+        LibrarySLISnapshot snapshot = new LibrarySLISnapshot(0L, List.of(new EndpointSLISnapshot("GET /a\"b",
+                List.of(new SLIWindowSnapshot(SLIWindow.ONE_MINUTE,
+                        60, 3, 5.0, 10, 20, 30, 40)), null, null)));
+
+        assertThat(snapshot.toJson()).isEqualTo("{\"timestamp\":\"1970-01-01T00:00:00Z\",\"endpoints\":[{\"endpoint\":\"GET /a\\\"b\","
+                + "\"windows\":[{\"window\":\"1m\",\"requestCount\":60,\"errorCount\":3,\"requestsPerSecond\":1.0,"
+                + "\"errorRate\":5.0,\"availability\":95.0,\"p50Micros\":10,\"p90Micros\":20,\"p95Micros\":30,\"p99Micros\":40}]}]}");
+        assertThat(snapshot.toJson()).isSameAs(snapshot.toJson());
+    }
+
+    @Test
+    @DisplayName("Should map library endpoints under the configured path prefix")
+    void shouldMapEndpointsUnderPathPrefix() {
+        LibraryEndpointPathMapper mapper = new LibraryEndpointPathMapper("test-library");
+
+        assertThat(mapper.getRootPath(EndpointId.of(LibrarySLOEndpoint.ENDPOINT_ID))).isEqualTo("test-library");
+        assertThat(mapper.getRootPath(EndpointId.of(LibrarySLOStreamEndpoint.ENDPOINT_ID))).isEqualTo("test-library/stream");
+        assertThat(mapper.getRootPath(EndpointId.of("health"))).isNull();
+        assertThat(new LibraryEndpointPathMapper("").getRootPath(EndpointId.of(LibrarySLOEndpoint.ENDPOINT_ID))).isNull();
+    }
+
+    @Test
+    @DisplayName("Should register the endpoint only when exposed and custom endpoints are enabled")
+    void shouldRegisterEndpointConditionally() {
+        contextRunner.run(context -> {
+            assertThat(context).hasSingleBean(LibrarySLOEndpoint.class);
+            assertThat(context).hasSingleBean(LibrarySLISnapshotPublisher.class);
+            // 非Servlet Web應用不註冊SSE串流端點
+            assertThat(context).doesNotHaveBean(LibrarySLOStreamEndpoint.class);
+        });
+        contextRunner
+                .withPropertyValues("test.library.actuator.custom-endpoints-enabled=false")
+                .run(context -> {
+                    assertThat(context).doesNotHaveBean(LibrarySLOEndpoint.class);
+                    assertThat(context).doesNotHaveBean(LibrarySLISnapshotPublisher.class);
+                });
+        contextRunner
+                .withPropertyValues("management.endpoints.web.exposure.include=health")
+                .run(context -> assertThat(context).doesNotHaveBean(LibrarySLOEndpoint.class));
+    }
+}
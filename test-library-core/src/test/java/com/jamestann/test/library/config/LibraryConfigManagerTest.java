@@ -0,0 +1,125 @@
+/*
+[004][動態配置]LibraryConfigManagerTest
+功能說明: 驗證執行期配置變更 (Actuator與檔案來源)、無效變更的拒絕，以及變更後SLI資料與記錄器保留
+Input: 執行期覆寫、暫存properties檔案
+Output: 動態配置驗證結果
+*/
+package com.jamestann.test.library.config;
+
+import com.jamestann.test.library.actuator.EndpointLatencyRecorder;
+import com.jamestann.test.library.actuator.LibrarySLICollector;
+import com.jamestann.test.library.actuator.LibrarySLOChecker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Library Config Manager Test")
+class LibraryConfigManagerTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(TestLibraryAutoConfiguration.class));
+
+    @Test
+    @DisplayName("Should apply runtime overrides on top of the application configuration")
+    void shouldApplyRuntimeOverrides() {
+        List<ConfigurationPropertySource> base = List.of(new MapConfigurationPropertySource(
+                Map.of("test.library.slo.defaults.latency-p95", "300ms", "test.library.sampling.rate", "0.5")));
+        LibraryConfigManager manager = new LibraryConfigManager(base, new TestLibraryProperties.ReloadConfig());
+        assertThat(manager.getCurrent().getVersion()).isZero();
+        assertThat(manager.getCurrent().getSampling().getRate()).isEqualTo(0.5);
+
+        LibraryConfigSnapshot updated = manager.update(Map.of("test.library.sampling.mode", "fixed", "slo.minimumRequests", "5"), "test");
+
+        assertThat(updated.getVersion()).isEqualTo(1);
+        assertThat(updated.getSampling().getMode()).isEqualTo(TestLibraryProperties.SamplingMode.FIXED);
+        assertThat(updated.getSampling().getRate()).isEqualTo(0.5);
+        assertThat(updated.getSlo().getMinimumRequests()).isEqualTo(5);
+        assertThat(updated.getSlo().getDefaults().getLatencyP95()).hasMillis(300);
+        assertThat(updated.getOverrides()).containsOnlyKeys("sampling.mode", "slo.minimum-requests");
+
+        Map<String, String> removal = new HashMap<>();
+        removal.put("sampling.mode", null);
+        assertThat(manager.update(removal, "test").getSampling().getMode()).isEqualTo(TestLibraryProperties.SamplingMode.NONE);
+        assertThat(manager.reset("test").getOverrides()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject invalid or restart-only changes and keep the current snapshot")
+    void shouldRejectInvalidChanges() {
+        LibraryConfigManager manager = new LibraryConfigManager(Collections.emptyList(), new TestLibraryProperties.ReloadConfig());
+        LibraryConfigSnapshot before = manager.getCurrent();
+
+        assertThatThrownBy(() -> manager.update(Map.of("slo.dispatch.queue-capacity", "10"), "test"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> manager.update(Map.of("library-name", "other"), "test"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> manager.update(Map.of("sampling.rate", "2.0"), "test"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> manager.update(Map.of("slo.minimum-requests", "many"), "test"))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(manager.getCurrent()).isSameAs(before);
+        assertThat(manager.update(Map.of("sampling.rate", "0.25"), "test").getOverrides()).containsOnlyKeys("sampling.rate");
+    }
+
+    @Test
+    @DisplayName("Should reload a watched properties file")
+    void shouldReloadWatchedFile(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("library.properties");
+        Files.write(file, "sampling.mode=fixed\nsampling.rate=0.1\n".getBytes(StandardCharsets.UTF_8));
+        TestLibraryProperties.ReloadConfig reload = new TestLibraryProperties.ReloadConfig();
+        reload.setFile(file.toString());
+        LibraryConfigManager manager = new LibraryConfigManager(Collections.emptyList(), reload);
+
+        manager.pollFile();
+        assertThat(manager.getCurrent().getSampling().getRate()).isEqualTo(0.1);
+        assertThat(manager.getCurrent().getSource()).startsWith("file:");
+
+        manager.update(Map.of("sampling.rate", "0.5"), "actuator");
+        Files.write(file, "sampling.mode=fixed\nsampling.rate=0.2\nslo.minimum-requests=7\n".getBytes(StandardCharsets.UTF_8));
+        manager.pollFile();
+        assertThat(manager.getCurrent().getSampling().getRate()).isEqualTo(0.5);
+        assertThat(manager.getCurrent().getSlo().getMinimumRequests()).isEqualTo(7);
+
+        Files.delete(file);
+        manager.pollFile();
+        assertThat(manager.getCurrent().getSampling().getMode()).isEqualTo(TestLibraryProperties.SamplingMode.NONE);
+    }
+
+    @Test
+    @DisplayName("Should reconfigure collector and checker without losing recorded SLIs")
+    void shouldReconfigureWithoutLosingState() {
+        contextRunner.run(context -> {
+            LibraryConfigManager manager = context.getBean(LibraryConfigManager.class);
+            LibrarySLICollector collector = context.getBean(LibrarySLICollector.class);
+            LibrarySLOChecker checker = context.getBean(LibrarySLOChecker.class);
+            EndpointLatencyRecorder recorder = collector.recorderFor("GET /api/orders");
+            recorder.record(5_000_000L, false);
+
+            manager.update(Map.of("sampling.mode", "fixed", "sampling.endpoints[/api/orders]", "0.25",
+                    "slo.endpoints[/api/orders].latency-p95", "40ms"), "test");
+
+            assertThat(collector.recorderFor("GET /api/orders")).isSameAs(recorder);
+            assertThat(recorder.getSamplingInterval()).isEqualTo(4);
+            assertThat(recorder.getRequestCount()).isEqualTo(1);
+            assertThat(collector.recorderFor("GET /api/users").getSamplingInterval()).isEqualTo(1);
+            assertThat(checker.resolve("GET /api/orders").getLatencyP95Micros()).isEqualTo(40_000);
+        });
+    }
+}
@@ -0,0 +1,93 @@
+/*
+[004][虛擬執行緒]LibraryRequestContextTest
+功能說明: 驗證請求上下文的範圍、巢狀還原、例外傳遞，以及LibraryMetricsAspect設定的端點範圍
+Input: 巢狀呼叫、拋出例外的呼叫、以AspectJProxyFactory套用切面的Controller
+Output: 請求上下文驗證結果
+*/
+package com.jamestann.test.library.context;
+
+import com.jamestann.test.library.actuator.LibraryMetricsAspect;
+import com.jamestann.test.library.actuator.LibrarySLICollector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Library Request Context Test")
+class LibraryRequestContextTest {
+
+    @Test
+    @DisplayName("Should scope the endpoint to the call and restore the outer scope")
+    void shouldScopeNestedCalls() throws Throwable {
+        assertThat(LibraryRequestContext.carrierName()).isIn("ScopedValue", "ThreadLocal");
+        assertThat(LibraryRequestContext.currentEndpoint()).isNull();
+
+        String seen = LibraryRequestContext.call("GET /api/orders", () -> {
+            String inner = LibraryRequestContext.call("GET /api/users", LibraryRequestContext::currentEndpoint);
+            assertThat(inner).isEqualTo("GET /api/users");
+            return LibraryRequestContext.currentEndpoint();
+        });
+        assertThat(seen).isEqualTo("GET /api/orders");
+        assertThat(LibraryRequestContext.currentEndpoint()).isNull();
+
+        IOException failure = new IOException("boom");
+        assertThatThrownBy(() -> LibraryRequestContext.call("GET /api/orders", () -> {
+            throw failure;
+        })).isSameAs(failure);
+        assertThat(LibraryRequestContext.currentEndpoint()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should leave no state behind on pooled threads")
+    void shouldNotLeakAcrossPooledThreads() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ContextCarrier carrier = new ThreadLocalContextCarrier();
+            Future<String> inScope = executor.submit(() -> {
+                try {
+                    return carrier.call("GET /api/orders", carrier::current);
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertThat(inScope.get()).isEqualTo("GET /api/orders");
+            assertThat(executor.submit(carrier::current).get()).isNull();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should expose the monitored endpoint to controller code only when propagation is enabled")
+    void shouldPropagateFromAspect() {
+        assertThat(proxy(true).endpoint()).isEqualTo("GET /context/endpoint");
+        assertThat(proxy(false).endpoint()).isNull();
+    }
+
+    private static ContextController proxy(boolean propagateContext) {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new ContextController());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(LibraryMetricsAspect.builder(new LibrarySLICollector()).propagateContext(propagateContext).build());
+        return proxyFactory.getProxy();
+    }
+
+    @RestController
+    @RequestMapping("/context")
+    public static class ContextController {
+
+        @GetMapping("/endpoint")
+        public String endpoint() {
+            return LibraryRequestContext.currentEndpoint();
+        }
+    }
+}
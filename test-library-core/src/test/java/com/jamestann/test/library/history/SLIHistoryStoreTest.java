@@ -0,0 +1,148 @@
+/*
+[004][SLI歷史]SLIHistoryStoreTest
+功能說明: 驗證時間序列區塊的delta-of-delta/Gorilla編碼、降採樣層級查詢與附加檔案的還原
+Input: 模擬的每分鐘端點SLI、暫存目錄中的歷史檔案
+Output: SLI歷史儲存驗證結果
+*/
+package com.jamestann.test.library.history;
+
+import com.jamestann.test.library.actuator.EndpointLatencyRecorder;
+import com.jamestann.test.library.actuator.model.SLIHistoryPoint;
+import com.jamestann.test.library.actuator.model.SLIHistorySeries;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.metrics.LogLinearHistogram;
+import com.jamestann.test.library.metrics.SLISlice;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("SLI History Store Test")
+class SLIHistoryStoreTest {
+
+    private static final long START = 1_700_000_400L;
+
+    @Test
+    @DisplayName("Should round-trip delta-of-delta timestamps and XOR-compressed values")
+    void shouldRoundTripCompressedChunk() {
+        Random random = new Random(42);
+        SeriesChunk chunk = new SeriesChunk(START, 2);
+        List<long[]> expected = new ArrayList<>();
+        long time = START;
+        for (int i = 0; i < SLIHistoryStore.CHUNK_POINTS; i++) {
+            double steady = 1_000.0;
+            double noisy = i % 17 == 0 ? Double.MAX_VALUE : random.nextInt(50_000) / 4.0;
+            chunk.append(time, new double[]{steady, noisy});
+            expected.add(new long[]{time, Double.doubleToLongBits(noisy)});
+            time += 60 + (i % 7 == 0 ? random.nextInt(5_000) - 2_500 : random.nextInt(3));
+            time = Math.max(time, expected.get(expected.size() - 1)[0]);
+        }
+        chunk.seal();
+
+        List<long[]> actual = new ArrayList<>();
+        chunk.scan(Long.MIN_VALUE, Long.MAX_VALUE, new int[]{1, 0}, (t, values) -> {
+            assertThat(values[1]).isEqualTo(1_000.0);
+            actual.add(new long[]{t, Double.doubleToLongBits(values[0])});
+        });
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i)).containsExactly(expected.get(i));
+        }
+
+        SeriesChunk steady = new SeriesChunk(START, 1);
+        for (int i = 0; i < SLIHistoryStore.CHUNK_POINTS; i++) {
+            steady.append(START + i * 60L, new double[]{250.0});
+        }
+        steady.seal();
+        // 固定間隔、固定數值: 每筆時間與數值各約1 bit
+        assertThat(steady.estimatedFootprintBytes()).isLessThan(200);
+    }
+
+    @Test
+    @DisplayName("Should answer range queries from the finest tier that covers the range")
+    void shouldQueryDownsampledTiers() {
+        SLIHistoryStore store = new SLIHistoryStore(new TestLibraryProperties.HistoryConfig(),
+                EndpointLatencyRecorder::newLatencyHistogram);
+        LogLinearHistogram merged = EndpointLatencyRecorder.newLatencyHistogram();
+        for (int minute = 0; minute < 25; minute++) {
+            SLISlice slice = minuteOf(100, minute == 3 ? 50 : 1, (minute + 1) * 1_000L);
+            merged.merge(slice.getLatency());
+            store.append("GET /api/users", START + minute * 60L, slice);
+            store.append("POST /api/users", START + minute * 60L, minuteOf(10, 0, 500));
+            store.append("GET /api/orders", START + minute * 60L, minuteOf(10, 0, 500));
+        }
+        long now = (START + 25 * 60L) * 1_000L;
+
+        List<SLIHistorySeries> raw = store.query("GET /api/users", SLIHistoryMetric.P99, Duration.ofHours(1), now);
+        assertThat(raw).hasSize(1);
+        assertThat(raw.get(0).getResolutionSeconds()).isEqualTo(60);
+        assertThat(raw.get(0).getPoints()).hasSize(25);
+        assertThat(raw.get(0).getPoints().get(24).getValue())
+                .isEqualTo((double) merged.highestEquivalentValue(25_000));
+
+        List<SLIHistorySeries> errors = store.query("GET /api/users", SLIHistoryMetric.ERROR_RATE, Duration.ofHours(1), now);
+        assertThat(errors.get(0).getMax()).isEqualTo(50.0);
+
+        List<SLIHistorySeries> coarse = store.query("/api/users", SLIHistoryMetric.REQUESTS, Duration.ofDays(3), now);
+        assertThat(coarse).extracting(SLIHistorySeries::getEndpoint).containsExactly("GET /api/users", "POST /api/users");
+        assertThat(coarse.get(0).getResolutionSeconds()).isEqualTo(600);
+        double total = 0;
+        for (SLIHistoryPoint point : coarse.get(0).getPoints()) {
+            assertThat(point.getTimestamp() % 600_000L).isZero();
+            total += point.getValue();
+        }
+        assertThat(total).isEqualTo(2_500.0);
+        assertThat(store.query(null, SLIHistoryMetric.P50, Duration.ofHours(1), now)).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Should reload sealed chunks from the append-only file and drop a torn tail")
+    void shouldReloadFromFile(@TempDir Path directory) throws IOException {
+        TestLibraryProperties.HistoryConfig config = new TestLibraryProperties.HistoryConfig();
+        config.setFile(directory.resolve("history.tsdb").toString());
+        config.setTiers(List.of(TestLibraryProperties.HistoryTier.of(Duration.ofMinutes(1), Duration.ofDays(365 * 30))));
+        SLIHistoryStore store = new SLIHistoryStore(config, EndpointLatencyRecorder::newLatencyHistogram);
+        store.afterPropertiesSet();
+        for (int minute = 0; minute < 130; minute++) {
+            store.append("GET /api/users", START + minute * 60L, minuteOf(minute, 0, 2_000));
+        }
+        store.destroy();
+        long sizeAfterClose = Files.size(directory.resolve("history.tsdb"));
+
+        try (FileChannel channel = FileChannel.open(directory.resolve("history.tsdb"), StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x43, 0x48, 0x4E, 0x4B, 0, 0, 1}));
+        }
+        SLIHistoryStore reloaded = new SLIHistoryStore(config, EndpointLatencyRecorder::newLatencyHistogram);
+        reloaded.afterPropertiesSet();
+        try {
+            List<SLIHistoryPoint> points = reloaded.query("/api/users", SLIHistoryMetric.REQUESTS, Duration.ofDays(1),
+                    (START + 130 * 60L) * 1_000L).get(0).getPoints();
+            assertThat(points).hasSize(130);
+            assertThat(points.get(129).getValue()).isEqualTo(129.0);
+            assertThat(Files.size(directory.resolve("history.tsdb"))).isEqualTo(sizeAfterClose);
+        } finally {
+            reloaded.destroy();
+        }
+    }
+
+    private static SLISlice minuteOf(long requests, long errors, long latencyMicros) {
+        SLISlice slice = new SLISlice(EndpointLatencyRecorder.newLatencyHistogram());
+        LogLinearHistogram latency = EndpointLatencyRecorder.newLatencyHistogram();
+        latency.recordCount(latencyMicros, requests);
+        slice.setDelta(requests, errors, latency, EndpointLatencyRecorder.newLatencyHistogram());
+        return slice;
+    }
+}
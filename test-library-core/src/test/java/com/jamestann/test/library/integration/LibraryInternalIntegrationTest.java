@@ -128,7 +128,7 @@ class LibraryInternalIntegrationTest {
                     assertThat(context).doesNotHaveBean(TestLibraryAutoConfiguration.class);
                     assertThat(context).doesNotHaveBean(TestLibraryManager.class);
                     
-                    // SpringBootVersionDetector也不會被載入，因為ComponentScan在AutoConfiguration上
+                    // SpringBootVersionDetector由AutoConfiguration以@Bean註冊，Library停用時也不會被載入
                     assertThat(context).doesNotHaveBean(SpringBootVersionDetector.class);
                 });
     }
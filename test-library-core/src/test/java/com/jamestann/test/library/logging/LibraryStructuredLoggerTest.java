@@ -0,0 +1,176 @@
+/*
+[004][Log標準化]LibraryStructuredLoggerTest
+功能說明: 驗證結構化Log的JSON編碼、非同步批次寫出、緩衝區滿時丟棄，以及請求端不配置物件
+Input: 固定時間戳的記錄、多執行緒存取日誌、收集輸出的測試Sink
+Output: 結構化Log驗證結果
+*/
+package com.jamestann.test.library.logging;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.event.Level;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Library Structured Logger Test")
+class LibraryStructuredLoggerTest {
+
+    private final StructuredLogEncoder encoder = new StructuredLogEncoder("demo-library");
+
+    @Test
+    @DisplayName("Should encode access and event records as single-line JSON")
+    void shouldEncodeRecords() {
+        StructuredLogRecord access = new StructuredLogRecord();
+        access.setAccess(1_700_000_000_123L, "http-nio-1", 31L, "GET /api/\"users\"", 1_234, true);
+        StructuredLogRecord event = new StructuredLogRecord();
+        event.setEvent(0L, "test-library-sla-dispatcher", 17L, Level.WARN, "sla.violation", "GET /api/users",
+                "LATENCY_BREACH", "1m", 250.0, 200.0, 3);
+
+        assertThat(encode(access)).isEqualTo("{\"ts\":\"2023-11-14T22:13:20.123Z\",\"level\":\"INFO\",\"type\":\"access\","
+                + "\"service\":\"demo-library\",\"thread\":\"http-nio-1\",\"endpoint\":\"GET /api/\\\"users\\\"\","
+                + "\"durationMicros\":1234,\"error\":true}");
+        assertThat(encode(event)).isEqualTo("{\"ts\":\"1970-01-01T00:00:00.000Z\",\"level\":\"WARN\",\"type\":\"event\","
+                + "\"service\":\"demo-library\",\"thread\":\"test-library-sla-dispatcher\",\"event\":\"sla.violation\","
+                + "\"endpoint\":\"GET /api/users\",\"detail\":\"LATENCY_BREACH\",\"window\":\"1m\","
+                + "\"value\":250.0,\"threshold\":200.0,\"count\":3}");
+
+        // 虛擬執行緒預設未命名，以執行緒ID識別
+        StructuredLogRecord virtual = new StructuredLogRecord();
+        virtual.setAccess(0L, "", 120_045L, "GET /api/users", 10, false);
+        assertThat(encode(virtual)).contains("\"thread\":\"#120045\",\"endpoint\"");
+    }
+
+    @Test
+    @DisplayName("Should format timestamps exactly like Instant across the calendar")
+    void shouldFormatTimestampsLikeInstant() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            long millis = random.nextLong(-2_208_988_800_000L, 4_102_444_800_000L);
+            builder.setLength(0);
+            StructuredLogEncoder.appendIsoTimestamp(builder, millis);
+            String expected = Instant.ofEpochMilli(millis).toString();
+            // Instant省略為0的毫秒部分
+            assertThat(builder.toString()).startsWith(expected.substring(0, 19));
+            assertThat(Instant.parse(builder.toString()).toEpochMilli()).isEqualTo(millis);
+        }
+    }
+
+    @Test
+    @DisplayName("Should write every record from concurrent producers in batches")
+    void shouldWriteConcurrentRecords() throws InterruptedException {
+        CollectingSink sink = new CollectingSink();
+        LibraryStructuredLogger logger = new LibraryStructuredLogger(encoder, sink, 1 << 16, 128);
+        logger.afterPropertiesSet();
+        int threads = 4;
+        int perThread = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    logger.logAccess("GET /concurrent", 1_000_000L, false);
+                }
+                done.countDown();
+            });
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        logger.destroy();
+
+        assertThat(logger.getWrittenCount()).isEqualTo((long) threads * perThread);
+        assertThat(sink.lines).hasSize(threads * perThread).allMatch(line -> line.contains("\"durationMicros\":1000"));
+        assertThat(sink.flushes).isGreaterThanOrEqualTo(threads * perThread / 128);
+    }
+
+    @Test
+    @DisplayName("Should drop and count records when the buffer is full")
+    void shouldDropWhenBufferFull() {
+        CollectingSink sink = new CollectingSink();
+        LibraryStructuredLogger logger = new LibraryStructuredLogger(encoder, sink, 8, 4);
+
+        for (int i = 0; i < 10; i++) {
+            logger.logAccess("GET /full", 1_000L, false);
+        }
+        assertThat(logger.getDroppedCount()).isEqualTo(2);
+        assertThat(logger.writeBatch()).isEqualTo(4);
+        assertThat(logger.writeBatch()).isEqualTo(4);
+        assertThat(logger.writeBatch()).isZero();
+        assertThat(sink.lines).hasSize(8);
+    }
+
+    @Test
+    @DisplayName("Should not allocate on the calling thread when logging access records")
+    void shouldNotAllocateOnCallingThread() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        LibraryStructuredLogger logger = new LibraryStructuredLogger(encoder, new CollectingSink(), 1 << 16, 256);
+        for (int i = 0; i < 20_000; i++) {
+            logger.logAccess("GET /warmup", i, false);
+        }
+        while (logger.writeBatch() > 0) {
+            // 清空預熱記錄
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 20_000; i++) {
+            logger.logAccess("GET /measured", i, (i & 1) == 0);
+        }
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertThat(allocated).isLessThan(1_024L);
+    }
+
+    @Test
+    @DisplayName("Should encode UTF-8 JSON lines into one write per batch")
+    void shouldWriteUtf8JsonLines() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamStructuredLogSink sink = new StreamStructuredLogSink(out, 16);
+        StructuredLogRecord record = new StructuredLogRecord();
+        String json = "{\"endpoint\":\"GET /使用者/😀\"}";
+
+        sink.write(record, json);
+        sink.write(record, json);
+        assertThat(out.size()).isZero();
+        sink.flush();
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(json + "\n" + json + "\n");
+    }
+
+    private String encode(StructuredLogRecord record) {
+        StringBuilder builder = new StringBuilder();
+        encoder.encode(record, builder);
+        return builder.toString();
+    }
+
+    private static final class CollectingSink implements StructuredLogSink {
+        private final List<String> lines = new ArrayList<>();
+        private int flushes;
+
+        @Override
+        public void write(StructuredLogRecord record, CharSequence json) {
+            lines.add(json.toString());
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+[003][M1][SLI收集]LogLinearHistogramTest
+功能說明: 驗證log-linear直方圖的桶配置、相對誤差、合併/相減與並發記錄
+Input: 已知分佈的數值
+Output: 直方圖正確性驗證結果
+*/
+package com.jamestann.test.library.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("Log-Linear Histogram Test")
+class LogLinearHistogramTest {
+
+    @Test
+    @DisplayName("Should map every value into a bucket whose range contains it")
+    void shouldMapValuesIntoContainingBuckets() {
+        LogLinearHistogram histogram = new LogLinearHistogram(5, (1L << 26) - 1);
+        for (long value = 0; value < 500_000; value += 3) {
+            int index = histogram.bucketIndex(value);
+            assertThat(histogram.highestEquivalentValueAt(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                assertThat(histogram.highestEquivalentValueAt(index - 1)).isLessThan(value);
+            }
+        }
+        assertThat(histogram.bucketIndex(histogram.getMaxTrackableValue()))
+                .isEqualTo(histogram.getBucketCount() - 1);
+    }
+
+    @Test
+    @DisplayName("Should keep relative error within the sub-bucket resolution")
+    void shouldBoundRelativeError() {
+        LogLinearHistogram histogram = new LogLinearHistogram(7, 1L << 40);
+        double maxRelativeError = 1.0 / (1 << 6);
+        for (long value = 1; value < (1L << 40); value = value * 3 + 1) {
+            long equivalent = histogram.highestEquivalentValue(value);
+            assertThat((equivalent - value) / (double) value).isLessThanOrEqualTo(maxRelativeError);
+        }
+    }
+
+    @Test
+    @DisplayName("Should compute percentiles in a single pass")
+    void shouldComputePercentiles() {
+        LogLinearHistogram histogram = new LogLinearHistogram(5, 1_000_000);
+        for (int value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+        long[] results = new long[3];
+        histogram.getValuesAtPercentiles(new double[]{50.0, 95.0, 99.0}, results);
+
+        assertThat(histogram.getTotalCount()).isEqualTo(10_000);
+        assertThat((double) results[0]).isCloseTo(5_000, within(5_000 * 0.04));
+        assertThat((double) results[1]).isCloseTo(9_500, within(9_500 * 0.04));
+        assertThat((double) results[2]).isCloseTo(9_900, within(9_900 * 0.04));
+        assertThat(results[1]).isEqualTo(histogram.getValueAtPercentile(95.0));
+    }
+
+    @Test
+    @DisplayName("Should merge and subtract histograms")
+    void shouldMergeAndSubtract() {
+        LogLinearHistogram first = new LogLinearHistogram(5, 1_000_000);
+        LogLinearHistogram second = first.emptyCopy();
+        for (int i = 0; i < 100; i++) {
+            first.record(10);
+            second.record(10_000);
+        }
+        LogLinearHistogram window = first.emptyCopy();
+        window.merge(first);
+        window.merge(second);
+        assertThat(window.getTotalCount()).isEqualTo(200);
+        assertThat(window.getValueAtPercentile(99.0)).isEqualTo(second.highestEquivalentValue(10_000));
+
+        window.subtract(second);
+        assertThat(window.getTotalCount()).isEqualTo(100);
+        assertThat(window.getValueAtPercentile(99.0)).isEqualTo(10);
+
+        window.reset();
+        assertThat(window.getTotalCount()).isZero();
+        assertThat(window.getValueAtPercentile(50.0)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reject merging histograms with different layouts")
+    void shouldRejectIncompatibleLayouts() {
+        LogLinearHistogram histogram = new LogLinearHistogram(5, 1_000_000);
+        assertThatThrownBy(() -> histogram.merge(new LogLinearHistogram(6, 1_000_000)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should keep off-heap histograms equivalent to heap histograms")
+    void shouldMatchHeapHistogramOffHeap() {
+        OffHeapHistogramArena arena = new OffHeapHistogramArena(5, 1_000_000, 4096);
+        LogLinearHistogram heap = new LogLinearHistogram(5, 1_000_000);
+        LogLinearHistogram offHeap = arena.get();
+        LogLinearHistogram neighbour = arena.get();
+        for (int value = 1; value <= 10_000; value++) {
+            heap.record(value);
+            offHeap.record(value);
+            neighbour.recordCount(1_000_000, 2);
+        }
+
+        assertThat(offHeap.isOffHeap()).isTrue();
+        assertThat(offHeap.getTotalCount()).isEqualTo(heap.getTotalCount());
+        assertThat(offHeap.getValueAtPercentile(99.0)).isEqualTo(heap.getValueAtPercentile(99.0));
+        assertThat(neighbour.getTotalCount()).isEqualTo(20_000);
+
+        LogLinearHistogram merged = heap.emptyCopy();
+        merged.merge(offHeap);
+        merged.merge(neighbour);
+        offHeap.subtract(heap);
+        assertThat(merged.getTotalCount()).isEqualTo(30_000);
+        assertThat(offHeap.getTotalCount()).isZero();
+        assertThat(arena.getUsedBytes()).isEqualTo(2L * arena.getSlotBytes());
+        assertThat(arena.getSlotBytes()).isEqualTo(LogLinearHistogram.storageBytes(5, 1_000_000));
+        assertThatThrownBy(() -> new LogLinearHistogram(5, 1_000_000, ByteBuffer.allocate(8)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should not lose counts when recording concurrently")
+    void shouldRecordConcurrently() throws InterruptedException {
+        LogLinearHistogram histogram = new LogLinearHistogram(5, 1_000_000);
+        int threads = 8;
+        int perThread = 100_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    histogram.record(42);
+                }
+                done.countDown();
+            });
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        assertThat(histogram.getTotalCount()).isEqualTo((long) threads * perThread);
+    }
+}
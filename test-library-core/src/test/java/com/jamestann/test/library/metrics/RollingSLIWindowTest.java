@@ -0,0 +1,138 @@
+/*
+[003][M2][SLI滑動視窗]RollingSLIWindowTest
+功能說明: 驗證每秒時間片環形緩衝區的滾動、過期與各視窗彙總
+Input: 模擬的每秒累計SLI
+Output: 滑動視窗正確性驗證結果
+*/
+package com.jamestann.test.library.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Rolling SLI Window Test")
+class RollingSLIWindowTest {
+
+    private RollingSLIWindow window;
+    private LogLinearHistogram cumulative;
+    private long totalRequests;
+    private long totalErrors;
+
+    @BeforeEach
+    void setUp() {
+        window = new RollingSLIWindow(() -> new LogLinearHistogram(5, 1_000_000));
+        cumulative = new LogLinearHistogram(5, 1_000_000);
+    }
+
+    @Test
+    @DisplayName("Should expire seconds older than one minute from the 1m window")
+    void shouldExpireOldSecondsFromOneMinuteWindow() {
+        secondWith(100, 10, 5_000);
+        assertThat(window.get(SLIWindow.ONE_MINUTE).getRequestCount()).isEqualTo(100);
+        assertThat(window.get(SLIWindow.ONE_MINUTE).getErrorRatePercent()).isEqualTo(10.0);
+        assertThat(window.get(SLIWindow.ONE_MINUTE).getLatency().getValueAtPercentile(95.0))
+                .isEqualTo(cumulative.highestEquivalentValue(5_000));
+
+        for (int i = 0; i < 59; i++) {
+            secondWith(1, 0, 10);
+        }
+        assertThat(window.get(SLIWindow.ONE_MINUTE).getRequestCount()).isEqualTo(159);
+
+        secondWith(1, 0, 10);
+        SLISlice oneMinute = window.get(SLIWindow.ONE_MINUTE);
+        assertThat(oneMinute.getRequestCount()).isEqualTo(60);
+        assertThat(oneMinute.getErrorCount()).isZero();
+        assertThat(oneMinute.getLatency().getTotalCount()).isEqualTo(60);
+        assertThat(oneMinute.getLatency().getValueAtPercentile(99.0)).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should roll minute slices into the 5m and 1h windows")
+    void shouldRollMinutesIntoLongerWindows() {
+        for (int minute = 0; minute < 6; minute++) {
+            for (int second = 0; second < 60; second++) {
+                secondWith(minute + 1, 0, 100);
+            }
+        }
+        // 最近五分鐘為第2~6分鐘，每秒請求數分別為2~6
+        assertThat(window.get(SLIWindow.FIVE_MINUTES).getRequestCount()).isEqualTo(60L * (2 + 3 + 4 + 5 + 6));
+        assertThat(window.get(SLIWindow.ONE_HOUR).getRequestCount()).isEqualTo(60L * (1 + 2 + 3 + 4 + 5 + 6));
+        assertThat(window.get(SLIWindow.FIVE_MINUTES).getLatency().getTotalCount())
+                .isEqualTo(window.get(SLIWindow.FIVE_MINUTES).getRequestCount());
+    }
+
+    @Test
+    @DisplayName("Should keep the 1h window bounded to sixty minutes")
+    void shouldBoundOneHourWindow() {
+        for (int second = 0; second < 61 * 60; second++) {
+            secondWith(1, 1, 100);
+        }
+        assertThat(window.get(SLIWindow.ONE_HOUR).getRequestCount()).isEqualTo(3600);
+        assertThat(window.get(SLIWindow.ONE_HOUR).getAvailabilityPercent()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep per-endpoint memory to the three aggregate histograms plus non-zero buckets")
+    void shouldKeepFootprintSparse() {
+        long aggregates = 3L * cumulative.getEstimatedFootprintBytes();
+        assertThat(window.getEstimatedFootprintBytes()).isLessThan(aggregates + 16L * 1024L);
+
+        for (int second = 0; second < 61 * 60; second++) {
+            for (long latency = 10; latency <= 100_000; latency *= 10) {
+                cumulative.record(latency + second % 7);
+            }
+            totalRequests += 5;
+            window.advance(totalRequests, totalErrors, cumulative);
+        }
+        assertThat(window.getEstimatedFootprintBytes()).isLessThan(aggregates + 32L * 1024L);
+
+        SLISlice lastMinute = window.getLastMinute(new SLISlice(new LogLinearHistogram(5, 1_000_000)));
+        assertThat(lastMinute.getRequestCount()).isEqualTo(5L * 60L);
+        assertThat(lastMinute.getLatency().getTotalCount()).isEqualTo(5L * 60L);
+    }
+
+    @Test
+    @DisplayName("Should rebuild the aggregates from decoded slices")
+    void shouldRebuildAggregatesOnDecode() {
+        for (int second = 0; second < 7 * 60 + 30; second++) {
+            secondWith(second / 60 + 1, second % 2, 1_000 * (second / 60 + 1));
+        }
+        ByteBuffer encoded = ByteBuffer.allocate(window.encodedBytes());
+        window.encodeTo(encoded);
+        encoded.flip();
+
+        RollingSLIWindow restored = new RollingSLIWindow(() -> new LogLinearHistogram(5, 1_000_000));
+        restored.decodeFrom(encoded);
+
+        for (SLIWindow sliWindow : SLIWindow.values()) {
+            SLISlice expected = window.get(sliWindow);
+            SLISlice actual = restored.get(sliWindow);
+            assertThat(actual.getRequestCount()).isEqualTo(expected.getRequestCount());
+            assertThat(actual.getErrorCount()).isEqualTo(expected.getErrorCount());
+            assertThat(actual.getLatency().getValueAtPercentile(99.0))
+                    .isEqualTo(expected.getLatency().getValueAtPercentile(99.0));
+        }
+        assertThat(encoded.hasRemaining()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should pick the smallest window covering a duration")
+    void shouldPickCoveringWindow() {
+        assertThat(SLIWindow.covering(Duration.ofSeconds(30))).isEqualTo(SLIWindow.ONE_MINUTE);
+        assertThat(SLIWindow.covering(Duration.ofMinutes(5))).isEqualTo(SLIWindow.FIVE_MINUTES);
+        assertThat(SLIWindow.covering(Duration.ofMinutes(10))).isEqualTo(SLIWindow.ONE_HOUR);
+        assertThat(SLIWindow.covering(Duration.ofDays(1))).isEqualTo(SLIWindow.ONE_HOUR);
+    }
+
+    private void secondWith(long requests, long errors, long latency) {
+        totalRequests += requests;
+        totalErrors += errors;
+        cumulative.recordCount(latency, requests);
+        window.advance(totalRequests, totalErrors, cumulative);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+[004][Off-Heap儲存]StripedHistogramTest
+功能說明: 驗證分段直方圖從一個分段開始、只在寫入競爭時加倍，且加倍期間的記錄不遺失
+Input: 單執行緒與多執行緒同時記錄的數值
+Output: 分段數與合併後計數驗證結果
+*/
+package com.jamestann.test.library.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assumptions.assumeThat;
+
+@DisplayName("Striped Histogram Test")
+class StripedHistogramTest {
+
+    @Test
+    @DisplayName("Should stay on a single stripe without write contention")
+    void shouldStayOnSingleStripeWithoutContention() {
+        StripedHistogram histogram = new StripedHistogram(() -> new LogLinearHistogram(5, 1_000_000), 12);
+        for (int value = 0; value < 100_000; value++) {
+            histogram.recordCount(value % 5_000, 2);
+        }
+
+        LogLinearHistogram merged = new LogLinearHistogram(5, 1_000_000);
+        histogram.copyInto(merged);
+        assertThat(histogram.getStripeCount()).isEqualTo(1);
+        assertThat(histogram.getMaxStripes()).isEqualTo(16);
+        assertThat(merged.getTotalCount()).isEqualTo(200_000);
+    }
+
+    @Test
+    @DisplayName("Should add stripes under contention without losing concurrent records")
+    void shouldGrowUnderContention() throws InterruptedException {
+        assumeThat(Runtime.getRuntime().availableProcessors()).isGreaterThan(1);
+        StripedHistogram histogram = new StripedHistogram(() -> new LogLinearHistogram(5, 1_000_000), 8);
+        int threads = 8;
+        int perThread = 200_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        histogram.recordCount(100, 1);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        LogLinearHistogram merged = new LogLinearHistogram(5, 1_000_000);
+        histogram.copyInto(merged);
+        assertThat(merged.getTotalCount()).isEqualTo((long) threads * perThread);
+        assertThat(histogram.getStripeCount()).isBetween(2, 8);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+[004][效能基準]AutoConfigurationStartupBenchmark
+功能說明: 量測TestLibraryAutoConfiguration載入與Context啟動/關閉的時間
+Input: 只包含Library AutoConfiguration的ApplicationContext
+Output: 每次Context啟動的時間(ms)
+*/
+/*
+Update History:
+[004][效能調校] - 新增componentScanLibraryPackage，量測移除@ComponentScan後每次啟動省下的classpath掃描時間
+*/
+package com.jamestann.test.library.performance;
+
+import com.jamestann.test.library.config.TestLibraryAutoConfiguration;
+import com.jamestann.test.library.config.TestLibraryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Auto Configuration啟動成本
+ * 每次呼叫建立並關閉一個只載入Library的Context，反映每個服務啟動時Library增加的時間；
+ * componentScanLibraryPackage重現原本@ComponentScan在每次啟動時對Library package做的classpath掃描
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+public class AutoConfigurationStartupBenchmark extends BasePerformanceTest {
+
+    private ApplicationContextRunner contextRunner;
+
+    @Setup
+    public void setUp() {
+        contextRunner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(TestLibraryAutoConfiguration.class));
+    }
+
+    @Benchmark
+    public void startLibraryContext(Blackhole blackhole) {
+        contextRunner.run(context -> blackhole.consume(context.getBean(TestLibraryManager.class)));
+    }
+
+    @Benchmark
+    public Set<BeanDefinition> componentScanLibraryPackage() {
+        return new ClassPathScanningCandidateComponentProvider(true)
+                .findCandidateComponents("com.jamestann.test.library");
+    }
+}
@@ -3,13 +3,20 @@
 Performance Test基礎類別
 提供效能測試的基礎設定和JMH benchmark功能
 */
+/*
+Update History:
+[004][效能基準] - 移至src/test/java納入Maven test source root，新增共用的Fork/Warmup/Measurement設定
+*/
 package com.jamestann.test.library.performance;
 
 import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Warmup;
 
 import java.util.concurrent.TimeUnit;
 
@@ -20,6 +27,9 @@ import java.util.concurrent.TimeUnit;
 @BenchmarkMode(Mode.AverageTime)
 @OutputTimeUnit(TimeUnit.NANOSECONDS)
 @State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
 public abstract class BasePerformanceTest {
     // 共用的效能測試設定和工具方法可在此定義
-}
\ No newline at end of file
+}
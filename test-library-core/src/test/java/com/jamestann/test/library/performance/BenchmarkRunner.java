@@ -0,0 +1,32 @@
+/*
+[004][效能基準]BenchmarkRunner
+功能說明: JMH Benchmark執行入口，由benchmark profile透過exec-maven-plugin啟動
+Input: JMH命令列參數 (未指定benchmark時執行此package下所有 *Benchmark)
+Output: JMH結果 (benchmark profile預設輸出JSON至target/jmh-result.json)
+*/
+package com.jamestann.test.library.performance;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH Benchmark執行入口
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(BenchmarkRunner.class.getPackageName() + "\\..*Benchmark");
+        }
+        new Runner(options.build()).run();
+    }
+}
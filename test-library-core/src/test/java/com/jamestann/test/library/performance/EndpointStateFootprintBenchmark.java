@@ -0,0 +1,98 @@
+/*
+[004][Off-Heap儲存]EndpointStateFootprintBenchmark
+功能說明: 比較heap與off-heap直方圖儲存在高端點數下的記憶體佔用與SLI彙總tick成本
+Input: 500/2000個端點的SLI記錄器與滑動視窗
+Output: 每端點heap/direct位元組數 (Setup時輸出)、每次tick的平均時間
+*/
+/*
+Update History:
+[004][Off-Heap儲存] - 視窗時間片改為稀疏儲存後更新說明
+[004][Off-Heap儲存] - 記錄器分段改為依寫入競爭增加後更新說明 (Setup單執行緒記錄，每個端點只有一個分段)
+*/
+package com.jamestann.test.library.performance;
+
+import com.jamestann.test.library.actuator.EndpointLatencyRecorder;
+import com.jamestann.test.library.actuator.LibrarySLIAggregator;
+import com.jamestann.test.library.actuator.LibrarySLICollector;
+import com.jamestann.test.library.actuator.LibrarySLOChecker;
+import com.jamestann.test.library.actuator.LibrarySamplingPolicy;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.metrics.LogLinearHistogram;
+import com.jamestann.test.library.metrics.OffHeapHistogramArena;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 端點狀態記憶體佔用
+ * 每個端點持有 (記錄器分段 + 滑動視窗1m/5m/1h彙總值) 個完整直方圖，記錄器分段只在寫入競爭時增加；heap模式下是long陣列，
+ * off-heap模式下heap只剩物件標頭與ByteBuffer view；視窗的每秒/每分鐘時間片只存非0桶，兩種模式都在heap上。
+ * 記憶體數字於Setup量測並輸出，tick量測比較ByteBuffer存取與long陣列的彙總成本
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-XX:MaxDirectMemorySize=2g"})
+public class EndpointStateFootprintBenchmark extends BasePerformanceTest {
+
+    @Param({"HEAP", "OFF_HEAP"})
+    public TestLibraryProperties.StorageBackend backend;
+
+    @Param({"500", "2000"})
+    public int endpoints;
+
+    private LibrarySLIAggregator aggregator;
+
+    @Setup
+    public void setUp() {
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+
+        Supplier<LogLinearHistogram> histogramFactory = EndpointLatencyRecorder::newLatencyHistogram;
+        if (backend == TestLibraryProperties.StorageBackend.OFF_HEAP) {
+            histogramFactory = new OffHeapHistogramArena(EndpointLatencyRecorder.LATENCY_SUB_BUCKET_BITS,
+                    EndpointLatencyRecorder.MAX_TRACKABLE_MICROS, 4 * 1024 * 1024);
+        }
+        LibrarySLICollector collector = new LibrarySLICollector(LibrarySamplingPolicy.disabled(), histogramFactory,
+                Integer.MAX_VALUE);
+        for (int i = 0; i < endpoints; i++) {
+            collector.recorderFor("GET /api/resource-" + i).record((i % 500) * 1_000_000L, false);
+        }
+        aggregator = LibrarySLIAggregator.builder(collector)
+                .sloChecker(new LibrarySLOChecker(new TestLibraryProperties().getSlo()))
+                .build();
+        aggregator.tick();
+
+        long heapBytes = usedHeap() - heapBefore;
+        long directBytes = usedDirect() - directBefore;
+        System.out.printf("%n# footprint backend=%s endpoints=%d: heap %d bytes/endpoint, direct %d bytes/endpoint%n",
+                backend, endpoints, heapBytes / endpoints, directBytes / endpoints);
+    }
+
+    @Benchmark
+    public void tick() {
+        aggregator.tick();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedDirect() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+[004][效能基準]MonitoringOverheadBenchmark
+功能說明: 量測LibraryMetricsAspect對每次Controller呼叫增加的成本 (advised vs. unadvised)
+Input: 以AspectJProxyFactory套用LibraryMetricsAspect的RestController
+Output: 每次呼叫的平均時間(ns)
+*/
+/*
+Update History:
+[004][Log標準化] - 新增advisedCallWithAccessLog，量測結構化存取日誌增加的成本 (搭配 -prof gc 確認不產生垃圾)
+[004][取樣監控] - 新增advisedCallSampled，量測固定1/16取樣時的每請求成本
+*/
+package com.jamestann.test.library.performance;
+
+import com.jamestann.test.library.actuator.EndpointLatencyRecorder;
+import com.jamestann.test.library.actuator.LibraryMetricsAspect;
+import com.jamestann.test.library.actuator.LibrarySLICollector;
+import com.jamestann.test.library.actuator.LibrarySamplingPolicy;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.logging.LibraryStructuredLogger;
+import com.jamestann.test.library.logging.StructuredLogEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 每次請求的監控成本
+ * unadvisedCall為直接呼叫，advisedCall經過Spring AOP proxy與LibraryMetricsAspect，
+ * 兩者的差即為Library加在每個請求上的成本；recordOnly只量測記錄器本身
+ */
+public class MonitoringOverheadBenchmark extends BasePerformanceTest {
+
+    private SampleController unadvised;
+    private SampleController advised;
+    private SampleController advisedWithAccessLog;
+    private SampleController advisedSampled;
+    private LibraryStructuredLogger accessLogger;
+    private EndpointLatencyRecorder recorder;
+
+    @Setup
+    public void setUp() {
+        unadvised = new SampleController();
+        LibrarySLICollector collector = new LibrarySLICollector();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new SampleController());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(LibraryMetricsAspect.builder(collector).build());
+        advised = proxyFactory.getProxy();
+        recorder = collector.recorderFor("GET /benchmark/hello");
+
+        // 寫出端丟棄輸出，只量測請求端與背景編碼的成本
+        accessLogger = new LibraryStructuredLogger(new StructuredLogEncoder("benchmark"), (record, json) -> { }, 8192, 256);
+        accessLogger.afterPropertiesSet();
+        AspectJProxyFactory loggingProxyFactory = new AspectJProxyFactory(new SampleController());
+        loggingProxyFactory.setProxyTargetClass(true);
+        loggingProxyFactory.addAspect(LibraryMetricsAspect.builder(new LibrarySLICollector()).accessLogger(accessLogger).build());
+        advisedWithAccessLog = loggingProxyFactory.getProxy();
+
+        TestLibraryProperties.SamplingConfig sampling = new TestLibraryProperties.SamplingConfig();
+        sampling.setMode(TestLibraryProperties.SamplingMode.FIXED);
+        sampling.setRate(1.0 / 16);
+        AspectJProxyFactory sampledProxyFactory = new AspectJProxyFactory(new SampleController());
+        sampledProxyFactory.setProxyTargetClass(true);
+        sampledProxyFactory.addAspect(LibraryMetricsAspect.builder(new LibrarySLICollector(new LibrarySamplingPolicy(sampling)))
+                .accessLogger(accessLogger)
+                .build());
+        advisedSampled = sampledProxyFactory.getProxy();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        accessLogger.destroy();
+    }
+
+    @Benchmark
+    public String unadvisedCall() {
+        return unadvised.hello();
+    }
+
+    @Benchmark
+    public String advisedCall() {
+        return advised.hello();
+    }
+
+    @Benchmark
+    public String advisedCallWithAccessLog() {
+        return advisedWithAccessLog.hello();
+    }
+
+    @Benchmark
+    public String advisedCallSampled() {
+        return advisedSampled.hello();
+    }
+
+    @Benchmark
+    public void recordOnly() {
+        recorder.record(125_000L, false);
+    }
+
+    @RestController
+    @RequestMapping("/benchmark")
+    public static class SampleController {
+
+        private final String greeting = "hello";
+
+        @GetMapping("/hello")
+        public String hello() {
+            return greeting;
+        }
+    }
+}
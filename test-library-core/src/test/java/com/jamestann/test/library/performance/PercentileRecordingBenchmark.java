@@ -0,0 +1,88 @@
+/*
+[004][效能基準]PercentileRecordingBenchmark
+功能說明: 量測延遲記錄在1/4/16/64執行緒競爭下的成本，並與單一共享直方圖比較
+Input: 每個執行緒以xorshift產生的模擬延遲
+Output: 每次記錄的平均時間(ns)
+*/
+package com.jamestann.test.library.performance;
+
+import com.jamestann.test.library.actuator.EndpointLatencyRecorder;
+import com.jamestann.test.library.actuator.EndpointLatencySnapshot;
+import com.jamestann.test.library.metrics.LogLinearHistogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * 延遲百分位數記錄成本
+ * recordThreadsN經過依執行緒分段的EndpointLatencyRecorder；sharedHistogramThreadsN直接寫入單一直方圖作為對照
+ */
+public class PercentileRecordingBenchmark extends BasePerformanceTest {
+
+    private EndpointLatencyRecorder recorder;
+    private LogLinearHistogram sharedHistogram;
+
+    @Setup
+    public void setUp() {
+        recorder = new EndpointLatencyRecorder("GET /benchmark");
+        sharedHistogram = EndpointLatencyRecorder.newLatencyHistogram();
+        for (int i = 0; i < 100_000; i++) {
+            recorder.record((i % 5_000) * 1_000L, false);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LatencySource {
+        private long seed = System.nanoTime() | 1;
+
+        long nextNanos() {
+            seed ^= seed << 13;
+            seed ^= seed >>> 7;
+            seed ^= seed << 17;
+            return (seed & 0xFFFFF) * 1_000L;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void recordThreads1(LatencySource source) {
+        recorder.record(source.nextNanos(), false);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordThreads4(LatencySource source) {
+        recorder.record(source.nextNanos(), false);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void recordThreads16(LatencySource source) {
+        recorder.record(source.nextNanos(), false);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void recordThreads64(LatencySource source) {
+        recorder.record(source.nextNanos(), false);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void sharedHistogramThreads16(LatencySource source) {
+        sharedHistogram.record(source.nextNanos() / 1_000L);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void sharedHistogramThreads64(LatencySource source) {
+        sharedHistogram.record(source.nextNanos() / 1_000L);
+    }
+
+    @Benchmark
+    public EndpointLatencySnapshot snapshot() {
+        return recorder.snapshot();
+    }
+}
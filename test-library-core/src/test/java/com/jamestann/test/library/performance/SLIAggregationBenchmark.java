@@ -0,0 +1,71 @@
+/*
+[004][效能基準]SLIAggregationBenchmark
+功能說明: 量測每秒SLI彙總tick (視窗推進 + SLO評估) 與違反事件發佈的成本
+Input: 10/100/500個端點的SLI記錄器
+Output: 每次tick與每次發佈的平均時間
+*/
+package com.jamestann.test.library.performance;
+
+import com.jamestann.test.library.actuator.LibrarySLIAggregator;
+import com.jamestann.test.library.actuator.LibrarySLICollector;
+import com.jamestann.test.library.actuator.LibrarySLOChecker;
+import com.jamestann.test.library.actuator.SLAViolationProcessor;
+import com.jamestann.test.library.actuator.event.SLAViolationEvent;
+import com.jamestann.test.library.actuator.event.SLAViolationType;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.metrics.SLIWindow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SLI彙總與違反發佈成本
+ * tick的成本應只隨端點數成長，與請求量無關；publishViolation為請求路徑之外唯一的發佈成本
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SLIAggregationBenchmark extends BasePerformanceTest {
+
+    @Param({"10", "100", "500"})
+    public int endpoints;
+
+    private LibrarySLIAggregator aggregator;
+    private SLAViolationProcessor processor;
+    private SLAViolationEvent violation;
+
+    @Setup
+    public void setUp() {
+        LibrarySLICollector collector = new LibrarySLICollector();
+        for (int i = 0; i < endpoints; i++) {
+            collector.recorderFor("GET /api/resource-" + i).record(i * 1_000_000L, false);
+        }
+        TestLibraryProperties.SloConfig slo = new TestLibraryProperties().getSlo();
+        processor = new SLAViolationProcessor(slo, List.of());
+        processor.afterPropertiesSet();
+        aggregator = LibrarySLIAggregator.builder(collector)
+                .sloChecker(new LibrarySLOChecker(slo))
+                .violationSink(processor::publish)
+                .build();
+        violation = new SLAViolationEvent("GET /api/resource-0", SLAViolationType.LATENCY_BREACH,
+                250, 200, SLIWindow.ONE_MINUTE, 0, null);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        processor.destroy();
+    }
+
+    @Benchmark
+    public void tick() {
+        aggregator.tick();
+    }
+
+    @Benchmark
+    public boolean publishViolation() {
+        return processor.publish(violation);
+    }
+}
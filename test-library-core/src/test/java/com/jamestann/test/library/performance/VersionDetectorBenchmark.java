@@ -0,0 +1,34 @@
+/*
+[004][效能基準]VersionDetectorBenchmark
+功能說明: 量測SpringBootVersionDetector版本相容性查詢的成本 (TestLibraryManager與/version-info每次請求呼叫)
+Input: SpringBootVersionDetector
+Output: 每次查詢的平均時間(ns)
+*/
+package com.jamestann.test.library.performance;
+
+import com.jamestann.test.library.util.SpringBootVersionDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * 版本相容性查詢成本
+ */
+public class VersionDetectorBenchmark extends BasePerformanceTest {
+
+    private SpringBootVersionDetector detector;
+
+    @Setup
+    public void setUp() {
+        detector = new SpringBootVersionDetector();
+    }
+
+    @Benchmark
+    public SpringBootVersionDetector.VersionCompatibilityReport getCompatibilityReport() {
+        return detector.getCompatibilityReport();
+    }
+
+    @Benchmark
+    public boolean isCurrentVersionCompatible() {
+        return detector.isCurrentVersionCompatible();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+[004][虛擬執行緒]VirtualThreadMonitoringBenchmark
+功能說明: 量測100k個同時進行的虛擬執行緒請求下，LibraryMetricsAspect與請求上下文增加的成本
+Input: 每個請求一個虛擬執行緒 (Java 21+)，請求內停頓1ms模擬I/O讓所有請求同時存活
+Output: 完成一批100k請求的時間(ms)
+*/
+package com.jamestann.test.library.performance;
+
+import com.jamestann.test.library.actuator.LibraryMetricsAspect;
+import com.jamestann.test.library.actuator.LibrarySLICollector;
+import com.jamestann.test.library.context.LibraryRequestContext;
+import com.jamestann.test.library.logging.LibraryStructuredLogger;
+import com.jamestann.test.library.logging.StructuredLogEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 虛擬執行緒下的監控成本
+ * <p>
+ * 每次呼叫送出100k個請求，每個請求一個虛擬執行緒並停頓1ms，因此所有請求幾乎同時存活；
+ * unmonitored為直接呼叫，monitored經過LibraryMetricsAspect (分段記錄器+存取日誌)，
+ * monitoredWithContext再加上LibraryRequestContext範圍與Controller內的一次讀取。
+ * 搭配 -prof gc 可確認每個請求配置的位元組，批次結束後不應殘留以執行緒為單位的狀態。
+ * <p>
+ * 原始碼維持Java 11相容，虛擬執行緒執行器以反射建立；在Java 21以前的JVM上改用256個平台執行緒，
+ * 結果只能作為對照 (輸出會標示實際使用的執行器)
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = 1)
+@Measurement(iterations = 10, batchSize = 1)
+public class VirtualThreadMonitoringBenchmark extends BasePerformanceTest {
+
+    private static final int REQUESTS = 100_000;
+
+    private static final long IO_PAUSE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Param({"unmonitored", "monitored", "monitoredWithContext"})
+    public String mode;
+
+    private ContextController controller;
+    private LibraryStructuredLogger accessLogger;
+    private ExecutorService executor;
+
+    @Setup
+    public void setUp() {
+        executor = newRequestExecutor();
+        ContextController target = new ContextController();
+        if ("unmonitored".equals(mode)) {
+            controller = target;
+            return;
+        }
+        accessLogger = new LibraryStructuredLogger(new StructuredLogEncoder("benchmark"), (record, json) -> { }, 1 << 16, 256);
+        accessLogger.afterPropertiesSet();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(LibraryMetricsAspect.builder(new LibrarySLICollector())
+                .accessLogger(accessLogger)
+                .propagateContext("monitoredWithContext".equals(mode))
+                .build());
+        controller = proxyFactory.getProxy();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        if (accessLogger != null) {
+            accessLogger.destroy();
+        }
+    }
+
+    @Benchmark
+    public long concurrentRequests() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        ContextController target = controller;
+        Runnable request = () -> {
+            target.handle();
+            done.countDown();
+        };
+        for (int i = 0; i < REQUESTS; i++) {
+            executor.execute(request);
+        }
+        done.await();
+        return done.getCount();
+    }
+
+    /**
+     * Java 21+使用每個任務一個虛擬執行緒的執行器，否則退回固定數量的平台執行緒
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            System.out.println("# Request executor: virtual threads, context carrier: " + LibraryRequestContext.carrierName());
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            System.out.println("# Request executor: 256 platform threads (virtual threads need Java 21+), context carrier: "
+                    + LibraryRequestContext.carrierName());
+            return Executors.newFixedThreadPool(256);
+        }
+    }
+
+    @RestController
+    @RequestMapping("/benchmark")
+    public static class ContextController {
+
+        @GetMapping("/virtual")
+        public String handle() {
+            String endpoint = LibraryRequestContext.currentEndpoint();
+            LockSupport.parkNanos(IO_PAUSE_NANOS);
+            return endpoint;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+[004][WebFlux監控]LibraryWebFilterTest
+功能說明: 驗證WebFlux請求的延遲/錯誤記錄、取消只記錄一次、Reactor Context中的端點、handler執行前的熔斷器與併發限制放行判斷，以及依應用類型的自動配置
+Input: MockServerWebExchange、模擬handler mapping的WebFilterChain、只註冊測試Controller的RequestMappingHandlerMapping、ReactiveWebApplicationContextRunner
+Output: WebFlux監控驗證結果
+*/
+package com.jamestann.test.library.reactive;
+
+import com.jamestann.test.library.actuator.EndpointCircuitBreaker;
+import com.jamestann.test.library.actuator.EndpointConcurrencyLimiter;
+import com.jamestann.test.library.actuator.EndpointLatencyRecorder;
+import com.jamestann.test.library.actuator.LibraryCircuitBreaker;
+import com.jamestann.test.library.actuator.LibraryCircuitOpenException;
+import com.jamestann.test.library.actuator.LibraryConcurrencyLimitException;
+import com.jamestann.test.library.actuator.LibraryConcurrencyLimiter;
+import com.jamestann.test.library.actuator.LibraryMetricsAspect;
+import com.jamestann.test.library.actuator.LibrarySLICollector;
+import com.jamestann.test.library.config.TestLibraryAutoConfiguration;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.result.method.RequestMappingInfo;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Library Web Filter Test")
+class LibraryWebFilterTest {
+
+    private final LibrarySLICollector collector = new LibrarySLICollector();
+    private final LibraryWebFilter filter = LibraryWebFilter.builder(collector).build();
+
+    @Test
+    @DisplayName("Should record latency and errors into the controller's endpoint recorder")
+    void shouldRecordCompletedAndFailedRequests() {
+        filter.filter(exchange(), handled(Mono.delay(Duration.ofMillis(20)).then())).block(Duration.ofSeconds(5));
+        assertThatThrownBy(() -> filter.filter(exchange(), handled(Mono.error(new IllegalStateException("boom"))))
+                .block(Duration.ofSeconds(5))).hasMessage("boom");
+        filter.filter(exchange(), exchange -> Mono.empty()).block(Duration.ofSeconds(5));
+
+        EndpointLatencyRecorder recorder = collector.recorderFor("GET /reactive/orders");
+        assertThat(collector.getRecorders()).containsExactly(recorder);
+        assertThat(recorder.getRequestCount()).isEqualTo(2);
+        assertThat(recorder.getErrorCount()).isEqualTo(1);
+        assertThat(recorder.snapshot().getP99Micros()).isGreaterThanOrEqualTo(15_000);
+    }
+
+    @Test
+    @DisplayName("Should count a cancelled request once without recording its truncated latency")
+    void shouldHandleCancellation() {
+        Disposable subscription = filter.filter(exchange(), handled(Mono.never())).subscribe();
+        subscription.dispose();
+        subscription.dispose();
+
+        EndpointLatencyRecorder recorder = collector.recorderFor("GET /reactive/orders");
+        assertThat(recorder.getRequestCount()).isEqualTo(1);
+        assertThat(recorder.getErrorCount()).isZero();
+        assertThat(recorder.snapshot().getP99Micros()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should expose the endpoint to handlers through the Reactor context")
+    void shouldWriteReactorContext() {
+        AtomicReference<String> seen = new AtomicReference<>();
+        filter.filter(exchange(), handled(Mono.deferContextual(context -> {
+            seen.set(LibraryReactiveContext.currentEndpoint(context));
+            return Mono.empty();
+        }))).block(Duration.ofSeconds(5));
+
+        assertThat(seen.get()).isEqualTo("GET /reactive/orders");
+        assertThat(Mono.deferContextual(context -> Mono.justOrEmpty(LibraryReactiveContext.currentEndpoint(context)))
+                .block(Duration.ofSeconds(5))).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reject requests to an open circuit before the handler runs and close it after a probe")
+    void shouldApplyCircuitBreaker() throws Exception {
+        TestLibraryProperties.CircuitBreakerConfig config = new TestLibraryProperties().getSlo().getCircuitBreaker();
+        config.setOpenDuration(Duration.ofMillis(200));
+        config.setHalfOpenProbes(1);
+        LibraryCircuitBreaker circuitBreaker = new LibraryCircuitBreaker(config, null, Duration.ZERO);
+        LibraryWebFilter guarded = LibraryWebFilter.builder(collector)
+                .circuitBreaker(circuitBreaker)
+                .handlerMappings(List.of(handlerMapping()))
+                .build();
+        EndpointLatencyRecorder recorder = collector.recorderFor(OrderController.class.getMethod("order"));
+        AtomicInteger invocations = new AtomicInteger();
+        Mono<Void> handler = Mono.fromRunnable(invocations::incrementAndGet);
+        assertThat(circuitBreaker.trip(recorder)).isTrue();
+
+        assertThatThrownBy(() -> guarded.filter(exchange(), handled(handler)).block(Duration.ofSeconds(5)))
+                .isInstanceOf(LibraryCircuitOpenException.class);
+        assertThat(invocations).hasValue(0);
+        assertThat(recorder.getRequestCount()).isZero();
+
+        Thread.sleep(250);
+        guarded.filter(exchange(), handled(Mono.never())).subscribe().dispose();
+        assertThat(recorder.getCircuitBreaker().getState()).isEqualTo(EndpointCircuitBreaker.State.HALF_OPEN);
+        guarded.filter(exchange(), handled(handler)).block(Duration.ofSeconds(5));
+
+        assertThat(invocations).hasValue(1);
+        assertThat(recorder.getCircuitBreaker().getState()).isEqualTo(EndpointCircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.hasOpenCircuits()).isFalse();
+        assertThat(recorder.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reject requests over the concurrency limit without waiting and release permits on every outcome")
+    void shouldApplyConcurrencyLimit() throws Exception {
+        TestLibraryProperties.ConcurrencyLimitConfig config = new TestLibraryProperties().getConcurrencyLimit();
+        config.setEndpoints(List.of("GET /reactive/orders"));
+        config.setInitialLimit(1);
+        config.setMaxLimit(1);
+        config.setMaxQueue(5);
+        LibraryConcurrencyLimiter concurrencyLimiter = new LibraryConcurrencyLimiter(config, null);
+        LibraryWebFilter limited = LibraryWebFilter.builder(collector)
+                .concurrencyLimiter(concurrencyLimiter)
+                .handlerMappings(List.of(handlerMapping()))
+                .build();
+        EndpointLatencyRecorder recorder = collector.recorderFor(OrderController.class.getMethod("order"));
+        EndpointConcurrencyLimiter limiter = concurrencyLimiter.limiterFor(recorder);
+
+        Disposable inFlight = limited.filter(exchange(), handled(Mono.never())).subscribe();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThatThrownBy(() -> limited.filter(exchange(), handled(Mono.empty())).block(Duration.ofSeconds(5)))
+                .isInstanceOf(LibraryConcurrencyLimitException.class);
+        assertThat(limiter.getRejectedCount()).isEqualTo(1);
+        assertThat(limiter.getQueued()).isZero();
+
+        inFlight.dispose();
+        assertThat(limiter.getInFlight()).isZero();
+        assertThatThrownBy(() -> limited.filter(exchange(), handled(Mono.error(new IllegalStateException("boom"))))
+                .block(Duration.ofSeconds(5))).hasMessage("boom");
+        assertThat(limiter.getInFlight()).isZero();
+        limited.filter(exchange(), handled(Mono.empty())).block(Duration.ofSeconds(5));
+
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(recorder.getRequestCount()).isEqualTo(3);
+        assertThat(recorder.getErrorCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should register the web filter instead of the aspect in reactive applications")
+    void shouldAutoConfigureByApplicationType() {
+        new ReactiveWebApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(TestLibraryAutoConfiguration.class))
+                .run(context -> {
+                    assertThat(context).hasSingleBean(LibraryWebFilter.class);
+                    assertThat(context).doesNotHaveBean(LibraryMetricsAspect.class);
+                });
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(TestLibraryAutoConfiguration.class))
+                .run(context -> {
+                    assertThat(context).hasSingleBean(LibraryMetricsAspect.class);
+                    assertThat(context).doesNotHaveBean(LibraryWebFilter.class);
+                });
+    }
+
+    private static ServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/reactive/orders/42"));
+    }
+
+    private static RequestMappingHandlerMapping handlerMapping() throws NoSuchMethodException {
+        RequestMappingHandlerMapping mapping = new RequestMappingHandlerMapping();
+        mapping.registerMapping(RequestMappingInfo.paths("/reactive/orders/{id}").methods(RequestMethod.GET).build(),
+                new OrderController(), OrderController.class.getMethod("order"));
+        return mapping;
+    }
+
+    /**
+     * 模擬DispatcherHandler：先設定handler mapping屬性，再執行handler
+     */
+    private static WebFilterChain handled(Mono<Void> handler) {
+        return exchange -> Mono.defer(() -> {
+            try {
+                exchange.getAttributes().put(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+                        new HandlerMethod(new OrderController(), OrderController.class.getMethod("order")));
+            } catch (NoSuchMethodException e) {
+                return Mono.error(e);
+            }
+            return handler;
+        });
+    }
+
+    @RestController
+    @RequestMapping("/reactive")
+    static class OrderController {
+
+        @GetMapping("/orders")
+        public Mono<String> order() {
+            return Mono.just("order");
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+[004][效能調校]SpringBootVersionDetectorTest
+功能說明: 驗證版本相容性報告只計算一次，以及預先產生的序列化格式內容
+Input: 當前執行環境的Spring Boot版本、指定的測試版本字串
+Output: 版本快照與序列化格式驗證結果
+*/
+package com.jamestann.test.library.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringBootVersion;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Spring Boot Version Detector Test")
+class SpringBootVersionDetectorTest {
+
+    @Test
+    @DisplayName("Should return the same cached report across detector instances")
+    void shouldReturnCachedReport() {
+        SpringBootVersionDetector.VersionCompatibilityReport first = new SpringBootVersionDetector().getCompatibilityReport();
+        SpringBootVersionDetector.VersionCompatibilityReport second = new SpringBootVersionDetector().getCompatibilityReport();
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getCurrentVersion()).isEqualTo(SpringBootVersion.getVersion());
+        assertThat(new SpringBootVersionDetector().isCurrentVersionCompatible()).isEqualTo(first.isCompatible());
+    }
+
+    @Test
+    @DisplayName("Should precompute an unmodifiable details map")
+    void shouldPrecomputeDetails() {
+        SpringBootVersionDetector.VersionCompatibilityReport report =
+                new SpringBootVersionDetector().createCompatibilityReport("2.6.15");
+        Map<String, Object> details = report.getDetails();
+
+        assertThat(details).containsEntry("currentVersion", "2.6.15")
+                .containsEntry("compatible", false)
+                .containsEntry("message", report.getMessage());
+        assertThat(report.getDetails()).isSameAs(details);
+        assertThatThrownBy(() -> details.put("compatible", true)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("Should precompute escaped JSON matching the report")
+    void shouldPrecomputeJson() {
+        SpringBootVersionDetector.VersionCompatibilityReport report = new SpringBootVersionDetector.VersionCompatibilityReport(
+                "3.2.0", true, List.of("3.2"), "say \"hi\"\\");
+
+        assertThat(report.toJson()).isEqualTo("{\"currentVersion\":\"3.2.0\",\"compatible\":true,"
+                + "\"message\":\"say \\\"hi\\\"\\\\\",\"supportedVersions\":[\"3.2\"]}");
+        assertThat(report.toJson()).isSameAs(report.toJson());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+[004][JSON回應]JsonResponseWriterTest
+功能說明: 驗證串流JSON寫出器的逗號/巢狀、跳脫與UTF-8編碼、快取回應只在版本改變時重新序列化，以及訊息轉換器輸出
+Input: 各種欄位值、小緩衝區、MockHttpOutputMessage
+Output: JSON回應驗證結果
+*/
+package com.jamestann.test.library.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("JSON Response Writer Test")
+class JsonResponseWriterTest {
+
+    private static final byte[] NAME = JsonResponseWriter.fieldName("name");
+    private static final byte[] COUNT = JsonResponseWriter.fieldName("count");
+    private static final byte[] TAGS = JsonResponseWriter.fieldName("tags");
+
+    @Test
+    @DisplayName("Should stream nested objects and arrays with separators, escaping and UTF-8 output")
+    void shouldWriteEquivalentJson() throws Exception {
+        String name = "GET /使用者/\"😀\"\\\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonResponseWriter writer = new JsonResponseWriter(out, 32);
+        writer.beginObject()
+                .field(NAME, name)
+                .field(COUNT, Long.MIN_VALUE)
+                .name(TAGS).beginArray().value(0).value(Long.MAX_VALUE).value(-42).value(true).value((String) null)
+                .beginObject().endObject().endArray()
+                .name(JsonResponseWriter.fieldName("ratio")).value(0.25)
+                .endObject()
+                .flush();
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("name", name);
+        expected.put("count", Long.MIN_VALUE);
+        expected.put("tags", Arrays.asList(0, Long.MAX_VALUE, -42, true, null, new LinkedHashMap<>()));
+        expected.put("ratio", 0.25);
+        ObjectMapper mapper = new ObjectMapper();
+        assertThat(mapper.readTree(out.toByteArray())).isEqualTo(mapper.readTree(mapper.writeValueAsBytes(expected)));
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).startsWith("{\"name\":\"GET /使用者/\\\"😀\\\"\\\\\\u000a\"");
+    }
+
+    @Test
+    @DisplayName("Should serialize a cached response again only when its input version changes")
+    void shouldRenderOncePerVersion() {
+        AtomicInteger renders = new AtomicInteger();
+        CachedJsonResponse response = new CachedJsonResponse((version, writer) -> {
+            renders.incrementAndGet();
+            writer.beginObject().field(COUNT, version).endObject();
+        });
+
+        PreSerializedJson first = response.get(1);
+        assertThat(response.get(1)).isSameAs(first);
+        assertThat(renders).hasValue(1);
+        assertThat(response.get(2).toString()).isEqualTo("{\"count\":2}");
+        assertThat(renders).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should write pre-serialized bytes with a content length and stream other writables")
+    void shouldConvertJsonWritable() throws Exception {
+        JsonWritableHttpMessageConverter converter = new JsonWritableHttpMessageConverter();
+        Map<String, Object> versionInfo = new LinkedHashMap<>();
+        versionInfo.put("javaVersion", "17");
+        versionInfo.put("details", Map.of("compatible", true));
+        PreSerializedJson cached = PreSerializedJson.of(writer -> writer.writeValue(versionInfo));
+
+        MockHttpOutputMessage cachedMessage = new MockHttpOutputMessage();
+        converter.write(cached, MediaType.APPLICATION_JSON, cachedMessage);
+        assertThat(cachedMessage.getBodyAsString(StandardCharsets.UTF_8))
+                .isEqualTo("{\"javaVersion\":\"17\",\"details\":{\"compatible\":true}}");
+        assertThat(cachedMessage.getHeaders().getContentLength()).isEqualTo(cached.length());
+
+        MockHttpOutputMessage streamedMessage = new MockHttpOutputMessage();
+        JsonWritable streamed = writer -> writer.beginObject().field(NAME, "demo").endObject();
+        assertThat(converter.canWrite(streamed.getClass(), MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canRead(JsonWritable.class, MediaType.APPLICATION_JSON)).isFalse();
+        converter.write(streamed, MediaType.APPLICATION_JSON, streamedMessage);
+        assertThat(streamedMessage.getBodyAsString(StandardCharsets.UTF_8)).isEqualTo("{\"name\":\"demo\"}");
+        assertThat(streamedMessage.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+}
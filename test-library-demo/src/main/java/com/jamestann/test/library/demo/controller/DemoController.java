@@ -3,81 +3,163 @@
 Demo Controller類別
 提供REST API端點來測試Library功能
 */
+/*
+Update History:
+[004][效能調校] - /version-info回應於啟動時組好一次，之後每次請求直接回傳
+[004][負載測試] - /test-performance改為對WorkloadController執行開放迴路負載測試 (取代會被JIT消除的Math.sqrt迴圈)
+[004][JSON回應] - /health與/version-info回傳預先序列化的位元組 (輸入改變時才重新序列化)，/library-info直接串流欄位，不再建立HashMap
+[004][飽和度] - /health的status改為TestLibraryManager的健康狀態 (飽和時為SATURATED)
+*/
 package com.jamestann.test.library.demo.controller;
 
 import com.jamestann.test.library.config.TestLibraryManager;
-import lombok.RequiredArgsConstructor;
+import com.jamestann.test.library.config.TestLibraryProperties;
+import com.jamestann.test.library.demo.load.LoadGenerator;
+import com.jamestann.test.library.demo.load.LoadTestPlan;
+import com.jamestann.test.library.demo.load.LoadTestReport;
+import com.jamestann.test.library.demo.load.WorkloadProfile;
+import com.jamestann.test.library.web.CachedJsonResponse;
+import com.jamestann.test.library.web.JsonResponseWriter;
+import com.jamestann.test.library.web.JsonWritable;
+import com.jamestann.test.library.web.PreSerializedJson;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @RestController
 @RequestMapping("/api/demo")
-@RequiredArgsConstructor
 public class DemoController {
 
+    private static final byte[] STATUS = JsonResponseWriter.fieldName("status");
+    private static final byte[] TIMESTAMP = JsonResponseWriter.fieldName("timestamp");
+    private static final byte[] LIBRARY_ENABLED = JsonResponseWriter.fieldName("libraryEnabled");
+    private static final byte[] LIBRARY_NAME = JsonResponseWriter.fieldName("libraryName");
+    private static final byte[] ENABLED = JsonResponseWriter.fieldName("enabled");
+    private static final byte[] PERFORMANCE_MONITORING = JsonResponseWriter.fieldName("performanceMonitoring");
+    private static final byte[] LOGGING_STANDARDIZATION = JsonResponseWriter.fieldName("loggingStandardization");
+    private static final byte[] CUSTOM_ACTUATOR_ENDPOINTS = JsonResponseWriter.fieldName("customActuatorEndpoints");
+
+    /**
+     * 單次負載測試的最長量測時間
+     */
+    private static final int MAX_LOAD_TEST_SECONDS = 300;
+
     private final TestLibraryManager testLibraryManager;
 
+    /**
+     * Java、Spring Boot與Library版本在JVM執行期間不會改變，回應內容只序列化一次
+     */
+    private final PreSerializedJson versionInfo;
+
+    /**
+     * 健康檢查回應，版本號為 (epoch秒 << 2 | Library健康狀態序號)
+     */
+    private final CachedJsonResponse healthResponse = new CachedJsonResponse(this::renderHealth);
+
+    private final Environment environment;
+    private final LoadGenerator loadGenerator = new LoadGenerator();
+    private final AtomicBoolean loadTestRunning = new AtomicBoolean();
+
+    public DemoController(TestLibraryManager testLibraryManager, Environment environment) {
+        this.testLibraryManager = testLibraryManager;
+        this.environment = environment;
+        this.versionInfo = PreSerializedJson.of(writer -> writer.writeValue(buildVersionInfo()));
+    }
+
+    /**
+     * 健康檢查會被探針高頻率呼叫：回應在同一秒內且Library健康狀態不變時直接回傳快取的位元組
+     */
     @GetMapping("/health")
-    public Map<String, Object> health() {
-        log.info("Health check requested");
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("status", "UP");
-        response.put("timestamp", LocalDateTime.now());
-        response.put("libraryEnabled", testLibraryManager.isEnabled());
-        response.put("libraryName", testLibraryManager.getProperties().getLibraryName());
-        
-        return response;
+    public JsonWritable health() {
+        log.debug("Health check requested");
+        long epochSecond = System.currentTimeMillis() / 1000L;
+        return healthResponse.get(epochSecond << 2 | testLibraryManager.getHealthStatus().ordinal());
     }
 
     @GetMapping("/library-info")
-    public Map<String, Object> getLibraryInfo() {
+    public JsonWritable getLibraryInfo() {
         log.info("Library info requested");
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("enabled", testLibraryManager.getProperties().isEnabled());
-        response.put("libraryName", testLibraryManager.getProperties().getLibraryName());
-        response.put("performanceMonitoring", testLibraryManager.getProperties().isPerformanceMonitoringEnabled());
-        response.put("loggingStandardization", testLibraryManager.getProperties().isLoggingStandardizationEnabled());
-        response.put("customActuatorEndpoints", testLibraryManager.getProperties().getActuator().isCustomEndpointsEnabled());
-        
-        return response;
+        TestLibraryProperties properties = testLibraryManager.getProperties();
+        return writer -> writer.beginObject()
+                .field(ENABLED, properties.isEnabled())
+                .field(LIBRARY_NAME, properties.getLibraryName())
+                .field(PERFORMANCE_MONITORING, properties.isPerformanceMonitoringEnabled())
+                .field(LOGGING_STANDARDIZATION, properties.isLoggingStandardizationEnabled())
+                .field(CUSTOM_ACTUATOR_ENDPOINTS, properties.getActuator().isCustomEndpointsEnabled())
+                .endObject();
     }
 
+    /**
+     * 對本機的/api/workload端點執行開放迴路負載測試
+     * 比較test.library.performance-monitoring-enabled開啟與關閉時的報告，即可得到監控的端到端開銷
+     */
     @PostMapping("/test-performance")
-    public Map<String, Object> testPerformance(@RequestParam(defaultValue = "1000") int iterations) {
-        log.info("Performance test requested with {} iterations", iterations);
-        
-        long startTime = System.currentTimeMillis();
-        
-        // 模擬一些工作負載
-        for (int i = 0; i < iterations; i++) {
-            Math.sqrt(i);
+    public LoadTestReport testPerformance(@RequestParam(defaultValue = "MIXED") WorkloadProfile profile,
+                                          @RequestParam(defaultValue = "0") int units,
+                                          @RequestParam(defaultValue = "200") int rate,
+                                          @RequestParam(defaultValue = "10") int durationSeconds,
+                                          @RequestParam(defaultValue = "5") int warmupSeconds,
+                                          @RequestParam(defaultValue = "256") int maxInFlight,
+                                          @RequestParam(defaultValue = "5000") int timeoutMillis) throws InterruptedException {
+        if (durationSeconds <= 0 || durationSeconds > MAX_LOAD_TEST_SECONDS || warmupSeconds < 0
+                || warmupSeconds > MAX_LOAD_TEST_SECONDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "durationSeconds and warmupSeconds must be within 0-" + MAX_LOAD_TEST_SECONDS);
+        }
+        LoadTestPlan plan;
+        try {
+            plan = new LoadTestPlan(profile, units, rate, Duration.ofSeconds(durationSeconds),
+                    Duration.ofSeconds(warmupSeconds), maxInFlight, Duration.ofMillis(timeoutMillis));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (!loadTestRunning.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A load test is already running");
+        }
+        try {
+            log.info("Load test requested: {} at {} req/s for {}s", profile, rate, durationSeconds);
+            URI target = URI.create("http://localhost:" + environment.getProperty("local.server.port", "8080")
+                    + "/api/workload/" + profile.getPath() + (units > 0 ? "?units=" + units : ""));
+            LoadTestReport report = loadGenerator.run(plan, target);
+            log.info("Load test completed: {} requests, {} failed, p99 {}us (corrected)",
+                    report.getCompleted(), report.getFailed(), report.getResponseTimeMicros().get("p99"));
+            return report;
+        } finally {
+            loadTestRunning.set(false);
         }
-        
-        long endTime = System.currentTimeMillis();
-        long duration = endTime - startTime;
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("iterations", iterations);
-        response.put("duration", duration + "ms");
-        response.put("averageTimePerIteration", (duration * 1000.0 / iterations) + "μs");
-        
-        log.info("Performance test completed: {} iterations in {}ms", iterations, duration);
-        
-        return response;
     }
 
     @GetMapping("/version-info")
-    public Map<String, Object> getVersionInfo() {
+    public JsonWritable getVersionInfo() {
         log.info("Version info requested");
-        
-        Map<String, Object> response = new HashMap<>();
+        return versionInfo;
+    }
+
+    private void renderHealth(long version, JsonResponseWriter writer) {
+        LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochSecond(version >> 2), ZoneId.systemDefault());
+        TestLibraryManager.HealthStatus status = TestLibraryManager.HealthStatus.values()[(int) (version & 3L)];
+        writer.beginObject()
+                .field(STATUS, status.name())
+                .field(TIMESTAMP, timestamp.toString())
+                .field(LIBRARY_ENABLED, status != TestLibraryManager.HealthStatus.DISABLED)
+                .field(LIBRARY_NAME, testLibraryManager.getProperties().getLibraryName())
+                .endObject();
+    }
+
+    private Map<String, Object> buildVersionInfo() {
+        Map<String, Object> response = new LinkedHashMap<>();
         
         // Java版本資訊
         response.put("javaVersion", System.getProperty("java.version"));
@@ -86,14 +168,9 @@ public class DemoController {
         // Spring Boot版本資訊
         response.put("springBootVersion", testLibraryManager.getCurrentSpringBootVersion());
         
-        // Library版本相容性資訊
-        var compatibilityReport = testLibraryManager.getVersionCompatibilityReport();
+        // Library版本相容性資訊 (報告內預先產生的Map)
         response.put("libraryVersion", "1.0.0-SNAPSHOT");
-        response.put("versionCompatibility", Map.of(
-            "compatible", compatibilityReport.isCompatible(),
-            "message", compatibilityReport.getMessage(),
-            "supportedVersions", compatibilityReport.getSupportedVersions()
-        ));
+        response.put("versionCompatibility", testLibraryManager.getVersionCompatibilityReport().getDetails());
         
         return response;
     }
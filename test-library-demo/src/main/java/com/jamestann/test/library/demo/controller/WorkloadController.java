@@ -0,0 +1,66 @@
+/*
+[004][負載測試]WorkloadController
+功能說明: 以HTTP端點提供各類工作負載，作為負載測試的目標 (經過Library的監控切面)
+Input: GET /api/workload/{cpu|allocation|io|mixed}?units=N
+Output: 工作負載類型與checksum
+*/
+/*
+Update History:
+[004][JSON回應] - 回應改以JsonWritable直接串流，不建立Map
+*/
+package com.jamestann.test.library.demo.controller;
+
+import com.jamestann.test.library.demo.load.DemoWorkload;
+import com.jamestann.test.library.demo.load.WorkloadProfile;
+import com.jamestann.test.library.web.JsonResponseWriter;
+import com.jamestann.test.library.web.JsonWritable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 工作負載端點
+ * 每種類型各自一個路由，Library的SLI會依類型分開統計
+ */
+@RestController
+@RequestMapping("/api/workload")
+public class WorkloadController {
+
+    private static final byte[] PROFILE = JsonResponseWriter.fieldName("profile");
+    private static final byte[] CHECKSUM = JsonResponseWriter.fieldName("checksum");
+
+    private final DemoWorkload workload;
+
+    public WorkloadController(DemoWorkload workload) {
+        this.workload = workload;
+    }
+
+    @GetMapping("/cpu")
+    public JsonWritable cpu(@RequestParam(defaultValue = "0") int units) {
+        return run(WorkloadProfile.CPU, units);
+    }
+
+    @GetMapping("/allocation")
+    public JsonWritable allocation(@RequestParam(defaultValue = "0") int units) {
+        return run(WorkloadProfile.ALLOCATION, units);
+    }
+
+    @GetMapping("/io")
+    public JsonWritable io(@RequestParam(defaultValue = "0") int units) {
+        return run(WorkloadProfile.BLOCKING_IO, units);
+    }
+
+    @GetMapping("/mixed")
+    public JsonWritable mixed() {
+        return run(WorkloadProfile.MIXED, 0);
+    }
+
+    private JsonWritable run(WorkloadProfile profile, int units) {
+        long checksum = workload.run(profile, units);
+        return writer -> writer.beginObject()
+                .field(PROFILE, profile.name())
+                .field(CHECKSUM, checksum)
+                .endObject();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+[004][負載測試]DemoWorkload
+功能說明: 可配置的程序內工作負載，供負載測試量測Library監控在不同負載下的開銷
+Input: 工作負載類型與工作量 (units)
+Output: 依工作結果計算的checksum (回傳給呼叫端，避免JIT將工作視為dead code消除)
+*/
+package com.jamestann.test.library.demo.load;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Demo工作負載
+ * 每種工作的結果都折入回傳的checksum並寫進HTTP回應，JIT無法證明結果未被使用，因此不會消除迴圈；
+ * 計時由呼叫端以System.nanoTime()負責
+ */
+@Component
+public class DemoWorkload {
+
+    public static final int DEFAULT_CPU_ITERATIONS = 20_000;
+    public static final int DEFAULT_ALLOCATION_KB = 256;
+    public static final int DEFAULT_IO_MILLIS = 5;
+
+    /**
+     * MIXED中CPU、配置、阻塞I/O的累積比例 (60% / 25% / 15%)
+     */
+    private static final int MIXED_CPU_PERCENT = 60;
+    private static final int MIXED_ALLOCATION_PERCENT = 85;
+
+    private static final int ALLOCATION_CHUNK_BYTES = 1024;
+
+    /**
+     * 執行一次工作
+     *
+     * @param profile 工作負載類型
+     * @param units   工作量，非正值表示使用該類型的預設值 (MIXED一律使用預設值)
+     * @return 工作結果的checksum
+     */
+    public long run(WorkloadProfile profile, int units) {
+        switch (profile) {
+            case CPU:
+                return cpu(units > 0 ? units : DEFAULT_CPU_ITERATIONS);
+            case ALLOCATION:
+                return allocate(units > 0 ? units : DEFAULT_ALLOCATION_KB);
+            case BLOCKING_IO:
+                return block(units > 0 ? units : DEFAULT_IO_MILLIS);
+            case MIXED:
+                int dice = ThreadLocalRandom.current().nextInt(100);
+                if (dice < MIXED_CPU_PERCENT) {
+                    return cpu(DEFAULT_CPU_ITERATIONS);
+                }
+                return dice < MIXED_ALLOCATION_PERCENT ? allocate(DEFAULT_ALLOCATION_KB) : block(DEFAULT_IO_MILLIS);
+            default:
+                throw new IllegalArgumentException("Unknown workload profile: " + profile);
+        }
+    }
+
+    /**
+     * 以請求相關的種子做浮點與整數混合運算，每次迭代依賴上一次結果
+     */
+    private static long cpu(int iterations) {
+        long state = ThreadLocalRandom.current().nextLong() | 1L;
+        double accumulator = 0;
+        for (int i = 0; i < iterations; i++) {
+            state ^= state << 13;
+            state ^= state >>> 7;
+            state ^= state << 17;
+            accumulator += Math.sqrt((double) (state & 0xFFFFF));
+        }
+        return state ^ Double.doubleToLongBits(accumulator);
+    }
+
+    /**
+     * 配置kilobytes個1KB陣列並寫入內容，陣列在方法結束後即成為垃圾
+     */
+    private static long allocate(int kilobytes) {
+        long checksum = 0;
+        byte seed = (byte) ThreadLocalRandom.current().nextInt();
+        for (int i = 0; i < kilobytes; i++) {
+            byte[] chunk = new byte[ALLOCATION_CHUNK_BYTES];
+            chunk[i % ALLOCATION_CHUNK_BYTES] = seed;
+            chunk[ALLOCATION_CHUNK_BYTES - 1] = (byte) i;
+            checksum = checksum * 31 + chunk[i % ALLOCATION_CHUNK_BYTES] + chunk[ALLOCATION_CHUNK_BYTES - 1];
+        }
+        return checksum;
+    }
+
+    /**
+     * 阻塞執行緒等待指定時間，模擬同步呼叫下游服務
+     */
+    private static long block(int millis) {
+        long start = System.nanoTime();
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+[004][負載測試]LoadGenerator
+功能說明: 開放迴路(open-loop)固定到達率的HTTP負載產生器，校正協調遺漏並以nanoTime量測
+Input: LoadTestPlan、目標端點URI
+Output: LoadTestReport (校正前後的延遲分佈、成功/失敗數、實際到達率)
+*/
+package com.jamestann.test.library.demo.load;
+
+import com.jamestann.test.library.actuator.EndpointLatencyRecorder;
+import com.jamestann.test.library.metrics.LogLinearHistogram;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 負載產生器
+ * <p>
+ * 第i個請求排定在 start + i * interval 送出，不等待前一個回應 (開放迴路)，
+ * 因此伺服器變慢時到達率不會跟著下降。進行中請求達到maxInFlight時送出會延後，
+ * 但延遲仍從排定時間起算，避免封閉迴路測試常見的協調遺漏 (只量到「有機會送出」的請求)。
+ * <p>
+ * 延遲以System.nanoTime()量測並以微秒記錄到與Library相同桶配置的LogLinearHistogram
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private final HttpClient client;
+
+    public LoadGenerator() {
+        this(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build());
+    }
+
+    public LoadGenerator(HttpClient client) {
+        this.client = client;
+    }
+
+    /**
+     * 執行暖機與量測 (阻塞直到所有請求完成或逾時)
+     *
+     * @param plan   測試計畫
+     * @param target 目標端點
+     * @return 量測階段的報告
+     */
+    public LoadTestReport run(LoadTestPlan plan, URI target) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(target).timeout(plan.getRequestTimeout()).GET().build();
+        if (!plan.getWarmup().isZero()) {
+            log.info("Warming up {} at {} req/s for {}", target, plan.getRatePerSecond(), plan.getWarmup());
+            new Phase(plan).run(request, plan.getWarmup());
+        }
+        log.info("Measuring {} at {} req/s for {}", target, plan.getRatePerSecond(), plan.getDuration());
+        Phase phase = new Phase(plan);
+        long elapsed = phase.run(request, plan.getDuration());
+        return new LoadTestReport(plan, phase.sent, phase.completed.sum(), phase.failed.sum(), elapsed,
+                phase.responseTime, phase.serviceTime, phase.responseTimeSumMicros.sum());
+    }
+
+    /**
+     * 單一階段 (暖機或量測) 的計數與直方圖
+     */
+    private final class Phase {
+        private final LoadTestPlan plan;
+        private final Semaphore inFlight;
+        private final LogLinearHistogram responseTime = EndpointLatencyRecorder.newLatencyHistogram();
+        private final LogLinearHistogram serviceTime = EndpointLatencyRecorder.newLatencyHistogram();
+        private final LongAdder responseTimeSumMicros = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private long sent;
+
+        private Phase(LoadTestPlan plan) {
+            this.plan = plan;
+            this.inFlight = new Semaphore(plan.getMaxInFlight());
+        }
+
+        /**
+         * @return 從第一個排定時間到最後一個回應的奈秒數
+         */
+        private long run(HttpRequest request, Duration duration) throws InterruptedException {
+            long interval = plan.getIntervalNanos();
+            long start = System.nanoTime();
+            long end = start + duration.toNanos();
+            for (long intended = start; intended - end < 0; intended += interval) {
+                long wait = intended - System.nanoTime();
+                while (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                    wait = intended - System.nanoTime();
+                }
+                inFlight.acquire();
+                send(request, intended);
+                sent++;
+            }
+            long drainTimeout = plan.getRequestTimeout().toNanos() + TimeUnit.SECONDS.toNanos(1);
+            if (!inFlight.tryAcquire(plan.getMaxInFlight(), drainTimeout, TimeUnit.NANOSECONDS)) {
+                log.warn("{} requests still in flight after {}ms", plan.getMaxInFlight() - inFlight.availablePermits(),
+                        TimeUnit.NANOSECONDS.toMillis(drainTimeout));
+            }
+            return System.nanoTime() - start;
+        }
+
+        private void send(HttpRequest request, long intended) {
+            long sentAt = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long now = System.nanoTime();
+                try {
+                    if (error != null || response.statusCode() >= 400) {
+                        failed.increment();
+                        return;
+                    }
+                    long responseMicros = TimeUnit.NANOSECONDS.toMicros(now - intended);
+                    responseTime.record(responseMicros);
+                    serviceTime.record(TimeUnit.NANOSECONDS.toMicros(now - sentAt));
+                    responseTimeSumMicros.add(responseMicros);
+                    completed.increment();
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+}
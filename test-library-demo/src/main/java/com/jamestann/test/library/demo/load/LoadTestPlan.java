@@ -0,0 +1,84 @@
+/*
+[004][負載測試]LoadTestPlan
+功能說明: 一次開放迴路負載測試的參數
+Input: 目標工作負載、到達率、持續/暖機時間、進行中請求上限、請求逾時
+Output: 不可變的測試計畫
+*/
+package com.jamestann.test.library.demo.load;
+
+import java.time.Duration;
+
+/**
+ * 負載測試計畫
+ */
+public class LoadTestPlan {
+
+    private final WorkloadProfile profile;
+    private final int units;
+    private final int ratePerSecond;
+    private final Duration duration;
+    private final Duration warmup;
+    private final int maxInFlight;
+    private final Duration requestTimeout;
+
+    /**
+     * @param profile        工作負載類型
+     * @param units          每個請求的工作量，非正值表示使用預設值
+     * @param ratePerSecond  固定到達率 (每秒請求數)
+     * @param duration       量測時間
+     * @param warmup         暖機時間 (同樣到達率，結果不計入報告)
+     * @param maxInFlight    進行中請求上限，達到上限時延後送出 (延後的時間計入校正後延遲)
+     * @param requestTimeout 單一請求逾時
+     */
+    public LoadTestPlan(WorkloadProfile profile, int units, int ratePerSecond, Duration duration, Duration warmup,
+            int maxInFlight, Duration requestTimeout) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond must be positive: " + ratePerSecond);
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.profile = profile;
+        this.units = units;
+        this.ratePerSecond = ratePerSecond;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.maxInFlight = maxInFlight;
+        this.requestTimeout = requestTimeout;
+    }
+
+    public WorkloadProfile getProfile() {
+        return profile;
+    }
+
+    public int getUnits() {
+        return units;
+    }
+
+    public int getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * @return 請求間隔 (奈秒)
+     */
+    public long getIntervalNanos() {
+        return 1_000_000_000L / ratePerSecond;
+    }
+}
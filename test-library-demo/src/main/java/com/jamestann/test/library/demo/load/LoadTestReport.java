@@ -0,0 +1,143 @@
+/*
+[004][負載測試]LoadTestReport
+功能說明: 負載測試結果，含協調遺漏(coordinated omission)校正前後的延遲百分位數與HdrHistogram格式的分佈
+Input: LoadGenerator量測的延遲直方圖與計數
+Output: JSON回應用的不可變報告
+*/
+package com.jamestann.test.library.demo.load;
+
+import com.jamestann.test.library.metrics.LogLinearHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 負載測試報告
+ * <p>
+ * responseTime從排定的送出時間開始計算 (校正協調遺漏)：伺服器變慢導致請求延後送出時，延後的時間也算在延遲內；
+ * serviceTime從實際送出開始計算，只反映伺服器處理時間。兩者差距越大表示負載產生器曾被拖慢。
+ * 延遲單位為微秒，percentileDistribution與HdrHistogram的outputPercentileDistribution相同格式 (毫秒)
+ */
+public class LoadTestReport {
+
+    private static final double[] SUMMARY_PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99, 100.0};
+    private static final String[] SUMMARY_LABELS = {"p50", "p90", "p99", "p99.9", "p99.99", "max"};
+
+    /**
+     * 每個「到尾端距離減半」的區間輸出的列數 (HdrHistogram預設值)
+     */
+    private static final int TICKS_PER_HALF_DISTANCE = 5;
+
+    private final LoadTestPlan plan;
+    private final long sent;
+    private final long completed;
+    private final long failed;
+    private final double achievedRatePerSecond;
+    private final Map<String, Long> responseTimeMicros;
+    private final Map<String, Long> serviceTimeMicros;
+    private final double meanResponseTimeMicros;
+    private final String percentileDistribution;
+
+    public LoadTestReport(LoadTestPlan plan, long sent, long completed, long failed, long elapsedNanos,
+            LogLinearHistogram responseTime, LogLinearHistogram serviceTime, long responseTimeSumMicros) {
+        this.plan = plan;
+        this.sent = sent;
+        this.completed = completed;
+        this.failed = failed;
+        this.achievedRatePerSecond = elapsedNanos <= 0 ? 0 : completed * 1_000_000_000.0 / elapsedNanos;
+        this.responseTimeMicros = summarize(responseTime);
+        this.serviceTimeMicros = summarize(serviceTime);
+        long count = responseTime.getTotalCount();
+        this.meanResponseTimeMicros = count == 0 ? 0 : (double) responseTimeSumMicros / count;
+        this.percentileDistribution = distribution(responseTime, meanResponseTimeMicros);
+    }
+
+    public WorkloadProfile getProfile() {
+        return plan.getProfile();
+    }
+
+    public int getTargetRatePerSecond() {
+        return plan.getRatePerSecond();
+    }
+
+    public double getAchievedRatePerSecond() {
+        return achievedRatePerSecond;
+    }
+
+    public long getDurationSeconds() {
+        return plan.getDuration().getSeconds();
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public Map<String, Long> getResponseTimeMicros() {
+        return responseTimeMicros;
+    }
+
+    public Map<String, Long> getServiceTimeMicros() {
+        return serviceTimeMicros;
+    }
+
+    public double getMeanResponseTimeMicros() {
+        return meanResponseTimeMicros;
+    }
+
+    public String getPercentileDistribution() {
+        return percentileDistribution;
+    }
+
+    private static Map<String, Long> summarize(LogLinearHistogram histogram) {
+        long[] values = new long[SUMMARY_PERCENTILES.length];
+        histogram.getValuesAtPercentiles(SUMMARY_PERCENTILES, values);
+        Map<String, Long> summary = new LinkedHashMap<>();
+        for (int i = 0; i < SUMMARY_LABELS.length; i++) {
+            summary.put(SUMMARY_LABELS[i], values[i]);
+        }
+        return summary;
+    }
+
+    /**
+     * 以HdrHistogram的百分位數迭代方式輸出分佈：越接近尾端列越密
+     */
+    static String distribution(LogLinearHistogram histogram, double meanMicros) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.ROOT, "%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount",
+                "1/(1-Percentile)"));
+        long total = histogram.getTotalCount();
+        if (total == 0) {
+            return builder.toString();
+        }
+        double percentile = 0;
+        while (true) {
+            long value = histogram.getValueAtPercentile(percentile);
+            long countAt = Math.max(1L, (long) Math.ceil(percentile / 100.0 * total));
+            if (percentile >= 100.0) {
+                builder.append(String.format(Locale.ROOT, "%12.3f %1.12f %10d%n", value / 1000.0, 1.0, total));
+                break;
+            }
+            builder.append(String.format(Locale.ROOT, "%12.3f %1.12f %10d %14.2f%n", value / 1000.0,
+                    percentile / 100.0, countAt, 1.0 / (1.0 - percentile / 100.0)));
+            double halfDistance = Math.pow(2, Math.floor(Math.log(100.0 / (100.0 - percentile)) / Math.log(2)) + 1);
+            percentile += 100.0 / (halfDistance * TICKS_PER_HALF_DISTANCE);
+            if (countAt >= total || percentile / 100.0 * total >= total - 0.5) {
+                percentile = 100.0;
+            }
+        }
+        builder.append(String.format(Locale.ROOT, "#[Mean    = %12.3f, Max            = %12.3f]%n", meanMicros / 1000.0,
+                histogram.getValueAtPercentile(100.0) / 1000.0));
+        builder.append(String.format(Locale.ROOT, "#[Total count    = %12d, SubBuckets = %d]%n", total,
+                1 << histogram.getSubBucketBits()));
+        return builder.toString();
+    }
+}
@@ -0,0 +1,42 @@
+/*
+[004][負載測試]WorkloadProfile
+功能說明: Demo工作負載類型 (CPU、配置、阻塞I/O、混合)
+Input: 無
+Output: 工作負載類型與其對應的Demo端點路徑
+*/
+package com.jamestann.test.library.demo.load;
+
+/**
+ * 工作負載類型
+ */
+public enum WorkloadProfile {
+    /**
+     * 純CPU運算 (units = 迭代次數)
+     */
+    CPU("cpu"),
+    /**
+     * 配置短命物件 (units = 配置的KB數)
+     */
+    ALLOCATION("allocation"),
+    /**
+     * 阻塞等待，模擬下游呼叫 (units = 等待毫秒數)
+     */
+    BLOCKING_IO("io"),
+    /**
+     * 依固定比例隨機混合以上三種 (各類型使用預設units)
+     */
+    MIXED("mixed");
+
+    private final String path;
+
+    WorkloadProfile(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @return WorkloadController下的端點路徑片段
+     */
+    public String getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+[004][負載測試]LoadGeneratorTest
+功能說明: 以隨機埠啟動Demo應用程式，驗證開放迴路負載產生器的計數、延遲分佈與Library端點SLI
+Input: 短時間、低到達率的CPU/阻塞I/O負載
+Output: 負載測試報告驗證結果
+*/
+package com.jamestann.test.library.demo.load;
+
+import com.jamestann.test.library.actuator.LibrarySLICollector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class LoadGeneratorTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private LibrarySLICollector librarySLICollector;
+
+    @Test
+    void shouldDriveConstantRateLoadThroughMonitoredEndpoint() throws InterruptedException {
+        LoadTestPlan plan = new LoadTestPlan(WorkloadProfile.BLOCKING_IO, 2, 50, Duration.ofSeconds(1), Duration.ZERO,
+                16, Duration.ofSeconds(5));
+
+        LoadTestReport report = new LoadGenerator().run(plan, URI.create("http://localhost:" + port + "/api/workload/io?units=2"));
+
+        assertThat(report.getSent()).isEqualTo(50);
+        assertThat(report.getCompleted()).isEqualTo(50);
+        assertThat(report.getFailed()).isZero();
+        assertThat(report.getServiceTimeMicros().get("p50")).isGreaterThanOrEqualTo(2_000);
+        assertThat(report.getResponseTimeMicros().get("max"))
+                .isGreaterThanOrEqualTo(report.getServiceTimeMicros().get("p50"));
+        assertThat(report.getPercentileDistribution()).contains("Percentile", "#[Total count    =           50");
+        assertThat(librarySLICollector.recorderFor("GET /api/workload/io").getRequestCount()).isEqualTo(50);
+    }
+}